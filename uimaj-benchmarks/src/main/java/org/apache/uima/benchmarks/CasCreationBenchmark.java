@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndexRepository;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSIndexRepositoryImpl;
+import org.apache.uima.cas.impl.LowLevelIndexRepository;
+import org.apache.uima.cas.impl.LowLevelTypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating feature structures and adding them to the indexes
+ * (CASImpl.createFS / CASImpl.addFsToIndexes), through both the JCas-free high level API
+ * and the low level API.
+ * <p>
+ * Each invocation resets the CAS and creates {@link #FS_PER_INVOCATION} Tokens; the tokens are
+ * created in increasing offset order (the cheap, append-only case for sorted indexes) and, in the
+ * "reversed" variants, in decreasing order (the insert-in-the-middle case). The "addAll" variant
+ * adds the reversed tokens with one FSIndexRepositoryImpl.ll_addAllFS call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasCreationBenchmark {
+
+  static final int FS_PER_INVOCATION = 10000;
+
+  private CAS cas;
+
+  private Type tokenType;
+
+  private Feature posFeat;
+
+  private CASImpl llCas;
+
+  private int tokenTypeCode;
+
+  private int posFeatCode;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    posFeat = tokenType.getFeatureByBaseName(SyntheticCorpus.FEAT_POS);
+    llCas = (CASImpl) cas.getLowLevelCAS();
+    LowLevelTypeSystem llts = llCas.ll_getTypeSystem();
+    tokenTypeCode = llts.ll_getCodeForType(tokenType);
+    posFeatCode = llts.ll_getCodeForFeature(posFeat);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS createFs() {
+    cas.reset();
+    for (int i = 0; i < FS_PER_INVOCATION; i++) {
+      AnnotationFS t = cas.createAnnotation(tokenType, i * 2, i * 2 + 1);
+      t.setStringValue(posFeat, "NN");
+    }
+    return cas;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS createAndIndexFs() {
+    cas.reset();
+    final FSIndexRepository ir = cas.getIndexRepository();
+    for (int i = 0; i < FS_PER_INVOCATION; i++) {
+      AnnotationFS t = cas.createAnnotation(tokenType, i * 2, i * 2 + 1);
+      t.setStringValue(posFeat, "NN");
+      ir.addFS(t);
+    }
+    return cas;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS createAndIndexFsReversed() {
+    cas.reset();
+    final FSIndexRepository ir = cas.getIndexRepository();
+    for (int i = FS_PER_INVOCATION - 1; i >= 0; i--) {
+      AnnotationFS t = cas.createAnnotation(tokenType, i * 2, i * 2 + 1);
+      t.setStringValue(posFeat, "NN");
+      ir.addFS(t);
+    }
+    return cas;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS llCreateAndIndexFs() {
+    cas.reset();
+    final LowLevelIndexRepository ir = llCas.ll_getIndexRepository();
+    for (int i = 0; i < FS_PER_INVOCATION; i++) {
+      final int fs = llCas.ll_createAnnotation(tokenTypeCode, i * 2, i * 2 + 1);
+      llCas.ll_setStringValue(fs, posFeatCode, "NN");
+      ir.ll_addFS(fs);
+    }
+    return cas;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS llCreateAndIndexFsReversed() {
+    cas.reset();
+    final LowLevelIndexRepository ir = llCas.ll_getIndexRepository();
+    for (int i = FS_PER_INVOCATION - 1; i >= 0; i--) {
+      final int fs = llCas.ll_createAnnotation(tokenTypeCode, i * 2, i * 2 + 1);
+      llCas.ll_setStringValue(fs, posFeatCode, "NN");
+      ir.ll_addFS(fs);
+    }
+    return cas;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FS_PER_INVOCATION)
+  public CAS llCreateAndAddAllFsReversed() {
+    cas.reset();
+    final FSIndexRepositoryImpl ir = (FSIndexRepositoryImpl) llCas.ll_getIndexRepository();
+    final int[] fss = new int[FS_PER_INVOCATION];
+    for (int i = FS_PER_INVOCATION - 1; i >= 0; i--) {
+      final int fs = llCas.ll_createAnnotation(tokenTypeCode, i * 2, i * 2 + 1);
+      llCas.ll_setStringValue(fs, posFeatCode, "NN");
+      fss[FS_PER_INVOCATION - 1 - i] = fs;
+    }
+    ir.ll_addAllFS(fss, 0, fss.length);
+    return cas;
+  }
+}
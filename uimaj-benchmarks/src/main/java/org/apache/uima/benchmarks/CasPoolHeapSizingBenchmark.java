@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.ResourceSpecifierFactory;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.HeapAccess;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexCollection;
+import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
+import org.apache.uima.util.CasPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures processing a stream of mixed-size documents with a CasPool: each invocation checks
+ * out a CAS, fills it with a document, and releases it.  One document in 50 is big, the others
+ * small.  The pool sizes its CASes with a shared CasHeapSizingPolicy, or, with the JVM property
+ * uima.disable_cas_pool_heap_sizing, each CAS shrinks its heaps step by step after 20 small
+ * documents.  The average main heap capacity of the released CASes is printed at the end of
+ * each trial, as the time alone doesn't show the memory held.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasPoolHeapSizingBenchmark {
+
+  private static final int SMALL_TOKENS = 500;
+
+  private static final int BIG_TOKENS = 100000;
+
+  private static final int BIG_EVERY = 50;
+
+  private CasPool pool;
+
+  private int docNbr;
+
+  private long totalCapacity;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    ResourceSpecifierFactory factory = UIMAFramework.getResourceSpecifierFactory();
+    ProcessingResourceMetaData md = factory.createProcessingResourceMetaData();
+    md.setTypeSystem(SyntheticCorpus.createTypeSystemDescription());
+    FsIndexCollection indexes = factory.createFsIndexCollection();
+    indexes.setFsIndexes(SyntheticCorpus.createIndexDescriptions());
+    md.setFsIndexCollection(indexes);
+    pool = new CasPool(1, md);
+    docNbr = 0;
+    totalCapacity = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.out.format("%n  average main heap capacity after release: %,d cells%n",
+        totalCapacity / Math.max(1, docNbr));
+  }
+
+  @Benchmark
+  public CAS poolSized() {
+    return processDocument();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Duima.disable_cas_pool_heap_sizing")
+  public CAS perCasShrink() {
+    return processDocument();
+  }
+
+  private CAS processDocument() {
+    final CAS cas = pool.getCas(0);
+    SyntheticCorpus.populate(cas, (++docNbr % BIG_EVERY == 0) ? BIG_TOKENS : SMALL_TOKENS);
+    pool.releaseCas(cas);
+    totalCapacity += HeapAccess.getHeapSize(cas);
+    return cas;
+  }
+}
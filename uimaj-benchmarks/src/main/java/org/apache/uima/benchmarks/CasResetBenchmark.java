@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures processing a stream of small documents with one CAS: each invocation resets the CAS
+ * and fills it with a document of {@link #numTokens} tokens, with normal and lightweight resets
+ * (CASImpl.setLightweightReset).  The CAS first holds one big document, as pooled CASes do after
+ * an occasional big one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasResetBenchmark {
+
+  @Param({ "200", "5000" })
+  public int numTokens;
+
+  @Param({ "false", "true" })
+  public boolean lightweight;
+
+  private CAS cas;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    ((CASImpl) cas).setLightweightReset(lightweight);
+    SyntheticCorpus.populate(cas, 200000);
+  }
+
+  @Benchmark
+  public CAS resetAndFill() {
+    cas.reset();
+    SyntheticCorpus.populate(cas, numTokens);
+    return cas;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypeDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures CasCreationUtils.createCas for a type system with many types, as when filling a CasPool:
+ * from the descriptions, and reusing a type system as CasManager_impl does.
+ * <p>
+ * The "Cached" variants enable the cas_template_cache_enabled performance tuning setting, so all
+ * but the first CAS share the type system and index definitions of the first; otherwise every
+ * CAS is set up from the descriptions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasTemplateBenchmark {
+
+  @Param({ "50", "1000" })
+  public int numTypes;
+
+  private TypeSystemDescription tsd;
+
+  private FsIndexDescription[] indexes;
+
+  private TypeSystem typeSystem;
+
+  private Properties cacheEnabled;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    tsd = SyntheticCorpus.createTypeSystemDescription();
+    for (int i = 0; i < numTypes; i++) {
+      TypeDescription type = tsd.addType("org.apache.uima.benchmarks.Extra" + i, "",
+          (i % 2 == 0) ? CAS.TYPE_NAME_ANNOTATION : SyntheticCorpus.TYPE_TOKEN);
+      type.addFeature("count", "", CAS.TYPE_NAME_INTEGER);
+      type.addFeature("label", "", CAS.TYPE_NAME_STRING);
+    }
+    indexes = SyntheticCorpus.createIndexDescriptions();
+    typeSystem = CasCreationUtils.createCas(tsd, null, indexes).getTypeSystem();
+    cacheEnabled = new Properties();
+    cacheEnabled.setProperty(UIMAFramework.CAS_TEMPLATE_CACHE_ENABLED, "true");
+  }
+
+  @Benchmark
+  public CAS fromDescriptions() throws ResourceInitializationException {
+    return CasCreationUtils.createCas(tsd, null, indexes);
+  }
+
+  @Benchmark
+  public CAS fromDescriptionsCached() throws ResourceInitializationException {
+    return CasCreationUtils.createCas(tsd, null, indexes, cacheEnabled);
+  }
+
+  @Benchmark
+  public CAS withTypeSystem() throws ResourceInitializationException {
+    return CasCreationUtils.createCas(typeSystem, null, indexes, null);
+  }
+
+  @Benchmark
+  public CAS withTypeSystemCached() throws ResourceInitializationException {
+    return CasCreationUtils.createCas(typeSystem, null, indexes, cacheEnabled);
+  }
+}
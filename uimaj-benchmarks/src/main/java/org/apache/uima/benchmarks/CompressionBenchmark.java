@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.BinaryCasSerDes6;
+import org.apache.uima.cas.impl.CompressionProfile;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasIOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures form 6 serialization and deserialization with each compression profile.
+ * <p>
+ * The serialized size is printed once during setup, so size and speed can be compared from the
+ * same run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+  @Param({ "1000", "100000" })
+  public int numTokens;
+
+  @Param({ "DEFLATE", "FAST", "STORE" })
+  public String profile;
+
+  private CompressionProfile compressionProfile;
+
+  private CAS source;
+
+  private CAS target;
+
+  private ByteArrayOutputStream out;
+
+  private byte[] serialized;
+
+  @Setup
+  public void setup() throws ResourceInitializationException, IOException {
+    compressionProfile = "FAST".equals(profile) ? CompressionProfile.FAST
+        : "STORE".equals(profile) ? CompressionProfile.STORE : null;
+    source = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(source, numTokens);
+    target = SyntheticCorpus.createCas();
+    out = new ByteArrayOutputStream(numTokens * 64);
+    serialized = save().toByteArray();
+    System.out.format("%n%s, %,d tokens: %,d bytes%n", profile, numTokens, serialized.length);
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream save() throws ResourceInitializationException, IOException {
+    out.reset();
+    BinaryCasSerDes6 bcs = new BinaryCasSerDes6(source);
+    bcs.setCompressionProfile(compressionProfile);
+    bcs.serialize(out);
+    return out;
+  }
+
+  @Benchmark
+  public CAS load() throws IOException {
+    target.reset();
+    CasIOUtils.load(new ByteArrayInputStream(serialized), target);
+    return target;
+  }
+}
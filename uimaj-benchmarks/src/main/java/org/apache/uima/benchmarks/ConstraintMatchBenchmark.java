@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.ConstraintFactory;
+import org.apache.uima.cas.FSFloatConstraint;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FSMatchConstraint;
+import org.apache.uima.cas.FSStringConstraint;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filters the whole annotation index, with sentences, tokens and entities mixed, by
+ * "pos = NN | confidence &gt; 0.8", either with the constraint factory's constraints, which match
+ * on FS addresses with cached feature codes, or with an equivalent constraint written against the
+ * FS API, looking up the features by name for each FS as the factory's constraints used to.
+ * Use -prof gc to compare the allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintMatchBenchmark {
+
+  @Param({ "10000", "100000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private FSMatchConstraint factoryConstraint;
+
+  private FSMatchConstraint byNameConstraint;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+
+    ConstraintFactory cf = cas.getConstraintFactory();
+    FSStringConstraint nn = cf.createStringConstraint();
+    nn.equals("NN");
+    FSFloatConstraint above = cf.createFloatConstraint();
+    above.gt(0.8f);
+    factoryConstraint = cf.or(cf.embedConstraint(path(SyntheticCorpus.FEAT_POS), nn),
+        cf.embedConstraint(path(SyntheticCorpus.FEAT_CONFIDENCE), above));
+
+    byNameConstraint = new FSMatchConstraint() {
+      private static final long serialVersionUID = 1L;
+
+      public boolean match(FeatureStructure fs) {
+        Feature pos = fs.getType().getFeatureByBaseName(SyntheticCorpus.FEAT_POS);
+        if (pos != null && "NN".equals(fs.getStringValue(pos))) {
+          return true;
+        }
+        Feature confidence = fs.getType().getFeatureByBaseName(SyntheticCorpus.FEAT_CONFIDENCE);
+        return confidence != null && fs.getFloatValue(confidence) > 0.8f;
+      }
+    };
+  }
+
+  private static ArrayList<String> path(String featureName) {
+    ArrayList<String> path = new ArrayList<String>();
+    path.add(featureName);
+    return path;
+  }
+
+  @Benchmark
+  public void factoryConstraint(Blackhole bh) {
+    filter(factoryConstraint, bh);
+  }
+
+  @Benchmark
+  public void byNameConstraint(Blackhole bh) {
+    filter(byNameConstraint, bh);
+  }
+
+  private void filter(FSMatchConstraint cons, Blackhole bh) {
+    FSIterator<AnnotationFS> it = cas.createFilteredIterator(cas.getAnnotationIndex().iterator(), cons);
+    for (; it.isValid(); it.moveToNext()) {
+      bh.consume(it.get());
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Marker;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sending the updates of a CAS whose annotations keep arriving, as for a streaming
+ * transcript: each invocation adds {@link #TOKENS_PER_UPDATE} tokens to a CAS holding
+ * {@link #numTokens} tokens, and sends either the whole CAS, or a chained delta with only the
+ * changes since the previous update (Serialization.serializeDeltaAndAdvance and its form 4
+ * variant).  The average size sent per update is printed at the end of each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaStreamBenchmark {
+
+  private static final int TOKENS_PER_UPDATE = 5;
+
+  @Param({ "10000", "100000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private Marker mark;
+
+  private Type tokenType;
+
+  private int docLength;
+
+  private int nextBegin;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  private long nbrUpdates;
+
+  private long bytesSent;
+
+  @Setup(Level.Iteration)
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    docLength = cas.getDocumentText().length();
+    mark = cas.createMarker();
+    nextBegin = 0;
+    nbrUpdates = 0;
+    bytesSent = 0;
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    System.out.format("  %,d bytes per update%n", bytesSent / Math.max(1, nbrUpdates));
+  }
+
+  @Benchmark
+  public int sendWhole() {
+    update();
+    Serialization.serializeCAS(cas, out);
+    return sent();
+  }
+
+  @Benchmark
+  public int sendDelta() {
+    update();
+    Serialization.serializeDeltaAndAdvance(cas, out, mark);
+    return sent();
+  }
+
+  @Benchmark
+  public int sendWholeCompressed() throws IOException {
+    update();
+    Serialization.serializeWithCompression(cas, out);
+    return sent();
+  }
+
+  @Benchmark
+  public int sendDeltaCompressed() throws IOException {
+    update();
+    Serialization.serializeDeltaAndAdvanceWithCompression(cas, out, mark);
+    return sent();
+  }
+
+  private void update() {
+    for (int i = 0; i < TOKENS_PER_UPDATE; i++) {
+      AnnotationFS t = cas.createAnnotation(tokenType, nextBegin, nextBegin + 3);
+      cas.addFsToIndexes(t);
+      nextBegin = (nextBegin + 7) % (docLength - 3);
+    }
+  }
+
+  private int sent() {
+    final int size = out.size();
+    out.reset();
+    nbrUpdates++;
+    bytesSent += size;
+    return size;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.FsIndexKeyDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares FSIndex.find by an entity id on a set index and on a hash index with the same key,
+ * as entity linking does. Each operation is one lookup of a random id.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashIndexBenchmark {
+
+  private static final String INDEX_ENTITY_SET = "EntitySet";
+
+  private static final String INDEX_ENTITY_HASH = "EntityHash";
+
+  @Param({ "1000", "100000" })
+  public int numEntities;
+
+  @Param({ INDEX_ENTITY_SET, INDEX_ENTITY_HASH })
+  public String indexName;
+
+  private FSIndex<FeatureStructure> index;
+
+  private FeatureStructure template;
+
+  private Feature idFeat;
+
+  private final Random random = new Random(42);
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    FsIndexKeyDescription id = UIMAFramework.getResourceSpecifierFactory().createFsIndexKeyDescription();
+    id.setFeatureName(SyntheticCorpus.FEAT_ENTITY_ID);
+    id.setComparator(FsIndexKeyDescription.STANDARD_COMPARE);
+    FsIndexDescription set = UIMAFramework.getResourceSpecifierFactory().createFsIndexDescription();
+    set.setLabel(INDEX_ENTITY_SET);
+    set.setTypeName(SyntheticCorpus.TYPE_NAMED_ENTITY);
+    set.setKind(FsIndexDescription.KIND_SET);
+    set.setKeys(new FsIndexKeyDescription[] { id });
+    FsIndexDescription hash = UIMAFramework.getResourceSpecifierFactory().createFsIndexDescription();
+    hash.setLabel(INDEX_ENTITY_HASH);
+    hash.setTypeName(SyntheticCorpus.TYPE_NAMED_ENTITY);
+    hash.setKind(FsIndexDescription.KIND_HASH);
+    hash.setKeys(new FsIndexKeyDescription[] { id });
+
+    CAS cas = CasCreationUtils.createCas(SyntheticCorpus.createTypeSystemDescription(), null,
+        new FsIndexDescription[] { set, hash });
+    cas.setDocumentText("entities");
+    Type neType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_NAMED_ENTITY);
+    idFeat = neType.getFeatureByBaseName(SyntheticCorpus.FEAT_ENTITY_ID);
+    for (int i = 0; i < numEntities; i++) {
+      FeatureStructure e = cas.createAnnotation(neType, 0, 8);
+      e.setIntValue(idFeat, i * 7);
+      cas.addFsToIndexes(e);
+    }
+    index = cas.getIndexRepository().getIndex(indexName);
+    template = cas.createFS(neType);
+  }
+
+  @Benchmark
+  public void find(Blackhole bh) {
+    template.setIntValue(idFeat, random.nextInt(numEntities) * 7);
+    bh.consume(index.find(template));
+  }
+}
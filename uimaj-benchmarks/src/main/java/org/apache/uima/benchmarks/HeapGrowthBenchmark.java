@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.HeapAccess;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasCreationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures filling a fresh CAS (so all heap growth happens inside the measurement) under
+ * different settings of {@link UIMAFramework#CAS_HEAP_GROWTH_LIMIT}.
+ * <p>
+ * Run with <code>-prof gc</code>: <code>gc.alloc.rate.norm</code> is the number of bytes
+ * allocated per document, which is dominated by the heap copies made while growing. The heap
+ * capacity reached, i.e. the memory retained by the CAS, is printed after each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HeapGrowthBenchmark {
+
+  @Param({ "1000000" })
+  public int numTokens;
+
+  /** 16777216 is the built-in default */
+  @Param({ "16777216", "1048576", "262144" })
+  public int growthLimit;
+
+  private Properties perfSettings;
+
+  private CAS cas;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    perfSettings = UIMAFramework.getDefaultPerformanceTuningProperties();
+    perfSettings.setProperty(UIMAFramework.CAS_HEAP_GROWTH_LIMIT, Integer.toString(growthLimit));
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() throws ResourceInitializationException {
+    cas = CasCreationUtils.createCas(SyntheticCorpus.createTypeSystemDescription(), null,
+        SyntheticCorpus.createIndexDescriptions(), perfSettings);
+  }
+
+  @TearDown(Level.Iteration)
+  public void reportCapacity() {
+    System.out.format(" [heap capacity: %,d cells]", HeapAccess.getHeapSize(cas));
+  }
+
+  @Benchmark
+  public CAS fillCas() {
+    SyntheticCorpus.populate(cas, numTokens);
+    return cas;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.LowLevelIndex;
+import org.apache.uima.cas.impl.LowLevelIterator;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures full forward iteration over the sorted, set and bag Token indexes of
+ * FSIndexRepositoryImpl, and over the built-in annotation index, which spans all annotation
+ * subtypes and so exercises the merging of the per-type leaf iterators.
+ * <p>
+ * While the indexes are unchanged, iterators over the annotation index reuse a merged array of the
+ * FSs; "iterateForwardMerging" turns this off (uima.disable_merged_sorted_iteration) for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexIterationBenchmark {
+
+  @Param({ "1000", "100000" })
+  public int numTokens;
+
+  @Param({ SyntheticCorpus.INDEX_TOKEN_SORTED, SyntheticCorpus.INDEX_TOKEN_SET,
+      SyntheticCorpus.INDEX_TOKEN_BAG, CAS.STD_ANNOTATION_INDEX })
+  public String indexName;
+
+  private CAS cas;
+
+  private FSIndex<FeatureStructure> index;
+
+  private LowLevelIndex llIndex;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    index = cas.getIndexRepository().getIndex(indexName);
+    llIndex = cas.getLowLevelCAS().ll_getIndexRepository().ll_getIndex(indexName);
+  }
+
+  @Benchmark
+  public void iterateForward(Blackhole bh) {
+    for (FSIterator<FeatureStructure> it = index.iterator(); it.isValid(); it.moveToNext()) {
+      bh.consume(it.get());
+    }
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Duima.disable_merged_sorted_iteration")
+  public void iterateForwardMerging(Blackhole bh) {
+    iterateForward(bh);
+  }
+
+  @Benchmark
+  public void iterateBackward(Blackhole bh) {
+    FSIterator<FeatureStructure> it = index.iterator();
+    for (it.moveToLast(); it.isValid(); it.moveToPrevious()) {
+      bh.consume(it.get());
+    }
+  }
+
+  @Benchmark
+  public int llIterateForward() {
+    int sum = 0;
+    for (LowLevelIterator it = llIndex.ll_iterator(); it.isValid(); it.moveToNext()) {
+      sum += it.ll_get();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int size() {
+    return index.size();
+  }
+}
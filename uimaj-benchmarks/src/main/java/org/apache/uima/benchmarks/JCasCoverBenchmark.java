@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.impl.LowLevelCAS;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.impl.JCasImpl;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Getting the JCas cover objects of all the annotations of a CAS, through the JCasHashMap:
+ * "cached" when they're all in the map already, "firstAccess" after clearing the map (so each is
+ * made and put), and "notCached" after clearing the map, with the cover objects not kept
+ * (JCasImpl.setCacheCoverObjectsInThread(false)).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JCasCoverBenchmark {
+
+  @Param({ "100000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private LowLevelCAS llCas;
+
+  private int[] addrs;
+
+  @Setup
+  public void setup() throws ResourceInitializationException, CASException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    JCas jcas = cas.getJCas();
+    llCas = jcas.getLowLevelCas();
+    addrs = new int[cas.getAnnotationIndex().size()];
+    int i = 0;
+    for (FSIterator<AnnotationFS> it = cas.getAnnotationIndex().iterator(); it.isValid(); it.moveToNext()) {
+      addrs[i++] = llCas.ll_getFSRef(it.get());
+    }
+  }
+
+  @Benchmark
+  public void cached(Blackhole bh) {
+    getAll(bh);
+  }
+
+  @Benchmark
+  public void firstAccess(Blackhole bh) {
+    JCasImpl.clearData(cas);
+    getAll(bh);
+  }
+
+  @Benchmark
+  public void notCached(Blackhole bh) {
+    JCasImpl.clearData(cas);
+    final boolean wasCaching = JCasImpl.setCacheCoverObjectsInThread(false);
+    try {
+      getAll(bh);
+    } finally {
+      JCasImpl.setCacheCoverObjectsInThread(wasCaching);
+    }
+  }
+
+  private void getAll(Blackhole bh) {
+    for (int addr : addrs) {
+      bh.consume(llCas.ll_getFSForRef(addr));
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.ConstraintFactory;
+import org.apache.uima.cas.FSFloatConstraint;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FSMatchConstraint;
+import org.apache.uima.cas.FSStringConstraint;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.FsIndexKeyDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares selecting FSs by a feature value with a FilteredIterator and a constraint (a scan)
+ * and with FSIndexRepository.getFSsWithKeyValue / getFSsInKeyRange on a sorted index keyed on
+ * the feature: the Tokens with pos "NN", and the entities with a confidence above 0.8.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyValueQueryBenchmark {
+
+  private static final String INDEX_TOKEN_POS = "TokenPos";
+
+  private static final String INDEX_ENTITY_CONFIDENCE = "EntityConfidence";
+
+  @Param({ "10000", "100000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private FSMatchConstraint posIsNN;
+
+  private FSMatchConstraint confidenceAbove08;
+
+  private Type tokenType;
+
+  private Type neType;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    FsIndexDescription[] corpusIndexes = SyntheticCorpus.createIndexDescriptions();
+    FsIndexDescription[] indexes = new FsIndexDescription[corpusIndexes.length + 2];
+    System.arraycopy(corpusIndexes, 0, indexes, 0, corpusIndexes.length);
+    indexes[corpusIndexes.length] = sortedIndex(INDEX_TOKEN_POS, SyntheticCorpus.TYPE_TOKEN, SyntheticCorpus.FEAT_POS);
+    indexes[corpusIndexes.length + 1] = sortedIndex(INDEX_ENTITY_CONFIDENCE, SyntheticCorpus.TYPE_NAMED_ENTITY,
+        SyntheticCorpus.FEAT_CONFIDENCE);
+    cas = CasCreationUtils.createCas(SyntheticCorpus.createTypeSystemDescription(), null, indexes);
+    SyntheticCorpus.populate(cas, numTokens);
+
+    tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    neType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_NAMED_ENTITY);
+    ConstraintFactory cf = cas.getConstraintFactory();
+    FSStringConstraint nn = cf.createStringConstraint();
+    nn.equals("NN");
+    posIsNN = cf.embedConstraint(path(SyntheticCorpus.FEAT_POS), nn);
+    FSFloatConstraint above = cf.createFloatConstraint();
+    above.gt(0.8f);
+    confidenceAbove08 = cf.embedConstraint(path(SyntheticCorpus.FEAT_CONFIDENCE), above);
+  }
+
+  private static ArrayList<String> path(String featureName) {
+    ArrayList<String> path = new ArrayList<String>();
+    path.add(featureName);
+    return path;
+  }
+
+  private static FsIndexDescription sortedIndex(String label, String typeName, String featureName) {
+    FsIndexKeyDescription key = UIMAFramework.getResourceSpecifierFactory().createFsIndexKeyDescription();
+    key.setFeatureName(featureName);
+    key.setComparator(FsIndexKeyDescription.STANDARD_COMPARE);
+    FsIndexDescription index = UIMAFramework.getResourceSpecifierFactory().createFsIndexDescription();
+    index.setLabel(label);
+    index.setTypeName(typeName);
+    index.setKind(FsIndexDescription.KIND_SORTED);
+    index.setKeys(new FsIndexKeyDescription[] { key });
+    return index;
+  }
+
+  @Benchmark
+  public void posEqualsFiltered(Blackhole bh) {
+    FSIterator<AnnotationFS> it = cas.createFilteredIterator(cas.getAnnotationIndex(tokenType).iterator(), posIsNN);
+    consume(it, bh);
+  }
+
+  @Benchmark
+  public void posEqualsKeyValue(Blackhole bh) {
+    consume(cas.getIndexRepository().getFSsWithKeyValue(INDEX_TOKEN_POS, "NN"), bh);
+  }
+
+  @Benchmark
+  public void confidenceAboveFiltered(Blackhole bh) {
+    FSIterator<AnnotationFS> it = cas.createFilteredIterator(cas.getAnnotationIndex(neType).iterator(), confidenceAbove08);
+    consume(it, bh);
+  }
+
+  @Benchmark
+  public void confidenceAboveKeyRange(Blackhole bh) {
+    consume(cas.getIndexRepository().getFSsInKeyRange(INDEX_ENTITY_CONFIDENCE, 0.8f, false, null, false), bh);
+  }
+
+  private static <T extends FeatureStructure> void consume(FSIterator<T> it, Blackhole bh) {
+    for (; it.isValid(); it.moveToNext()) {
+      bh.consume(it.get());
+    }
+  }
+}
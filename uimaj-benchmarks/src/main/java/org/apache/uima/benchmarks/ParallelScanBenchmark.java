@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSSplitIteratorImpl;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting the Tokens whose pos is "NN" in a frozen CAS: with an iterator, with a parallel stream
+ * over the FS objects, and with split spliterators over the FS addresses in the tasks of a
+ * ForkJoinPool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelScanBenchmark {
+
+  // the size of the parts not split further
+  private static final int LEAF_SIZE = 4096;
+
+  @Param({ "100000", "1000000" })
+  public int numTokens;
+
+  private CASImpl cas;
+
+  private FSIndex<AnnotationFS> tokenIndex;
+
+  private Feature posFeat;
+
+  private int posFeatCode;
+
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = (CASImpl) SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    Type tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    posFeat = tokenType.getFeatureByBaseName(SyntheticCorpus.FEAT_POS);
+    posFeatCode = cas.ll_getTypeSystem().ll_getCodeForFeature(posFeat);
+    tokenIndex = cas.getAnnotationIndex(tokenType);
+    cas.freeze();
+    pool = new ForkJoinPool();
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public int iterator() {
+    int count = 0;
+    for (FSIterator<AnnotationFS> it = tokenIndex.iterator(); it.isValid(); it.moveToNext()) {
+      if ("NN".equals(it.get().getStringValue(posFeat))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public long parallelStream() {
+    return tokenIndex.parallelStream().filter(fs -> "NN".equals(fs.getStringValue(posFeat))).count();
+  }
+
+  @Benchmark
+  public int parallelLowLevel() {
+    return pool.invoke(new CountTask((FSSplitIteratorImpl<AnnotationFS>) tokenIndex.spliterator()));
+  }
+
+  private class CountTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final FSSplitIteratorImpl<AnnotationFS> it;
+
+    private int count;
+
+    CountTask(FSSplitIteratorImpl<AnnotationFS> it) {
+      this.it = it;
+    }
+
+    @Override
+    protected Integer compute() {
+      if (it.estimateSize() > LEAF_SIZE) {
+        CountTask prefix = new CountTask(it.trySplit());
+        prefix.fork();
+        int result = new CountTask(it).compute();
+        return result + prefix.join();
+      }
+      it.ll_forEachRemaining(fs -> {
+        if ("NN".equals(cas.ll_getStringValue(fs, posFeatCode))) {
+          count++;
+        }
+      });
+      return count;
+    }
+  }
+}
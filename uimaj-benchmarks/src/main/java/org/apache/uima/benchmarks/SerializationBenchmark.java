@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.SerialFormat;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasIOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures CasIOUtils.save and CasIOUtils.load for every SerialFormat that CasIOUtils can write.
+ * <p>
+ * The serialized size of each format is printed once during setup, so size and speed can be
+ * compared from the same run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({ "1000", "100000" })
+  public int numTokens;
+
+  @Param({ "XMI", "XCAS", "BINARY", "BINARY_TSI", "COMPRESSED", "COMPRESSED_TSI",
+      "COMPRESSED_FILTERED", "COMPRESSED_FILTERED_TS", "COMPRESSED_FILTERED_TSI", "SERIALIZED",
+      "SERIALIZED_TSI" })
+  public SerialFormat format;
+
+  private CAS source;
+
+  private CAS target;
+
+  private ByteArrayOutputStream out;
+
+  private byte[] serialized;
+
+  @Setup
+  public void setup() throws ResourceInitializationException, IOException {
+    source = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(source, numTokens);
+    target = SyntheticCorpus.createCas();
+    out = new ByteArrayOutputStream(numTokens * 64);
+    CasIOUtils.save(source, out, format);
+    serialized = out.toByteArray();
+    System.out.format("%n%s, %,d tokens: %,d bytes%n", format, numTokens, serialized.length);
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream save() throws IOException {
+    out.reset();
+    CasIOUtils.save(source, out, format);
+    return out;
+  }
+
+  @Benchmark
+  public CAS load() throws IOException {
+    target.reset();
+    CasIOUtils.load(new ByteArrayInputStream(serialized), target);
+    return target;
+  }
+}
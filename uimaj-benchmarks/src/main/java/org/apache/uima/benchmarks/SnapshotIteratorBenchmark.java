@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Creating an iterator over the annotation index, as annotators do inside loops: a plain
+ * iterator, a snapshot iterator with no index update since the previous one (sharing its copy),
+ * and a snapshot iterator after an index update (making a new copy).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotIteratorBenchmark {
+
+  @Param({ "10000", "100000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private FSIndex<AnnotationFS> annotationIndex;
+
+  private FSIndex<AnnotationFS> snapshotIndex;
+
+  private AnnotationFS token;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    annotationIndex = cas.getAnnotationIndex();
+    snapshotIndex = annotationIndex.withSnapshotIterators();
+    token = cas.getAnnotationIndex(cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN)).iterator().get();
+  }
+
+  @Benchmark
+  public void plainIterator(Blackhole bh) {
+    firstTwo(annotationIndex.iterator(), bh);
+  }
+
+  @Benchmark
+  public void snapshotIterator(Blackhole bh) {
+    firstTwo(snapshotIndex.iterator(), bh);
+  }
+
+  @Benchmark
+  public void snapshotIteratorAfterUpdate(Blackhole bh) {
+    cas.removeFsFromIndexes(token);
+    cas.addFsToIndexes(token);
+    firstTwo(snapshotIndex.iterator(), bh);
+  }
+
+  private static void firstTwo(FSIterator<AnnotationFS> it, Blackhole bh) {
+    bh.consume(it.get());
+    it.moveToNext();
+    bh.consume(it.get());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the two ways of keeping sorted indexes: one array (the default) and blocks
+ * (JVM property uima.blocked_sorted_indexes, see FSIndexRepositoryImpl.BLOCKED_SORTED_INDEXES).
+ * <p>
+ * "editSpan" removes a random Token from the indexes, moves it to a random offset, and adds it
+ * back, as annotators editing spans do; "iterate" is a full scan of the annotation index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedIndexUpdateBenchmark {
+
+  @Param({ "10000", "200000" })
+  public int numTokens;
+
+  private CAS cas;
+
+  private AnnotationFS[] tokens;
+
+  private Feature beginFeat;
+
+  private Feature endFeat;
+
+  private FSIndex<AnnotationFS> annotationIndex;
+
+  private int docLength;
+
+  private final Random random = new Random(42);
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    Type tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    beginFeat = tokenType.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_BEGIN);
+    endFeat = tokenType.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_END);
+    annotationIndex = cas.getAnnotationIndex();
+    FSIndex<AnnotationFS> tokenIndex = cas.getAnnotationIndex(tokenType);
+    tokens = new AnnotationFS[tokenIndex.size()];
+    int i = 0;
+    for (AnnotationFS token : tokenIndex) {
+      tokens[i++] = token;
+    }
+    docLength = cas.getDocumentText().length();
+  }
+
+  @Benchmark
+  public void editSpanArray() {
+    editSpan();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Duima.blocked_sorted_indexes")
+  public void editSpanBlocked() {
+    editSpan();
+  }
+
+  @Benchmark
+  public void iterateArray(Blackhole bh) {
+    iterate(bh);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Duima.blocked_sorted_indexes")
+  public void iterateBlocked(Blackhole bh) {
+    iterate(bh);
+  }
+
+  private void editSpan() {
+    final AnnotationFS token = tokens[random.nextInt(tokens.length)];
+    final int begin = random.nextInt(docLength - 5);
+    cas.removeFsFromIndexes(token);
+    token.setIntValue(beginFeat, begin);
+    token.setIntValue(endFeat, begin + 5);
+    cas.addFsToIndexes(token);
+  }
+
+  private void iterate(Blackhole bh) {
+    for (FSIterator<AnnotationFS> it = annotationIndex.iterator(); it.isValid(); it.moveToNext()) {
+      bh.consume(it.get());
+    }
+  }
+}
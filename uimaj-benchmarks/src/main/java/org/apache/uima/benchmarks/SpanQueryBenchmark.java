@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the span queries of AnnotationIndex with the iterations they replace.
+ * <p>
+ * "tokensPerSentence" finds the tokens within each sentence, with a strict Subiterator or with
+ * coveredBy; "sentencePerToken" finds the sentence covering each token, by scanning the
+ * sentences or with covering.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanQueryBenchmark {
+
+  @Param({ "1000", "20000" })
+  public int numTokens;
+
+  private AnnotationIndex<AnnotationFS> sentenceIndex;
+
+  private AnnotationIndex<AnnotationFS> tokenIndex;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    CAS cas = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(cas, numTokens);
+    Type sentenceType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_SENTENCE);
+    Type tokenType = cas.getTypeSystem().getType(SyntheticCorpus.TYPE_TOKEN);
+    sentenceIndex = cas.getAnnotationIndex(sentenceType);
+    tokenIndex = cas.getAnnotationIndex(tokenType);
+  }
+
+  @Benchmark
+  public void tokensPerSentenceSubiterator(Blackhole bh) {
+    for (FSIterator<AnnotationFS> sit = sentenceIndex.iterator(); sit.isValid(); sit.moveToNext()) {
+      FSIterator<AnnotationFS> tit = tokenIndex.subiterator(sit.get(), true, true);
+      for (; tit.isValid(); tit.moveToNext()) {
+        bh.consume(tit.get());
+      }
+    }
+  }
+
+  @Benchmark
+  public void tokensPerSentenceCoveredBy(Blackhole bh) {
+    for (FSIterator<AnnotationFS> sit = sentenceIndex.iterator(); sit.isValid(); sit.moveToNext()) {
+      final AnnotationFS sentence = sit.get();
+      FSIterator<AnnotationFS> tit = tokenIndex.coveredBy(sentence.getBegin(), sentence.getEnd());
+      for (; tit.isValid(); tit.moveToNext()) {
+        bh.consume(tit.get());
+      }
+    }
+  }
+
+  @Benchmark
+  public void sentencePerTokenScan(Blackhole bh) {
+    for (FSIterator<AnnotationFS> tit = tokenIndex.iterator(); tit.isValid(); tit.moveToNext()) {
+      final AnnotationFS token = tit.get();
+      for (FSIterator<AnnotationFS> sit = sentenceIndex.iterator(); sit.isValid(); sit.moveToNext()) {
+        final AnnotationFS sentence = sit.get();
+        if (sentence.getBegin() > token.getBegin()) {
+          break;
+        }
+        if (token.getEnd() <= sentence.getEnd()) {
+          bh.consume(sentence);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void sentencePerTokenCovering(Blackhole bh) {
+    for (FSIterator<AnnotationFS> tit = tokenIndex.iterator(); tit.isValid(); tit.moveToNext()) {
+      final AnnotationFS token = tit.get();
+      FSIterator<AnnotationFS> sit = sentenceIndex.covering(token.getBegin(), token.getEnd());
+      for (; sit.isValid(); sit.moveToNext()) {
+        bh.consume(sit.get());
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.util.Random;
+
+import org.apache.uima.ResourceSpecifierFactory;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.FsIndexKeyDescription;
+import org.apache.uima.resource.metadata.TypeDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+
+/**
+ * Generates reproducible synthetic documents for the benchmarks.
+ * <p>
+ * The type system resembles a typical NLP pipeline: Sentences, Tokens carrying a part-of-speech
+ * tag and a lemma (drawn from a small vocabulary, so string values repeat the way they do in real
+ * output), and NamedEntities spanning 1 to 3 tokens with an id and a confidence.
+ * <p>
+ * Besides the built-in annotation index, a set index and a bag index over Tokens are defined so
+ * that all three indexing strategies can be measured on the same data.
+ */
+public class SyntheticCorpus {
+
+  public static final String TYPE_SENTENCE = "org.apache.uima.benchmarks.Sentence";
+
+  public static final String TYPE_TOKEN = "org.apache.uima.benchmarks.Token";
+
+  public static final String TYPE_NAMED_ENTITY = "org.apache.uima.benchmarks.NamedEntity";
+
+  public static final String FEAT_POS = "pos";
+
+  public static final String FEAT_LEMMA = "lemma";
+
+  public static final String FEAT_ENTITY_ID = "entityId";
+
+  public static final String FEAT_CONFIDENCE = "confidence";
+
+  /** sorted index over Tokens, keyed on begin (ascending), end (descending) */
+  public static final String INDEX_TOKEN_SORTED = "TokenSorted";
+
+  /** set index over Tokens, keyed on the pos tag */
+  public static final String INDEX_TOKEN_SET = "TokenSet";
+
+  /** bag index over Tokens */
+  public static final String INDEX_TOKEN_BAG = "TokenBag";
+
+  private static final String[] POS_TAGS = { "NN", "NNS", "NNP", "VB", "VBD", "VBZ", "JJ", "RB",
+      "IN", "DT", "PRP", "CC", "CD", "TO", "MD", "WDT" };
+
+  private static final String[] WORDS = { "the", "a", "cas", "index", "annotation", "type",
+      "feature", "structure", "pipeline", "engine", "run", "runs", "ran", "quick", "slow", "large",
+      "small", "of", "in", "on", "and", "or", "to", "will", "which", "document", "sentence",
+      "token", "entity", "value", "heap", "serialize" };
+
+  private static final int AVG_TOKENS_PER_SENTENCE = 20;
+
+  private static final long SEED = 0x5eed_cafeL;
+
+  public static TypeSystemDescription createTypeSystemDescription() {
+    ResourceSpecifierFactory f = UIMAFramework.getResourceSpecifierFactory();
+    TypeSystemDescription tsd = f.createTypeSystemDescription();
+    tsd.addType(TYPE_SENTENCE, "", CAS.TYPE_NAME_ANNOTATION);
+    TypeDescription token = tsd.addType(TYPE_TOKEN, "", CAS.TYPE_NAME_ANNOTATION);
+    token.addFeature(FEAT_POS, "", CAS.TYPE_NAME_STRING);
+    token.addFeature(FEAT_LEMMA, "", CAS.TYPE_NAME_STRING);
+    TypeDescription ne = tsd.addType(TYPE_NAMED_ENTITY, "", CAS.TYPE_NAME_ANNOTATION);
+    ne.addFeature(FEAT_ENTITY_ID, "", CAS.TYPE_NAME_INTEGER);
+    ne.addFeature(FEAT_CONFIDENCE, "", CAS.TYPE_NAME_FLOAT);
+    return tsd;
+  }
+
+  public static FsIndexDescription[] createIndexDescriptions() {
+    ResourceSpecifierFactory f = UIMAFramework.getResourceSpecifierFactory();
+
+    FsIndexKeyDescription begin = f.createFsIndexKeyDescription();
+    begin.setFeatureName(CAS.FEATURE_BASE_NAME_BEGIN);
+    begin.setComparator(FsIndexKeyDescription.STANDARD_COMPARE);
+    FsIndexKeyDescription end = f.createFsIndexKeyDescription();
+    end.setFeatureName(CAS.FEATURE_BASE_NAME_END);
+    end.setComparator(FsIndexKeyDescription.REVERSE_STANDARD_COMPARE);
+    FsIndexKeyDescription pos = f.createFsIndexKeyDescription();
+    pos.setFeatureName(FEAT_POS);
+    pos.setComparator(FsIndexKeyDescription.STANDARD_COMPARE);
+
+    FsIndexDescription sorted = f.createFsIndexDescription();
+    sorted.setLabel(INDEX_TOKEN_SORTED);
+    sorted.setTypeName(TYPE_TOKEN);
+    sorted.setKind(FsIndexDescription.KIND_SORTED);
+    sorted.setKeys(new FsIndexKeyDescription[] { begin, end });
+
+    FsIndexDescription set = f.createFsIndexDescription();
+    set.setLabel(INDEX_TOKEN_SET);
+    set.setTypeName(TYPE_TOKEN);
+    set.setKind(FsIndexDescription.KIND_SET);
+    set.setKeys(new FsIndexKeyDescription[] { pos });
+
+    FsIndexDescription bag = f.createFsIndexDescription();
+    bag.setLabel(INDEX_TOKEN_BAG);
+    bag.setTypeName(TYPE_TOKEN);
+    bag.setKind(FsIndexDescription.KIND_BAG);
+
+    return new FsIndexDescription[] { sorted, set, bag };
+  }
+
+  /**
+   * @return a new, empty CAS with the benchmark type system and index definitions
+   * @throws ResourceInitializationException if the CAS could not be created
+   */
+  public static CAS createCas() throws ResourceInitializationException {
+    return CasCreationUtils.createCas(createTypeSystemDescription(), null, createIndexDescriptions());
+  }
+
+  /**
+   * @param cas an empty CAS created by {@link #createCas()}
+   * @param numTokens the approximate number of tokens to generate
+   */
+  public static void populate(CAS cas, int numTokens) {
+    final Random r = new Random(SEED);
+    final TypeSystem ts = cas.getTypeSystem();
+    final Type sentenceType = ts.getType(TYPE_SENTENCE);
+    final Type tokenType = ts.getType(TYPE_TOKEN);
+    final Type neType = ts.getType(TYPE_NAMED_ENTITY);
+    final Feature posFeat = tokenType.getFeatureByBaseName(FEAT_POS);
+    final Feature lemmaFeat = tokenType.getFeatureByBaseName(FEAT_LEMMA);
+    final Feature idFeat = neType.getFeatureByBaseName(FEAT_ENTITY_ID);
+    final Feature confFeat = neType.getFeatureByBaseName(FEAT_CONFIDENCE);
+
+    final StringBuilder text = new StringBuilder(numTokens * 8);
+    final int[] tokenBegins = new int[numTokens];
+    final int[] tokenEnds = new int[numTokens];
+    for (int i = 0; i < numTokens; i++) {
+      tokenBegins[i] = text.length();
+      text.append(WORDS[r.nextInt(WORDS.length)]);
+      tokenEnds[i] = text.length();
+      text.append(' ');
+    }
+    cas.setDocumentText(text.toString());
+
+    int sentenceStart = 0;
+    while (sentenceStart < numTokens) {
+      int sentenceEnd = Math.min(numTokens,
+          sentenceStart + AVG_TOKENS_PER_SENTENCE / 2 + r.nextInt(AVG_TOKENS_PER_SENTENCE));
+      AnnotationFS s = cas.createAnnotation(sentenceType, tokenBegins[sentenceStart],
+          tokenEnds[sentenceEnd - 1]);
+      cas.addFsToIndexes(s);
+      sentenceStart = sentenceEnd;
+    }
+
+    for (int i = 0; i < numTokens; i++) {
+      AnnotationFS t = cas.createAnnotation(tokenType, tokenBegins[i], tokenEnds[i]);
+      t.setStringValue(posFeat, POS_TAGS[r.nextInt(POS_TAGS.length)]);
+      t.setStringValue(lemmaFeat, cas.getDocumentText().substring(tokenBegins[i], tokenEnds[i]));
+      cas.addFsToIndexes(t);
+    }
+
+    // roughly one entity per 10 tokens
+    for (int i = 0; i < numTokens; i += 5 + r.nextInt(10)) {
+      int last = Math.min(numTokens - 1, i + r.nextInt(3));
+      AnnotationFS e = cas.createAnnotation(neType, tokenBegins[i], tokenEnds[last]);
+      e.setIntValue(idFeat, r.nextInt(1000));
+      e.setFloatValue(confFeat, r.nextFloat());
+      cas.addFsToIndexes(e);
+    }
+  }
+
+  /**
+   * @return the distinct pos tags used by {@link #populate(CAS, int)}
+   */
+  public static String[] posTags() {
+    return POS_TAGS.clone();
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+/**
+ * Compares XMI serialization through the static convenience method, which sets up a JAXP
+ * transformer for every CAS, with a reused XmiCasSerializer instance writing to the stream
+ * directly.  Run with -prof gc to compare the allocation per CAS.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmiSerializationBenchmark {
+
+  @Param({ "1000", "100000" })
+  public int numTokens;
+
+  private CAS source;
+
+  private ByteArrayOutputStream out;
+
+  private XmiCasSerializer serializer;
+
+  @Setup
+  public void setup() throws ResourceInitializationException {
+    source = SyntheticCorpus.createCas();
+    SyntheticCorpus.populate(source, numTokens);
+    out = new ByteArrayOutputStream(numTokens * 128);
+    serializer = new XmiCasSerializer(null);
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream transformer() throws SAXException {
+    out.reset();
+    XmiCasSerializer.serialize(source, out);
+    return out;
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream reusedSerializer() throws SAXException {
+    out.reset();
+    serializer.serialize(source, out, null, null);
+    return out;
+  }
+}
@@ -64,6 +64,15 @@ public abstract class UIMAFramework {
    */
   public static final String CAS_INITIAL_HEAP_SIZE = "cas_initial_heap_size";
 
+  /**
+   * Key to be used in the Properties object returned by
+   * {@link #getDefaultPerformanceTuningProperties()}. The value of this key is the size, in
+   * cells, above which the CAS heaps stop doubling when they fill up and instead grow by adding
+   * this many cells. Smaller values reduce the memory over-allocated for very large documents,
+   * at the cost of more frequent heap copies. The default is 16777216 (16M cells).
+   */
+  public static final String CAS_HEAP_GROWTH_LIMIT = "cas_heap_growth_limit";
+
   /**
    * Key to be used in the Properties object returned by
    * {@link #getDefaultPerformanceTuningProperties()}. The value of this key indicates whether the
@@ -92,6 +101,17 @@ public abstract class UIMAFramework {
    */
   public static final String JCAS_CACHE_ENABLED = "jcas_cache_enabled";
 
+  /**
+   * Key to be used in the Properties object returned by
+   * {@link #getDefaultPerformanceTuningProperties()}. The value of this key indicates whether
+   * CASes created from descriptions equal to those of a CAS created before share its type system
+   * and copy its index definitions, instead of being set up from the descriptions again. The default
+   * is false. A value of "true" (case insensitive) for this property enables the cache; any other
+   * value leaves the default setting of false. Imported descriptions must not change while
+   * cached, see {@link org.apache.uima.util.CasCreationUtils#clearCasTemplateCache()}.
+   */
+  public static final String CAS_TEMPLATE_CACHE_ENABLED = "cas_template_cache_enabled";
+
   /**
    * To be implemented by subclasses; this should return a Properties object representing the
    * default performance tuning settings for the framework. It must return a new Properties object
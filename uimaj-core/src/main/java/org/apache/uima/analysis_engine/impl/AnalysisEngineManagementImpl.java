@@ -26,11 +26,13 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.uima.UimaContextAdmin;
 import org.apache.uima.analysis_engine.AnalysisEngineManagement;
+import org.apache.uima.internal.util.ResourcePool;
 import org.apache.uima.util.ConcurrentHashMapWithProducer;
 
 /**
@@ -76,6 +78,9 @@ public class AnalysisEngineManagementImpl
 
   private String uniqueMBeanName;
 
+  // the pool of instances of a MultiprocessingAnalysisEngine, null for other engines
+  private transient volatile ResourcePool resourcePool;
+
   
   private State status = State.Initializing;  // Initial AE state
   
@@ -138,6 +143,49 @@ public class AnalysisEngineManagementImpl
     return serviceCallTime.get();
   }
 
+  /**
+   * Internal use only. Set by a MultiprocessingAnalysisEngine, to report on its pool of instances.
+   * @param aResourcePool the pool of AnalysisEngine instances
+   */
+  public void setResourcePool(ResourcePool aResourcePool) {
+    resourcePool = aResourcePool;
+  }
+
+  public int getPoolSize() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getSize();
+  }
+
+  public int getPoolInstancesInUse() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getNumInUse();
+  }
+
+  public int getPoolPeakInstancesInUse() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getPeakInUse();
+  }
+
+  public long getPoolCheckouts() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getNumCheckouts();
+  }
+
+  public long getPoolAffinityHits() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getNumAffinityHits();
+  }
+
+  public long getPoolWaits() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : pool.getNumWaits();
+  }
+
+  public long getPoolWaitTime() {
+    final ResourcePool pool = resourcePool;
+    return (pool == null) ? 0 : TimeUnit.NANOSECONDS.toMillis(pool.getTotalWaitTimeNanos());
+  }
+
   /**
    * Internal use only. Used to implement backwards compatibility with the ProcessTrace interface.
    */
@@ -222,6 +270,10 @@ public class AnalysisEngineManagementImpl
     markedBatchProcessCompleteTime.set(0);
     markedCollectionProcessCompleteTime.set(0);
     markedServiceCallTime.set(0);
+    final ResourcePool pool = resourcePool;
+    if (pool != null) {
+      pool.resetStatistics();
+    }
     // reset components also
     for (AnalysisEngineManagement component : components.values()) {
       component.resetStats();
@@ -46,4 +46,41 @@ public interface AnalysisEngineManagementImplMBean extends Serializable {
   public long getThreadId();
   
   public long getInitializationTime();
+
+  // statistics of the pool of instances of a MultiprocessingAnalysisEngine; 0 for other engines
+  
+  /**
+   * @return the number of AnalysisEngine instances in the pool
+   */
+  int getPoolSize();
+  
+  /**
+   * @return the number of pooled instances currently processing
+   */
+  int getPoolInstancesInUse();
+  
+  /**
+   * @return the largest number of pooled instances which were processing at the same time
+   */
+  int getPoolPeakInstancesInUse();
+  
+  /**
+   * @return the number of times an instance was checked out of the pool
+   */
+  long getPoolCheckouts();
+  
+  /**
+   * @return the number of check-outs which got the instance the same thread used last
+   */
+  long getPoolAffinityHits();
+  
+  /**
+   * @return the number of check-outs which had to wait for an instance to be released
+   */
+  long getPoolWaits();
+  
+  /**
+   * @return the total time, in milliseconds, check-outs waited for an instance to be released
+   */
+  long getPoolWaitTime();
 }
@@ -116,6 +116,7 @@ public class MultiprocessingAnalysisEngine_impl extends AnalysisEngineImplBase i
     // fill pool with other MultiprocessingAnalysisEngines!)
     aAdditionalParams.remove(PARAM_NUM_SIMULTANEOUS_REQUESTS);
     mPool = new AnalysisEnginePool("", poolSize, aSpecifier, aAdditionalParams);
+    getMBean().setResourcePool(mPool.getResourcePool());
 
     // update metadata from pool (this gets the merged type system for aggregates)
     this.setMetaData(mPool.getMetaData());
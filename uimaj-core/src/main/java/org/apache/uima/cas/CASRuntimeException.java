@@ -222,6 +222,15 @@ public class CASRuntimeException extends UIMARuntimeException {
   /** Multiply nested classloaders not supported.  Original base loader: {0}, current nested loader: {1}, trying to switch to loader: {2}.*/
   public static final String SWITCH_CLASS_LOADER_NESTED = "SWITCH_CLASS_LOADER_NESTED";
   
+  /** Index "{0}" is not defined, or is not a sorted index whose first key is a feature; it can''t be queried by key values. */
+  public static final String NOT_A_KEY_VALUE_INDEX = "NOT_A_KEY_VALUE_INDEX";
+  
+  /** The value "{0}" of class {1} can''t be compared with the first key of index "{2}"; the value must be a String (or null) for a String feature, a Boolean for a Boolean feature, and a Number for the other features. */
+  public static final String KEY_VALUE_WRONG_CLASS = "KEY_VALUE_WRONG_CLASS";
+  
+  /** The CAS is frozen; it can''t be modified until it is reset. */
+  public static final String CAS_FROZEN = "CAS_FROZEN";
+  
 	public CASRuntimeException() {
 		super();
 	}
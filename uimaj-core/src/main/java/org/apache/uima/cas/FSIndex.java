@@ -19,6 +19,11 @@
 
 package org.apache.uima.cas;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Feature structure index access interface.
  * 
@@ -89,6 +94,15 @@ public interface FSIndex<T extends FeatureStructure> extends Iterable<T> {
    * {@link FSIndexRepository#getAllIndexedFS(Type)}.  Not user-definable.
    */
   public static final int DEFAULT_BAG_INDEX = 3;
+
+  /**
+   * Indexing strategy: hash index. Like a set index, a hash index contains no duplicates of the
+   * same type, where a duplicate is defined by the indexing comparator, but it finds elements by
+   * hashing their key values, so {@link #find(FeatureStructure) find} and
+   * {@link #contains(FeatureStructure) contains} take constant time. Iterators over hash indexes
+   * return elements in no particular order.
+   */
+  public static final int HASH_INDEX = 4;
   
   /**
    * Return the number of feature structures in this index.
@@ -162,7 +176,8 @@ public interface FSIndex<T extends FeatureStructure> extends Iterable<T> {
   /**
    * Return the indexing strategy.
    * 
-   * @return One of <code>SORTED_INDEX</code>, <code>BAG_INDEX</code> or <code>SET_INDEX</code>.
+   * @return One of <code>SORTED_INDEX</code>, <code>BAG_INDEX</code>, <code>SET_INDEX</code> or
+   *         <code>HASH_INDEX</code>.
    */
   int getIndexingStrategy();
 
@@ -180,4 +195,37 @@ public interface FSIndex<T extends FeatureStructure> extends Iterable<T> {
    */
   FSIndex<T> withSnapshotIterators();
 
+  /**
+   * Return a spliterator over the FSs of the index, in the order of iterators over it.
+   * <p>
+   * The indexes of a CAS return a spliterator over a snapshot of the index, the one used by
+   * snapshot iterators (see {@link #withSnapshotIterators()}), shared until the index is next
+   * updated. It splits by position without copying, so several threads can each go over a part of
+   * the index. The spliterator only reads the CAS; don't modify it while the spliterator is in use.
+   * Freezing the CAS (see {@link org.apache.uima.cas.impl.CASImpl#freeze()}) makes sure of that.
+   * <p>
+   * The default implementation, for other implementations of this interface, wraps
+   * {@link #iterator()}.
+   * 
+   * @return a spliterator over the FSs of the index
+   */
+  @Override
+  default Spliterator<T> spliterator() {
+    return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED | Spliterator.NONNULL);
+  }
+
+  /**
+   * @return a sequential stream over the FSs of the index, see {@link #spliterator()}
+   */
+  default Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * @return a possibly parallel stream over the FSs of the index, see {@link #spliterator()}
+   */
+  default Stream<T> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
 }
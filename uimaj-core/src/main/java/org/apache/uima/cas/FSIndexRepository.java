@@ -137,5 +137,66 @@ public interface FSIndexRepository {
    *         and its subtypes, in no particular order.
    */
   <T extends FeatureStructure> FSIterator<T> getAllIndexedFS(Type aType);
-  
+
+  /**
+   * Gets the feature structures in a sorted index whose value of the first key of the index is
+   * equal to some value. A sorted index whose first key is a feature serves as a secondary index
+   * on that feature: it is kept up to date by {@link #addFS(FeatureStructure) addFS} and
+   * {@link #removeFS(FeatureStructure) removeFS} like any other index, and the feature structures
+   * with some value are found by a binary search in the index, instead of by a scan of all of them
+   * with a {@link FSMatchConstraint}.
+   * <p>
+   * The value is a <code>String</code> for a String feature, a <code>Boolean</code> for a Boolean
+   * feature, and a <code>Number</code> for the other (numeric) features. The feature structures are
+   * returned in index order; the iterator is over a snapshot of the result and doesn't check for
+   * concurrent index modifications.
+   * 
+   * Generics: T is the associated Java cover class for the top type defined for this index name.
+   * @param label
+   *          The name of the index.
+   * @param value
+   *          The value of the first key, may be <code>null</code> for a String feature
+   * @param <T> the Java class associated with the top-most type of the index
+   * @return An iterator over the feature structures having the value
+   * @exception CASRuntimeException
+   *              If the index is not defined, or is not a sorted index whose first key is a
+   *              feature, or if the value is not of the class for the feature.
+   * @exception UnsupportedOperationException
+   *              If this repository implementation doesn't support key value queries; this default
+   *              implementation throws it, for implementations written before the method was added.
+   */
+  default <T extends FeatureStructure> FSIterator<T> getFSsWithKeyValue(String label, Object value) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Gets the feature structures in a sorted index whose value of the first key of the index is in a
+   * range, for example all the entities with a confidence of at least 0.8. See
+   * {@link #getFSsWithKeyValue(String, Object)} about the index and the kinds of values.
+   * 
+   * Generics: T is the associated Java cover class for the top type defined for this index name.
+   * @param label
+   *          The name of the index.
+   * @param fromValue
+   *          The lower bound of the range, or <code>null</code> for no lower bound
+   * @param fromInclusive
+   *          true if the lower bound is in the range
+   * @param toValue
+   *          The upper bound of the range, or <code>null</code> for no upper bound
+   * @param toInclusive
+   *          true if the upper bound is in the range
+   * @param <T> the Java class associated with the top-most type of the index
+   * @return An iterator over the feature structures whose value is in the range, in index order
+   * @exception CASRuntimeException
+   *              If the index is not defined, or is not a sorted index whose first key is a
+   *              feature, or if a bound is not of the class for the feature.
+   * @exception UnsupportedOperationException
+   *              If this repository implementation doesn't support key value queries; this default
+   *              implementation throws it, for implementations written before the method was added.
+   */
+  default <T extends FeatureStructure> FSIterator<T> getFSsInKeyRange(String label, Object fromValue,
+          boolean fromInclusive, Object toValue, boolean toInclusive) {
+    throw new UnsupportedOperationException();
+  }
+
 }
@@ -44,7 +44,7 @@ public interface FSIndexRepositoryMgr extends FSIndexRepository {
    * @param label
    *          The name of the new index.
    * @param indexingStrategy
-   *          The kind of index (sorted, set, bag).
+   *          The kind of index (sorted, set, bag, hash).
    * @return <code>false</code> iff an index with the same<code>label</code> already exists.
    * @throws CASAdminException
    *           If the repository is locked (after calling {@link #commit() commit()}).
@@ -19,10 +19,13 @@
 
 package org.apache.uima.cas.impl;
 
+import java.util.Spliterator;
+
 import org.apache.uima.cas.FSIndex;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.AnnotationIntervalTree.SpanQuery;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.cas.text.AnnotationTree;
@@ -190,6 +193,46 @@ public class AnnotationIndexImpl <T extends AnnotationFS> implements AnnotationI
     }
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.text.AnnotationIndex#covering(int, int)
+   */
+  @Override
+  public FSIterator<T> covering(int begin, int end) {
+    return ((FSIndexRepositoryImpl.IndexImpl<T>)(this.index)).spanIterator(SpanQuery.COVERING, begin, end);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.text.AnnotationIndex#overlapping(int, int)
+   */
+  @Override
+  public FSIterator<T> overlapping(int begin, int end) {
+    return ((FSIndexRepositoryImpl.IndexImpl<T>)(this.index)).spanIterator(SpanQuery.OVERLAPPING, begin, end);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.text.AnnotationIndex#coveredBy(int, int)
+   */
+  @Override
+  public FSIterator<T> coveredBy(int begin, int end) {
+    return ((FSIndexRepositoryImpl.IndexImpl<T>)(this.index)).spanIterator(SpanQuery.COVERED_BY, begin, end);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.FSIndex#spliterator()
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    return this.index.spliterator();
+  }
+
   @Override
   public FSIndex<T> withSnapshotIterators() {
     return new AnnotationIndexImpl<T>(index.withSnapshotIterators());
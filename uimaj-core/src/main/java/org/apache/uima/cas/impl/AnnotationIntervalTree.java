@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import org.apache.uima.internal.util.IntVector;
+
+/**
+ * An interval tree over the annotations of a sorted index whose first key is begin, ascending,
+ * used for the covering, overlapping and coveredBy queries of AnnotationIndex.
+ *
+ * The annotations are kept in index order, with their begin and end offsets, so the ones with
+ * a begin in some range are at consecutive positions, found by binary search.  Two implicit binary
+ * trees over the positions hold the largest and the smallest end in each subtree; these find
+ * the annotations in a range of positions having an end above or below some offset in
+ * O(log n) per annotation found, without looking at the others.
+ *
+ * The tree is built from the index contents and not updated; the index repository builds a new one
+ * after the index changes.
+ */
+class AnnotationIntervalTree {
+
+  /**
+   * The kinds of queries, each for a span begin - end
+   */
+  enum SpanQuery {
+    COVERING,     // annotations a with a.begin <= begin and end <= a.end
+    OVERLAPPING,  // annotations a with a.begin < end and begin < a.end
+    COVERED_BY,   // annotations a with begin <= a.begin and a.end <= end
+  }
+
+  /**
+   * @param query the kind of query
+   * @param aBegin the begin of an annotation
+   * @param aEnd the end of an annotation
+   * @param begin the begin of the span of the query
+   * @param end the end of the span of the query
+   * @return true if the annotation is in the result of the query
+   */
+  static boolean isInQuery(SpanQuery query, int aBegin, int aEnd, int begin, int end) {
+    switch (query) {
+    case COVERING:    return aBegin <= begin && end <= aEnd;
+    case OVERLAPPING: return aBegin < end && begin < aEnd;
+    default:          return begin <= aBegin && aEnd <= end;
+    }
+  }
+
+  // the FSs, in index order
+  private final int[] fss;
+
+  private final int[] begins;
+
+  private final int[] ends;
+
+  // number of leaves in the implicit trees, a power of 2 >= fss.length
+  private final int leaves;
+
+  // node i has children 2i and 2i+1; the leaf for position p is node leaves + p
+  private final int[] maxEnds;
+
+  private final int[] minEnds;
+
+  /**
+   * @param fss the FSs of the index, in index order
+   * @param cas the CAS holding the FSs
+   */
+  AnnotationIntervalTree(int[] fss, CASImpl cas) {
+    final int n = fss.length;
+    this.fss = fss;
+    this.begins = new int[n];
+    this.ends = new int[n];
+    int lv = 1;
+    while (lv < n) {
+      lv <<= 1;
+    }
+    this.leaves = lv;
+    this.maxEnds = new int[2 * lv];
+    this.minEnds = new int[2 * lv];
+    for (int i = 0; i < n; i++) {
+      begins[i] = cas.ll_getAnnotBegin(fss[i]);
+      ends[i] = cas.ll_getAnnotEnd(fss[i]);
+      maxEnds[lv + i] = ends[i];
+      minEnds[lv + i] = ends[i];
+    }
+    for (int i = lv + n; i < 2 * lv; i++) {
+      maxEnds[i] = Integer.MIN_VALUE;
+      minEnds[i] = Integer.MAX_VALUE;
+    }
+    for (int i = lv - 1; i > 0; i--) {
+      maxEnds[i] = Math.max(maxEnds[2 * i], maxEnds[2 * i + 1]);
+      minEnds[i] = Math.min(minEnds[2 * i], minEnds[2 * i + 1]);
+    }
+  }
+
+  int size() {
+    return fss.length;
+  }
+
+  /**
+   * Adds the FSs in the result of a query to a vector, in index order
+   * @param query the kind of query
+   * @param begin the begin of the span of the query
+   * @param end the end of the span of the query
+   * @param result where to add the FSs
+   */
+  void select(SpanQuery query, int begin, int end, IntVector result) {
+    switch (query) {
+    case COVERING:
+      selectMaxEndAtLeast(1, 0, leaves, 0, firstBeginAbove(begin), end, result);
+      break;
+    case OVERLAPPING:
+      if (begin < Integer.MAX_VALUE) {
+        selectMaxEndAtLeast(1, 0, leaves, 0, firstBeginAtLeast(end), begin + 1, result);
+      }
+      break;
+    default:
+      selectMinEndAtMost(1, 0, leaves, firstBeginAtLeast(begin), firstBeginAbove(end), end, result);
+    }
+  }
+
+  // the first position whose begin is >= offset, or size() if none
+  private int firstBeginAtLeast(int offset) {
+    int lo = 0;
+    int hi = begins.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (begins[mid] < offset) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  // the first position whose begin is > offset, or size() if none
+  private int firstBeginAbove(int offset) {
+    return (offset == Integer.MAX_VALUE) ? begins.length : firstBeginAtLeast(offset + 1);
+  }
+
+  /**
+   * Adds the FSs at positions from - to (exclusive) with an end &gt;= minEnd,
+   * looking only in the subtree at node, which spans positions nodeFrom - nodeTo (exclusive)
+   */
+  private void selectMaxEndAtLeast(int node, int nodeFrom, int nodeTo, int from, int to, int minEnd, IntVector result) {
+    if (nodeTo <= from || to <= nodeFrom || maxEnds[node] < minEnd) {
+      return;
+    }
+    if (node >= leaves) {
+      result.add(fss[node - leaves]);
+      return;
+    }
+    final int mid = (nodeFrom + nodeTo) >>> 1;
+    selectMaxEndAtLeast(2 * node, nodeFrom, mid, from, to, minEnd, result);
+    selectMaxEndAtLeast(2 * node + 1, mid, nodeTo, from, to, minEnd, result);
+  }
+
+  /**
+   * Adds the FSs at positions from - to (exclusive) with an end &lt;= maxEnd,
+   * looking only in the subtree at node, which spans positions nodeFrom - nodeTo (exclusive)
+   */
+  private void selectMinEndAtMost(int node, int nodeFrom, int nodeTo, int from, int to, int maxEnd, IntVector result) {
+    if (nodeTo <= from || to <= nodeFrom || minEnds[node] > maxEnd) {
+      return;
+    }
+    if (node >= leaves) {
+      result.add(fss[node - leaves]);
+      return;
+    }
+    final int mid = (nodeFrom + nodeTo) >>> 1;
+    selectMinEndAtMost(2 * node, nodeFrom, mid, from, to, maxEnd, result);
+    selectMinEndAtMost(2 * node + 1, mid, nodeTo, from, to, maxEnd, result);
+  }
+}
@@ -63,6 +63,7 @@ public class ArrayFSImpl extends CommonArrayFSImpl implements ArrayFS {
    */
   public void copyFromArray(FeatureStructure[] src, int srcOffset, int destOffset, int length)
       throws ArrayIndexOutOfBoundsException {
+    this.casImpl.checkNotFrozen();
     if ((destOffset < 0) || ((destOffset + length) > size())) {
       throw new ArrayIndexOutOfBoundsException();
     }
@@ -48,9 +48,7 @@ import static org.apache.uima.cas.impl.BinaryCasSerDes4.SlotKind.Slot_StrRef;
 import static org.apache.uima.cas.impl.BinaryCasSerDes4.SlotKind.Slot_StrSeg;
 import static org.apache.uima.cas.impl.BinaryCasSerDes4.SlotKind.Slot_TypeCode;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
@@ -68,9 +66,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import org.apache.uima.cas.AbstractCas;
 import org.apache.uima.cas.CASRuntimeException;
@@ -327,6 +322,24 @@ public class BinaryCasSerDes4 {
    */
   public SerializationMeasures serialize(AbstractCas cas, Object out, Marker trackingMark,
       CompressLevel compressLevel, CompressStrat compressStrategy) throws IOException {
+    return serialize(cas, out, trackingMark, compressLevel, compressStrategy, CompressionProfile.DEFAULT);
+  }
+  
+  /**
+   * 
+   * @param cas CAS to serialize
+   * @param out output object
+   * @param trackingMark tracking mark (for delta serialization)
+   * @param compressLevel used to deflate all streams if compressionProfile is null
+   * @param compressStrategy used to deflate all streams if compressionProfile is null
+   * @param compressionProfile the codec to use for each stream, recorded in the serialized form;  
+   *                           null to deflate all streams, in the format written by earlier versions
+   * @return null or serialization measurements (depending on setting of doMeasurements)
+   * @throws IOException if the marker is invalid
+   */
+  public SerializationMeasures serialize(AbstractCas cas, Object out, Marker trackingMark,
+      CompressLevel compressLevel, CompressStrat compressStrategy, 
+      CompressionProfile compressionProfile) throws IOException {
     SerializationMeasures sm = (doMeasurements) ? new SerializationMeasures() : null;
     CASImpl casImpl = (CASImpl) ((cas instanceof JCas) ? ((JCas)cas).getCas(): cas);
     if (null != trackingMark && !trackingMark.isValid() ) {
@@ -336,7 +349,7 @@ public class BinaryCasSerDes4 {
     
     Serializer serializer = new Serializer(
         casImpl, makeDataOutputStream(out), (MarkerImpl) trackingMark, sm,
-        compressLevel, compressStrategy, false);
+        compressLevel, compressStrategy, compressionProfile, false);
    
     serializer.serialize();
     return sm;
@@ -344,7 +357,8 @@ public class BinaryCasSerDes4 {
   
   public void serializeWithTsi(CASImpl casImpl, Object out) throws IOException {
     Serializer serializer = new Serializer(
-        casImpl, makeDataOutputStream(out), null, null, CompressLevel.Default, CompressStrat.Default, true);
+        casImpl, makeDataOutputStream(out), null, null, CompressLevel.Default, CompressStrat.Default, 
+        CompressionProfile.DEFAULT, true);
     serializer.serialize();
   }
   
@@ -362,13 +376,17 @@ public class BinaryCasSerDes4 {
   }
 
   public void deserialize(CASImpl cas, InputStream deserIn, boolean isDelta) throws IOException {
+    deserialize(cas, deserIn, isDelta, false);
+  }
+
+  void deserialize(CASImpl cas, InputStream deserIn, boolean isDelta, boolean isCodecIds) throws IOException {
     DataInput in;
     if (deserIn instanceof DataInputStream) {
       in = (DataInputStream)deserIn;
     } else {
       in = new DataInputStream(deserIn);
     }
-    Deserializer deserializer = new Deserializer(cas, in, isDelta);    
+    Deserializer deserializer = new Deserializer(cas, in, isDelta, isCodecIds);    
     deserializer.deserialize();
   }
 
@@ -405,6 +423,7 @@ public class BinaryCasSerDes4 {
     final private OptimizeStrings os;
     final private CompressLevel compressLevel;
     final private CompressStrat compressStrategy;
+    final private CompressionProfile compressionProfile;  // null means deflate, with the above
     
     // typeInfo is local to this serialization instance to permit multiple threads
     private TypeInfo typeInfo; // type info for the current type being serialized
@@ -439,6 +458,7 @@ public class BinaryCasSerDes4 {
                        SerializationMeasures sm,
                        CompressLevel compressLevel,
                        CompressStrat compressStrategy,
+                       CompressionProfile compressionProfile,
                        boolean isTsi) {
       this.cas = cas;
       this.serializedOut = serializedOut;
@@ -446,6 +466,7 @@ public class BinaryCasSerDes4 {
       this.sm = sm;
       this.compressLevel = compressLevel;
       this.compressStrategy = compressStrategy;
+      this.compressionProfile = compressionProfile;
       this.isTsi = isTsi;
       isDelta = (mark != null);
       doMeasurement = (sm != null);
@@ -528,6 +549,7 @@ public class BinaryCasSerDes4 {
         .form4()
         .delta(isDelta)
         .typeSystemIndexDefIncluded(isTsi)
+        .codecIdsIncluded(compressionProfile != null)
         .write(serializedOut);
 
       if (isTsi) {
@@ -933,8 +955,7 @@ public class BinaryCasSerDes4 {
      */
     private void collectAndZip() throws IOException {
       ByteArrayOutputStream baosZipped = new ByteArrayOutputStream(4096);
-      Deflater deflater = new Deflater(compressLevel.lvl, true);
-      deflater.setStrategy(compressStrategy.strat);
+      final CompressionCodec deflate = CompressionCodec.deflate(compressLevel.lvl, compressStrategy.strat);
       int nbrEntries = 0;
       
       List<Integer> idxAndLen = new ArrayList<Integer>();
@@ -945,25 +966,26 @@ public class BinaryCasSerDes4 {
           nbrEntries ++;
           dosZipSources[i].close();
           long startTime = System.currentTimeMillis();
-          int zipBufSize = Math.max(1024, baos.size() / 100);
-          deflater.reset();
-          DeflaterOutputStream cds = new DeflaterOutputStream(baosZipped, deflater, zipBufSize);       
-          baos.writeTo(cds);
-          cds.close();
+          CompressionCodec codec = (compressionProfile == null) ? deflate : compressionProfile.getCodec(i);
+          int bytesWritten = codec.compress(baos, baosZipped);
           idxAndLen.add(i);
+          idxAndLen.add(codec.getId());
+          idxAndLen.add(bytesWritten);
+          idxAndLen.add(baos.size());
           if (doMeasurement) {
-            idxAndLen.add((int)(sm.statDetails[i].afterZip = deflater.getBytesWritten()));            
-            idxAndLen.add((int)(sm.statDetails[i].beforeZip = deflater.getBytesRead()));
+            sm.statDetails[i].afterZip = bytesWritten;
+            sm.statDetails[i].beforeZip = baos.size();
             sm.statDetails[i].zipTime = System.currentTimeMillis() - startTime;
-          } else {
-            idxAndLen.add((int)deflater.getBytesWritten());            
-            idxAndLen.add((int)deflater.getBytesRead());
           }
         } 
       }
       serializedOut.writeInt(nbrEntries);                     // write number of entries
       for (int i = 0; i < idxAndLen.size();) {
         serializedOut.write(idxAndLen.get(i++));
+        int codecId = idxAndLen.get(i++);
+        if (compressionProfile != null) {
+          serializedOut.write(codecId);
+        }
         serializedOut.writeInt(idxAndLen.get(i++));
         serializedOut.writeInt(idxAndLen.get(i++));
       }
@@ -1494,7 +1516,6 @@ public class BinaryCasSerDes4 {
     final private DataInput deserIn;
 
     final private DataInputStream[] dataInputs = new DataInputStream[NBR_SLOT_KIND_ZIP_STREAMS];
-    private Inflater[] inflaters = new Inflater[NBR_SLOT_KIND_ZIP_STREAMS];
 
     private int[] heap;           // main heap
     private int heapStart;
@@ -1553,7 +1574,7 @@ public class BinaryCasSerDes4 {
      * @param deserIn input data
      * @throws IOException passthru
      */
-    Deserializer(CASImpl cas, DataInput deserIn, boolean isDelta) throws IOException {
+    Deserializer(CASImpl cas, DataInput deserIn, boolean isDelta, boolean isCodecIds) throws IOException {
       this.cas = cas;
       this.deserIn = deserIn;
       this.isDelta = isDelta;
@@ -1566,16 +1587,17 @@ public class BinaryCasSerDes4 {
 //      deserIn.readInt();    // reserved to record additional version info  // already read before calling
       final int nbrEntries = deserIn.readInt();  // number of compressed streams
       
-      IntVector idxAndLen = new IntVector(nbrEntries * 3);
+      IntVector idxAndLen = new IntVector(nbrEntries * 4);
       
       for (int i = 0; i < nbrEntries; i++) {
         idxAndLen.add(deserIn.readUnsignedByte());  // slot ordinal number
+        idxAndLen.add(isCodecIds ? deserIn.readUnsignedByte() : CompressionCodec.DEFLATE_ID);  // codec id
         idxAndLen.add(deserIn.readInt());           // compressed size, bytes
-        idxAndLen.add(deserIn.readInt());           // decompressed size, bytes (not currently used)
+        idxAndLen.add(deserIn.readInt());           // decompressed size, bytes
       }
       
       for (int i = 0; i < idxAndLen.size();) {
-        setupReadStream(idxAndLen.get(i++), idxAndLen.get(i++), idxAndLen.get(i++));
+        setupReadStream(idxAndLen.get(i++), CompressionCodec.forId(idxAndLen.get(i++)), idxAndLen.get(i++), idxAndLen.get(i++));
       }
 
       arrayLength_dis = dataInputs[arrayLength_i];
@@ -1863,36 +1885,13 @@ public class BinaryCasSerDes4 {
 
     private void setupReadStream(
         int slotIndex, 
+        CompressionCodec codec,
         int bytesCompr,
         int bytesOrig) throws IOException {
       byte[] b = new byte[bytesCompr + 1];
       deserIn.readFully(b, 0, bytesCompr);  // this leaves 1 extra 0 byte at the end
       // which may be required by Inflater with nowrap option - see Inflater javadoc
-      
-      // testing inflate speed
-//      long startTime = System.currentTimeMillis();
-//      inflater.reset();
-//      inflater.setInput(b);
-//      byte[] uncompressed = new byte[bytesOrig];
-//      int uncompressedLength = 0;
-//      try {
-//        uncompressedLength = inflater.inflate(uncompressed);
-//      } catch (DataFormatException e) {
-//        throw new RuntimeException(e);
-//      }
-//      if (uncompressedLength != bytesOrig) {
-//        throw new RuntimeException();
-//      }
-//      System.out.format("Decompress %s took %,d ms%n", 
-//          SlotKind.values()[slotIndex], System.currentTimeMillis() - startTime); 
-//      
-//      dataInputs[slotIndex] = new DataInputStream(new ByteArrayInputStream(uncompressed));
-      Inflater inflater = new Inflater(true);
-      inflaters[slotIndex] = inflater;  // save to be able to call end() when done. 
-      ByteArrayInputStream baiStream = new ByteArrayInputStream(b);      
-      int zipBufSize = Math.max(1024, bytesCompr);
-      InflaterInputStream iis = new InflaterInputStream(baiStream, inflater, zipBufSize);
-      dataInputs[slotIndex] = new DataInputStream(new BufferedInputStream(iis, zipBufSize));
+      dataInputs[slotIndex] = new DataInputStream(codec.decompress(b, bytesCompr, bytesOrig));
     }
     
     private void closeDataInputs() {
@@ -1904,12 +1903,6 @@ public class BinaryCasSerDes4 {
           }
         }
       }
-      // release any space inflater holding on to
-      for (Inflater inflater : inflaters) {
-        if (null != inflater) {
-          inflater.end();
-        }
-      }
     }
     
     private DataInput getInputStream(SlotKind kind) {
@@ -2045,7 +2038,7 @@ public class BinaryCasSerDes4 {
         return 0;
       }
       if (1 == length) {
-        return stringHeapObj.addString("");
+        return stringHeapObj.appendString("");
       }
       
       if (length < 0) {  // in this case, -length is the slot index
@@ -2055,7 +2048,7 @@ public class BinaryCasSerDes4 {
       int segmentIndex = (only1CommonString) ? 0 :
         readVnumber(strSeg_dis);
       String s =  readCommonString[segmentIndex].substring(offset, offset + length - 1);
-      return stringHeapObj.addString(s);
+      return stringHeapObj.appendString(s);  // positional: later strings may refer to its slot index
     }
 
     /******************************************************************************
@@ -46,7 +46,6 @@ import static org.apache.uima.cas.impl.SlotKinds.SlotKind.Slot_StrRef;
 import static org.apache.uima.cas.impl.SlotKinds.SlotKind.Slot_StrSeg;
 import static org.apache.uima.cas.impl.SlotKinds.SlotKind.Slot_TypeCode;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -63,10 +62,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import org.apache.uima.cas.AbstractCas;
 import org.apache.uima.cas.CASRuntimeException;
@@ -80,6 +80,7 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.CasIOUtils;
 import org.apache.uima.util.CasLoadMode;
+import org.apache.uima.util.Misc;
 import org.apache.uima.util.impl.DataIO;
 import org.apache.uima.util.impl.OptimizeStrings;
 import org.apache.uima.util.impl.SerializationMeasures;
@@ -213,6 +214,19 @@ public class BinaryCasSerDes6 {
   private static final int VERSION = 1;  
   
   private static final long DBL_1 = Double.doubleToLongBits(1D);
+  
+  /**
+   * Define this JVM property to have the per slot kind streams compressed (when serializing) and 
+   * decompressed (when deserializing) in parallel, using the common fork-join pool.
+   * The serialized form is the same either way.
+   */
+  public static final String PARALLEL_COMPRESSION = "uima.serdes6_parallel_compression";
+  
+  // not final, for testing
+  static boolean isParallelCompression = Misc.getNoValueSystemProperty(PARALLEL_COMPRESSION);
+  
+  // below this many uncompressed bytes in total, handing the streams to other threads costs more than it saves
+  static int parallelCompressionMinBytes = 256 * 1024;
 
   /**
    * Compression alternatives
@@ -281,6 +295,17 @@ public class BinaryCasSerDes6 {
   public ReuseInfo getReuseInfo() {
     return new ReuseInfo(foundFSs, foundFSsArray, fsStartIndexes);
   }
+  
+  /**
+   * Selects the compression codec for each stream, instead of deflating them all with the 
+   * compress level and strategy.  The codec ids are recorded in the serialized form, so 
+   * deserialization doesn't need to be told.  
+   * @param compressionProfile the profile, or null to deflate all streams, in the format 
+   *        written by earlier versions
+   */
+  public void setCompressionProfile(CompressionProfile compressionProfile) {
+    this.compressionProfile = compressionProfile;
+  }
     
   // speedups - ints for SlotKind ordinals
   final private static int arrayLength_i = Slot_ArrayLength.ordinal();
@@ -308,6 +333,7 @@ public class BinaryCasSerDes6 {
   private TypeSystemImpl ts;
   final private CompressLevel compressLevel;
   final private CompressStrat compressStrategy;  
+  private CompressionProfile compressionProfile = CompressionProfile.DEFAULT;  // null means deflate, with the above
   
   /**
    * Things that are used by common routines among serialization and deserialization
@@ -332,6 +358,7 @@ public class BinaryCasSerDes6 {
   final private boolean isSerializingDelta;        // if true, there is a marker indicating the start spot(s)
         private boolean isDelta;
         private boolean isReadingDelta;
+        private boolean isReadingCodecIds;
   final private MarkerImpl mark;  // the mark to serialize from
 
   
@@ -422,7 +449,6 @@ public class BinaryCasSerDes6 {
   private int version;
 
   final private DataInputStream[] dataInputs = new DataInputStream[NBR_SLOT_KIND_ZIP_STREAMS];
-  final private Inflater[] inflaters = new Inflater[NBR_SLOT_KIND_ZIP_STREAMS];
 
   private IntVector fixupsNeeded;  // for deserialization, the "fixups" for relative heap refs needed  
   private int stringTableOffset;
@@ -576,6 +602,7 @@ public class BinaryCasSerDes6 {
 
     this.compressLevel = f6.compressLevel;
     this.compressStrategy = f6.compressStrategy;
+    this.compressionProfile = f6.compressionProfile;
     reuseInfoProvided = f6.reuseInfoProvided;
     foundFSs = f6.foundFSs;
     foundFSsArray = f6.foundFSsArray;
@@ -697,6 +724,7 @@ public class BinaryCasSerDes6 {
     .seqVer(0)
     .typeSystemIncluded(isTsIncluded)
     .typeSystemIndexDefIncluded(isTsiIncluded)
+    .codecIdsIncluded(compressionProfile != null)
     .write(serializedOut);
  
     if (isTsIncluded || isTsiIncluded) {
@@ -1044,9 +1072,20 @@ public class BinaryCasSerDes6 {
    * @throws IOException passthru
    */
   private void collectAndZip() throws IOException {
+    if (isParallelCompression) {
+      int totalSize = 0;
+      for (ByteArrayOutputStream baos : baosZipSources) {
+        if (baos != null) {
+          totalSize += baos.size();
+        }
+      }
+      if (totalSize >= parallelCompressionMinBytes) {
+        collectAndZipParallel();
+        return;
+      }
+    }
     ByteArrayOutputStream baosZipped = new ByteArrayOutputStream(4096);
-    Deflater deflater = new Deflater(compressLevel.lvl, true);
-    deflater.setStrategy(compressStrategy.strat);
+    final CompressionCodec deflate = CompressionCodec.deflate(compressLevel.lvl, compressStrategy.strat);
     int nbrEntries = 0;
     
     List<Integer> idxAndLen = new ArrayList<Integer>();
@@ -1057,30 +1096,133 @@ public class BinaryCasSerDes6 {
         nbrEntries ++;
         dosZipSources[i].close();
         long startTime = System.currentTimeMillis();
-        int zipBufSize = Math.max(1024, baos.size() / 100);
-        deflater.reset();
-        DeflaterOutputStream cds = new DeflaterOutputStream(baosZipped, deflater, zipBufSize);       
-        baos.writeTo(cds);
-        cds.close();
+        CompressionCodec codec = getCodec(i, deflate);
+        int bytesWritten = codec.compress(baos, baosZipped);
         idxAndLen.add(i);
+        idxAndLen.add(codec.getId());
+        idxAndLen.add(bytesWritten);
+        idxAndLen.add(baos.size());
         if (doMeasurements) {
-          idxAndLen.add((int)(sm.statDetails[i].afterZip = deflater.getBytesWritten()));            
-          idxAndLen.add((int)(sm.statDetails[i].beforeZip = deflater.getBytesRead()));
+          sm.statDetails[i].afterZip = bytesWritten;
+          sm.statDetails[i].beforeZip = baos.size();
           sm.statDetails[i].zipTime = System.currentTimeMillis() - startTime;
-        } else {
-          idxAndLen.add((int)deflater.getBytesWritten());            
-          idxAndLen.add((int)deflater.getBytesRead());
         }
       } 
     }
     serializedOut.writeInt(nbrEntries);                     // write number of entries
     for (int i = 0; i < idxAndLen.size();) {
       serializedOut.write(idxAndLen.get(i++));
+      int codecId = idxAndLen.get(i++);
+      if (compressionProfile != null) {
+        serializedOut.write(codecId);
+      }
       serializedOut.writeInt(idxAndLen.get(i++));
       serializedOut.writeInt(idxAndLen.get(i++));
     }
     baosZipped.writeTo(serializedOut);                      // write Compressed info
   }  
+  
+  private CompressionCodec getCodec(int slotIndex, CompressionCodec deflate) {
+    return (compressionProfile == null) ? deflate : compressionProfile.getCodec(slotIndex);
+  }
+  
+  /**
+   * Same as collectAndZip, but each stream is deflated on its own, in parallel; 
+   * the zipped streams are written in the same order.
+   * 
+   * @throws IOException passthru
+   */
+  private void collectAndZipParallel() throws IOException {
+    final CompressionCodec deflate = CompressionCodec.deflate(compressLevel.lvl, compressStrategy.strat);
+    List<Callable<ZippedStream>> tasks = new ArrayList<Callable<ZippedStream>>();
+    for (int i = 0; i < baosZipSources.length; i++) {
+      final ByteArrayOutputStream baos = baosZipSources[i];
+      if (baos != null) {
+        dosZipSources[i].close();
+        final int slotIndex = i;
+        final CompressionCodec codec = getCodec(i, deflate);
+        tasks.add(new Callable<ZippedStream>() {
+          public ZippedStream call() throws IOException {
+            return zipStream(slotIndex, codec, baos);
+          }
+        });
+      }
+    }
+    
+    List<ZippedStream> zipped = invokeAll(tasks);
+    
+    serializedOut.writeInt(zipped.size());                  // write number of entries
+    for (ZippedStream z : zipped) {
+      serializedOut.write(z.slotIndex);
+      if (compressionProfile != null) {
+        serializedOut.write(z.codecId);
+      }
+      serializedOut.writeInt(z.bytesWritten);
+      serializedOut.writeInt(z.bytesRead);
+      if (doMeasurements) {
+        sm.statDetails[z.slotIndex].afterZip = z.bytesWritten;
+        sm.statDetails[z.slotIndex].beforeZip = z.bytesRead;
+        sm.statDetails[z.slotIndex].zipTime = z.zipTime;
+      }
+    }
+    for (ZippedStream z : zipped) {
+      z.zipped.writeTo(serializedOut);                      // write Compressed info
+    }
+  }
+  
+  private static ZippedStream zipStream(int slotIndex, CompressionCodec codec, ByteArrayOutputStream baos) throws IOException {
+    final long startTime = System.currentTimeMillis();
+    ByteArrayOutputStream baosZipped = new ByteArrayOutputStream(Math.max(512, baos.size() / 4));
+    int bytesWritten = codec.compress(baos, baosZipped);
+    return new ZippedStream(slotIndex, codec.getId(), baosZipped, bytesWritten, 
+        baos.size(), System.currentTimeMillis() - startTime);
+  }
+  
+  private static class ZippedStream {
+    final int slotIndex;
+    final int codecId;
+    final ByteArrayOutputStream zipped;
+    final int bytesWritten;
+    final int bytesRead;
+    final long zipTime;
+    
+    ZippedStream(int slotIndex, int codecId, ByteArrayOutputStream zipped, int bytesWritten, int bytesRead, long zipTime) {
+      this.slotIndex = slotIndex;
+      this.codecId = codecId;
+      this.zipped = zipped;
+      this.bytesWritten = bytesWritten;
+      this.bytesRead = bytesRead;
+      this.zipTime = zipTime;
+    }
+  }
+  
+  /**
+   * Runs the tasks on the common fork-join pool
+   * @param tasks the tasks
+   * @return their results, in order
+   * @throws IOException if a task threw one
+   */
+  private static <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<T>(tasks.size());
+    try {
+      for (Future<T> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+        results.add(f.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    return results;
+  }
  
   private void writeLong(long v, long prev) throws IOException {
     writeDiff(long_High_i, (int)(v >>> 32), (int)(prev >>> 32));
@@ -1729,7 +1871,40 @@ public class BinaryCasSerDes6 {
   }
   
   
+  /**
+   * Whether the codec id of each stream is included is taken from the header last read by this
+   * instance; if it read none, the streams are taken to be deflated without codec ids, as written
+   * without a compression profile.  Callers which read the header themselves use
+   * {@link #deserializeAfterVersion(DataInputStream, Header, AllowPreexistingFS)}.
+   * @param istream positioned after the header
+   * @param isDelta true if reading a delta CAS
+   * @param allowPreexistingFS what to do if item already exists below the mark
+   * @throws IOException passthru
+   */
   public void deserializeAfterVersion(DataInputStream istream, boolean isDelta, AllowPreexistingFS allowPreexistingFS) throws IOException {
+    deserializeAfterVersion(istream, isDelta, isReadingCodecIds, allowPreexistingFS);
+  }
+
+  /**
+   * @param istream positioned after the header
+   * @param h the header read from istream, which says if it is a delta CAS, and if the codec id 
+   *          of each stream is included
+   * @param allowPreexistingFS what to do if item already exists below the mark
+   * @throws IOException passthru
+   */
+  public void deserializeAfterVersion(DataInputStream istream, Header h, AllowPreexistingFS allowPreexistingFS) throws IOException {
+    deserializeAfterVersion(istream, h.isDelta(), h.isCodecIdsIncluded(), allowPreexistingFS);
+  }
+  
+  /**
+   * @param istream positioned after the header
+   * @param isDelta true if reading a delta CAS
+   * @param isCodecIds true if the header says the codec id of each stream is included
+   * @param allowPreexistingFS what to do if item already exists below the mark
+   * @throws IOException passthru
+   */
+  void deserializeAfterVersion(DataInputStream istream, boolean isDelta, boolean isCodecIds, AllowPreexistingFS allowPreexistingFS) throws IOException {
+    isReadingCodecIds = isCodecIds;
 
     this.allowPreexistingFS = allowPreexistingFS;
     if (allowPreexistingFS == AllowPreexistingFS.ignore) {
@@ -1760,8 +1935,11 @@ public class BinaryCasSerDes6 {
     
     if (!isReadingDelta) {
       heapObj.reinitSizeOnly(1);
-      heap = heapObj.heap;
     }
+    // reserve the space up front: growing one FS at a time would copy the heap
+    // once per doubling.  When type mapping, this is only an estimate.
+    heapObj.ensureCapacity(isReadingDelta ? heapUsedInTarget : heapUsedInTarget - 1);
+    heap = heapObj.heap;
     
     Arrays.fill(iPrevHeapArray, 0);
     Arrays.fill(prevHeapInstanceWithIntValues, null);
@@ -2316,7 +2494,7 @@ public class BinaryCasSerDes6 {
     if (1 == length) {
       // always store, in case later offset ref
 //      if (storeIt) {
-        return stringHeapObj.addString("");
+        return stringHeapObj.appendString("");
 //      } else {
 //        return 0;
 //      }
@@ -2342,7 +2520,7 @@ public class BinaryCasSerDes6 {
     //   later as an offset into the string table
 //    if (storeIt) {
       String s =  readCommonString[segmentIndex].substring(offset, offset + length - 1);
-      return stringHeapObj.addString(s);
+      return stringHeapObj.appendString(s);  // positional: later strings may refer to its slot index
 //    } else {
 //      return 0;
 //    }
@@ -3543,15 +3721,20 @@ public class BinaryCasSerDes6 {
      * Setup all the input streams with inflaters
      ************************************************/
     final int nbrEntries = deserIn.readInt();  // number of compressed streams    
-    IntVector idxAndLen = new IntVector(nbrEntries * 3);
+    IntVector idxAndLen = new IntVector(nbrEntries * 4);
     for (int i = 0; i < nbrEntries; i++) {
       idxAndLen.add(deserIn.readUnsignedByte());  // slot ordinal number
+      idxAndLen.add(isReadingCodecIds ? deserIn.readUnsignedByte() : CompressionCodec.DEFLATE_ID);  // codec id
       idxAndLen.add(deserIn.readInt());           // compressed size, bytes
-      idxAndLen.add(deserIn.readInt());           // decompressed size, bytes (not currently used)
+      idxAndLen.add(deserIn.readInt());           // decompressed size, bytes
     }
     
-    for (int i = 0; i < idxAndLen.size();) {
-      setupReadStream(idxAndLen.get(i++), idxAndLen.get(i++), idxAndLen.get(i++));
+    if (isParallelCompression && totalOrigSize(idxAndLen) >= parallelCompressionMinBytes) {
+      setupReadStreamsParallel(idxAndLen);
+    } else {
+      for (int i = 0; i < idxAndLen.size();) {
+        setupReadStream(idxAndLen.get(i++), CompressionCodec.forId(idxAndLen.get(i++)), idxAndLen.get(i++), idxAndLen.get(i++));
+      }
     }
 
     arrayLength_dis = dataInputs[arrayLength_i];
@@ -3577,39 +3760,47 @@ public class BinaryCasSerDes6 {
   
   private void setupReadStream(
       int slotIndex, 
+      CompressionCodec codec,
       int bytesCompr,
       int bytesOrig) throws IOException {
     byte[] b = new byte[bytesCompr + 1];
     deserIn.readFully(b, 0, bytesCompr);  // this leaves 1 extra 0 byte at the end
     // which may be required by Inflater with nowrap option - see Inflater javadoc
+    dataInputs[slotIndex] = new DataInputStream(codec.decompress(b, bytesCompr, bytesOrig));
+  }
+  
+  private static long totalOrigSize(IntVector idxAndLen) {
+    long total = 0;
+    for (int i = 3; i < idxAndLen.size(); i += 4) {
+      total += idxAndLen.get(i);
+    }
+    return total;
+  }
+  
+  /**
+   * Reads all the compressed streams, then decompresses them in parallel, each fully into a byte array
+   * @param idxAndLen slot index, codec id, compressed size and decompressed size for each stream
+   * @throws IOException passthru
+   */
+  private void setupReadStreamsParallel(IntVector idxAndLen) throws IOException {
+    List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+    for (int i = 0; i < idxAndLen.size(); i += 4) {
+      final CompressionCodec codec = CompressionCodec.forId(idxAndLen.get(i + 1));
+      final int bytesCompr = idxAndLen.get(i + 2);
+      final int bytesOrig = idxAndLen.get(i + 3);
+      final byte[] b = new byte[bytesCompr + 1];
+      deserIn.readFully(b, 0, bytesCompr);  // this leaves 1 extra 0 byte at the end, see setupReadStream
+      tasks.add(new Callable<byte[]>() {
+        public byte[] call() throws IOException {
+          return codec.decompressFully(b, bytesCompr, bytesOrig);
+        }
+      });
+    }
     
-    // testing inflate speed
-//      long startTime = System.currentTimeMillis();
-//      inflater.reset();
-//      inflater.setInput(b);
-//      byte[] uncompressed = new byte[bytesOrig];
-//      int uncompressedLength = 0;
-//      try {
-//        uncompressedLength = inflater.inflate(uncompressed);
-//      } catch (DataFormatException e) {
-//        throw new RuntimeException(e);
-//      }
-//      if (uncompressedLength != bytesOrig) {
-//        throw new RuntimeException();
-//      }
-//      System.out.format("Decompress %s took %,d ms%n", 
-//          SlotKind.values()[slotIndex], System.currentTimeMillis() - startTime); 
-//      
-//      dataInputs[slotIndex] = new DataInputStream(new ByteArrayInputStream(uncompressed));
-    Inflater inflater = new Inflater(true);
-    inflaters[slotIndex] = inflater;  // save to be able to call end() when done. 
-    ByteArrayInputStream baiStream = new ByteArrayInputStream(b);      
-    int zipBufSize = Math.max(1 << 10, bytesCompr); // 32768 == 1<< 15.  Tuned by trials on 2015 intel i7
-     // caches: L1 = 128KB    L2 = 1M     L3 = 6M
-     // increasing the max causes cache dumping on this machine, and things slow down
-    InflaterInputStream iis = new InflaterInputStream(baiStream, inflater, zipBufSize);
-    // increasing the following buffer stream buffer size also seems to slow things down
-    dataInputs[slotIndex] = new DataInputStream(new BufferedInputStream(iis, zipBufSize * 1 ));
+    List<byte[]> decompressed = invokeAll(tasks);
+    for (int i = 0; i < decompressed.size(); i++) {
+      dataInputs[idxAndLen.get(i * 4)] = new DataInputStream(new ByteArrayInputStream(decompressed.get(i)));
+    }
   }
   
   private void closeDataInputs() {
@@ -3621,12 +3812,6 @@ public class BinaryCasSerDes6 {
         }
       }
     }
-    // release any space inflater holding on to
-    for (Inflater inflater : inflaters) {
-      if (null != inflater) {
-        inflater.end();
-      }
-    }
   }
   
   private Header readHeader(InputStream istream) throws IOException {
@@ -3642,6 +3827,7 @@ public class BinaryCasSerDes6 {
     }
     
     isReadingDelta = h.isDelta;
+    isReadingCodecIds = h.codecIdsIncluded;
     return h;
   }
   
@@ -205,6 +205,14 @@ public class CASImpl extends AbstractCas_ImplBase implements CAS, CASMgr, LowLev
       Misc.getNoValueSystemProperty(DISABLE_PROTECT_INDEXES) &&
       !IS_REPORT_FS_UPDATE_CORRUPTS_INDEX &&
       !IS_THROW_EXCEPTION_CORRUPT_INDEX;
+
+  /**
+   * Define this JVM property to make lightweight resets the default for new CASes, 
+   * see {@link #setLightweightReset(boolean)}.
+   */
+  public static final String LIGHTWEIGHT_RESET = "uima.lightweight_cas_reset";
+
+  private static final boolean IS_LIGHTWEIGHT_RESET = Misc.getNoValueSystemProperty(LIGHTWEIGHT_RESET);
   
   // The offset for the array length cell. An array consists of length+2
   // number
@@ -291,6 +299,15 @@ public class CASImpl extends AbstractCas_ImplBase implements CAS, CASMgr, LowLev
     // often, the framework disables this before calling users code
     private boolean flushEnabled = true;
 
+    // If this CAS is frozen: it can't be modified until reset, and can be read by several threads
+    private boolean isFrozen = false;
+
+    // If resets keep the capacity of the heaps, indexes and JCas cover object maps
+    private boolean isLightweightReset = IS_LIGHTWEIGHT_RESET;
+
+    // If not null, records the heap uses at each reset, and sizes the heaps on normal resets
+    private CasHeapSizingPolicy heapSizingPolicy = null;
+
     // controls whether Java cover objects for CAS objects,
     // including JCas objects,
     // are cached and reused.
@@ -573,6 +590,22 @@ public void setCAS(CAS cas) {
     this.indexRepository = ser.getIndexRepository(this);
   }
 
+  /**
+   * Constructor for a CAS sharing a committed type system with other CASes, and having the index
+   * definitions of one of them, as recorded by
+   * {@link CASMgrSerializer#addIndexRepository(FSIndexRepositoryImpl)}.
+   * Used by CasCreationUtils to skip setting up type priorities and indexes from their descriptions.
+   * 
+   * @param typeSystem a committed type system
+   * @param indexDefinitions the index definitions of a CAS having this type system
+   * @param initialHeapSize the initial size of the heap
+   * @param useJcasCache true to cache JCas cover objects
+   */
+  public CASImpl(TypeSystemImpl typeSystem, CASMgrSerializer indexDefinitions, int initialHeapSize, boolean useJcasCache) {
+    this(typeSystem, initialHeapSize, useJcasCache);
+    this.indexRepository = indexDefinitions.getIndexRepository(this);
+  }
+
   // Use this when creating a CAS view
   CASImpl(CASImpl cas, SofaFS aSofa, boolean useJcasCache) {
     this.isUsedJcasCache = useJcasCache;
@@ -1144,10 +1177,20 @@ public void reset() {
 
   public void resetNoQuestions() {
     svd.casResets.incrementAndGet();
+    svd.isFrozen = false;
     if (trace) {
       System.out.println("CAS Reset in thread " + Thread.currentThread().getName() +
           " for CasId = " + getCasId() + ", new reset count = " + svd.casResets.get());
     }
+    final CasHeapSizingPolicy heapSizingPolicy = this.svd.heapSizingPolicy;
+    if (heapSizingPolicy != null) {
+      heapSizingPolicy.recordUses(new int[] {
+          this.getHeap().getCellsUsed(),
+          this.getByteHeap().getSize(),
+          this.getShortHeap().getSize(),
+          this.getLongHeap().getSize(),
+          this.getStringHeap().getSize()});
+    }
     int numViews = this.getBaseSofaCount();
     // Flush indexRepository for all Sofa
     for (int view = 1; view <= numViews; view++) {
@@ -1164,16 +1207,28 @@ public void reset() {
         ((CASImpl) tcas).mySofaRef = (1 == view) ? -1 : 0;
       }
     }
-    this.getHeap().reset(/*this.getHeap().getHeapSize() > CASImpl.resetHeapSize*/);
-
-    resetStringTable();
-
-    this.getByteHeap().reset();
-    this.getShortHeap().reset();
-    this.getLongHeap().reset();
+    if (this.svd.isLightweightReset) {
+      this.getHeap().resetKeepingCapacity();
+      this.getStringHeap().resetKeepingCapacity();
+      this.getByteHeap().resetKeepingCapacity();
+      this.getShortHeap().resetKeepingCapacity();
+      this.getLongHeap().resetKeepingCapacity();
+    } else if (heapSizingPolicy != null) {
+      this.getHeap().resetToSize(heapSizingPolicy.getTargetSize(CasHeapSizingPolicy.MAIN_HEAP));
+      this.getStringHeap().resetToSize(heapSizingPolicy.getTargetSize(CasHeapSizingPolicy.STRING_HEAP));
+      this.getByteHeap().resetToSize(heapSizingPolicy.getTargetSize(CasHeapSizingPolicy.BYTE_HEAP));
+      this.getShortHeap().resetToSize(heapSizingPolicy.getTargetSize(CasHeapSizingPolicy.SHORT_HEAP));
+      this.getLongHeap().resetToSize(heapSizingPolicy.getTargetSize(CasHeapSizingPolicy.LONG_HEAP));
+    } else {
+      this.getHeap().reset(/*this.getHeap().getHeapSize() > CASImpl.resetHeapSize*/);
+      resetStringTable();
+      this.getByteHeap().reset();
+      this.getShortHeap().reset();
+      this.getLongHeap().reset();
+    }
 
     this.indexRepository.flush();  // for base view, other views flushed above
-    this.svd.sofaNameSet = new HashSet<String>();
+    this.svd.sofaNameSet.clear();
     this.svd.initialSofaCreated = false;
     // always an Initial View now!!!
     this.svd.viewCount = 1;
@@ -1189,7 +1244,9 @@ public void reset() {
     clearTrackingMarks();
     this.svd.cache_not_in_index = 0;
     this.svd.fssTobeAddedback.clear();
-    this.svd.fssTobeAddedback.trimToSize();
+    if (!this.svd.isLightweightReset) {
+      this.svd.fssTobeAddedback.trimToSize();
+    }
     
     this.svd.traceFSid = 0;
     if (traceFSs) { 
@@ -1198,6 +1255,114 @@ public void reset() {
     this.svd.componentInfo = null; // https://issues.apache.org/jira/browse/UIMA-5097
   }
 
+  /**
+   * Freezes this CAS, with all its views, so several threads can read it at the same time; for
+   * instance to run independent CAS consumers concurrently on a CAS after its analysis.
+   * <p>
+   * Until the CAS is reset, attempts to create FSs, set feature or array values, or update the
+   * indexes throw a CASRuntimeException. Reading feature values, iterating over the indexes and
+   * getting FS and JCas cover objects are then safe from several threads, provided the CAS is
+   * handed to them after this call, for instance by starting the threads or submitting tasks to
+   * an executor after it.
+   * <p>
+   * This sets up the views, their JCas if the JCas is in use, and the iteration structures of
+   * the indexes, which are otherwise set up lazily on first use.
+   */
+  public void freeze() {
+    if (this != this.svd.baseCAS) {
+      this.svd.baseCAS.freeze();
+      return;
+    }
+    final int numViews = this.getBaseSofaCount();
+    final CASImpl[] views = new CASImpl[numViews];
+    boolean isJCasUsed = false;
+    for (int view = 1; view <= numViews; view++) {
+      views[view - 1] = (CASImpl) ((view == 1) ? getInitialView() : getView(view));
+      isJCasUsed |= (views[view - 1] != null) && (views[view - 1].jcas != null);
+    }
+    for (CASImpl view : views) {
+      if (view == null) {
+        continue;
+      }
+      if (isJCasUsed) {
+        try {
+          view.getJCas();
+        } catch (CASException e) {
+          throw new CASRuntimeException(e);
+        }
+      }
+      view.indexRepository.createIndexIteratorCaches();
+    }
+    this.svd.isFrozen = true;
+  }
+
+  /**
+   * Sets the kind of resets of this CAS, with all its views.
+   * <p>
+   * Normal resets shrink the heaps, the indexes and the maps of JCas cover objects when they were
+   * much bigger than the last documents needed, and otherwise keep them for the next document.
+   * Lightweight resets always keep them, so a CAS processing many documents of similar sizes
+   * doesn't regrow them for each document.  The heaps are cleared up to their last used cell, and
+   * the hash tables of the indexes, of the string heap and of the JCas cover objects empty just
+   * the slots filled since the last reset, while those are few compared to the table size
+   * (else the whole table), so a reset mostly costs in proportion to the work done on the CAS
+   * rather than to the largest document it held.  Either kind of reset keeps the views and the JCas.
+   * <p>
+   * The default for new CASes is normal resets, or lightweight resets if the JVM property 
+   * {@link #LIGHTWEIGHT_RESET} is defined.
+   * 
+   * @param isLightweight true for lightweight resets, false for normal resets
+   */
+  public void setLightweightReset(boolean isLightweight) {
+    this.svd.isLightweightReset = isLightweight;
+  }
+
+  /**
+   * @return true if resets of this CAS are lightweight, see {@link #setLightweightReset(boolean)}
+   */
+  public boolean isLightweightReset() {
+    return this.svd.isLightweightReset;
+  }
+
+  /**
+   * Sets the policy sizing the heaps of this CAS, with all its views, on reset.
+   * <p>
+   * Each reset records the uses of the heaps in the policy; normal resets then size the heaps
+   * as the policy says, instead of shrinking them step by step when they were much bigger than
+   * the last documents needed.  Lightweight resets keep the heaps as they are.
+   * <p>
+   * The CASes of a CasPool share one policy, so each is sized for the documents of the pool.
+   * 
+   * @param policy the policy, or null to size the heaps from the last documents of this CAS only
+   */
+  public void setHeapSizingPolicy(CasHeapSizingPolicy policy) {
+    this.svd.heapSizingPolicy = policy;
+  }
+
+  /**
+   * @return the policy sizing the heaps of this CAS on reset, or null,
+   *   see {@link #setHeapSizingPolicy(CasHeapSizingPolicy)}
+   */
+  public CasHeapSizingPolicy getHeapSizingPolicy() {
+    return this.svd.heapSizingPolicy;
+  }
+
+  /**
+   * @return true if this CAS is frozen, see {@link #freeze()}
+   */
+  public boolean isFrozen() {
+    return this.svd.isFrozen;
+  }
+
+  /**
+   * @throws CASRuntimeException if this CAS is frozen
+   */
+  void checkNotFrozen() {
+    if (this.svd.isFrozen) {
+      throw new CASRuntimeException(CASRuntimeException.CAS_FROZEN);
+    }
+  }
+
   /**
    * @deprecated Use {@link #reset reset()}instead.
    */
@@ -1518,7 +1683,7 @@ public CAS getCAS() {
       }
 
       if (h.form4) {
-        (new BinaryCasSerDes4(this.getTypeSystemImpl(), false)).deserialize(this, dis, delta);
+        (new BinaryCasSerDes4(this.getTypeSystemImpl(), false)).deserialize(this, dis, delta, h.codecIdsIncluded);
         return h.typeSystemIndexDefIncluded ? SerialFormat.COMPRESSED_TSI : SerialFormat.COMPRESSED;
       }
       
@@ -1577,7 +1742,7 @@ public CAS getCAS() {
                                     ? new BinaryCasSerDes6(f6, ts_for_decoding)
                                     : new BinaryCasSerDes6(this, ts_for_decoding);          
          
-          bcsd.deserializeAfterVersion(dis, delta, AllowPreexistingFS.allow);
+          bcsd.deserializeAfterVersion(dis, delta, h.codecIdsIncluded, AllowPreexistingFS.allow);
           return h.typeSystemIndexDefIncluded 
                    ? SerialFormat.COMPRESSED_FILTERED_TSI
                    : h.typeSystemIncluded 
@@ -1934,9 +2099,7 @@ public CAS getCAS() {
     int loopLen = fsIndex[1]; // number of sofas, not necessarily the same as
     // number of views
     // because the initial view may not have a sofa
-    for (int i = 2; i < loopLen + 2; i++) { // iterate over all the sofas,
-      this.indexRepository.addFS(fsIndex[i]); // add to base index
-    }
+    this.indexRepository.ll_addAllFS(fsIndex, 2, loopLen + 2); // add all the sofas to base index
     int loopStart = loopLen + 2;
 
     FSIterator<SofaFS> iterator = this.svd.baseCAS.getSofaIterator();
@@ -1967,9 +2130,7 @@ public CAS getCAS() {
       if (view != null) {
         FSIndexRepositoryImpl loopIndexRep = (FSIndexRepositoryImpl) getSofaIndexRepository(viewNbr);
         loopLen = fsIndex[loopStart];
-        for (int i = loopStart + 1; i < loopStart + 1 + loopLen; i++) {
-          loopIndexRep.addFS(fsIndex[i]);
-        }
+        loopIndexRep.ll_addAllFS(fsIndex, loopStart + 1, loopStart + 1 + loopLen);
         loopStart += loopLen + 1;
           ((CASImpl) view).updateDocumentAnnotation();
       } else {
@@ -1992,9 +2153,7 @@ public CAS getCAS() {
     int numViews = fsIndex[0]; // total number of views
     int loopLen = fsIndex[1]; // number of sofas, not necessarily the same as number of views (initial view could be missing a Sofa)
     // add Sofa FSs to base view number of views. Should only contain new Sofas.
-    for (int i = 2; i < loopLen + 2; i++) { // iterate over all the sofas,
-      this.indexRepository.addFS(fsIndex[i]); // add to base index
-    }
+    this.indexRepository.ll_addAllFS(fsIndex, 2, loopLen + 2); // add all the sofas to base index
     int loopStart = loopLen + 2;
 
     FSIterator<SofaFS> iterator = this.getSofaIterator();
@@ -2029,9 +2188,7 @@ public CAS getCAS() {
         
         // add FSs to index
         
-        for (int i = loopStart + 1; i < loopStart + 1 + loopLen; i++) {
-          loopIndexRep.addFS(fsIndex[i]);
-        }
+        loopIndexRep.ll_addAllFS(fsIndex, loopStart + 1, loopStart + 1 + loopLen);
         
         // remove FSs from indexes
         
@@ -2171,7 +2328,7 @@ public CAS getCAS() {
     // this.stringHeap = new StringHeap();
     this.getStringHeap().reset();
     for (int i = 1; i < stringTable.length; i++) {
-      this.getStringHeap().addString(stringTable[i]);
+      this.getStringHeap().appendString(stringTable[i]);
     }
   }
 
@@ -2246,6 +2403,7 @@ public int ll_getArraySize(int arrayFsRef) {
    */
   void setArrayValue(final int addr, final int index, final int value)
       throws ArrayIndexOutOfBoundsException {
+    checkNotFrozen();
     // Get the length of this array.
     final int arraySize = this.getHeap().heap[addr + arrayLengthFeatOffset];
     // Check for boundary violation.
@@ -2324,6 +2482,7 @@ public int ll_getArraySize(int arrayFsRef) {
    *                How many elements to copy.
    */
   void copyFromArray(int[] src, int srcOffset, int addr, int destOffset, int length) {
+    checkNotFrozen();
     // Get the length of this array.
     final int arraySize = this.getHeap().heap[addr + arrayLengthFeatOffset];
     // Check boundary conditions for destination array. We can rely on Java
@@ -2403,6 +2562,7 @@ public int ll_getArraySize(int arrayFsRef) {
    *                    appropriate for the type at the address.
    */
   public void setFeatureValue(int addr, int feat, int val) {
+    checkNotFrozen();
     boolean wasRemoved = checkForInvalidFeatureSetting(addr, feat);
     setFeatureValueNotJournaled(addr, feat, val);
     if (wasRemoved) {
@@ -2427,6 +2587,7 @@ public int ll_getArraySize(int arrayFsRef) {
    *                    appropriate for the type at the address.
    */
   void setFeatureValueNoIndexCorruptionCheck(int addr, int feat, int val) {
+    checkNotFrozen();
     setFeatureValueNotJournaled(addr, feat, val);
     if (this.svd.trackingMark != null) {
       this.logFSUpdate(addr, addr+this.svd.casMetadata.featureOffset[feat], 
@@ -2451,6 +2612,7 @@ public int ll_getArraySize(int arrayFsRef) {
   }
   
   public void setStringValue(int addr, int feat, String s) {
+    checkNotFrozen();
     final int stringCode = ((s == null) ? NULL : this.getStringHeap().addString(s));
     setFeatureValue(addr, feat, stringCode);
   }
@@ -2829,6 +2991,27 @@ public int ll_getArraySize(int arrayFsRef) {
     return this.svd.stringHeap;
   }
 
+  /**
+   * Sets how the main heap and the 8, 16 and 64 bit heaps grow once they are large.
+   * 
+   * Heaps smaller than the limit double when they fill up; heaps at or above it grow by 
+   * adding <code>limit</code> more cells.  Every growth copies the heap, so a smaller limit 
+   * bounds the over-allocation and the transient memory needed while copying 
+   * (at most old size + limit, instead of 3 times the old size), at the cost of more 
+   * frequent copies for very large documents.  The default is 16M cells.
+   * 
+   * This applies to the base CAS and all of its views; it is best set before the CAS is used.
+   * See also {@link UIMAFramework#CAS_HEAP_GROWTH_LIMIT}.
+   * 
+   * @param limit the size, in cells, above which the heaps grow additively
+   */
+  public void setHeapGrowthLimit(int limit) {
+    this.svd.heap.setMultiplicationLimit(limit);
+    this.svd.byteHeap.setHeapMultLimit(limit);
+    this.svd.shortHeap.setHeapMultLimit(limit);
+    this.svd.longHeap.setHeapMultLimit(limit);
+  }
+
   public int getFeatureOffset(int feat) {
     if ((feat < 1) || (feat >= this.svd.casMetadata.featureOffset.length)) {
       return -1;
@@ -3506,6 +3689,7 @@ public final int ll_getTypeClass(int typeCode) {
 
   @Override
 public final int ll_createFS(int typeCode) {
+    checkNotFrozen();
     final int fsAddr = this.getHeap().add(this.svd.casMetadata.fsSpaceReq[typeCode], typeCode);
     svd.cache_not_in_index = fsAddr;
     if (traceFSs) {
@@ -3576,6 +3760,7 @@ public final int ll_createFS(int typeCode, boolean doCheck) {
    */
   @Override
 public int ll_createArray(int typeCode, int arrayLength) {
+    checkNotFrozen();
     final int addr = this.getHeap().add(arrayContentOffset + arrayLength, typeCode);
     this.getHeap().heap[(addr + arrayLengthFeatOffset)] = arrayLength;
     svd.cache_not_in_index = addr;
@@ -3586,6 +3771,7 @@ public int ll_createArray(int typeCode, int arrayLength) {
   }
 
   public int ll_createAuxArray(int typeCode, int arrayLength) {
+    checkNotFrozen();
     final int addr = this.getHeap().add(arrayContentOffset + 1, typeCode);
     this.getHeap().heap[(addr + arrayLengthFeatOffset)] = arrayLength;
     svd.cache_not_in_index = addr;
@@ -4043,6 +4229,7 @@ public final void ll_setFloatValue(int fsRef, int featureCode, float value) {
 
   @Override
 public final void ll_setStringValue(int fsRef, int featureCode, String value) {
+    checkNotFrozen();
     if (null != value) {
       final TypeSystemImpl ts = this.svd.casMetadata.ts;
       String[] stringSet = ts.ll_getStringSet(ts.ll_getRangeType(featureCode));
@@ -4307,6 +4494,7 @@ public void ll_setRefArrayValue(int fsRef, int position, int value, boolean doTy
 
   @Override
 public void ll_setIntArrayValue(int fsRef, int position, int value) {
+    checkNotFrozen();
     final int pos = getArrayStartAddress(fsRef) + position;
     this.getHeap().heap[pos] = value;
     if (this.svd.trackingMark != null) {
@@ -4316,6 +4504,7 @@ public void ll_setIntArrayValue(int fsRef, int position, int value) {
 
   @Override
 public void ll_setFloatArrayValue(int fsRef, int position, float value) {
+    checkNotFrozen();
     final int pos = getArrayStartAddress(fsRef) + position;
     this.getHeap().heap[pos] = float2int(value);
     if (this.svd.trackingMark != null) {
@@ -4325,6 +4514,7 @@ public void ll_setFloatArrayValue(int fsRef, int position, float value) {
 
   @Override
 public void ll_setStringArrayValue(int fsRef, int position, String value) {
+    checkNotFrozen();
     final int pos = getArrayStartAddress(fsRef) + position;
     final int stringCode = (value == null) ? NULL : addString(value);
     this.getHeap().heap[pos] = stringCode;
@@ -4335,6 +4525,7 @@ public void ll_setStringArrayValue(int fsRef, int position, String value) {
 
   @Override
 public void ll_setRefArrayValue(int fsRef, int position, int value) {
+    checkNotFrozen();
     final int pos = getArrayStartAddress(fsRef) + position;
     this.getHeap().heap[pos] = value;
     if (this.svd.trackingMark != null) {
@@ -4640,6 +4831,7 @@ public void ll_setShortValue(int fsRef, int featureCode, short value, boolean do
 
   @Override
 public void ll_setLongValue(int fsRef, int featureCode, long value) {
+    checkNotFrozen();
     final int offset = this.getLongHeap().addLong(value);
     setFeatureValue(fsRef, featureCode, offset);
   }
@@ -4654,6 +4846,7 @@ public void ll_setLongValue(int fsRef, int featureCode, long value, boolean doTy
 
   @Override
 public void ll_setDoubleValue(int fsRef, int featureCode, double value) {
+    checkNotFrozen();
     long val = Double.doubleToLongBits(value);
     final int offset = this.getLongHeap().addLong(val);
     setFeatureValue(fsRef, featureCode, offset);
@@ -4740,6 +4933,7 @@ public double ll_getDoubleArrayValue(int fsRef, int position, boolean doTypeChec
 
   @Override
 public void ll_setByteArrayValue(int fsRef, int position, byte value) {
+    checkNotFrozen();
     final int offset = this.getHeap().heap[getArrayStartAddress(fsRef)];
     this.getByteHeap().setHeapValue(value, offset + position);
     if (this.svd.trackingMark != null) {
@@ -4758,6 +4952,7 @@ public void ll_setByteArrayValue(int fsRef, int position, byte value, boolean do
 
   @Override
 public void ll_setBooleanArrayValue(int fsRef, int position, boolean b) {
+    checkNotFrozen();
     byte value = (byte) (b ? CASImpl.TRUE : CASImpl.FALSE);
     final int offset = this.getHeap().heap[getArrayStartAddress(fsRef)];
     this.getByteHeap().setHeapValue(value, offset + position);
@@ -4776,6 +4971,7 @@ public void ll_setBooleanArrayValue(int fsRef, int position, boolean value, bool
 
   @Override
 public void ll_setShortArrayValue(int fsRef, int position, short value) {
+    checkNotFrozen();
     final int offset = this.getHeap().heap[getArrayStartAddress(fsRef)];
     this.getShortHeap().setHeapValue(value, offset + position);
     if (this.svd.trackingMark != null) {
@@ -4793,6 +4989,7 @@ public void ll_setShortArrayValue(int fsRef, int position, short value, boolean
 
   @Override
 public void ll_setLongArrayValue(int fsRef, int position, long value) {
+    checkNotFrozen();
     final int offset = this.getHeap().heap[getArrayStartAddress(fsRef)];
     this.getLongHeap().setHeapValue(value, offset + position);
     if (this.svd.trackingMark != null) {
@@ -4810,6 +5007,7 @@ public void ll_setLongArrayValue(int fsRef, int position, long value, boolean do
 
   @Override
 public void ll_setDoubleArrayValue(int fsRef, int position, double d) {
+    checkNotFrozen();
     final int offset = this.getHeap().heap[getArrayStartAddress(fsRef)];
     long value = Double.doubleToLongBits(d);
     this.getLongHeap().setHeapValue(value, offset + position);
@@ -4979,6 +5177,10 @@ public <T extends AnnotationFS> T getDocumentAnnotation() {
     if (it.isValid()) {
       return it.get();
     }
+    if (this.svd.isFrozen) {
+      // can't be created
+      return null;
+    }
     return createDocumentAnnotation(0);
   }
   
@@ -5438,6 +5640,7 @@ public Marker createMarker() {
   			this.getShortHeap().getSize(),
   			this.getLongHeap().getSize(),
   			this);
+  	this.getStringHeap().markForDelta();
   	if (this.svd.modifiedPreexistingFSs == null) {
   	  this.svd.modifiedPreexistingFSs = new IntVector();
   	} else {errorMultipleMarkers();}
@@ -5460,6 +5663,46 @@ public Marker createMarker() {
   	return this.svd.trackingMark;
   }
     
+  /**
+   * Moves the tracking marker of this CAS to the current end of the CAS, as if it had just been 
+   * created: the FSs and strings added so far are no longer new, and the modifications and
+   * index updates recorded so far are forgotten.
+   * <p>
+   * This is used to send a stream of chained delta CASes, each holding only the changes since
+   * the previous one, see {@link Serialization#serializeDeltaAndAdvance(CAS, java.io.OutputStream, Marker)}.
+   * A marker can be advanced only after everything up to it was sent: the receiver must apply
+   * every delta, in order.
+   * 
+   * @return the marker, now at the end of the CAS
+   * @throws CASRuntimeException if there is no valid marker
+   */
+  public Marker advanceMarker() {
+    final MarkerImpl mark = this.svd.trackingMark;
+    if (mark == null || !mark.isValid) {
+      throw new CASRuntimeException(CASRuntimeException.INVALID_MARKER, new String[] { "Invalid Marker." });
+    }
+    mark.nextFSId = this.getHeap().getNextId();
+    mark.nextStringHeapAddr = this.getStringHeap().getSize();
+    mark.nextByteHeapAddr = this.getByteHeap().getSize();
+    mark.nextShortHeapAddr = this.getShortHeap().getSize();
+    mark.nextLongHeapAddr = this.getLongHeap().getSize();
+    this.getStringHeap().markForDelta();
+    this.svd.modifiedPreexistingFSs.removeAllElements();
+    this.svd.modifiedFSHeapCells.removeAllElements();
+    this.svd.modifiedByteHeapCells.removeAllElements();
+    this.svd.modifiedShortHeapCells.removeAllElements();
+    this.svd.modifiedLongHeapCells.removeAllElements();
+    final int numViews = getBaseSofaCount();
+    this.svd.baseCAS.indexRepository.clearIndexUpdates();
+    for (int sofaNum = 1; sofaNum <= numViews; sofaNum++) {
+      final FSIndexRepositoryImpl ir = (FSIndexRepositoryImpl) this.svd.baseCAS.getSofaIndexRepository(sofaNum);
+      if (ir != null) {
+        ir.clearIndexUpdates();
+      }
+    }
+    return mark;
+  }
+    
   private void errorMultipleMarkers() {
     throw new CASRuntimeException(CASRuntimeException.MULTIPLE_CREATE_MARKER);
   }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes the heaps of a set of CASes, typically the CASes of one CasPool, from the sizes the
+ * documents processed in them actually needed.
+ * <p>
+ * On each reset of a CAS using this policy, the number of cells (or strings) used in each heap
+ * is recorded, and each heap is reset to hold the given percentile of the recent uses, rounded up
+ * along the growth sequence of the heap and never below its initial size. The percentile is
+ * recomputed every tenth of the window of recent resets (and on the first reset), not on each one. So the CASes don't all
+ * stay at the size of the largest document seen, and a few small documents don't shrink a heap
+ * that most documents need to regrow.
+ * <p>
+ * The high-water marks, the largest use of each heap since the policy was created, are kept for
+ * monitoring.
+ * <p>
+ * One policy can be shared by CASes reset on different threads. Recording doesn't lock: the uses
+ * go into a ring of atomic slots, one per reset, so a percentile computed while other threads
+ * record may mix the uses of resets in progress, which only makes it approximate.
+ */
+public final class CasHeapSizingPolicy {
+
+  /** The main heap, sizes in cells (32 bits each) */
+  public static final int MAIN_HEAP = 0;
+
+  /** The byte heap (byte and boolean arrays), sizes in bytes */
+  public static final int BYTE_HEAP = 1;
+
+  /** The short heap (short arrays), sizes in shorts */
+  public static final int SHORT_HEAP = 2;
+
+  /** The long heap (long and double values and arrays), sizes in longs */
+  public static final int LONG_HEAP = 3;
+
+  /** The string heap, sizes in strings */
+  public static final int STRING_HEAP = 4;
+
+  static final int NBR_HEAPS = 5;
+
+  /** The default percentile of the recent uses the heaps are sized for */
+  public static final int DEFAULT_PERCENTILE = 90;
+
+  /** The default number of recent resets the percentile is taken over */
+  public static final int DEFAULT_WINDOW_SIZE = 100;
+
+  private final int percentile;
+
+  private final int windowSize;
+
+  // the percentile is recomputed at every this many resets
+  private final int recomputeInterval;
+
+  // the uses recorded at the last resets, a ring per heap, at heap * windowSize + slot
+  private final AtomicIntegerArray recentUses;
+
+  // total number of resets recorded; the next one goes at nbrRecorded % window size
+  private final AtomicLong nbrRecorded = new AtomicLong(0);
+
+  private final AtomicIntegerArray highWaterMarks = new AtomicIntegerArray(NBR_HEAPS);
+
+  private final AtomicIntegerArray targetSizes = new AtomicIntegerArray(NBR_HEAPS);
+
+  /**
+   * A policy sizing the heaps for the {@link #DEFAULT_PERCENTILE} of the last
+   * {@link #DEFAULT_WINDOW_SIZE} resets.
+   */
+  public CasHeapSizingPolicy() {
+    this(DEFAULT_PERCENTILE, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * @param percentile the percentile, 1 - 100, of the recent uses to size the heaps for;
+   *   100 sizes them for the largest recent document
+   * @param windowSize the number of recent resets the percentile is taken over
+   */
+  public CasHeapSizingPolicy(int percentile, int windowSize) {
+    if (percentile < 1 || percentile > 100) {
+      throw new IllegalArgumentException("The percentile " + percentile + " must be between 1 and 100");
+    }
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("The window size " + windowSize + " must be at least 1");
+    }
+    this.percentile = percentile;
+    this.windowSize = windowSize;
+    this.recomputeInterval = Math.max(1, windowSize / 10);
+    this.recentUses = new AtomicIntegerArray(NBR_HEAPS * windowSize);
+  }
+
+  /**
+   * Records the uses of the heaps of a CAS about to be reset. The heaps are then sized with
+   * {@link #getTargetSize(int)}.
+   * @param uses the number of cells (or strings) used in each heap, indexed by 
+   *   {@link #MAIN_HEAP} etc.
+   */
+  void recordUses(int[] uses) {
+    final long nbr = this.nbrRecorded.getAndIncrement();
+    final int slot = (int) (nbr % this.windowSize);
+    for (int heap = 0; heap < NBR_HEAPS; heap++) {
+      final int used = uses[heap];
+      this.recentUses.set(heap * this.windowSize + slot, used);
+      int highWaterMark;
+      while (used > (highWaterMark = this.highWaterMarks.get(heap)) &&
+             !this.highWaterMarks.compareAndSet(heap, highWaterMark, used)) {
+        // another thread raised it meanwhile, compare again
+      }
+    }
+    if (nbr % this.recomputeInterval == 0) {
+      computeTargetSizes((int) Math.min(nbr + 1, this.windowSize));
+    }
+  }
+
+  /**
+   * Sets the target sizes to the nearest rank percentile of the uses in the first n slots
+   * @param n the number of slots of each ring which were recorded
+   */
+  private void computeTargetSizes(int n) {
+    final int[] sorted = new int[n];
+    for (int heap = 0; heap < NBR_HEAPS; heap++) {
+      final int ringStart = heap * this.windowSize;
+      for (int i = 0; i < n; i++) {
+        sorted[i] = this.recentUses.get(ringStart + i);
+      }
+      Arrays.sort(sorted);
+      this.targetSizes.set(heap, sorted[(n * this.percentile + 99) / 100 - 1]);
+    }
+  }
+
+  /**
+   * @return the percentile of the recent uses the heaps are sized for
+   */
+  public int getPercentile() {
+    return this.percentile;
+  }
+
+  /**
+   * @return the number of resets recorded
+   */
+  public long getNbrRecorded() {
+    return this.nbrRecorded.get();
+  }
+
+  /**
+   * @param heap one of {@link #MAIN_HEAP}, {@link #BYTE_HEAP}, {@link #SHORT_HEAP}, 
+   *   {@link #LONG_HEAP} or {@link #STRING_HEAP}
+   * @return the largest number of cells (or strings) used in the heap at a reset recorded
+   */
+  public int getHighWaterMark(int heap) {
+    return this.highWaterMarks.get(heap);
+  }
+
+  /**
+   * @param heap one of {@link #MAIN_HEAP}, {@link #BYTE_HEAP}, {@link #SHORT_HEAP}, 
+   *   {@link #LONG_HEAP} or {@link #STRING_HEAP}
+   * @return the number of cells (or strings) the heap is sized for on reset, before rounding up
+   *   to its growth sequence, or 0 if no reset was recorded yet
+   */
+  public int getTargetSize(int heap) {
+    return this.targetSizes.get(heap);
+  }
+}
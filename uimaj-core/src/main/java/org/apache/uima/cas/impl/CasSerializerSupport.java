@@ -977,7 +977,7 @@ public class CasSerializerSupport {
       
       
       boolean insideListNode = listUtils.isListType(typeCode);
-      int[] feats = tsi.ll_getAppropriateFeatures(typeCode);
+      int[] feats = tsi.getAppropriateFeaturesShared(typeCode);
       for (int feat : feats) {
         if (isFiltering) {
           // skip features that aren't in the target type system
@@ -53,6 +53,7 @@ public abstract class CommonAuxArrayFSImpl extends FeatureStructureImplC {
    */
   protected void copyFromJavaArray(Object src, int srcOffset, Object casAuxHeap, int tgtOffset,
           int length) {
+    this.casImpl.checkNotFrozen();
     this.casImpl.checkArrayBounds(this.addr, tgtOffset, length);
     final int startOffset = casImpl.getHeap().heap[casImpl.getArrayStartAddress(this.addr)];
     System.arraycopy(src, srcOffset, casAuxHeap, startOffset + tgtOffset, length);
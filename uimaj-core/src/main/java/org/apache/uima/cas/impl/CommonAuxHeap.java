@@ -47,7 +47,7 @@ abstract class CommonAuxHeap {
 
   protected final int heapBaseSize;
 
-  protected final int heapMultLimit;
+  protected int heapMultLimit;
 
   protected int heapPos = FIRST_CELL_REF;
   
@@ -64,6 +64,15 @@ abstract class CommonAuxHeap {
     initMemory();
   }
 
+  /**
+   * @param heapMultLimit the capacity above which the heap grows by adding this amount, 
+   *   rather than by multiplying by the GROWTH_FACTOR; 
+   *   values below {@link #MIN_HEAP_BASE_SIZE} are raised to it.
+   */
+  void setHeapMultLimit(int heapMultLimit) {
+    this.heapMultLimit = Math.max(heapMultLimit, MIN_HEAP_BASE_SIZE);
+  }
+
   abstract void initMemory();
   
   abstract void initMemory(int size);
@@ -111,6 +120,32 @@ abstract class CommonAuxHeap {
     this.heapPos = FIRST_CELL_REF;
   }
 
+  /**
+   * Reset, keeping the capacity; clears only the cells used since the last reset.
+   */
+  void resetKeepingCapacity() {
+    resetToZeros();
+    this.heapPos = FIRST_CELL_REF;
+  }
+
+  /**
+   * Reset to the capacity in the growth sequence of this heap which holds the given number of
+   * cells, see {@link CasHeapSizingPolicy}
+   * @param size the number of cells to hold
+   */
+  void resetToSize(int size) {
+    final int newCapacity = computeGrownArraySize(size, GROWTH_FACTOR, heapMultLimit, heapBaseSize);
+    if (newCapacity == getCapacity()) {
+      resetToZeros();
+    } else {
+      if (debugLogShrink) System.out.format("Debug resize CommonAux from %,d to %,d for %s%n",
+          getCapacity(), newCapacity, this.getClass().getSimpleName());
+      initMemory(newCapacity);
+    }
+    this.shrinkableCount[0] = 0;
+    this.heapPos = FIRST_CELL_REF;
+  }
+
   int reserve(int numCells) {
     int cellRef = this.heapPos;
     this.heapPos += numCells;
@@ -192,6 +227,29 @@ abstract class CommonAuxHeap {
     return capacity;
   }
     
+  /**
+   * The inverse of computeShrunkArraySize: the capacity an expandable array starting at min_size
+   * reaches by growing until it holds size_used entries.
+   * @param size_used the number of entries to hold
+   * @param growth_factor is 2
+   * @param multiplication_limit the point where we start adding this limit, vs using the growth factor
+   * @param min_size the initial capacity
+   * @return the first capacity in the growth sequence which is &gt;= size_used
+   */
+  static int computeGrownArraySize(
+      int size_used,
+      int growth_factor,
+      int multiplication_limit,
+      int min_size) {
+    long capacity = min_size;
+    while (capacity < size_used) {
+      capacity = (capacity < multiplication_limit) ? 
+          (capacity * growth_factor) :
+          (capacity + multiplication_limit);
+    }
+    return (int) Math.min(capacity, Integer.MAX_VALUE);
+  }
+    
   int getSize() {
     return this.heapPos;
   }
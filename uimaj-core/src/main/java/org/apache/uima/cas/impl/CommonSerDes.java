@@ -66,6 +66,8 @@ public class CommonSerDes {
    *         
    *   Second word:
    *     - bit in 0x01 position: on means form6, off = form 4 
+   *     - bit in 0x02 position: on means each compressed stream records the id of its CompressionCodec,
+   *                             off means all streams are deflated
    *********************************************/
   
   public static class Header {
@@ -77,6 +79,7 @@ public class CommonSerDes {
     boolean typeSystemIndexDefIncluded;
     byte seqVersionNbr;
     boolean isV3;
+    boolean codecIdsIncluded;
     boolean swap;
     int v;      // for error messages
 
@@ -92,6 +95,7 @@ public class CommonSerDes {
     public Header typeSystemIndexDefIncluded(boolean f) {typeSystemIndexDefIncluded = f; return this; }
     public Header seqVer(int v2) { assert (v2 >= 0 && v2 < 256); seqVersionNbr = (byte)v2; return this; }
     public Header v3() {isV3 = true; return this; }
+    public Header codecIdsIncluded(boolean f) {codecIdsIncluded = f; return this; }
     
     
     public void write(DataOutputStream dos) throws IOException {
@@ -116,7 +120,7 @@ public class CommonSerDes {
       dos.writeInt(v);
       
       if (isCompressed) {
-        dos.writeInt(form6 ? 1 : 0);
+        dos.writeInt((form6 ? 1 : 0) | (codecIdsIncluded ? 2 : 0));
       }
       
     }
@@ -146,6 +150,9 @@ public class CommonSerDes {
     public boolean isV3() {
       return isV3;
     }
+    public boolean isCodecIdsIncluded() {
+      return codecIdsIncluded;
+    }
 
     
   }
@@ -201,6 +208,8 @@ public class CommonSerDes {
     
     if (h.isCompressed) {
       v = r.readInt();
+      h.codecIdsIncluded = (v & 2) != 0;
+      v &= ~2;
       h.form4 = v == 0;
       h.form6 = v == 1;
     } 
@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses and decompresses the individual slot kind streams of the compressed binary
+ * serialization forms (form 4 and form 6).
+ *
+ * Each codec has an id, 0 - 255, which is written with each stream when a non-default
+ * {@link CompressionProfile} is used, so the deserializer can pick the matching codec without
+ * being told.  Ids 0 - 15 are reserved for the codecs defined here:
+ *   0 - deflate (any level or strategy; these don't matter for decompression)
+ *   1 - store, no compression
+ *   2 - fast, a byte oriented LZ77 codec, trading size for speed
+ *
+ * Other codecs can be added via {@link #register(CompressionCodec)}; they need to be registered
+ * in both the serializing and the deserializing JVM.
+ */
+public abstract class CompressionCodec {
+
+  public static final int DEFLATE_ID = 0;
+  public static final int STORE_ID = 1;
+  public static final int FAST_ID = 2;
+
+  private static final int FIRST_USER_ID = 16;
+
+  private static final AtomicReferenceArray<CompressionCodec> codecs = new AtomicReferenceArray<CompressionCodec>(256);
+
+  /**
+   * Deflate with the default level and strategy, the format used by the serializers
+   * when no compression profile is specified.
+   */
+  public static final CompressionCodec DEFLATE = deflate(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+
+  public static final CompressionCodec STORE = new StoreCodec();
+
+  public static final CompressionCodec FAST = new FastCodec();
+
+  static {
+    codecs.set(DEFLATE_ID, DEFLATE);
+    codecs.set(STORE_ID, STORE);
+    codecs.set(FAST_ID, FAST);
+  }
+
+  private final int id;
+
+  private final String name;
+
+  protected CompressionCodec(int id, String name) {
+    if (id < 0 || id > 255) {
+      throw new IllegalArgumentException("Codec id must be in the range 0 - 255, was " + id);
+    }
+    this.id = id;
+    this.name = name;
+  }
+
+  /**
+   * @param level a {@link Deflater} compression level
+   * @param strategy a {@link Deflater} strategy
+   * @return a deflate codec using the level and strategy for compression
+   */
+  public static CompressionCodec deflate(int level, int strategy) {
+    return new DeflateCodec(level, strategy);
+  }
+
+  /**
+   * Makes a codec available for deserialization
+   * @param codec the codec, its id must be 16 or more
+   */
+  public static void register(CompressionCodec codec) {
+    if (codec.id < FIRST_USER_ID) {
+      throw new IllegalArgumentException(String.format(
+          "Codec ids below %d are reserved, can't register %s", FIRST_USER_ID, codec));
+    }
+    if (!codecs.compareAndSet(codec.id, null, codec) && codecs.get(codec.id) != codec) {
+      throw new IllegalArgumentException(String.format(
+          "Codec id %d already used by %s, can't register %s", codec.id, codecs.get(codec.id), codec));
+    }
+  }
+
+  /**
+   * @param id the id read from the serialized form
+   * @return the codec
+   * @throws IOException if no codec is registered with that id
+   */
+  public static CompressionCodec forId(int id) throws IOException {
+    final CompressionCodec codec = (id >= 0 && id < 256) ? codecs.get(id) : null;
+    if (null == codec) {
+      throw new IOException(String.format("Unknown compression codec id %d in compressed binary CAS", id));
+    }
+    return codec;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @param src the uncompressed bytes
+   * @param dest where the compressed bytes are written
+   * @return the number of compressed bytes written
+   * @throws IOException passthru
+   */
+  public abstract int compress(ByteArrayOutputStream src, OutputStream dest) throws IOException;
+
+  /**
+   * @param compressed the compressed bytes; the array may be longer than the number of bytes
+   * @param bytesCompr the number of compressed bytes
+   * @param bytesOrig the number of bytes before compression
+   * @return a stream of the decompressed bytes.  Closing it releases any resources held.
+   * @throws IOException if the bytes can't be decompressed
+   */
+  public abstract InputStream decompress(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException;
+
+  /**
+   * Decompresses all at once, for callers that decompress streams in parallel
+   * @param compressed the compressed bytes; the array may be longer than the number of bytes
+   * @param bytesCompr the number of compressed bytes
+   * @param bytesOrig the number of bytes before compression
+   * @return the decompressed bytes
+   * @throws IOException if the bytes can't be decompressed
+   */
+  public byte[] decompressFully(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException {
+    final byte[] uncompressed = new byte[bytesOrig];
+    final DataInputStream is = new DataInputStream(decompress(compressed, bytesCompr, bytesOrig));
+    try {
+      is.readFully(uncompressed);
+    } finally {
+      is.close();
+    }
+    return uncompressed;
+  }
+
+  @Override
+  public String toString() {
+    return name + "(" + id + ")";
+  }
+
+  /**
+   * Deflate, without the zlib wrapper
+   */
+  private static class DeflateCodec extends CompressionCodec {
+
+    final int level;
+    final int strategy;
+
+    DeflateCodec(int level, int strategy) {
+      super(DEFLATE_ID, "deflate");
+      this.level = level;
+      this.strategy = strategy;
+    }
+
+    @Override
+    public int compress(ByteArrayOutputStream src, OutputStream dest) throws IOException {
+      final Deflater deflater = new Deflater(level, true);
+      try {
+        deflater.setStrategy(strategy);
+        int zipBufSize = Math.max(1024, src.size() / 100);
+        DeflaterOutputStream cds = new DeflaterOutputStream(dest, deflater, zipBufSize);
+        src.writeTo(cds);
+        cds.finish();
+        return (int) deflater.getBytesWritten();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    public InputStream decompress(byte[] compressed, int bytesCompr, int bytesOrig) {
+      // the Inflater with the nowrap option may need 1 extra byte after the input - see Inflater javadoc
+      final byte[] b = (compressed.length > bytesCompr) ? compressed : Arrays.copyOf(compressed, bytesCompr + 1);
+      final Inflater inflater = new Inflater(true);
+      ByteArrayInputStream baiStream = new ByteArrayInputStream(b);
+      int zipBufSize = Math.max(1 << 10, bytesCompr); // 32768 == 1<< 15.  Tuned by trials on 2015 intel i7
+       // caches: L1 = 128KB    L2 = 1M     L3 = 6M
+       // increasing the max causes cache dumping on this machine, and things slow down
+      InflaterInputStream iis = new InflaterInputStream(baiStream, inflater, zipBufSize) {
+        @Override
+        public void close() throws IOException {
+          super.close();
+          inflater.end();  // not done by super, because the inflater was passed in
+        }
+      };
+      // increasing the following buffer stream buffer size also seems to slow things down
+      return new BufferedInputStream(iis, zipBufSize);
+    }
+
+    @Override
+    public byte[] decompressFully(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException {
+      final byte[] b = (compressed.length > bytesCompr) ? compressed : Arrays.copyOf(compressed, bytesCompr + 1);
+      final Inflater inflater = new Inflater(true);
+      try {
+        inflater.setInput(b);
+        final byte[] uncompressed = new byte[bytesOrig];
+        int length = 0;
+        while (length < bytesOrig) {
+          final int n = inflater.inflate(uncompressed, length, bytesOrig - length);
+          if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          length += n;
+        }
+        if (length != bytesOrig) {
+          throw new IOException(String.format(
+              "Compressed stream inflated to %,d bytes, expected %,d", length, bytesOrig));
+        }
+        return uncompressed;
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  /**
+   * No compression
+   */
+  private static class StoreCodec extends CompressionCodec {
+
+    StoreCodec() {
+      super(STORE_ID, "store");
+    }
+
+    @Override
+    public int compress(ByteArrayOutputStream src, OutputStream dest) throws IOException {
+      src.writeTo(dest);
+      return src.size();
+    }
+
+    @Override
+    public InputStream decompress(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException {
+      if (bytesCompr != bytesOrig) {
+        throw new IOException(String.format(
+            "Stored stream has %,d bytes, expected %,d", bytesCompr, bytesOrig));
+      }
+      return new ByteArrayInputStream(compressed, 0, bytesCompr);
+    }
+  }
+
+  /**
+   * A byte oriented LZ77 codec, in the style of LZ4:
+   *   no entropy coding, a small hash table of recent 4 byte sequences, and matches limited to
+   *   the previous 64K bytes.
+   *
+   * The compressed form is a series of sequences, each being
+   *   - a token byte: high 4 bits = number of literals, low 4 bits = match length - 4
+   *     (a value of 15 in either is followed by more length bytes, each added in, until one is &lt; 255)
+   *   - the literal bytes
+   *   - 2 bytes (little endian) of match offset, and the match (omitted for the last sequence)
+   *
+   * The decompressor stops when it has produced the number of original bytes.
+   */
+  private static class FastCodec extends CompressionCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_BITS = 12;
+    private static final int SKIP_TRIGGER = 6;  // after 2^6 bytes without a match, start skipping ahead
+
+    FastCodec() {
+      super(FAST_ID, "fast");
+    }
+
+    @Override
+    public int compress(ByteArrayOutputStream src, OutputStream dest) throws IOException {
+      final byte[] s = src.toByteArray();
+      final byte[] d = new byte[s.length + s.length / 255 + 16];
+      final int n = compress(s, s.length, d);
+      dest.write(d, 0, n);
+      return n;
+    }
+
+    static int compress(byte[] src, int srcLen, byte[] dst) {
+      final int[] table = new int[1 << HASH_BITS];
+      Arrays.fill(table, -1);
+      int anchor = 0; // start of the pending literals
+      int ip = 0;
+      int op = 0;
+      final int lastMatchStart = srcLen - MIN_MATCH;
+
+      while (ip <= lastMatchStart) {
+        final int seq = readInt(src, ip);
+        final int h = (seq * -1640531535) >>> (32 - HASH_BITS);
+        final int ref = table[h];
+        table[h] = ip;
+        if (ref >= 0 && ip - ref <= MAX_OFFSET && readInt(src, ref) == seq) {
+          int matchLen = MIN_MATCH;
+          while (ip + matchLen < srcLen && src[ref + matchLen] == src[ip + matchLen]) {
+            matchLen ++;
+          }
+          op = writeSequence(dst, op, src, anchor, ip - anchor, ip - ref, matchLen);
+          ip += matchLen;
+          anchor = ip;
+        } else {
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+        }
+      }
+
+      if (anchor < srcLen) {
+        op = writeSequence(dst, op, src, anchor, srcLen - anchor, 0, 0);
+      }
+      return op;
+    }
+
+    private static int writeSequence(byte[] dst, int op, byte[] src, int litStart, int litLen, int offset, int matchLen) {
+      final int mlCode = (matchLen == 0) ? 0 : matchLen - MIN_MATCH;
+      final int tokenPos = op++;
+      dst[tokenPos] = (byte) ((Math.min(litLen, 15) << 4) | Math.min(mlCode, 15));
+      if (litLen >= 15) {
+        op = writeLength(dst, op, litLen - 15);
+      }
+      System.arraycopy(src, litStart, dst, op, litLen);
+      op += litLen;
+      if (matchLen > 0) {
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        if (mlCode >= 15) {
+          op = writeLength(dst, op, mlCode - 15);
+        }
+      }
+      return op;
+    }
+
+    private static int writeLength(byte[] dst, int op, int len) {
+      while (len >= 255) {
+        dst[op++] = (byte) 255;
+        len -= 255;
+      }
+      dst[op++] = (byte) len;
+      return op;
+    }
+
+    private static int readInt(byte[] b, int i) {
+      return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | (b[i + 3] << 24);
+    }
+
+    @Override
+    public InputStream decompress(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException {
+      return new ByteArrayInputStream(decompressFully(compressed, bytesCompr, bytesOrig));
+    }
+
+    @Override
+    public byte[] decompressFully(byte[] compressed, int bytesCompr, int bytesOrig) throws IOException {
+      final byte[] dst = new byte[bytesOrig];
+      final byte[] src = compressed;
+      int ip = 0;
+      int op = 0;
+      try {
+        while (op < bytesOrig) {
+          final int token = src[ip++] & 0xFF;
+          int litLen = token >>> 4;
+          if (litLen == 15) {
+            int b;
+            do {
+              b = src[ip++] & 0xFF;
+              litLen += b;
+            } while (b == 255);
+          }
+          System.arraycopy(src, ip, dst, op, litLen);
+          ip += litLen;
+          op += litLen;
+          if (op >= bytesOrig) {
+            break;
+          }
+          final int offset = (src[ip++] & 0xFF) | ((src[ip++] & 0xFF) << 8);
+          int matchLen = token & 0x0F;
+          if (matchLen == 15) {
+            int b;
+            do {
+              b = src[ip++] & 0xFF;
+              matchLen += b;
+            } while (b == 255);
+          }
+          matchLen += MIN_MATCH;
+          int ref = op - offset;
+          if (offset == 0 || ref < 0) {
+            throw new IOException("Invalid match offset " + offset + " in fast compressed stream");
+          }
+          final int end = op + matchLen;
+          if (offset >= matchLen) {
+            System.arraycopy(dst, ref, dst, op, matchLen);
+            op = end;
+          } else {
+            while (op < end) {   // overlapping copy, repeats the last offset bytes
+              dst[op++] = dst[ref++];
+            }
+          }
+        }
+      } catch (IndexOutOfBoundsException e) {
+        throw new IOException("Corrupt fast compressed stream", e);
+      }
+      if (ip > bytesCompr || op != bytesOrig) {
+        throw new IOException(String.format(
+            "Fast compressed stream decompressed to %,d bytes, expected %,d", op, bytesOrig));
+      }
+      return dst;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import static org.apache.uima.cas.impl.SlotKinds.SlotKind.NBR_SLOT_KIND_ZIP_STREAMS;
+
+import java.util.Arrays;
+
+import org.apache.uima.cas.impl.SlotKinds.SlotKind;
+import org.apache.uima.util.Misc;
+
+/**
+ * Which {@link CompressionCodec} to use for each slot kind stream of a compressed binary (form 4 or 6)
+ * serialization.
+ *
+ * When a profile is used, the codec id of each stream is recorded in the serialized form, and
+ * deserialization picks the codecs from there.  Without one, all streams are deflated, and the
+ * serialized form is the one written by earlier versions.
+ *
+ * Instances are immutable; {@link #with(SlotKind, CompressionCodec)} returns a modified copy.
+ */
+public class CompressionProfile {
+
+  /**
+   * Define this JVM property to use the {@link #FAST} profile when serializing in form 4 or 6
+   * without specifying a profile.
+   */
+  public static final String FAST_COMPRESSION = "uima.serdes_fast_compression";
+
+  /**
+   * Trades size for speed, for hops where CPU time matters more than bandwidth:
+   * uses the fast codec for all streams.
+   */
+  public static final CompressionProfile FAST = new CompressionProfile(CompressionCodec.FAST);
+
+  /**
+   * No compression at all
+   */
+  public static final CompressionProfile STORE = new CompressionProfile(CompressionCodec.STORE);
+
+  /**
+   * The profile used when none is specified, or null for the default deflate form
+   */
+  static final CompressionProfile DEFAULT = Misc.getNoValueSystemProperty(FAST_COMPRESSION) ? FAST : null;
+
+  private final CompressionCodec[] codecs;
+
+  /**
+   * @param codec the codec to use for all streams
+   */
+  public CompressionProfile(CompressionCodec codec) {
+    codecs = new CompressionCodec[NBR_SLOT_KIND_ZIP_STREAMS];
+    Arrays.fill(codecs, codec);
+  }
+
+  private CompressionProfile(CompressionCodec[] codecs) {
+    this.codecs = codecs;
+  }
+
+  /**
+   * @param kind the slot kind
+   * @param codec the codec to use for the slot kind
+   * @return a copy of this profile, using the codec for the slot kind
+   */
+  public CompressionProfile with(SlotKind kind, CompressionCodec codec) {
+    if (kind.ordinal() >= NBR_SLOT_KIND_ZIP_STREAMS) {
+      throw new IllegalArgumentException("Slot kind " + kind + " is not serialized as a separate stream");
+    }
+    CompressionCodec[] c = codecs.clone();
+    c[kind.ordinal()] = codec;
+    return new CompressionProfile(c);
+  }
+
+  public CompressionCodec getCodec(SlotKind kind) {
+    return codecs[kind.ordinal()];
+  }
+
+  CompressionCodec getCodec(int slotIndex) {
+    return codecs[slotIndex];
+  }
+}
@@ -28,7 +28,7 @@ import org.apache.uima.cas.FeatureStructure;
  * 
  * @version $Revision: 1.1 $
  */
-class ConjunctiveConstraint implements FSMatchConstraint {
+class ConjunctiveConstraint implements LowLevelMatchConstraint {
 
   private static final long serialVersionUID = 2306345325747964023L;
 
@@ -58,6 +58,10 @@ class ConjunctiveConstraint implements FSMatchConstraint {
     return (this.c1.match(fs) && this.c2.match(fs));
   }
 
+  public boolean ll_match(CASImpl cas, int addr) {
+    return (ConstraintFactoryImpl.ll_match(this.c1, cas, addr) && ConstraintFactoryImpl.ll_match(this.c2, cas, addr));
+  }
+
   public String toString() {
     return "(" + this.c1.toString() + " & " + this.c2.toString() + ")";
   }
@@ -38,6 +38,20 @@ import org.apache.uima.cas.FeaturePath;
  */
 public class ConstraintFactoryImpl extends ConstraintFactory {
 
+	/**
+	 * @param cons a constraint, low-level or not
+	 * @param cas the CAS holding the FS
+	 * @param addr the address of the FS, or 0 for null
+	 * @return true if the FS matches the constraint; if the constraint is not a low-level one,
+	 *         this creates the FS to match
+	 */
+	static boolean ll_match(FSMatchConstraint cons, CASImpl cas, int addr) {
+		if (cons instanceof LowLevelMatchConstraint) {
+			return ((LowLevelMatchConstraint) cons).ll_match(cas, addr);
+		}
+		return cons.match((addr == CASImpl.NULL) ? null : cas.createFS(addr));
+	}
+
 	public FSTypeConstraint createTypeConstraint() {
 		return new FSTypeConstraintImpl();
 	}
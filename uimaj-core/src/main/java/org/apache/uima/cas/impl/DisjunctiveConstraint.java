@@ -28,7 +28,7 @@ import org.apache.uima.cas.FeatureStructure;
  * 
  * @version $Revision: 1.1 $
  */
-class DisjunctiveConstraint implements FSMatchConstraint {
+class DisjunctiveConstraint implements LowLevelMatchConstraint {
 
   private static final long serialVersionUID = -6178223997976826183L;
 
@@ -53,6 +53,10 @@ class DisjunctiveConstraint implements FSMatchConstraint {
     return (this.c1.match(fs) || this.c2.match(fs));
   }
 
+  public boolean ll_match(CASImpl cas, int addr) {
+    return (ConstraintFactoryImpl.ll_match(this.c1, cas, addr) || ConstraintFactoryImpl.ll_match(this.c2, cas, addr));
+  }
+
   public String toString() {
     return "(" + this.c1.toString() + " | " + this.c2.toString() + ")";
   }
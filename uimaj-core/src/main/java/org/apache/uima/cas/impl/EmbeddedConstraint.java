@@ -23,8 +23,6 @@ import java.util.ArrayList;
 
 import org.apache.uima.cas.FSConstraint;
 import org.apache.uima.cas.FSMatchConstraint;
-import org.apache.uima.cas.Feature;
-import org.apache.uima.cas.FeatureStructure;
 
 /**
  * Implement an embedded constraint. Basically just dispatches to specialized implementation.
@@ -43,17 +41,16 @@ class EmbeddedConstraint extends PathConstraint implements FSMatchConstraint {
     this.cons = (FSMatchConstraint) cons;
   }
 
-  public boolean match(FeatureStructure fs) {
-    // compile(((FeatureStructureImpl) fs).getCAS().getTypeSystem());
-    final int max = this.featNames.size();
-    for (int i = 0; i < max; i++) {
-      Feature feat = fs.getType().getFeatureByBaseName(this.featNames.get(i));
-      if (feat == null) {
-        return false;
-      }
-      fs = fs.getFeatureValue(feat);
+  String getValueTypeName() {
+    return null;
+  }
+
+  public boolean ll_match(CASImpl cas, int addr) {
+    final int fs = ll_followPath(cas, addr, this.featNames.size());
+    if (fs == NO_FS) {
+      return false;
     }
-    return this.cons.match(fs);
+    return ConstraintFactoryImpl.ll_match(this.cons, cas, fs);
   }
 
   public String toString() {
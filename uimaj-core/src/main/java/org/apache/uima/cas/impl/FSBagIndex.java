@@ -26,7 +26,6 @@ import org.apache.uima.internal.util.ComparableIntPointerIterator;
 import org.apache.uima.internal.util.IntComparator;
 import org.apache.uima.internal.util.IntPointerIterator;
 import org.apache.uima.internal.util.IntVector;
-import org.apache.uima.internal.util.PositiveIntSet;
 import org.apache.uima.internal.util.PositiveIntSet_impl;
 
 /**
@@ -42,7 +41,7 @@ public class FSBagIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T> {
   // The index, a vector of FS references.
   final private IntVector index;
   
-  final private PositiveIntSet indexP = USE_POSITIVE_INT_SET ? new PositiveIntSet_impl() : null;
+  final private PositiveIntSet_impl indexP = USE_POSITIVE_INT_SET ? new PositiveIntSet_impl() : null;
 
   private int initialSize;
 
@@ -70,11 +69,16 @@ public class FSBagIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T> {
   }
 
   public void flush() {
-    // done this way to reset to initial size if it grows
+    // done this way to reset to initial size if it grows, unless resets of the CAS keep the capacity
+    final boolean isKeepingCapacity = this.lowLevelCAS.isLightweightReset();
     if (USE_POSITIVE_INT_SET) {
-      indexP.clear();      
+      if (isKeepingCapacity) {
+        indexP.clearKeepingCapacity();
+      } else {
+        indexP.clear();
+      }
     } else {
-      if (this.index.size() > this.initialSize) {
+      if (this.index.size() > this.initialSize && !isKeepingCapacity) {
         this.index.resetSize(this.initialSize);
 //        this.index = new IntVector(this.initialSize);
       } else {
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.Arrays;
+
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.internal.util.ComparableIntPointerIterator;
+import org.apache.uima.internal.util.IntComparator;
+import org.apache.uima.internal.util.IntPointerIterator;
+import org.apache.uima.internal.util.IntVector;
+import org.apache.uima.jcas.impl.JCasHashMap;
+
+/**
+ * Used for UIMA FS Hash Indexes
+ * 
+ * Like a Set index, holds at most one FS for each combination of key values, but finds them
+ * by hashing the key values, in constant time, rather than by comparisons in a tree.
+ * The FSs are not kept in key order: iterators return them in no particular order.
+ * 
+ * The FSs are held densely in an IntVector; an open addressing table with linear probing maps
+ * the hash of their keys to their positions there.
+ * 
+ * @param <T> the Java cover class type for this index, passed along to (wrapped) iterators producing Java cover classes
+ */
+public class FSHashSetIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T> {
+
+  private static final int MIN_TABLE_SIZE = 16;
+
+  // The FSs of the index
+  final private IntVector fss;
+
+  // 0 for an empty slot, else 1 + the position of the FS in fss
+  private int[] table;
+
+  private final int initialTableSize;
+
+  // the slots filled since the last flush, while few enough that flush empties just these;
+  // removes only move entries among or empty slots which were filled, so none are missed
+  private final IntVector filledSlots = new IntVector();
+
+  private boolean isFilledSlotsTracked = true;
+
+  FSHashSetIndex(CASImpl cas, Type type, int initialSize, int indexType) {
+    super(cas, type, indexType);
+    this.fss = new IntVector(initialSize);
+    int ts = MIN_TABLE_SIZE;
+    while (ts < 2 * initialSize) {
+      ts <<= 1;
+    }
+    this.initialTableSize = ts;
+    this.table = new int[ts];
+  }
+
+  public void flush() {
+    this.fss.removeAllElements();
+    if (this.table.length > this.initialTableSize && !this.lowLevelCAS.isLightweightReset()) {
+      this.table = new int[this.initialTableSize];
+    } else if (this.isFilledSlotsTracked) {
+      final int[] localTable = this.table;
+      for (int i = 0; i < this.filledSlots.size(); i++) {
+        localTable[this.filledSlots.get(i)] = 0;
+      }
+    } else {
+      Arrays.fill(this.table, 0);
+    }
+    this.filledSlots.removeAllElements();
+    this.isFilledSlotsTracked = true;
+  }
+
+  private int home(int fs) {
+    return JCasHashMap.hashInt(keyHash(fs)) & (this.table.length - 1);
+  }
+
+  /**
+   * @param fs a FS, used as a template for its key values
+   * @return the slot in the table for the FS in the index with the same keys, or if none,
+   *         the empty slot where it would go
+   */
+  private int findSlot(int fs) {
+    final int[] localTable = this.table;
+    final int mask = localTable.length - 1;
+    int slot = home(fs);
+    while (localTable[slot] != 0) {
+      if (compare(this.fss.get(localTable[slot] - 1), fs) == 0) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @param fs a FS, used as a template for its key values
+   * @return the position in fss of the FS with the same keys, or -1 if none
+   */
+  int findPosition(int fs) {
+    final int entry = this.table[findSlot(fs)];
+    return entry - 1;
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#insert(int)
+   */
+  boolean insert(int fs) {
+    final int slot = findSlot(fs);
+    if (this.table[slot] != 0) {
+      return false;  // an FS with the same keys is already in the index
+    }
+    this.fss.add(fs);
+    this.table[slot] = this.fss.size();
+    if (this.isFilledSlotsTracked) {
+      if (this.filledSlots.size() < (this.table.length >> 3)) {
+        this.filledSlots.add(slot);
+      } else {
+        this.isFilledSlotsTracked = false;
+      }
+    }
+    if (this.fss.size() > (this.table.length >> 1)) {
+      rehash(this.table.length << 1);
+    }
+    return true;
+  }
+
+  boolean insert(int fs, int count) {
+    return insert(fs);
+  }
+
+  private void rehash(int newTableSize) {
+    final int[] newTable = new int[newTableSize];
+    final int mask = newTableSize - 1;
+    this.table = newTable;  // for home()
+    this.isFilledSlotsTracked = false;  // a table filled past the limit of the log
+    for (int i = 0; i < this.fss.size(); i++) {
+      int slot = home(this.fss.get(i));
+      while (newTable[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      newTable[slot] = i + 1;
+    }
+  }
+
+  /*
+   * This code is written to remove the exact fs, not just one which matches equal to the argument
+   * 
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#remove(int)
+   */
+  @Override
+  boolean remove(int fs) {
+    final int slot = findSlot(fs);
+    final int entry = this.table[slot];
+    if (entry == 0 || this.fss.get(entry - 1) != fs) {
+      return false;
+    }
+    clearSlot(slot);
+    // fill the hole in fss with the last FS
+    final int pos = entry - 1;
+    final int last = this.fss.size() - 1;
+    if (pos != last) {
+      final int moved = this.fss.get(last);
+      this.table[findSlot(moved)] = pos + 1;
+      this.fss.set(pos, moved);
+    }
+    this.fss.remove(last);
+    return true;
+  }
+
+  /**
+   * Empties a slot, moving back later entries of the same probe sequence so lookups
+   * don't stop early at the hole.
+   */
+  private void clearSlot(int slot) {
+    final int[] localTable = this.table;
+    final int mask = localTable.length - 1;
+    int hole = slot;
+    int i = slot;
+    while (true) {
+      i = (i + 1) & mask;
+      if (localTable[i] == 0) {
+        break;
+      }
+      final int h = home(this.fss.get(localTable[i] - 1));
+      // the entry at i stays if its home slot is cyclically in (hole, i]
+      final boolean stays = (hole <= i) ? (hole < h && h <= i) : (hole < h || h <= i);
+      if (!stays) {
+        localTable[hole] = localTable[i];
+        hole = i;
+      }
+    }
+    localTable[hole] = 0;
+  }
+
+  public FeatureStructure find(FeatureStructure fs) {
+    final FeatureStructureImpl fsi = (FeatureStructureImpl) fs;
+    final int pos = findPosition(fsi.getAddress());
+    return (pos < 0) ? null : fsi.getCASImpl().createFS(this.fss.get(pos));
+  }
+
+  /**
+   * @see org.apache.uima.cas.FSIndex#contains(FeatureStructure)
+   * @param fs feature structure
+   * @return true if the index contains a feature structure with the same keys
+   */
+  public boolean contains(FeatureStructure fs) {
+    return ll_contains(((FeatureStructureImpl) fs).getAddress());
+  }
+
+  boolean ll_contains(int fsAddr) {
+    return findPosition(fsAddr) >= 0;
+  }
+
+  /**
+   * @see org.apache.uima.cas.FSIndex#size()
+   */
+  public int size() {
+    return this.fss.size();
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#deleteFS(org.apache.uima.cas.FeatureStructure)
+   */
+  public void deleteFS(FeatureStructure fs) {
+    remove(((FeatureStructureImpl) fs).getAddress());
+  }
+
+  public ComparableIntPointerIterator<T> pointerIterator(IntComparator comp,
+          int[] detectIllegalIndexUpdates, int typeCode) {
+    return new IntIterator4hash<T>(this, detectIllegalIndexUpdates);
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#refIterator()
+   */
+  protected IntPointerIterator refIterator() {
+    return new IntIterator4hash<T>(this, null);  // no concurrent mod checking, internal use
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.impl.LowLevelIndex#ll_iterator()
+   */
+  public LowLevelIterator ll_iterator() {
+    return new IntIterator4hash<T>(this, null); // no concurrent mod checking
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#refIterator(int)
+   */
+  protected IntPointerIterator refIterator(int fsCode) {
+    IntIterator4hash<T> it = new IntIterator4hash<T>(this, null); // no concurrent mod checking, internal use
+    it.moveTo(fsCode);
+    return it;
+  }
+
+  @Override
+  protected void bulkAddTo(IntVector v) {
+    v.addBulk(this.fss);
+  }
+
+  /*
+   * Iterator support
+   */
+  int get(int itPos) {
+    return this.fss.get(itPos);
+  }
+}
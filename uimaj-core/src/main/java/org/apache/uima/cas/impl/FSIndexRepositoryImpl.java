@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -47,10 +48,12 @@ import org.apache.uima.cas.admin.FSIndexComparator;
 import org.apache.uima.cas.admin.FSIndexRepositoryMgr;
 import org.apache.uima.cas.admin.LinearTypeOrder;
 import org.apache.uima.cas.admin.LinearTypeOrderBuilder;
+import org.apache.uima.cas.impl.AnnotationIntervalTree.SpanQuery;
 import org.apache.uima.cas.impl.FSIndexFlat.FSIteratorFlat;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.internal.util.ComparableIntPointerIterator;
 import org.apache.uima.internal.util.Int2IntArrayMapFixedSize;
+import org.apache.uima.internal.util.IntArrayUtils;
 import org.apache.uima.internal.util.IntComparator;
 import org.apache.uima.internal.util.IntPointerIterator;
 import org.apache.uima.internal.util.IntVector;
@@ -104,6 +107,41 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
  
   private static final boolean IS_DISABLE_ENHANCED_WRONG_INDEX_CHECK = Misc.getNoValueSystemProperty(DISABLE_ENHANCED_WRONG_INDEX);
 
+  /**
+   * Define this JVM property to keep sorted indexes in blocks (FSIntBlockIndex) instead of one array
+   * (FSIntArrayIndex), so inserts and removes in the middle of large indexes don't move the rest of the index.
+   *   With no value, or the value "true", this applies to all sorted indexes.
+   *   Otherwise the value is a comma separated list of index labels, for example "AnnotationIndex,MyIndex",
+   *   and it applies to just those index definitions.
+   */
+  public static final String BLOCKED_SORTED_INDEXES = "uima.blocked_sorted_indexes";
+
+  private static final String blockedSortedIndexes = System.getProperty(BLOCKED_SORTED_INDEXES);
+
+  private static final boolean IS_ALL_SORTED_INDEXES_BLOCKED = 
+      (blockedSortedIndexes != null) && (blockedSortedIndexes.length() == 0 || blockedSortedIndexes.equals("true"));
+
+  private static final Set<String> blockedSortedIndexLabels = new HashSet<String>();
+  static {
+    if (blockedSortedIndexes != null && !IS_ALL_SORTED_INDEXES_BLOCKED && !blockedSortedIndexes.equals("false")) {
+      for (String label : blockedSortedIndexes.split(",")) {
+        blockedSortedIndexLabels.add(label.trim());
+      }
+    }
+  }
+
+  private static boolean isBlockedSortedIndex(String label) {
+    return IS_ALL_SORTED_INDEXES_BLOCKED || blockedSortedIndexLabels.contains(label);
+  }
+
+  /**
+   * Define this JVM property to always iterate sorted indexes over a type and its subtypes by merging the
+   * subtype indexes as you go, instead of reusing a merged array of the FSs while the indexes are unchanged.
+   */
+  public static final String DISABLE_MERGED_SORTED_ITERATION = "uima.disable_merged_sorted_iteration";
+
+  private static final boolean IS_DISABLE_MERGED_SORTED_ITERATION = Misc.getNoValueSystemProperty(DISABLE_MERGED_SORTED_ITERATION);
+
   /**
    * Kinds of extra functions for iterators
    */
@@ -228,10 +266,42 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     private FSIndexFlat<T> flatIndex = null;
     
     /**
-     * The type codes corresponding to the cachedSubFsLeafIndexes, set up lazily
+     * The type codes corresponding to the cachedSubFsLeafIndexes, in ascending order, set up lazily
      */
     int[] sortedTypeCodes;
-    
+
+    /**
+     * For sorted indexes with subtypes: the FSs of all the subtype indexes, merged in iteration order,
+     * or null if not built.  Valid while the update counts of all the subtypes are as in mergedUpdateCounts.
+     */
+    private int[] mergedFSs = null;
+
+    /**
+     * A copy of detectIllegalIndexUpdates, taken when the indexes were last seen to change; null if never taken.
+     * Never modified after being set, so iterators can keep it to detect concurrent modification.
+     */
+    private int[] mergedUpdateCounts = null;
+
+    /**
+     * For sorted indexes over annotations ordered first by begin: the interval tree for span queries, or null if not built.
+     * Valid while the update counts of all the subtypes are as in intervalTreeUpdateCounts.
+     */
+    private AnnotationIntervalTree intervalTree = null;
+
+    private int[] intervalTreeUpdateCounts = null;
+
+    /**
+     * A copy of the FSs of this index and its subtype indexes in iteration order, shared by the snapshot iterators, 
+     * which only read it; or null if not built.  Valid while the update counts of all the subtypes are as in snapshotUpdateCounts;
+     * after an update, the next snapshot iterator makes a new copy, and the iterators already created keep the old one.
+     */
+    private FSIntArrayIndex<T> snapshotIndex = null;
+
+    private int[] snapshotUpdateCounts = null;
+
+    // true if in the repository's list of indexes to clear the merged arrays, interval trees and snapshots of, on flush
+    private boolean isInCachingSortedIndexes = false;
+
     @Override
     public String toString() {
       StringBuilder sb = new StringBuilder("IndexIteratorCachePair, index=");
@@ -310,9 +380,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
         
         final ArrayList<FSLeafIndexImpl<? extends T>> tempSubIndexCache = new ArrayList<FSLeafIndexImpl<? extends T>>();
         final int len = allTypes.size();
-        if (indexKind == FSIndex.SORTED_INDEX) {
-          sortedTypeCodes = new int[len];
-        }
+        sortedTypeCodes = new int[len];
         
         for (int i = 0; i < len; i++) {
           final int typeCode = ((TypeImpl) allTypes.get(i)).getCode();
@@ -324,13 +392,11 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
           } else {
             throw new RuntimeException("never happen");
           }
-          if (indexKind == FSIndex.SORTED_INDEX) {
-            sortedTypeCodes[i] = leafIndex.getTypeCode();
-          }
+          sortedTypeCodes[i] = leafIndex.getTypeCode();
         }
         this.cachedSubFsLeafIndexes = tempSubIndexCache; 
+        Arrays.sort(sortedTypeCodes);
         if (this.fsLeafIndex.getIndexingStrategy() == FSIndex.SORTED_INDEX) {
-          Arrays.sort(sortedTypeCodes);
           this.flatIndex = FSIndexFlat.enabled ? new FSIndexFlat<>(this) : null; // must follow cachedSubFsLeafIndexes setup
         }
         // assign to "volatile" at end, after all initialization is complete
@@ -485,6 +551,120 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     void addToIteratedSortedIndexes() {
       iteratedSortedIndexes.add(this);
     }
+
+    /**
+     * The merged array is built only for a new iterator, when none of the subtype indexes were updated
+     * since the previous call; so code alternating between updating the indexes and iterating over them
+     * doesn't pay for building an array on each iteration.
+     *
+     * @param isNewIterator true if called when creating an iterator
+     * @return the FSs of this index and its subtype indexes in iteration order, or null if the indexes
+     *         changed since the previous call, or the array is not built
+     */
+    synchronized int[] getMergedFSs(boolean isNewIterator) {
+      if (!isUnchangedSince(mergedUpdateCounts)) {
+        mergedUpdateCounts = detectIllegalIndexUpdates.clone();  // a new array, iterators may hold the old one
+        mergedFSs = null;
+        return null;
+      }
+      if (mergedFSs == null && isNewIterator) {
+        mergedFSs = createMergedFSs();
+        addToCachingSortedIndexes();
+      }
+      return mergedFSs;
+    }
+
+    /**
+     * @return true if this is a sorted index over annotations whose first key is begin, ascending, 
+     *         so the interval tree can be used for span queries
+     */
+    boolean isIntervalIndex() {
+      if (fsLeafIndex.getIndexingStrategy() != FSIndex.SORTED_INDEX) {
+        return false;
+      }
+      final FSIndexComparator comp = fsLeafIndex.getComparator();
+      final TypeSystemImpl tsi = cas.getTypeSystemImpl();
+      return tsi.subsumes(tsi.annotType, comp.getType()) &&
+          (comp.getNumberOfKeys() > 0) &&
+          (comp.getKeyType(0) == FSIndexComparator.FEATURE_KEY) &&
+          (comp.getKeyFeature(0) == tsi.startFeat) &&
+          (comp.getKeyComparator(0) == FSIndexComparator.STANDARD_COMPARE);
+    }
+
+    /**
+     * Must only be called if isIntervalIndex() is true.
+     * Builds the tree if the index changed since the last call.
+     * @return the interval tree over the FSs of this index and its subtype indexes
+     */
+    synchronized AnnotationIntervalTree getIntervalTree() {
+      if (intervalTree == null || !isUnchangedSince(intervalTreeUpdateCounts)) {
+        intervalTreeUpdateCounts = detectIllegalIndexUpdates.clone();
+        intervalTree = new AnnotationIntervalTree(
+            (mergedFSs != null && isUnchangedSince(mergedUpdateCounts)) ? mergedFSs : createMergedFSs(),
+            cas);
+        addToCachingSortedIndexes();
+      }
+      return intervalTree;
+    }
+
+    /**
+     * @return a sorted index holding the FSs of this index and its subtype indexes in iteration order,
+     *         for snapshot iterators; the same one until this index or a subtype index changes
+     */
+    synchronized FSIntArrayIndex<T> getSnapshotIndex() {
+      createIndexIteratorCache();  // does nothing if already created
+      if (snapshotIndex == null || !isUnchangedSince(snapshotUpdateCounts)) {
+        snapshotUpdateCounts = detectIllegalIndexUpdates.clone();
+        snapshotIndex = createSnapshotIndex(this, false);
+        addToCachingSortedIndexes();
+      }
+      return snapshotIndex;
+    }
+
+    // true if the update counts of this index and its subtypes are the same as in counts
+    private boolean isUnchangedSince(int[] counts) {
+      if (counts == null) {
+        return false;
+      }
+      final int[] localSortedTypeCodes = sortedTypeCodes;
+      for (int i = 0; i < localSortedTypeCodes.length; i++) {
+        final int typeCode = localSortedTypeCodes[i];
+        if (counts[typeCode] != detectIllegalIndexUpdates[typeCode]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int[] createMergedFSs() {
+      createIndexIteratorCache();  // does nothing if already created
+      final int[] fss = new int[size()];
+      int i = 0;
+      final LowLevelIterator it = (cachedSubFsLeafIndexes.size() > 1) ?
+          new PointerIterator(this, false) :
+          (LowLevelIterator) createLeafPointerIterator(this);
+      for (; it.isValid(); it.moveToNext()) {
+        fss[i++] = it.ll_get();
+      }
+      return fss;
+    }
+
+    private void addToCachingSortedIndexes() {
+      if (!isInCachingSortedIndexes) {
+        cachingSortedIndexes.add(this);
+        isInCachingSortedIndexes = true;
+      }
+    }
+
+    synchronized void clearCaches() {
+      mergedFSs = null;
+      mergedUpdateCounts = null;
+      intervalTree = null;
+      intervalTreeUpdateCounts = null;
+      snapshotIndex = null;
+      snapshotUpdateCounts = null;
+      isInCachingSortedIndexes = false;
+    }
     
     // flatIndex is null except for sorted indexes
     private boolean hasFlatIndex() {
@@ -526,6 +706,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       final int strat = iicp.fsLeafIndex.getIndexingStrategy();
       if (strat == FSIndex.BAG_INDEX ||           
           strat == FSIndex.SET_INDEX ||  // because set indexes do not enforce ordering
+          strat == FSIndex.HASH_INDEX ||
           is_unordered) {
         return new PointerIteratorUnordered(iicp);
       } else {
@@ -603,6 +784,20 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     // iteration.
     final private IntComparator iteratorComparator;
 
+    // true if this iterator may use the iicp's merged array of FSs, instead of merging the subtype iterators
+    final private boolean isMergeable;
+
+    // The iterator also works in two modes:
+    // Merged: iterating over the iicp's merged array of FSs, at mergedPos, when it is valid.
+    // Heap: merging the iterators over the subtype indexes; mergedFSs is null.
+    //   The subtype iterators are created on the first use of this mode.
+    private int[] mergedFSs = null;
+
+    private int mergedPos;
+
+    // the update counts when the merged array was valid, to detect concurrent modification
+    private int[] mergedUpdateCounts;
+
     // skip including iterators for empty indexes
     //   The concurrent modification exception notification doesn't occur when subsequent "adds" are done, but
     //   that is the same as current: 
@@ -634,22 +829,53 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
 
     private PointerIterator(final IndexIteratorCachePair<? extends FeatureStructure> iicp) {
+      this(iicp, !IS_DISABLE_MERGED_SORTED_ITERATION);
+    }
+
+    /**
+     * @param iicp the index plus its subtype list of indexes
+     * @param isMergeable false to always merge the subtype iterators, 
+     *                    true to use the iicp's merged array of FSs when it is valid
+     */
+    private PointerIterator(final IndexIteratorCachePair<? extends FeatureStructure> iicp, boolean isMergeable) {
       // next 3 are final so aren't done in the common init
       this.iicp = iicp;
       this.iteratorComparator = iicp.cachedSubFsLeafIndexes.get(0);
-      this.iterators = initPointerIterator();
+      this.isMergeable = isMergeable;
+      useMergedFSs(true);
       moveToFirst();
     }
 
-    private PointerIterator(final IndexIteratorCachePair<? extends FeatureStructure> iicp, int fs) {
-      // next 3 are final so aren't done in the common init
-      this.iicp = iicp;
-      this.iteratorComparator = iicp.cachedSubFsLeafIndexes.get(0);
-      this.iterators = initPointerIterator();
-      moveTo(fs);
+    /**
+     * Switches to merged mode if the iicp's merged array is valid, otherwise to heap mode
+     * @param isNewIterator true when called from the constructor, allows building the merged array
+     * @return true if in merged mode
+     */
+    private boolean useMergedFSs(boolean isNewIterator) {
+      if (this.isMergeable) {
+        synchronized (this.iicp) {
+          this.mergedFSs = this.iicp.getMergedFSs(isNewIterator);
+          this.mergedUpdateCounts = this.iicp.mergedUpdateCounts;
+        }
+      }
+      if (this.mergedFSs == null && this.iterators == null) {
+        this.iterators = initPointerIterator();
+      }
+      return this.mergedFSs != null;
+    }
+
+    // for merged mode
+    private void checkMergedConcurrentModification() {
+      final int typeCode = cas.getTypeCode(this.mergedFSs[this.mergedPos]);
+      if (this.mergedUpdateCounts[typeCode] != detectIllegalIndexUpdates[typeCode]) {
+        throw new ConcurrentModificationException();
+      }
     }
 
     public boolean isValid() {
+      if (this.mergedFSs != null) {
+        return (this.mergedPos >= 0) && (this.mergedPos < this.mergedFSs.length);
+      }
       // We're valid as long as at least one index is.
       return (this.lastValidIndex >= 0 );
     }
@@ -803,6 +1029,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
 
     public void moveToFirst() {
+      if (useMergedFSs(false)) {
+        this.mergedPos = 0;
+        return;
+      }
       int lvi = this.iterators.length - 1;
       // Need to consider all iterators.
       // Set all iterators to insertion point.
@@ -828,6 +1058,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
 
     public void moveToLast() {
+      if (useMergedFSs(false)) {
+        this.mergedPos = this.mergedFSs.length - 1;
+        return;
+      }
       int lvi = this.iterators.length - 1;
       // Need to consider all iterators.
       // Set all iterators to insertion point.
@@ -857,6 +1091,12 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
         return;
       }
 
+      if (this.mergedFSs != null) {
+        checkMergedConcurrentModification();
+        ++this.mergedPos;
+        return;
+      }
+
       final ComparableIntPointerIterator it0 = checkConcurrentModification(0);
 
       if (this.wentForward) {
@@ -908,6 +1148,12 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
         return;
       }
 
+      if (this.mergedFSs != null) {
+        checkMergedConcurrentModification();
+        --this.mergedPos;
+        return;
+      }
+
       final ComparableIntPointerIterator it0 = checkConcurrentModification(0);
       if (!this.wentForward) {
         it0.dec();
@@ -967,6 +1213,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       if (!isValid()) {
         throw new NoSuchElementException();
       }
+      if (this.mergedFSs != null) {
+        checkMergedConcurrentModification();
+        return this.mergedFSs[this.mergedPos];
+      }
       return checkConcurrentModification(0).get();
     }
 
@@ -999,6 +1249,9 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
      *                or invalid position of all are less than this fs
      */
    void moveTo(int fs, boolean isExact) {
+      if (useMergedFSs(false) && moveToInMerged(fs, isExact)) {
+        return;
+      }
       int lvi = this.iterators.length - 1;
       // Need to consider all iterators.
       // Set all iterators to insertion point.
@@ -1044,6 +1297,38 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
 //      }
     }
 
+    /**
+     * Binary search in the merged array, which is ordered like the heap merge: by the index keys, then by FS address
+     * @return false if isExact and fs is not in the array; the iterator is then switched to heap mode
+     */
+    private boolean moveToInMerged(int fs, boolean isExact) {
+      final int[] fss = this.mergedFSs;
+      // find the left-most position whose FS is not before fs
+      int lo = 0;
+      int hi = fss.length;
+      while (lo < hi) {
+        final int mid = (lo + hi) >>> 1;
+        int c = this.iteratorComparator.compare(fss[mid], fs);
+        if (c == 0 && isExact) {
+          c = Integer.compare(fss[mid], fs);
+        }
+        if (c < 0) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      if (isExact && (lo == fss.length || fss[lo] != fs)) {
+        this.mergedFSs = null;
+        if (this.iterators == null) {
+          this.iterators = initPointerIterator();
+        }
+        return false;
+      }
+      this.mergedPos = lo;
+      return true;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -1073,6 +1358,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     @Override
     public String toString() {
       StringBuilder sb = new StringBuilder(this.getClass().getSimpleName() + " [iicp=" + iicp + ", indexes=\n");
+      if (mergedFSs != null) {
+        sb.append("  merged, size=").append(mergedFSs.length).append(", pos=").append(mergedPos).append(']');
+        return sb.toString();
+      }
       int i = 0;
       for (ComparableIntPointerIterator item : iterators) {
         sb.append("  ").append(i++).append("  ").append(item).append('\n');
@@ -1099,11 +1388,11 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
   private class PointerIteratorUnordered extends PointerIterator {
     
     private PointerIteratorUnordered(final IndexIteratorCachePair<? extends FeatureStructure> iicp) {
-      super(iicp);
+      super(iicp, false);
     }
     
     private PointerIteratorUnordered(final IndexIteratorCachePair<? extends FeatureStructure> iicp, int fs) {
-      super(iicp); 
+      super(iicp, false); 
       moveTo(fs);
     }
 
@@ -1253,8 +1542,8 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       for (int i = 0; i < iterators.length; i++) {
         if (kind == FSIndex.SORTED_INDEX) {
           // case: sorted index being used in unordered mode, eg. for getAllIndexedFSs
-          FSIntArrayIndex<? extends FeatureStructure> sortedIndex = 
-              (FSIntArrayIndex<? extends FeatureStructure>) ((FSIntIteratorImplBase) iterators[i]).getFSLeafIndexImpl(); 
+          FSSortedLeafIndex<? extends FeatureStructure> sortedIndex = 
+              (FSSortedLeafIndex<? extends FeatureStructure>) ((FSIntIteratorImplBase) iterators[i]).getFSLeafIndexImpl(); 
           if ((isExact ? sortedIndex.findEq(fs) :sortedIndex.findLeftmost(fs)) < 0) {
             continue;  // fs not found in the index of this subtype  
           }
@@ -1410,11 +1699,11 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
 //  }  // end of LeafPointerIterator
 
   /**
-   * This implementation creates a pseudo index that is
+   * This implementation iterates over a pseudo index that is
    * flattened and 
-   * copied (so it is a snapshot), and
-   * returns an iterator over that 
-   * 
+   * copied (so it is a snapshot).
+   * The copy is shared by the snapshot iterators over the index created while it doesn't change,
+   * and by copies of the iterators.
    */
   private class SnapshotPointerIterator<T extends FeatureStructure> implements IntPointerIterator, LowLevelIterator {
 
@@ -1429,46 +1718,42 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
     
     private SnapshotPointerIterator(IndexIteratorCachePair<T> iicp0) {
-      this(iicp0, false);
+      this(iicp0.getSnapshotIndex());
     }
     
     private SnapshotPointerIterator(IndexIteratorCachePair<T> iicp0, boolean isRootOnly) {
-      FSLeafIndexImpl<T> leafIndex = iicp0.fsLeafIndex;
-      FSIndexComparator comp = leafIndex.getComparator();
-      
-      final int size = iicp0.size();  // adds up all the sizes of the indexes
-      sortedLeafIndex = (FSIntArrayIndex<T>) FSIndexRepositoryImpl.this.<T>addNewIndexCore(comp, size, FSIndex.SORTED_INDEX);
-      snapshot = sortedLeafIndex.getVector().getArray();
-      this.size = size;
-      flattenCopy(iicp0, isRootOnly);
-      sortedLeafIndex.getVector().setSize(size);
-      moveToFirst();      
+      this(isRootOnly ? createSnapshotIndex(iicp0, true) : iicp0.getSnapshotIndex());
     }
 
     private SnapshotPointerIterator(IndexIteratorCachePair<T> iicp0, int fs) {
       this(iicp0);
       moveTo(fs);
     }
-    
-    private void flattenCopy(IndexIteratorCachePair<T> iicp0, boolean isRootOnly) {
-    
-      
-//      if (iicp0.iteratorCache.size() > 1) {
-//        if (indexKind == FSIndex.BAG_INDEX) {
-//          // have a set of bag indexes, just copy them into the snapshot in bulk
-//        } else { 
-//          // for sorted or set, extract the elements 
-//          
-//        }
-      LowLevelIterator it = (LowLevelIterator) 
-          (isRootOnly ?
-              createLeafPointerIterator(iicp0) :
-              createPointerIterator(iicp0));
-      int i = 0;
-      while (it.isValid()) {
-        snapshot[i++] = it.ll_get();
-        it.moveToNext();
-      }
+
+    /**
+     * A snapshot of some of the FSs of the index
+     * @param iicp0 the index
+     * @param fss the FSs, in index order
+     */
+    private SnapshotPointerIterator(IndexIteratorCachePair<T> iicp0, IntVector fss) {
+      FSIndexComparator comp = iicp0.fsLeafIndex.getComparator();
+      final int size = fss.size();
+      sortedLeafIndex = (FSIntArrayIndex<T>) FSIndexRepositoryImpl.this.<T>addNewIndexCore(comp, size, FSIndex.SORTED_INDEX, false);
+      snapshot = sortedLeafIndex.getVector().getArray();
+      this.size = size;
+      System.arraycopy(fss.getArray(), 0, snapshot, 0, size);
+      sortedLeafIndex.getVector().setSize(size);
+      moveToFirst();
+    }
+
+    /**
+     * @param snapshotIndex the snapshot, never modified, so it can be shared with other iterators
+     */
+    private SnapshotPointerIterator(FSIntArrayIndex<T> snapshotIndex) {
+      sortedLeafIndex = snapshotIndex;
+      snapshot = snapshotIndex.getVector().getArray();
+      size = snapshotIndex.getVector().size();
+      moveToFirst();
     }
        
     public boolean isValid() {
@@ -1555,17 +1840,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
     
     public Object copy() {
-      // If this.isValid(), return a copy pointing to the same element.
-      IndexIteratorCachePair<T> iicp = new IndexIteratorCachePair<T>(sortedLeafIndex);
-      if (this.isValid()) {
-        SnapshotPointerIterator<T> it = new SnapshotPointerIterator<T>(iicp);
-        it.moveTo(this.get(), true); // move to exact match
-        return it;
-      }
-      // Else, create a copy that is also not valid.
-      SnapshotPointerIterator<T> pi = new SnapshotPointerIterator<T>(iicp);
-      pi.pos = -1;
-      return pi;
+      // a copy over the same snapshot, at the same position; not valid if this is not valid
+      SnapshotPointerIterator<T> it = new SnapshotPointerIterator<T>(sortedLeafIndex);
+      it.pos = this.isValid() ? this.pos : -1;
+      return it;
     }
 
     public LowLevelIndex ll_getIndex() {
@@ -1627,6 +1905,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
 
     // probably never called 3/15/2015
     public void flush() {
+      incrementIllegalIndexUpdateDetector(this.iicp.fsLeafIndex.getTypeCode());  // for merged arrays and interval trees including this index
       this.iicp.fsLeafIndex.flush();
     }
 
@@ -1765,9 +2044,42 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       return new IndexImpl<T>(this.iicp, IteratorExtraFunction.SNAPSHOT);
     }
 
+    /**
+     * @see org.apache.uima.cas.FSIndex#spliterator()
+     */
+    @Override
+    public FSSplitIteratorImpl<T> spliterator() {
+      final IntVector snapshot = this.iicp.getSnapshotIndex().getVector();
+      return new FSSplitIteratorImpl<T>(snapshot.getArray(), 0, snapshot.size(), FSIndexRepositoryImpl.this.cas);
+    }
+
     FSIndexRepositoryImpl getFsRepositoryImpl() {
       return iicp.getCASImpl().indexRepository;
     }
+
+    /**
+     * For AnnotationIndex covering, overlapping and coveredBy.
+     * Uses the interval tree if this is a sorted index ordered first by begin; otherwise looks at all the FSs.
+     * @param query the kind of query
+     * @param begin the begin of the span
+     * @param end the end of the span
+     * @return an iterator over a snapshot of the result, in index order
+     */
+    FSIterator<T> spanIterator(SpanQuery query, int begin, int end) {
+      final IntVector result = new IntVector();
+      if (this.iicp.isIntervalIndex()) {
+        this.iicp.getIntervalTree().select(query, begin, end, result);
+      } else {
+        final CASImpl localCas = FSIndexRepositoryImpl.this.cas;
+        for (LowLevelIterator it = ll_iterator(); it.isValid(); it.moveToNext()) {
+          final int fs = it.ll_get();
+          if (AnnotationIntervalTree.isInQuery(query, localCas.ll_getAnnotBegin(fs), localCas.ll_getAnnotEnd(fs), begin, end)) {
+            result.add(fs);
+          }
+        }
+      }
+      return new FSIteratorWrapper<T>(new SnapshotPointerIterator<T>(this.iicp, result), FSIndexRepositoryImpl.this.cas);
+    }
   }  // end of class IndexImpl
   
    
@@ -1863,9 +2175,16 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
   // one bit per typeCode, indexed by typeCode
   final private boolean[] isUsed;
   
+  // during ll_addAllFS, the sorted indexes with FSs appended, waiting to be sorted; null otherwise
+  private List<FSSortedLeafIndex<? extends FeatureStructure>> bulkAddedIndexes = null;
+
   // Monitor which indexes are iterated over, to allow resetting flatIndexes
   final private List<IndexIteratorCachePair<? extends FeatureStructure>> iteratedSortedIndexes = 
       Collections.synchronizedList(new ArrayList<IndexIteratorCachePair<? extends FeatureStructure>>());
+
+  // The indexes having merged arrays for iteration, interval trees or snapshots, to drop them on flush, which doesn't change the update counts
+  final private List<IndexIteratorCachePair<? extends FeatureStructure>> cachingSortedIndexes =
+      Collections.synchronizedList(new ArrayList<IndexIteratorCachePair<? extends FeatureStructure>>());
   
   private final SharedIndexInfo sii;
 
@@ -1982,7 +2301,8 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
         final IndexIteratorCachePair<? extends FeatureStructure> iicp = baseIndexRepo.name2indexMap.get(key);
         createIndexNoQuestionsAsked(iicp.fsLeafIndex.getComparator(), key,
             
-            iicp.fsLeafIndex.getIndexingStrategy());
+            iicp.fsLeafIndex.getIndexingStrategy(),
+            iicp.fsLeafIndex instanceof FSIntBlockIndex);
       }
     }
   }
@@ -2039,13 +2359,16 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     }
 
     clearIteratedSortedIndexes();
+    clearCachingSortedIndexes();
     
     // reset the index update trackers
 //    resetDetectIllegalIndexUpdates();
     
     this.indexUpdates.removeAllElements();
     this.indexUpdateOperation.clear();
-    mPii = new ProcessedIndexInfo();
+    if (mPii.fsAddedToIndex.size() > 0 || mPii.fsDeletedFromIndex.size() > 0 || mPii.fsReindexed.size() > 0) {
+      mPii = new ProcessedIndexInfo();
+    }
 //    this.fsAddedToIndex = new IntSet();
 //    this.fsDeletedFromIndex = new IntSet();
 //    this.fsReindexed = new PositiveIntSet_impl();
@@ -2070,21 +2393,46 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     iteratedSortedIndexes.clear();
   }
 
+  /**
+   * Sets up the iteration structures of all the indexes, which are otherwise set up lazily by the first
+   * iterator, so that iterators created by several threads of a frozen CAS find them already set up.
+   */
+  void createIndexIteratorCaches() {
+    for (ArrayList<IndexIteratorCachePair<? extends FeatureStructure>> iicps : this.indexArray) {
+      if (iicps != null) {
+        for (IndexIteratorCachePair<? extends FeatureStructure> iicp : iicps) {
+          iicp.createIndexIteratorCache();
+        }
+      }
+    }
+  }
+
+  private void clearCachingSortedIndexes() {
+    final List<IndexIteratorCachePair<? extends FeatureStructure>> iicps;
+    synchronized (cachingSortedIndexes) {
+      iicps = new ArrayList<IndexIteratorCachePair<? extends FeatureStructure>>(cachingSortedIndexes);
+      cachingSortedIndexes.clear();
+    }
+    for (IndexIteratorCachePair<? extends FeatureStructure> iicp : iicps) {
+      iicp.clearCaches();
+    }
+  }
+
   public void addFS(int fsRef) {
     ll_addFS(fsRef);
   }
 
-  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndex(FSIndexComparator comparator, int indexType) {
-    return addNewIndex(comparator, DEFAULT_INDEX_SIZE, indexType);
+  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndex(FSIndexComparator comparator, int indexType, boolean isBlocked) {
+    return addNewIndex(comparator, DEFAULT_INDEX_SIZE, indexType, isBlocked);
   }
 
   /**
    * This is where the actual index gets created.
    */
   private <T extends FeatureStructure> IndexIteratorCachePair<T> addNewIndex(final FSIndexComparator comparator, int initialSize,
-      int indexType) {
+      int indexType, boolean isBlocked) {
     
-    FSLeafIndexImpl<T> fsLeafIndex = addNewIndexCore(comparator, initialSize, indexType);
+    FSLeafIndexImpl<T> fsLeafIndex = addNewIndexCore(comparator, initialSize, indexType, isBlocked);
     IndexIteratorCachePair<T> iicp = new IndexIteratorCachePair<T>(fsLeafIndex); 
 //    iicp.fsLeafIndex =  addNewIndexCore(comparator, initialSize, indexType);
     final Type type = comparator.getType();
@@ -2098,10 +2446,33 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     return iicp;
   }
   
+  /**
+   * @param iicp0 the index
+   * @param isRootOnly true to copy only the FSs of the type of the index, not of its subtypes
+   * @return a sorted index holding a copy of the FSs of the index, in iteration order
+   */
+  private <T extends FeatureStructure> FSIntArrayIndex<T> createSnapshotIndex(IndexIteratorCachePair<T> iicp0, boolean isRootOnly) {
+    final FSIntArrayIndex<T> snapshotIndex = (FSIntArrayIndex<T>) this.<T>addNewIndexCore(
+        iicp0.fsLeafIndex.getComparator(), iicp0.size(), FSIndex.SORTED_INDEX, false);
+    final int[] snapshot = snapshotIndex.getVector().getArray();
+    final LowLevelIterator it = (LowLevelIterator) 
+        (isRootOnly ?
+            createLeafPointerIterator(iicp0) :
+            createPointerIterator(iicp0));
+    int i = 0;
+    while (it.isValid()) {
+      snapshot[i++] = it.ll_get();
+      it.moveToNext();
+    }
+    snapshotIndex.getVector().setSize(i);
+    return snapshotIndex;
+  }
+
   private <T extends FeatureStructure> FSLeafIndexImpl<T> addNewIndexCore(
       final FSIndexComparator comparator, 
       int initialSize,
-      int indexType) {
+      int indexType,
+      boolean isBlocked) {
     final Type type = comparator.getType();
     // final int vecLen = indexVector.size();
     FSLeafIndexImpl<T> ind;
@@ -2110,6 +2481,10 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       ind = new FSRBTSetIndex<T>(this.cas, type, indexType);
       break;
     }
+    case FSIndex.HASH_INDEX: {
+      ind = new FSHashSetIndex<T>(this.cas, type, initialSize, indexType);
+      break;
+    }
     case FSIndex.BAG_INDEX:
     case FSIndex.DEFAULT_BAG_INDEX: {
       ind = new FSBagIndex<T>(this.cas, type, initialSize, indexType);
@@ -2120,7 +2495,9 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       // code is unknown, we just create a sorted index (with duplicates).
       // ind = new FSRBTIndex(this.cas, type, FSIndex.SORTED_INDEX);
        
-      ind = new FSIntArrayIndex<T>(this.cas, type, initialSize, FSIndex.SORTED_INDEX, isAnnotationIndex(type, comparator));
+      ind = isBlocked ?
+          new FSIntBlockIndex<T>(this.cas, type, FSIndex.SORTED_INDEX, isAnnotationIndex(type, comparator)) :
+          new FSIntArrayIndex<T>(this.cas, type, initialSize, FSIndex.SORTED_INDEX, isAnnotationIndex(type, comparator));
       break;
     }
     }
@@ -2169,11 +2546,12 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
    * Top level call to add the indexes for a particular index definition
    * @param comparator
    * @param indexType
+   * @param isBlocked true to keep sorted indexes in blocks
    * @return the iicp for the top new index
    */
-  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndexRecursive(FSIndexComparator comparator, int indexType) {
+  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndexRecursive(FSIndexComparator comparator, int indexType, boolean isBlocked) {
     final FSIndexComparatorImpl compCopy = ((FSIndexComparatorImpl) comparator).copy();
-    return addNewIndexRec(compCopy, indexType);
+    return addNewIndexRec(compCopy, indexType, isBlocked);
   }
 
   /**
@@ -2219,10 +2597,11 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
    * DEFAULT_BAG_INDEX), call yourself recursively to add the indexes for all the directly subsumed subtypes.
    * @param comparator
    * @param indexType
+   * @param isBlocked true to keep sorted indexes in blocks
    * @return the new iicp for the new index
    */
-  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndexRec(FSIndexComparator comparator, int indexType) {
-    final IndexIteratorCachePair<? extends FeatureStructure> iicp = this.addNewIndex(comparator, indexType);
+  private IndexIteratorCachePair<? extends FeatureStructure> addNewIndexRec(FSIndexComparator comparator, int indexType, boolean isBlocked) {
+    final IndexIteratorCachePair<? extends FeatureStructure> iicp = this.addNewIndex(comparator, indexType, isBlocked);
     if (indexType == FSIndex.DEFAULT_BAG_INDEX) {
       // In this special case, we do not add indexes for subtypes.
       return iicp;
@@ -2234,7 +2613,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     for (int i = 0; i < max; i++) {
       compCopy = ((FSIndexComparatorImpl) comparator).copy();
       compCopy.setType(types.get(i));
-      addNewIndexRec(compCopy, indexType);
+      addNewIndexRec(compCopy, indexType, isBlocked);
     }
     return iicp;
   }
@@ -2317,11 +2696,25 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
    * @return -
    */
   public boolean createIndexNoQuestionsAsked(final FSIndexComparator comp, String label, int indexType) {
+    return createIndexNoQuestionsAsked(comp, label, indexType, isBlockedSortedIndex(label));
+  }
+
+  /**
+   * Like {@link #createIndexNoQuestionsAsked(FSIndexComparator, String, int)}, but choosing how a sorted index is kept
+   * 
+   * @param comp -
+   * @param label -
+   * @param indexType -
+   * @param isBlocked true to keep a sorted index in blocks (FSIntBlockIndex), which is faster to update when large,
+   *                  false to keep it in one array (FSIntArrayIndex); ignored for other index types
+   * @return -
+   */
+  public boolean createIndexNoQuestionsAsked(final FSIndexComparator comp, String label, int indexType, boolean isBlocked) {
     IndexIteratorCachePair<? extends FeatureStructure> cp = this.name2indexMap.get(label);
     // Now check if the index already exists.
     if (cp == null) {
       // The name is new.
-      cp = this.addNewIndexRecursive(comp, indexType);
+      cp = this.addNewIndexRecursive(comp, indexType, isBlocked);
       
       // create a set of feature codes that are in one or more index definitions
       if (!sii.isSetUpFromBaseCAS) {
@@ -2642,7 +3035,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
       for (int j = 0; j < jMax; j++) {
         iicp = iv.get(j);
         indStrat = iicp.fsLeafIndex.getIndexingStrategy();
-        if (indStrat != FSIndex.SET_INDEX) {  // don't use SET indexes because 
+        if (indStrat != FSIndex.SET_INDEX && indStrat != FSIndex.HASH_INDEX) {  // don't use SET or HASH indexes because
                                               // they miss some items which have been added to the indexes
           anIndex = iicp;
           break;
@@ -2681,6 +3074,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
   }
 
   private void incrementIllegalIndexUpdateDetector(int typeCode) {
+    this.cas.checkNotFrozen();  // every index update comes here
     this.detectIllegalIndexUpdates[typeCode] ++;
 //    indexUpdated(typeCode);
   }
@@ -2772,6 +3166,39 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
   public void ll_addback(int fsRef, int count) {
     ll_addFS_common(fsRef, true, count);
   }
+
+  /**
+   * Adds many FSs to the indexes; the result is the same as calling {@link #ll_addFS(int)} for each.
+   * 
+   * Instead of inserting each FS into the sorted indexes, which moves the following part of the
+   * index when the FSs arrive out of index order, the FSs are appended and each sorted index is
+   * sorted once at the end. This is O(n log n) for n FSs in any order, rather than O(n^2) for
+   * FSs arriving in reverse order.
+   * 
+   * @param fsRefs the FSs to add
+   * @param start the position in fsRefs of the first FS to add
+   * @param end one past the position in fsRefs of the last FS to add
+   */
+  public void ll_addAllFS(int[] fsRefs, int start, int end) {
+    if (end - start < 2 || bulkAddedIndexes != null) {
+      for (int i = start; i < end; i++) {
+        ll_addFS_common(fsRefs[i], false, 1);
+      }
+      return;
+    }
+    bulkAddedIndexes = new ArrayList<FSSortedLeafIndex<? extends FeatureStructure>>();
+    try {
+      for (int i = start; i < end; i++) {
+        ll_addFS_common(fsRefs[i], false, 1);
+      }
+    } finally {
+      // also if an FS was rejected, so the indexes are usable
+      for (FSSortedLeafIndex<? extends FeatureStructure> index : bulkAddedIndexes) {
+        index.sortAppended();
+      }
+      bulkAddedIndexes = null;
+    }
+  }
   
   private void ll_addFS_common(int fsRef, boolean isAddback, int count) {
     cas.maybeClearCacheNotInIndex(fsRef);
@@ -2815,11 +3242,16 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
         continue;  // skip adding back to bags - because removes are skipped for bags
         }
         iicp.fsLeafIndex.insert(fsRef, count);
+      } else if (bulkAddedIndexes != null && indexingStrategy == FSIndex.SORTED_INDEX) {
+        final FSSortedLeafIndex<? extends FeatureStructure> index = (FSSortedLeafIndex<? extends FeatureStructure>) iicp.fsLeafIndex;
+        if (index.appendUnsorted(fsRef)) {
+          bulkAddedIndexes.add(index);
+        }
       } else {
         iicp.fsLeafIndex.insert(fsRef);  // if not addback, only insert 1
       }
       if (noIndexOrOnlySetindexes) {
-        noIndexOrOnlySetindexes = indexingStrategy == FSIndex.SET_INDEX;
+        noIndexOrOnlySetindexes = indexingStrategy == FSIndex.SET_INDEX || indexingStrategy == FSIndex.HASH_INDEX;
       }
     }
     // log even if added back, because remove logs remove, and might want to know it was "reindexed"
@@ -2983,6 +3415,87 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     ll_addDirectSubtypes(type, iteratorList);          
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.FSIndexRepository#getFSsWithKeyValue(java.lang.String, java.lang.Object)
+   */
+  public <T extends FeatureStructure> FSIterator<T> getFSsWithKeyValue(String label, Object value) {
+    return keyRangeIterator(label, true, value, true, true, value, true);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.cas.FSIndexRepository#getFSsInKeyRange(java.lang.String, java.lang.Object, boolean, java.lang.Object, boolean)
+   */
+  public <T extends FeatureStructure> FSIterator<T> getFSsInKeyRange(String label, Object fromValue,
+      boolean fromInclusive, Object toValue, boolean toInclusive) {
+    return keyRangeIterator(label, fromValue != null, fromValue, fromInclusive, toValue != null, toValue, toInclusive);
+  }
+
+  /**
+   * Finds the FSs in a range of values of the first key of a sorted index by binary search in the
+   * leaf index of each type, and returns a snapshot of them, in index order
+   */
+  private <T extends FeatureStructure> FSIterator<T> keyRangeIterator(String label,
+      boolean hasFrom, Object fromValue, boolean fromInclusive,
+      boolean hasTo, Object toValue, boolean toInclusive) {
+    @SuppressWarnings("unchecked")
+    final IndexIteratorCachePair<T> iicp = (IndexIteratorCachePair<T>) this.name2indexMap.get(label);
+    if (iicp == null ||
+        iicp.fsLeafIndex.getIndexingStrategy() != FSIndex.SORTED_INDEX ||
+        !iicp.fsLeafIndex.isFirstKeyFeature()) {
+      throw new CASRuntimeException(CASRuntimeException.NOT_A_KEY_VALUE_INDEX, new String[] { label });
+    }
+    if (hasFrom) {
+      checkKeyValue(iicp.fsLeafIndex, label, fromValue);
+    }
+    if (hasTo) {
+      checkKeyValue(iicp.fsLeafIndex, label, toValue);
+    }
+    if (iicp.fsLeafIndex.getComparator().getKeyComparator(0) != FSIndexComparator.STANDARD_COMPARE) {
+      // the index is in descending order of the values: the upper bound comes first
+      final boolean h = hasFrom;
+      final Object v = fromValue;
+      final boolean incl = fromInclusive;
+      hasFrom = hasTo;
+      fromValue = toValue;
+      fromInclusive = toInclusive;
+      hasTo = h;
+      toValue = v;
+      toInclusive = incl;
+    }
+
+    iicp.createIndexIteratorCache();
+    final IntVector result = new IntVector();
+    int nbrLeavesWithResults = 0;
+    for (FSLeafIndexImpl<? extends T> leafIndex : iicp.cachedSubFsLeafIndexes) {
+      final FSSortedLeafIndex<? extends T> sortedIndex = (FSSortedLeafIndex<? extends T>) leafIndex;
+      final int from = hasFrom ? sortedIndex.findFirstKey(fromValue, !fromInclusive) : 0;
+      final int to = hasTo ? sortedIndex.findFirstKey(toValue, toInclusive) : sortedIndex.size();
+      if (from < to) {
+        nbrLeavesWithResults++;
+        for (int i = from; i < to; i++) {
+          result.add(sortedIndex.getAt(i));
+        }
+      }
+    }
+    if (nbrLeavesWithResults > 1) {
+      // FSs of several types: put them in index order
+      IntArrayUtils.sort(result.getArray(), 0, result.size(),
+          ((FSSortedLeafIndex<T>) iicp.fsLeafIndex).keysThenAddressComparator);
+    }
+    return new FSIteratorWrapper<T>(new SnapshotPointerIterator<T>(iicp, result), this.cas);
+  }
+
+  private static void checkKeyValue(FSLeafIndexImpl<?> leafIndex, String label, Object value) {
+    if (!leafIndex.isFirstKeyValue(value)) {
+      throw new CASRuntimeException(CASRuntimeException.KEY_VALUE_WRONG_CLASS, new Object[] { 
+          value, (value == null) ? "null" : value.getClass().getName(), label });
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -3163,13 +3676,13 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     final ArrayList<IndexIteratorCachePair<? extends FeatureStructure>> indexesForType = indexArray[typeCode];
     FSBagIndex<? extends FeatureStructure> index_bag = null;
     boolean found_in_bag = false;
-    ArrayList<FSRBTSetIndex<? extends FeatureStructure>> setindexes = null;
+    ArrayList<FSLeafIndexImpl<? extends FeatureStructure>> setindexes = null;
 
     for (IndexIteratorCachePair<? extends FeatureStructure> iicp : indexesForType) {
       FSLeafIndexImpl<?> index_for_this_typeCode = iicp.fsLeafIndex;
       final int kind = index_for_this_typeCode.getIndexingStrategy(); // SORTED_INDEX, BAG_, or SET_
       if (kind == FSIndex.SORTED_INDEX) {
-        return ((FSIntArrayIndex<?>)index_for_this_typeCode).ll_containsEq(fsAddr);
+        return ((FSSortedLeafIndex<?>)index_for_this_typeCode).ll_containsEq(fsAddr);
       }
       if (kind == FSIndex.BAG_INDEX && !found_in_bag) {
         if (FSBagIndex.USE_POSITIVE_INT_SET) {
@@ -3180,11 +3693,11 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
           continue; // may still return false if no set or sorted indexes
         } 
         index_bag = (FSBagIndex<?>) index_for_this_typeCode;
-      } else {  // is Set case
+      } else {  // is Set or Hash case
         if (setindexes == null) {
-          setindexes = new ArrayList<FSRBTSetIndex<?>>();
+          setindexes = new ArrayList<FSLeafIndexImpl<?>>();
         }
-        setindexes.add((FSRBTSetIndex<?>) index_for_this_typeCode);
+        setindexes.add(index_for_this_typeCode);
       } 
     }
     // if get here, there's no Sorted index
@@ -3207,7 +3720,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     
     // there are no bag indexes.  Need to check each Set index, and return true if any of them contain this FS
     
-    for (FSRBTSetIndex<?> index_set : setindexes) {
+    for (FSLeafIndexImpl<?> index_set : setindexes) {
       if (index_set.ll_contains(fsAddr)) {
         return true;
       }
@@ -3246,7 +3759,7 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     for (IndexIteratorCachePair<? extends FeatureStructure> iicp : indexArray[typeCode]) {
       FSLeafIndexImpl<?> index_for_this_typeCode = iicp.fsLeafIndex;
       final int kind = index_for_this_typeCode.getIndexingStrategy(); // SORTED_INDEX, BAG_, or SET_
-      if (kind == FSIndex.SORTED_INDEX || kind == FSIndex.SET_INDEX) {
+      if (kind == FSIndex.SORTED_INDEX || kind == FSIndex.SET_INDEX || kind == FSIndex.HASH_INDEX) {
         // next call removes from all defined indexes for this type
         return ll_removeFS_all(fsAddr);
       }
@@ -3277,13 +3790,13 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
    * @param typeCode
    * @return the index just for that type
    */
-  private <T extends FeatureStructure> FSIntArrayIndex<T> getAnnotationIndexNoSubtypes(int typeCode) {
+  private <T extends FeatureStructure> FSSortedLeafIndex<T> getAnnotationIndexNoSubtypes(int typeCode) {
     final IndexIteratorCachePair<? extends FeatureStructure> annotation_iicp = this.name2indexMap.get(CAS.STD_ANNOTATION_INDEX);
     final ArrayList<IndexIteratorCachePair<T>> iicps_for_type = getIndexesForType(typeCode);
     final FSLeafIndexImpl<?> ri = annotation_iicp.fsLeafIndex;
     // search all defined indexes for this type, to find an annotation one
     final int ii = findIndex(iicps_for_type, ri.getComparator(), FSIndex.SORTED_INDEX);
-    return (FSIntArrayIndex<T>) iicps_for_type.get(ii).fsLeafIndex; // cast ok because annotation index is sorted
+    return (FSSortedLeafIndex<T>) iicps_for_type.get(ii).fsLeafIndex; // cast ok because annotation index is sorted
   }
   
   private void logIndexOperation(int fsRef, boolean added) {
@@ -3365,6 +3878,19 @@ public class FSIndexRepositoryImpl implements FSIndexRepositoryMgr, LowLevelInde
     return getUpdatedFSs(mPii.fsReindexed);
   }
 
+  /**
+   * Forgets the index updates recorded so far, when the delta CAS marker is advanced
+   * (CASImpl.advanceMarker); later updates are recorded relative to the new marker.
+   */
+  void clearIndexUpdates() {
+    this.indexUpdates.removeAllElements();
+    this.indexUpdateOperation.clear();
+    if (mPii.fsAddedToIndex.size() > 0 || mPii.fsDeletedFromIndex.size() > 0 || mPii.fsReindexed.size() > 0) {
+      mPii = new ProcessedIndexInfo();
+    }
+    this.logProcessed = false;
+  }
+
   public boolean isModified() {
     if (!this.logProcessed) {
       processIndexUpdates();
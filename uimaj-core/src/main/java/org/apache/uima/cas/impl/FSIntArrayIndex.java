@@ -23,6 +23,7 @@ import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.admin.FSIndexComparator;
 import org.apache.uima.internal.util.ComparableIntPointerIterator;
+import org.apache.uima.internal.util.IntArrayUtils;
 import org.apache.uima.internal.util.IntComparator;
 import org.apache.uima.internal.util.IntPointerIterator;
 import org.apache.uima.internal.util.IntVector;
@@ -32,22 +33,20 @@ import org.apache.uima.internal.util.IntVector;
  * Uses IntVector (sorted) as the index (of FSs)
  * @param <T> the Java cover class type for this index, passed along to (wrapped) iterators producing Java cover classes
  */
-public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T> {
+public class FSIntArrayIndex<T extends FeatureStructure> extends FSSortedLeafIndex<T> {
 
   // The index, a vector of FS references.
   final private IntVector indexIntVector;
   
   final private int initialSize;
   
-  final private boolean isAnnotationIndex;
-    
-  private IntComparator annotationIntComparator = null; // lazy init because index repo not set up initially
+  // while FSs added by appendUnsorted wait for sortAppended, the size of the sorted part; else -1
+  private int sortedSize = -1;
 
   FSIntArrayIndex(CASImpl cas, Type type, int initialSize, int indexType, boolean isAnnotationIndex) {
-    super(cas, type, indexType);
+    super(cas, type, indexType, isAnnotationIndex);
     this.initialSize = initialSize;
     this.indexIntVector = new IntVector(initialSize);
-    this.isAnnotationIndex = isAnnotationIndex;
   }
 
   /**
@@ -63,8 +62,9 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
   }
 
   public void flush() {
-    // do this way to reset size if it grew
-    if (this.indexIntVector.size() > this.initialSize) {
+    this.sortedSize = -1;
+    // do this way to reset size if it grew, unless resets of the CAS keep the capacity
+    if (this.indexIntVector.size() > this.initialSize && !this.lowLevelCAS.isLightweightReset()) {
       this.indexIntVector.resetSize(initialSize);
     } else {
       this.indexIntVector.removeAllElements();
@@ -160,6 +160,66 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
     }
   }
 
+  /**
+   * Bulk adds: appends the FS without keeping the index sorted.
+   * {@link #sortAppended()} must be called before the index is used for anything else.
+   * 
+   * @param fs the FS to add
+   * @return true if this was the first FS appended since the index was last sorted
+   */
+  @Override
+  final boolean appendUnsorted(int fs) {
+    final boolean isFirst = this.sortedSize < 0;
+    if (isFirst) {
+      this.sortedSize = this.indexIntVector.size();
+    }
+    this.indexIntVector.add(fs);
+    return isFirst;
+  }
+
+  /**
+   * Sorts the FSs added by {@link #appendUnsorted(int)} and merges them into the index:
+   * O(n log n) for n appended FSs, instead of moving part of the index for each out of order insert.
+   * The result is the same as inserting them one at a time.
+   */
+  @Override
+  final void sortAppended() {
+    final int sorted = this.sortedSize;
+    if (sorted < 0) {
+      return;
+    }
+    this.sortedSize = -1;
+    int size = this.indexIntVector.size();
+    final int[] a = this.indexIntVector.getArray();
+    IntArrayUtils.sort(a, sorted, size, keysThenAddressComparator);
+
+    if (sorted > 0 && keysThenAddressComparator.compare(a[sorted - 1], a[sorted]) > 0) {
+      // merge, copying only the part of the sorted FSs after the first appended one
+      int from = binarySearchExact(a, a[sorted], 0, sorted);
+      from = (from < 0) ? -(from + 1) : from + 1;
+      final int[] tmp = new int[sorted - from];
+      System.arraycopy(a, from, tmp, 0, tmp.length);
+      int i = 0;
+      int j = sorted;
+      int k = from;
+      while (i < tmp.length && j < size) {
+        a[k++] = (keysThenAddressComparator.compare(tmp[i], a[j]) <= 0) ? tmp[i++] : a[j++];
+      }
+      System.arraycopy(tmp, i, a, k, tmp.length - i);
+    }
+
+    if (!FSIndexRepositoryImpl.IS_ALLOW_DUP_ADD_2_INDEXES) {
+      // an FS added more than once is now next to itself; keep one
+      int k = 0;
+      for (int i = 0; i < size; i++) {
+        if (k == 0 || a[k - 1] != a[i]) {
+          a[k++] = a[i];
+        }
+      }
+      this.indexIntVector.truncate(k);
+    }
+  }
+
   // public IntIteratorStl iterator() {
   // return new IntVectorIterator();
   // }
@@ -184,6 +244,7 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
    * @param fsRef
    * @return index of the left-most FS for this particular type that matches on the compare function or a negative number of insertion point if not found
    */  
+  @Override
   final int findLeftmost(int fsRef) {
     int pos = find(fsRef);
     
@@ -217,6 +278,7 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
    * @param fsRef
    * @return position of Exact FS spot or neg of an insert spot (if no == match)
    */
+  @Override
   final int findEq(int fsRef) {
     return findExact(fsRef);
 //    int pos = find(fsRef);
@@ -359,10 +421,6 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
     return (find(((FeatureStructureImpl) fs).getAddress()) >= 0);
   }
   
-  public boolean ll_containsEq(int fsAddr) {
-    return findEq(fsAddr) >= 0;
-  }
-
   public FeatureStructure find(FeatureStructure fs) {
     // Cast to implementation.
     FeatureStructureImpl fsi = (FeatureStructureImpl) fs;
@@ -387,6 +445,11 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
     return this.indexIntVector.size();
   }
 
+  @Override
+  final int getAt(int pos) {
+    return this.indexIntVector.get(pos);
+  }
+
   /**
    * @see org.apache.uima.cas.impl.FSLeafIndexImpl#deleteFS(org.apache.uima.cas.FeatureStructure)
    */
@@ -425,16 +488,5 @@ public class FSIntArrayIndex<T extends FeatureStructure> extends FSLeafIndexImpl
   protected void bulkAddTo(IntVector v) {
     v.addBulk(indexIntVector);
   }
-  
-  @Override
-  public int compare(int fs1, int fs2) {
-    if (isAnnotationIndex) {
-      if (annotationIntComparator == null) {
-        annotationIntComparator = lowLevelCAS.indexRepository.getAnnotationIntComparator();
-      }
-      return annotationIntComparator.compare(fs1, fs2);
-    }
-    return super.compare(fs1, fs2);
-  }
 
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.internal.util.ComparableIntPointerIterator;
+import org.apache.uima.internal.util.IntBlockVector;
+import org.apache.uima.internal.util.IntComparator;
+import org.apache.uima.internal.util.IntPointerIterator;
+import org.apache.uima.internal.util.IntVector;
+
+/**
+ * Used for sorted indexes only, when selected by {@link FSIndexRepositoryImpl#BLOCKED_SORTED_INDEXES}
+ * Uses IntBlockVector (sorted) as the index (of FSs), so an insert or remove in the middle of
+ * a large index moves at most one block, instead of the rest of the index as in FSIntArrayIndex.
+ * @param <T> the Java cover class type for this index, passed along to (wrapped) iterators producing Java cover classes
+ */
+public class FSIntBlockIndex<T extends FeatureStructure> extends FSSortedLeafIndex<T> {
+
+  // The index, a blocked vector of FS references.
+  final private IntBlockVector index = new IntBlockVector();
+
+  FSIntBlockIndex(CASImpl cas, Type type, int indexType, boolean isAnnotationIndex) {
+    super(cas, type, indexType, isAnnotationIndex);
+  }
+
+  IntBlockVector getBlockVector() {
+    return this.index;
+  }
+
+  public void flush() {
+    this.index.removeAllElements();
+  }
+
+  public final boolean insert(int fs) {
+    // First, check if we can insert at the end.
+    if (this.index.size() == 0 || compare(this.index.getLast(), fs) < 0) {
+      this.index.add(fs);
+      return true;
+    }
+
+    final int pos = findEq(fs);
+    if (pos >= 0) {
+      if (!FSIndexRepositoryImpl.IS_ALLOW_DUP_ADD_2_INDEXES) {
+        return false; // was already exactly in the index, but it's not allowed to add duplicates, so skip
+      }
+      this.index.add(pos + 1, fs);
+    } else {
+      this.index.add(-(pos + 1), fs);
+    }
+    return true;
+  }
+
+  final boolean insert(int fs, int count) {
+    if (this.index.size() == 0 || compare(this.index.getLast(), fs) < 0) {
+      this.index.multiAdd(this.index.size(), fs, count);
+      return true;
+    }
+
+    final int pos = findEq(fs);
+    if (pos >= 0) {
+      if (!FSIndexRepositoryImpl.IS_ALLOW_DUP_ADD_2_INDEXES) {
+        return false; // was already exactly in the index, not ok to add dups, so skip
+      }
+      this.index.multiAdd(pos + 1, fs, count);
+    } else {
+      this.index.multiAdd(-(pos + 1), fs, count);
+    }
+    return true;
+  }
+
+  /**
+   * Inserts are O(log n) here, so bulk adds just insert
+   */
+  @Override
+  final boolean appendUnsorted(int fs) {
+    insert(fs);
+    return false;
+  }
+
+  @Override
+  final void sortAppended() {
+  }
+
+  /**
+   * @param fsRef the FS to find
+   * @return index of an arbitrary FS that matches on the compare function or a negative number of insertion point if not found
+   */
+  private final int find(int fsRef) {
+    return this.index.binarySearch(fsRef, this);
+  }
+
+  @Override
+  final int findLeftmost(int fsRef) {
+    int pos = find(fsRef);
+    if (pos < 0) {
+      return pos;
+    }
+    // Go back until we find a FS that is really smaller
+    while (pos > 0 && compare(this.index.get(pos - 1), fsRef) == 0) {
+      pos--;
+    }
+    return pos;
+  }
+
+  @Override
+  final int findEq(int fsRef) {
+    return this.index.binarySearch(fsRef, keysThenAddressComparator);
+  }
+
+  /*
+   * Removes the exact FS, not just one which matches in the sort comparator;
+   * only one of them, if the same FS was indexed more than once.
+   */
+  @Override
+  public boolean remove(int fsRef) {
+    final int pos = findEq(fsRef);
+    if (pos < 0) {
+      return false;  // not in index
+    }
+    this.index.remove(pos);
+    return true;
+  }
+
+  @Override
+  protected void bulkAddTo(IntVector v) {
+    this.index.copyTo(v);
+  }
+
+  /**
+   * The comp value is only used when ordering iterators in type/subtype collections
+   */
+  public ComparableIntPointerIterator<T> pointerIterator(
+      IntComparator comp, int[] detectIllegalIndexUpdates, int typeCode) {
+    return new IntIterator4blocks<T>(this, detectIllegalIndexUpdates, comp);
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#refIterator()
+   */
+  protected IntPointerIterator refIterator() {
+    return new IntIterator4blocks<T>(this, null, null);  // null means no detectIllegalIndexUpdates checking
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.apache.uima.cas.impl.LowLevelIndex#ll_iterator()
+   */
+  public LowLevelIterator ll_iterator() {
+    return new IntIterator4blocks<T>(this, null, null);  // null means no detectIllegalIndexUpdates checking
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#refIterator(int)
+   */
+  protected IntPointerIterator refIterator(int fsAddr) {
+    IntIterator4blocks<T> it = new IntIterator4blocks<T>(this, null, null);
+    it.moveTo(fsAddr);
+    return it;
+  }
+
+  /**
+   * @see org.apache.uima.cas.FSIndex#contains(FeatureStructure)
+   * @param fs the feature structure
+   * @return true if the fs is contained
+   */
+  public boolean contains(FeatureStructure fs) {
+    return (find(((FeatureStructureImpl) fs).getAddress()) >= 0);
+  }
+
+  public FeatureStructure find(FeatureStructure fs) {
+    // Cast to implementation.
+    FeatureStructureImpl fsi = (FeatureStructureImpl) fs;
+    final int fsRef = fsi.getAddress();
+    final int pos = find(fsRef);
+    // If found, create new FS to return.
+    if (pos >= 0) {
+      int foundFsRef = this.index.get(pos);
+      return (fsRef == foundFsRef) ?
+          fs :
+          fsi.getCASImpl().createFS(foundFsRef);
+    }
+    // Not found.
+    return null;
+  }
+
+  /**
+   * @see org.apache.uima.cas.FSIndex#size()
+   */
+  public int size() {
+    return this.index.size();
+  }
+
+  @Override
+  final int getAt(int pos) {
+    return this.index.get(pos);
+  }
+
+  /**
+   * @see org.apache.uima.cas.impl.FSLeafIndexImpl#deleteFS(org.apache.uima.cas.FeatureStructure)
+   */
+  public void deleteFS(FeatureStructure fs) {
+    final int addr = ((FeatureStructureImpl) fs).getAddress();
+    remove(addr);
+  }
+}
@@ -31,7 +31,7 @@ import org.apache.uima.internal.util.ComparableIntPointerIterator;
  * There are 3 styles of indexes, one for Sorted, one for Sets and one for Bag.
  *   There is a separate int iterator for each of these styles:
  *     IntIterator4bag
- *     IntIterator4sorted
+ *     IntIterator4sorted (or IntIterator4blocks, for sorted indexes kept in blocks)
  *     IntArrayRBTIterator
  *     
  *   There are also specialized int iterators:
@@ -106,6 +106,9 @@ public abstract class FSLeafIndexImpl<T extends FeatureStructure> implements Com
     case 3:
       kind = "Default Bag";
       break;
+    case 4:
+      kind = "Hash";
+      break;
     default:
       kind = "Invalid";
     }
@@ -401,6 +404,140 @@ public abstract class FSLeafIndexImpl<T extends FeatureStructure> implements Com
     return 0;
   }
 
+  /**
+   * A hash code over the key values of a FS, consistent with compare: FSs which compare equal
+   * have the same hash code.
+   * @param fs the FS
+   * @return the hash code of its keys
+   */
+  int keyHash(int fs) {
+    final int[] heap = this.lowLevelCAS.getHeap().heap;
+    int h = 0;
+    for (int i = 0; i < this.numKeys; i++) {
+      final int val = heap[fs + this.keyOffset[i]];
+      final int v;
+      switch (this.keyType[i]) {
+        case STRING_CODE: {
+          final String s = this.lowLevelCAS.getStringForCode(val);
+          v = (s == null) ? 0 : s.hashCode();
+          break;
+        }
+        case FLOAT_CODE: {
+          // + 0.0f makes -0.0f, which compares equal to 0.0f, into 0.0f
+          v = Float.floatToIntBits(CASImpl.int2float(val) + 0.0f);
+          break;
+        }
+        case LONG_CODE: {
+          final long l = this.lowLevelCAS.getLongHeap().getHeapValue(val);
+          v = (int) (l ^ (l >>> 32));
+          break;
+        }
+        case DOUBLE_CODE: {
+          final long l = Double.doubleToLongBits(
+              Double.longBitsToDouble(this.lowLevelCAS.getLongHeap().getHeapValue(val)) + 0.0d);
+          v = (int) (l ^ (l >>> 32));
+          break;
+        }
+        default: { // int, boolean, byte, short values, and type codes for type order keys
+          v = val;
+        }
+      }
+      h = 31 * h + v;
+    }
+    return h;
+  }
+
+  /**
+   * @return true if the first key of the index is a feature (and not the type order)
+   */
+  boolean isFirstKeyFeature() {
+    return (this.numKeys > 0) && (this.keyType[0] != TYPE_ORDER_CODE);
+  }
+
+  /**
+   * Checks the class of a value compared with the first key of the index by compareFirstKey.
+   * Must only be called if isFirstKeyFeature() is true.
+   * @param value the value
+   * @return true for a String or null for a String key, a Boolean for a Boolean key, a Number for other keys
+   */
+  boolean isFirstKeyValue(Object value) {
+    switch (this.keyType[0]) {
+      case STRING_CODE:
+        return (value == null) || (value instanceof String);
+      case BOOLEAN_CODE:
+        return value instanceof Boolean;
+      default:
+        return value instanceof Number;
+    }
+  }
+
+  /**
+   * Compares the value of the first key of a FS with some value, in the order of the index
+   * (that is, reversed for a key with the reverse comparator). Must only be called if
+   * isFirstKeyFeature() is true, with a value for which isFirstKeyValue is true.
+   * @param fs the FS
+   * @param value a String for a String key (or null), a Boolean for a Boolean key, a Number for other keys
+   * @return &lt; 0, 0 or &gt; 0 if the FS goes before, with, or after FSs with the value
+   */
+  int compareFirstKey(int fs, Object value) {
+    final int val = this.lowLevelCAS.getHeap().heap[fs + this.keyOffset[0]];
+    int c;
+    switch (this.keyType[0]) {
+      case STRING_CODE: {
+        final String s = this.lowLevelCAS.getStringForCode(val);
+        if (s == null) {
+          c = (value == null) ? 0 : -1;
+        } else {
+          c = (value == null) ? 1 : s.compareTo((String) value);
+        }
+        break;
+      }
+      case BOOLEAN_CODE: {
+        c = Integer.compare(val, ((Boolean) value) ? 1 : 0);
+        break;
+      }
+      case FLOAT_CODE: {
+        c = compareNumbers(CASImpl.int2float(val), ((Number) value).doubleValue());
+        break;
+      }
+      case LONG_CODE: {
+        final long v = this.lowLevelCAS.getLongHeap().getHeapValue(val);
+        c = isWholeNumber(value) ? Long.compare(v, ((Number) value).longValue())
+                                 : compareNumbers(v, ((Number) value).doubleValue());
+        break;
+      }
+      case DOUBLE_CODE: {
+        c = compareNumbers(Double.longBitsToDouble(this.lowLevelCAS.getLongHeap().getHeapValue(val)),
+            ((Number) value).doubleValue());
+        break;
+      }
+      default: { // int, byte, short
+        c = isWholeNumber(value) ? Long.compare(val, ((Number) value).longValue())
+                                 : compareNumbers(val, ((Number) value).doubleValue());
+      }
+    }
+    return (this.keyComp[0] == FSIndexComparator.STANDARD_COMPARE) ? c : -c;
+  }
+
+  // whole numbers are compared as longs: a double can't hold all long values
+  private static boolean isWholeNumber(Object value) {
+    return (value instanceof Long) || (value instanceof Integer) || 
+           (value instanceof Short) || (value instanceof Byte);
+  }
+
+  // compares like compare(int, int) does, with &lt; and &gt;
+  private static int compareNumbers(double v1, double v2) {
+    return (v1 < v2) ? -1 : ((v1 > v2) ? 1 : 0);
+  }
+
+  /**
+   * For set and hash indexes: is there a FS in the index which is equal to this one;
+   * for bag and sorted indexes: is this FS in the index
+   * @param fsAddr the FS
+   * @return true if such a FS is in the index
+   */
+  abstract boolean ll_contains(int fsAddr);
+
   // Eclipse says this method is never called by uimaj-core methods 9-2009
 //  public final boolean equals(Object o) {
 //    if (this == o) {
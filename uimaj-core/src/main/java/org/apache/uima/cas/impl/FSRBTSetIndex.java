@@ -64,7 +64,11 @@ public class FSRBTSetIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T
   }
 
   public void flush() {
-    this.tree.flush();
+    if (this.lowLevelCAS.isLightweightReset()) {
+      this.tree.flushKeepingCapacity();
+    } else {
+      this.tree.flush();
+    }
 //    this.tree = new CompIntArrayRBT(this);  // not this way - iterators are holding on to references to the old tree...
   }
 
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.internal.util.IntComparator;
+
+/**
+ * The common part of the sorted index implementations:
+ *   FSIntArrayIndex - FSs kept in one sorted int array
+ *   FSIntBlockIndex - FSs kept in sorted blocks, for large indexes with many inserts and removes
+ *
+ * Both are ordered by the index keys, and then by FS address.
+ *
+ * @param <T> the Java cover class type for this index, passed along to (wrapped) iterators producing Java cover classes
+ */
+public abstract class FSSortedLeafIndex<T extends FeatureStructure> extends FSLeafIndexImpl<T> {
+
+  final private boolean isAnnotationIndex;
+
+  private IntComparator annotationIntComparator = null; // lazy init because index repo not set up initially
+
+  /**
+   * The order of the index: by the keys, then by FS address, as maintained by insert
+   */
+  final IntComparator keysThenAddressComparator = new IntComparator() {
+    @Override
+    public int compare(int fs1, int fs2) {
+      final int c = FSSortedLeafIndex.this.compare(fs1, fs2);
+      return (c != 0) ? c : Integer.compare(fs1, fs2);
+    }
+  };
+
+  protected FSSortedLeafIndex(CASImpl cas, Type type, int indexType, boolean isAnnotationIndex) {
+    super(cas, type, indexType);
+    this.isAnnotationIndex = isAnnotationIndex;
+  }
+
+  /**
+   * @param fsRef the FS to find, by the index keys
+   * @return the position of the left-most FS that matches fsRef on the compare function or a negative number of insertion point if not found
+   */
+  abstract int findLeftmost(int fsRef);
+
+  /**
+   * @param fsRef the FS to find
+   * @return position of Exact FS spot or neg of an insert spot (if no == match)
+   */
+  abstract int findEq(int fsRef);
+
+  /**
+   * Bulk adds: adds the FS, perhaps without keeping the index sorted.
+   * {@link #sortAppended()} must be called before the index is used for anything else.
+   *
+   * @param fs the FS to add
+   * @return true if this was the first FS appended since the index was last sorted
+   */
+  abstract boolean appendUnsorted(int fs);
+
+  /**
+   * Sorts the FSs added by {@link #appendUnsorted(int)} into the index
+   */
+  abstract void sortAppended();
+
+  /**
+   * @param pos a position in the index, from 0 to size() - 1
+   * @return the FS at that position
+   */
+  abstract int getAt(int pos);
+
+  /**
+   * @param value a value of the first key of the index, see FSLeafIndexImpl.compareFirstKey
+   * @param isAfter true to skip the FSs with the value
+   * @return the position of the first FS that goes after FSs with the value (if isAfter) or
+   *         with or after them (if not), or size() if none
+   */
+  int findFirstKey(Object value, boolean isAfter) {
+    int lo = 0;
+    int hi = size();
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int c = compareFirstKey(getAt(mid), value);
+      if (c < 0 || (isAfter && c == 0)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  public boolean ll_containsEq(int fsAddr) {
+    return findEq(fsAddr) >= 0;
+  }
+
+  @Override
+  boolean ll_contains(int fsAddr) {
+    return ll_containsEq(fsAddr);
+  }
+
+  @Override
+  public int compare(int fs1, int fs2) {
+    if (isAnnotationIndex) {
+      if (annotationIntComparator == null) {
+        annotationIntComparator = lowLevelCAS.indexRepository.getAnnotationIntComparator();
+      }
+      return annotationIntComparator.compare(fs1, fs2);
+    }
+    return super.compare(fs1, fs2);
+  }
+}
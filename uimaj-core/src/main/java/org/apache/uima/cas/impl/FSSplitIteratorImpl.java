@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import org.apache.uima.cas.FeatureStructure;
+
+/**
+ * Spliterator over a range of positions in a snapshot of an index: an array of FS addresses which
+ * is never modified, so it is shared by all the spliterators split from the first one. Get one with
+ * {@link org.apache.uima.cas.FSIndex#spliterator()}; the streams of an index use it too.
+ * 
+ * <p>
+ * The FS objects are only created by {@link #tryAdvance(Consumer)} and
+ * {@link #forEachRemaining(Consumer)}, so low-level code can go over the FS addresses instead, with
+ * {@link #ll_tryAdvance(IntConsumer)} and {@link #ll_forEachRemaining(IntConsumer)}.
+ * 
+ * @param <T> the type of the FSs
+ */
+public class FSSplitIteratorImpl<T extends FeatureStructure> implements Spliterator<T> {
+
+  private static final int CHARACTERISTICS = ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+
+  private final int[] fss;
+
+  private final CASImpl cas;
+
+  // the next position
+  private int pos;
+
+  // the end of the range, exclusive
+  private final int end;
+
+  /**
+   * @param fss the FS addresses, not modified
+   * @param begin the first position of the range
+   * @param end the end of the range, exclusive
+   * @param cas the CAS holding the FSs
+   */
+  FSSplitIteratorImpl(int[] fss, int begin, int end, CASImpl cas) {
+    this.fss = fss;
+    this.pos = begin;
+    this.end = end;
+    this.cas = cas;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (pos >= end) {
+      return false;
+    }
+    action.accept(cas.<T>createFS(fss[pos++]));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    final int last = end;
+    for (int i = pos; i < last; i++) {
+      action.accept(cas.<T>createFS(fss[i]));
+    }
+    pos = last;
+  }
+
+  /**
+   * Like {@link #tryAdvance(Consumer)}, but without creating the FS object.
+   * 
+   * @param action called with the address of the next FS, if there is one
+   * @return false if there were no more FSs
+   */
+  public boolean ll_tryAdvance(IntConsumer action) {
+    if (pos >= end) {
+      return false;
+    }
+    action.accept(fss[pos++]);
+    return true;
+  }
+
+  /**
+   * Like {@link #forEachRemaining(Consumer)}, but without creating the FS objects.
+   * 
+   * @param action called with the address of each remaining FS
+   */
+  public void ll_forEachRemaining(IntConsumer action) {
+    final int last = end;
+    for (int i = pos; i < last; i++) {
+      action.accept(fss[i]);
+    }
+    pos = last;
+  }
+
+  /**
+   * Split off the first half of the remaining FSs. This spliterator keeps the second half.
+   * 
+   * @return a spliterator over the first half of the FSs remaining in this one, or
+   *         <code>null</code> if fewer than two FSs remain
+   */
+  @Override
+  public FSSplitIteratorImpl<T> trySplit() {
+    final int mid = (pos + end) >>> 1;
+    if (mid == pos) {
+      return null;
+    }
+    final FSSplitIteratorImpl<T> prefix = new FSSplitIteratorImpl<T>(fss, pos, mid, cas);
+    pos = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return end - pos;
+  }
+
+  @Override
+  public int characteristics() {
+    return CHARACTERISTICS;
+  }
+}
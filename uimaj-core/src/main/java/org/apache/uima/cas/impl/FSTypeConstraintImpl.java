@@ -32,7 +32,7 @@ import org.apache.uima.internal.util.SortedIntSet;
 /**
  * An implementation of the type constraint interface.
  */
-class FSTypeConstraintImpl implements FSTypeConstraint {
+class FSTypeConstraintImpl implements FSTypeConstraint, LowLevelMatchConstraint {
 
 	private static final long serialVersionUID = 7557683109761796280L;
 
@@ -43,9 +43,13 @@ class FSTypeConstraintImpl implements FSTypeConstraint {
 	private transient TypeSystem ts;
 
 	public boolean match(FeatureStructure fs) {
-		compile(((FeatureStructureImpl) fs).getCAS().getTypeSystem());
 		final FeatureStructureImpl fsi = (FeatureStructureImpl) fs;
-		final int typeCode = fsi.getCASImpl().getHeapValue(fsi.getAddress());
+		return ll_match(fsi.getCASImpl(), fsi.getAddress());
+	}
+
+	public boolean ll_match(CASImpl cas, int addr) {
+		compile(cas.getTypeSystem());
+		final int typeCode = cas.getHeapValue(addr);
 		TypeSystemImpl tsi = (TypeSystemImpl) this.ts;
 		for (int i = 0; i < typeSet.size(); i++) {
 			if (tsi.subsumes(typeSet.get(i), typeCode)) {
@@ -35,6 +35,8 @@ public class FeatureImpl implements Feature {
 
   private final String name;
 
+  private final String shortName;
+
   private final TypeSystemImpl ts;
 
   private final boolean isMultipleRefsAllowed;
@@ -42,6 +44,7 @@ public class FeatureImpl implements Feature {
   FeatureImpl(int code, String name, TypeSystemImpl ts, boolean isMultipleRefsAllowed) {
     this.code = code;
     this.name = name;
+    this.shortName = name.substring(name.indexOf(TypeSystem.FEATURE_SEPARATOR) + 1);
     this.ts = ts;
     this.isMultipleRefsAllowed = isMultipleRefsAllowed;
   }
@@ -85,8 +88,7 @@ public class FeatureImpl implements Feature {
   }
 
   public String getShortName() {
-    return this.name.substring(this.name.indexOf(TypeSystem.FEATURE_SEPARATOR) + 1, this.name
-            .length());
+    return this.shortName;
   }
 
   /**
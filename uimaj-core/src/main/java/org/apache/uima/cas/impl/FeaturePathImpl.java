@@ -40,6 +40,7 @@ import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeClass;
 import org.apache.uima.cas.impl.TypeSystemUtils.PathValid;
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.internal.util.IntVector;
 
 /**
  * Implementation of the feature path interface.
@@ -78,7 +79,14 @@ class FeaturePathImpl implements FeaturePath {
    private ArrayList<Feature> featurePathElements;
 
    // featurePath low level element features
-   private ArrayList<Integer> ll_featurePathElements;
+   private IntVector ll_featurePathElements;
+
+   // for the paths resolved by name: for each featurePath element, the feature
+   // code plus 1 by type code, 0 for the types not looked up yet
+   private int[][] ll_featureCodesByName;
+
+   // the type system the feature codes resolved by name are for
+   private LowLevelTypeSystem ll_featureCodesTypeSystem;
 
    private Type featurePathBaseType;
 
@@ -118,6 +126,7 @@ class FeaturePathImpl implements FeaturePath {
                + FEATURE_PATH_SEPARATOR + feat.getShortName();
       }
       this.featurePathElements.add(feat);
+      this.ll_featureCodesByName = null;
 
       // if current featurePath was already initialized we cannot guarantee that
       // the path is still ever valid so we have to evaluate the path on the
@@ -172,6 +181,7 @@ class FeaturePathImpl implements FeaturePath {
 
       this.featurePathString = featurePath;
       this.builtInFunction = NO_BUILT_IN_FUNCTION;
+      this.ll_featureCodesByName = null;
 
       // throw exception if featurePath is null
       if (featurePath == null) {
@@ -253,7 +263,7 @@ class FeaturePathImpl implements FeaturePath {
          } else if (PathValid.ALWAYS == pathValid) {
             // the featurePath is always valid, so we can resolve and cache the
             // path elements
-            this.ll_featurePathElements = new ArrayList<Integer>();
+            this.ll_featurePathElements = new IntVector();
             this.featurePathElements = new ArrayList<Feature>(); // reset
             // object
             Type currentType = featurePathType;
@@ -821,6 +831,51 @@ class FeaturePathImpl implements FeaturePath {
       return buffer.toString();
    }
 
+   /**
+    * resolves a featurePath element by name, for a type. The feature codes are
+    * cached by type, so each name is looked up once per type.
+    * 
+    * @param llCas
+    *           LowLevelCAS of the type
+    * @param typeCode
+    *           type to resolve the featurePath element for
+    * @param i
+    *           featurePath element
+    * 
+    * @return Returns the feature code
+    */
+   private int ll_getFeatureCodeByName(LowLevelCAS llCas, int typeCode, int i) {
+      final LowLevelTypeSystem llTypeSystem = llCas.ll_getTypeSystem();
+      int[][] cache = this.ll_featureCodesByName;
+      if ((cache == null) || (this.ll_featureCodesTypeSystem != llTypeSystem)) {
+         cache = new int[this.featurePathElementNames.size()][];
+         this.ll_featureCodesByName = cache;
+         this.ll_featureCodesTypeSystem = llTypeSystem;
+      }
+      int[] codes = cache[i];
+      if (codes == null) {
+         codes = new int[((TypeSystemImpl) llTypeSystem).getLargestTypeCode() + 1];
+         cache[i] = codes;
+      }
+      if (codes[typeCode] == 0) {
+         Type currentType = llTypeSystem.ll_getTypeForCode(typeCode);
+
+         // resolve Feature by name
+         Feature feature = currentType
+               .getFeatureByBaseName(this.featurePathElementNames.get(i));
+         // if feature is null the feature was not defined
+         if (feature == null) {
+            throw new CASRuntimeException(MESSAGE_DIGEST,
+                  "INVALID_FEATURE_PATH_FEATURE_NOT_DEFINED",
+                  new Object[] { this.featurePathString,
+                        currentType.getName(),
+                        this.featurePathElementNames.get(i) });
+         }
+         codes[typeCode] = llTypeSystem.ll_getCodeForFeature(feature) + 1;
+      }
+      return codes[typeCode] - 1;
+   }
+
    /**
     * evaluates the internal feature path for the given FeatureStructure data.
     * It returns the FeaturePathValue object that contains the value of the
@@ -864,6 +919,14 @@ class FeaturePathImpl implements FeaturePath {
          int currentFeatureCode = 0;
          int currentRangeTypeCode = 0;
 
+         // check current FS type for FeaturePath base type
+         final int fsRefTypeCode = llCas.ll_getFSRefType(fsRef, true);
+         boolean isInitSubType = false;
+         if (this.featurePathBaseTypeCode > 0) {
+            isInitSubType = llCas.ll_getTypeSystem().ll_subsumes(
+                  this.featurePathBaseTypeCode, fsRefTypeCode);
+         }
+
          // resolve feature path value
          for (int i = 0; i < this.featurePathElementNames.size(); i++) {
             // if we had in the last iteration a primitive feature or a FS that
@@ -883,14 +946,6 @@ class FeaturePathImpl implements FeaturePath {
                               this.featurePathElementNames.get(i - 1) });
                }
             }
-            boolean isInitSubType = false;
-
-            // check current FS type for FeaturePath base type
-            if (this.featurePathBaseTypeCode > 0) {
-               isInitSubType = llCas.ll_getTypeSystem()
-                     .ll_subsumes(this.featurePathBaseTypeCode,
-                           llCas.ll_getFSRefType(fsRef, true));
-            }
             // get the Feature for the current featurePath element. If the
             // featurePath is always valid the featurePath Feature elements are
             // cached, otherwise the feature names must be resolved by name
@@ -898,26 +953,7 @@ class FeaturePathImpl implements FeaturePath {
                // use cached Feature element
                currentFeatureCode = this.ll_featurePathElements.get(i);
             } else {
-               // get current Type from feature type code
-               int fsRefTypeCode = llCas.ll_getFSRefType(fsRef, true);
-               Type currentType = llCas.ll_getTypeSystem().ll_getTypeForCode(
-                     fsRefTypeCode);
-
-               // resolve Feature by name
-               Feature feature = currentType
-                     .getFeatureByBaseName(this.featurePathElementNames.get(i));
-               // if feature is null the feature was not defined
-               if (feature == null) {
-                  throw new CASRuntimeException(MESSAGE_DIGEST,
-                        "INVALID_FEATURE_PATH_FEATURE_NOT_DEFINED",
-                        new Object[] { this.featurePathString,
-                              currentType.getName(),
-                              this.featurePathElementNames.get(i) });
-               }
-               // get feature code
-               currentFeatureCode = llCas.ll_getTypeSystem()
-                     .ll_getCodeForFeature(feature);
-
+               currentFeatureCode = ll_getFeatureCodeByName(llCas, fsRefTypeCode, i);
             }
 
             // switch feature type class
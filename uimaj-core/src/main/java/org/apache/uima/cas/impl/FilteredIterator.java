@@ -26,6 +26,7 @@ import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.FSMatchConstraint;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.internal.util.IntPointerIterator;
 
 /**
  * Implements a filtered iterator.
@@ -38,6 +39,15 @@ class FilteredIterator<T extends FeatureStructure> extends FSIteratorImplBase<T>
   // The filter constraint.
   private FSMatchConstraint cons;
 
+  // If the base iterator is over FS addresses and the constraint is a low-level one, the base int
+  // iterator, its CAS and the constraint: the FSs of the base iterator are then matched on their
+  // addresses, without creating the FSs skipped.
+  private IntPointerIterator llIt;
+
+  private CASImpl cas;
+
+  private LowLevelMatchConstraint llCons;
+
   // Private...
   private FilteredIterator() {
     super();
@@ -50,6 +60,11 @@ class FilteredIterator<T extends FeatureStructure> extends FSIteratorImplBase<T>
     this();
     this.it = it;
     this.cons = cons;
+    if ((it instanceof FSIteratorWrapper) && (cons instanceof LowLevelMatchConstraint)) {
+      this.llIt = ((FSIteratorWrapper<T>) it).it;
+      this.cas = ((FSIteratorWrapper<T>) it).casImpl;
+      this.llCons = (LowLevelMatchConstraint) cons;
+    }
     moveToFirst();
   }
 
@@ -62,6 +77,12 @@ class FilteredIterator<T extends FeatureStructure> extends FSIteratorImplBase<T>
   }
   
   private void adjustForConstraintForward() {
+    if (this.llCons != null) {
+      while (this.llIt.isValid() && !this.llCons.ll_match(this.cas, this.llIt.get())) {
+        this.llIt.inc();
+      }
+      return;
+    }
     // If the iterator is valid, but doesn't match the constraint, advance.
     while (this.it.isValid() && !this.cons.match(this.it.get())) {
       this.it.moveToNext();
@@ -69,6 +90,12 @@ class FilteredIterator<T extends FeatureStructure> extends FSIteratorImplBase<T>
   }
   
   private void adjustForConstraintBackward() {
+    if (this.llCons != null) {
+      while (this.llIt.isValid() && !this.llCons.ll_match(this.cas, this.llIt.get())) {
+        this.llIt.dec();
+      }
+      return;
+    }
     // If the iterator is valid, but doesn't match the constraint, advance.
     while (this.it.isValid() && !this.cons.match(this.it.get())) {
       this.it.moveToPrevious();
@@ -72,6 +72,7 @@ public class FloatArrayFSImpl extends CommonArrayFSImpl implements FloatArrayFS
    * @see org.apache.uima.cas.FloatArrayFS#copyFromArray(float[], int, int, int)
    */
   public void copyFromArray(float[] src, int srcOffset, int destOffset, int length) {
+    casImpl.checkNotFrozen();
     casImpl.checkArrayBounds(addr, destOffset, length);
     final int[] heap = this.casImpl.getHeap().heap;
     destOffset += this.casImpl.getArrayStartAddress(this.addr);
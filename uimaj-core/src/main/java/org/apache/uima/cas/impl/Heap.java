@@ -66,6 +66,10 @@ public final class Heap {
   
   private final int[] shrinkableCount = new int[1];
 
+  // Size above which the heap grows by adding this many cells rather than doubling.
+  // See CASImpl.setHeapGrowthLimit
+  private int multiplicationLimit = MULTIPLICATION_LIMIT;
+
   // Serialization constants. There are holes in the numbering for historical
   // reasons. Keep the holes for compatibility.
   private static final int SIZE_POS = 0;
@@ -195,13 +199,37 @@ public final class Heap {
     return ar;
   }
 
-  // Grow the heap.
-  private void grow() {
-    final int start = this.heap.length;
-    // This will grow the heap by doubling its size if it's smaller than
-    // MULTIPLICATION_LIMIT, and by MULTIPLICATION_LIMIT if it's larger.
-    this.heap = IntArrayUtils.ensure_size(this.heap, start + this.initialSize, 2, MULTIPLICATION_LIMIT);
-    this.max = this.heap.length;
+  /**
+   * Make sure there is room for at least <code>len</code> more cells beyond the next free
+   * position, growing the heap at most once.
+   * 
+   * Growing copies the whole heap, so when the final size is known in advance (e.g., when
+   * deserializing) it is much cheaper to reserve the space up front than to let the heap
+   * double its way there one copy at a time.
+   * 
+   * @param len the number of additional cells needed
+   */
+  void ensureCapacity(int len) {
+    if ((this.pos + len) >= this.max) {
+      // This will grow the heap by doubling its size if it's smaller than
+      // the multiplication limit, and by that limit if it's larger,
+      // repeating the computation (but not the copy) until the requested space fits.
+      final int req = Math.max(this.pos + len + 1, this.heap.length + this.initialSize);
+      this.heap = IntArrayUtils.ensure_size(this.heap, req, 2, this.multiplicationLimit);
+      this.max = this.heap.length;
+    }
+  }
+
+  /**
+   * @param multiplicationLimit the heap size (in cells) above which the heap grows by 
+   *   this many cells, rather than by doubling; values below {@link #MIN_SIZE} are raised to it.
+   */
+  void setMultiplicationLimit(int multiplicationLimit) {
+    this.multiplicationLimit = Math.max(MIN_SIZE, multiplicationLimit);
+  }
+  
+  int getMultiplicationLimit() {
+    return this.multiplicationLimit;
   }
 
   /**
@@ -235,7 +263,7 @@ public final class Heap {
       final int curSize = getCellsUsed();
       // shrink based on max of prevSize and curSize
       final int newCapacity = CommonAuxHeap.computeShrunkArraySize(
-            curCapacity, curSize, 2, MULTIPLICATION_LIMIT, initialSize, shrinkableCount);
+            curCapacity, curSize, 2, multiplicationLimit, initialSize, shrinkableCount);
       if (newCapacity == curCapacity) {
         Arrays.fill(this.heap, 0, this.pos, 0);
       } else {
@@ -247,6 +275,32 @@ public final class Heap {
     }
   }
 
+  /**
+   * Reset the temporary heap, keeping its capacity; clears only the cells used since the last reset.
+   */
+  void resetKeepingCapacity() {
+    Arrays.fill(this.heap, 0, this.pos, 0);
+    this.pos = 1;
+  }
+
+  /**
+   * Reset the temporary heap to the capacity in its growth sequence which holds the given number 
+   * of cells, and at least its initial size; see {@link CasHeapSizingPolicy}
+   * @param size the number of cells to hold
+   */
+  void resetToSize(int size) {
+    final int newCapacity = CommonAuxHeap.computeGrownArraySize(size, 2, multiplicationLimit, initialSize);
+    if (newCapacity == getHeapSize()) {
+      Arrays.fill(this.heap, 0, this.pos, 0);
+    } else {
+      if (debugLogShrink) System.out.format("Debug resize Heap from %,d to %,d%n",
+          getHeapSize(), newCapacity);
+      this.initHeap(newCapacity);
+    }
+    this.shrinkableCount[0] = 0;
+    this.pos = 1;
+  }
+
   /**
    * Add a structure to the heap.
    * 
@@ -256,9 +310,7 @@ public final class Heap {
    *         first element of the structure.
    */
   public int add(int[] fs) {
-    while ((this.pos + fs.length) >= this.max) {
-      grow();
-    }
+    ensureCapacity(fs.length);
     System.arraycopy(fs, 0, this.heap, this.pos, fs.length);
     final int pos1 = this.pos;
     this.pos += fs.length;
@@ -277,9 +329,7 @@ public final class Heap {
    *         first element of the structure.
    */
   public int add(int len, int val) {
-    while ((this.pos + len) >= this.max) {
-      grow();
-    }
+    ensureCapacity(len);
     final int pos1 = this.pos;
     this.pos += len;
     this.heap[pos1] = val;
@@ -291,9 +341,7 @@ public final class Heap {
   }
   
   public void grow(int len) {
-  	while ((this.pos + len) >= this.max) {
-  	  grow();
-  	}
+    ensureCapacity(len);
     this.pos += len;
   }
 
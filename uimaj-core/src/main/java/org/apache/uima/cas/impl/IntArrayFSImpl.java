@@ -72,6 +72,7 @@ public class IntArrayFSImpl extends CommonArrayFSImpl implements IntArrayFS {
    * @see org.apache.uima.cas.IntArrayFS#copyFromArray(int[], int, int, int)
    */
   public void copyFromArray(int[] src, int srcOffset, int destOffset, int length) {
+    casImpl.checkNotFrozen();
     casImpl.checkArrayBounds(addr, destOffset, length);
     destOffset += this.casImpl.getArrayStartAddress(this.addr);
     System.arraycopy(src, srcOffset, this.casImpl.getHeap().heap, destOffset, length);
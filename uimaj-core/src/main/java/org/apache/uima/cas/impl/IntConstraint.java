@@ -21,10 +21,9 @@ package org.apache.uima.cas.impl;
 
 import java.util.ArrayList;
 
+import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIntConstraint;
 import org.apache.uima.cas.FSMatchConstraint;
-import org.apache.uima.cas.Feature;
-import org.apache.uima.cas.FeatureStructure;
 
 /**
  * Implement an embedded int constraint.
@@ -43,28 +42,16 @@ class IntConstraint extends PathConstraint implements FSMatchConstraint {
     this.intConstraint = cons;
   }
 
-  public boolean match(FeatureStructure fs) {
-    // compile(((FeatureStructureImpl) fs).getCAS().getTypeSystem());
-    final int max = this.featNames.size() - 1; // The last position in the
-    // path!
-    if (max < 0) {
-      // If the path is empty, we can't get an int, and therefore the
-      // constraint is not satisfied.
-      return false;
-    }
-    Feature feat;
-    for (int i = 0; i < max; i++) {
-      feat = fs.getType().getFeatureByBaseName(this.featNames.get(i));
-      if (feat == null) {
-        return false;
-      }
-      fs = fs.getFeatureValue(feat);
-    }
-    feat = fs.getType().getFeatureByBaseName(this.featNames.get(max));
-    if (feat == null) {
+  String getValueTypeName() {
+    return CAS.TYPE_NAME_INTEGER;
+  }
+
+  public boolean ll_match(CASImpl cas, int addr) {
+    final int fs = ll_followPathToLastFeature(cas, addr);
+    if (fs == NO_FS) {
       return false;
     }
-    return this.intConstraint.match(fs.getIntValue(feat));
+    return this.intConstraint.match(cas.ll_getIntValue(fs, ll_getFeatureCode(cas, fs, this.featNames.size() - 1)));
   }
 
   public String toString() {
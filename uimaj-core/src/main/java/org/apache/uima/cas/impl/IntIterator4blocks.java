@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.NoSuchElementException;
+
+import org.apache.uima.UIMARuntimeException;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.internal.util.IntBlockVector;
+import org.apache.uima.internal.util.IntComparator;
+
+/**
+ * The iterator for FSIntBlockIndex.
+ *
+ * Like IntIterator4sorted, it is positional; it also keeps the block and offset of the position,
+ * so moving to the next or previous element doesn't need to search the blocks.  The block and offset
+ * are found again from the position after the index is changed.
+ */
+class IntIterator4blocks<T extends FeatureStructure> extends FSIntIteratorImplBase<T> {
+
+  private int itPos;
+
+  // the block and offset in the block of itPos, or -1 if not yet found
+  private int block = -1;
+
+  private int offset;
+
+  // the index's modification count when block and offset were found
+  private int blockModificationCount;
+
+  final private IntComparator comp;
+
+  final private IntBlockVector blockVector;
+  final private FSIntBlockIndex<T> fsIntBlockIndex;  // just an optimization, is == to fsLeafIndexImpl from super class
+
+  IntIterator4blocks(FSIntBlockIndex<T> index, int[] detectIllegalIndexUpdates, IntComparator comp) {
+    super(index, detectIllegalIndexUpdates);
+    this.fsIntBlockIndex = index;
+    this.blockVector = index.getBlockVector();
+    this.comp = comp;
+    this.itPos = 0;
+  }
+
+  @Override
+  public boolean isValid() {
+    return ((this.itPos >= 0) && (this.itPos < this.blockVector.size()));
+  }
+
+  @Override
+  public void moveToFirst() {
+    resetConcurrentModification();
+    setPos(0);
+  }
+
+  @Override
+  public void moveToLast() {
+    resetConcurrentModification();
+    setPos(this.blockVector.size() - 1);
+  }
+
+  @Override
+  public void moveToNext() {
+    if (itPos < 0) {
+      return;
+    }
+    checkConcurrentModification();
+    ++this.itPos;
+    if (block >= 0 && blockModificationCount == blockVector.getModificationCount()) {
+      if (++offset == blockVector.blockSize(block)) {
+        if (++block == blockVector.nbrBlocks()) {
+          block = -1;  // past the end
+        }
+        offset = 0;
+      }
+    } else {
+      block = -1;
+    }
+  }
+
+  @Override
+  public void moveToPrevious() {
+    if (itPos >= this.blockVector.size()) {
+      return;
+    }
+    checkConcurrentModification();
+    --this.itPos;
+    if (block >= 0 && blockModificationCount == blockVector.getModificationCount()) {
+      if (--offset < 0) {
+        if (--block >= 0) {
+          offset = blockVector.blockSize(block) - 1;
+        }  // else before the start, block is -1
+      }
+    } else {
+      block = -1;
+    }
+  }
+
+  @Override
+  public int get() {
+    if (!isValid()) {
+      throw new NoSuchElementException();
+    }
+    checkConcurrentModification();
+    if (block < 0 || blockModificationCount != blockVector.getModificationCount()) {
+      block = blockVector.findBlock(itPos);
+      offset = itPos - blockVector.blockStart(block);
+      blockModificationCount = blockVector.getModificationCount();
+    }
+    return blockVector.getBlock(block)[offset];
+  }
+
+  private void setPos(int pos) {
+    itPos = pos;
+    block = -1;
+  }
+
+  /**
+   * @see org.apache.uima.internal.util.IntPointerIterator#copy()
+   */
+  @Override
+  public Object copy() {
+    IntIterator4blocks<T> copy = new IntIterator4blocks<T>(this.fsIntBlockIndex, this.detectIllegalIndexUpdates, this.comp);
+    copy.itPos = this.itPos;
+    copy.block = this.block;
+    copy.offset = this.offset;
+    copy.blockModificationCount = this.blockModificationCount;
+    return copy;
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.cas.impl.FSIntIteratorImplBase#compareTo(org.apache.uima.cas.impl.FSIntIteratorImplBase)
+   */
+  @Override
+  public int compareTo(FSIntIteratorImplBase<T> o) {
+    return this.comp.compare(get(), o.get());
+  }
+
+  /**
+   * @see org.apache.uima.internal.util.IntPointerIterator#moveTo(int)
+   */
+  @Override
+  public void moveTo(int i) {
+    moveTo(i, false);
+  }
+
+  void moveTo(int i, boolean isExact) {
+    resetConcurrentModification();
+    final int pos = isExact ? fsIntBlockIndex.findEq(i) : fsIntBlockIndex.findLeftmost(i);
+    if (pos >= 0) {
+      setPos(pos);
+    } else {
+      if (isExact) {
+        throw new UIMARuntimeException(); // internal error
+      }
+      setPos(-(pos + 1));
+    }
+  }
+
+  @Override
+  public int ll_indexSize() {
+    return blockVector.size();
+  }
+
+}
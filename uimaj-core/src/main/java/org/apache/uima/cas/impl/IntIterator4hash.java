@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.NoSuchElementException;
+
+import org.apache.uima.cas.FeatureStructure;
+
+/**
+ * Iterator over a hash index, in no particular order.
+ * moveTo goes to the FS with the same keys, or makes the iterator invalid if there is none.
+ */
+class IntIterator4hash<T extends FeatureStructure> extends FSIntIteratorImplBase<T> {
+
+  private int itPos;
+
+  final private FSHashSetIndex<T> fsHashIndex; // just an optimization, is == to fsLeafIndexImpl from super class, allows dispatch w/o casting
+
+  IntIterator4hash(FSHashSetIndex<T> fsHashIndex, int[] detectIllegalIndexUpdates) {
+    super(fsHashIndex, detectIllegalIndexUpdates);
+    this.fsHashIndex = fsHashIndex;
+    moveToFirst();
+  }
+
+  @Override
+  public boolean isValid() {
+    return (this.itPos >= 0) && (this.itPos < fsHashIndex.size());
+  }
+
+  /**
+   * If empty, make position -1 (invalid)
+   */
+  @Override
+  public void moveToFirst() {
+    resetConcurrentModification();
+    this.itPos = (fsHashIndex.size() == 0) ? -1 : 0;
+  }
+
+  /**
+   * If empty, make position -1 (invalid)
+   */
+  @Override
+  public void moveToLast() {
+    resetConcurrentModification();
+    this.itPos = fsHashIndex.size() - 1;
+  }
+
+  @Override
+  public void moveToNext() {
+    checkConcurrentModification();
+    if (isValid()) {
+      this.itPos++;
+    }
+  }
+
+  @Override
+  public void moveToPrevious() {
+    checkConcurrentModification();
+    if (isValid()) {
+      this.itPos--;
+    }
+  }
+
+  @Override
+  public int get() {
+    if (!isValid()) {
+      throw new NoSuchElementException();
+    }
+    checkConcurrentModification();
+    return fsHashIndex.get(itPos);
+  }
+
+  /**
+   * @see org.apache.uima.internal.util.IntPointerIterator#copy()
+   */
+  @Override
+  public Object copy() {
+    IntIterator4hash<T> copy = new IntIterator4hash<T>(this.fsHashIndex, this.detectIllegalIndexUpdates);
+    copy.itPos = this.itPos;
+    return copy;
+  }
+
+  /**
+   * @see org.apache.uima.internal.util.IntPointerIterator#moveTo(int)
+   */
+  @Override
+  public void moveTo(int i) {
+    resetConcurrentModification();
+    this.itPos = fsHashIndex.findPosition(i);
+  }
+
+  @Override
+  public int ll_indexSize() {
+    return fsHashIndex.size();
+  }
+
+}
@@ -111,7 +111,7 @@ class IntIterator4sorted<T extends FeatureStructure> extends FSIntIteratorImplBa
    */
   @Override
   public int compareTo(FSIntIteratorImplBase<T> o) {
-    return this.comp.compare(get(), ((IntIterator4sorted<T>) o).get());
+    return this.comp.compare(get(), o.get());
   }
 
   /**
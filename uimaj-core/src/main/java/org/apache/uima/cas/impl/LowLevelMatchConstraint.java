@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import org.apache.uima.cas.FSMatchConstraint;
+
+/**
+ * A match constraint that can be evaluated on the address of an FS, reading feature values with
+ * the low-level CAS, without creating FS objects for the FS or the FSs along its paths.
+ * Implemented by the constraints of the constraint factory; filtered iterators use it to test
+ * the FSs of their base iterator. See ConstraintFactoryImpl.ll_match for matching constraints
+ * that may not be low-level ones.
+ */
+interface LowLevelMatchConstraint extends FSMatchConstraint {
+
+  /**
+   * @param cas the CAS holding the FS
+   * @param addr the address of the FS, or 0 for null
+   * @return true if the FS matches the constraint
+   */
+  boolean ll_match(CASImpl cas, int addr);
+}
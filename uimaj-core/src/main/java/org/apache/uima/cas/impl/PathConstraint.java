@@ -21,15 +21,34 @@ package org.apache.uima.cas.impl;
 
 import java.util.ArrayList;
 
-import org.apache.uima.cas.FSMatchConstraint;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASRuntimeException;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
 
 /**
- * Implements a constraint embedded under a path. Optimize later.
+ * Implements a constraint embedded under a path.
+ * 
+ * The features of the path are looked up by name for the type of the FS at each position of the
+ * path, as the types met may differ from FS to FS. The feature codes found are cached by type
+ * code for each position, so the names are looked up once per type, and matching follows the
+ * path on FS addresses with the low-level CAS, without creating FSs. The ranges of the features
+ * are checked when they are looked up, so the values are read with the unchecked accessors.
  */
-abstract class PathConstraint implements FSMatchConstraint {
+abstract class PathConstraint implements LowLevelMatchConstraint {
+
+  // Returned by ll_followPath if the path cannot be followed.
+  static final int NO_FS = -1;
 
   protected ArrayList<String> featNames;
 
+  // The type system the cached feature codes are for.
+  private transient TypeSystemImpl ts;
+
+  // For each position of the path, the feature code plus 1 by type code, 0 for the types not
+  // looked up yet; the feature code is 0 if the type has no feature of that name.
+  private transient int[][] featCodes;
+
   protected PathConstraint() {
     super();
   }
@@ -39,6 +58,112 @@ abstract class PathConstraint implements FSMatchConstraint {
     this.featNames = featNames;
   }
 
+  /**
+   * @return the name of the type of the value read with the last feature of the path, or null if
+   *         the last feature is followed to an FS
+   */
+  abstract String getValueTypeName();
+
+  public boolean match(FeatureStructure fs) {
+    final FeatureStructureImpl fsi = (FeatureStructureImpl) fs;
+    return ll_match(fsi.getCASImpl(), fsi.getAddress());
+  }
+
+  /**
+   * @param cas the CAS holding the FS
+   * @param addr the address of an FS, not null
+   * @param i a position in the path
+   * @return the code of the feature of the path at position i, for the type of the FS, or 0 if
+   *         the type has no feature of that name
+   * @throws CASRuntimeException if the range of the feature is not one the constraint can read,
+   *         as for the FeatureStructure accessors
+   */
+  final int ll_getFeatureCode(CASImpl cas, int addr, int i) {
+    final TypeSystemImpl tsi = cas.getTypeSystemImpl();
+    int[][] cache = this.featCodes;
+    if (cache == null || this.ts != tsi) {
+      cache = new int[this.featNames.size()][];
+      this.featCodes = cache;
+      this.ts = tsi;
+    }
+    int[] codes = cache[i];
+    if (codes == null) {
+      codes = new int[tsi.getLargestTypeCode() + 1];
+      cache[i] = codes;
+    }
+    final int typeCode = cas.ll_getFSRefType(addr);
+    int code = codes[typeCode];
+    if (code == 0) {
+      final Feature feat = tsi.ll_getTypeForCode(typeCode).getFeatureByBaseName(this.featNames.get(i));
+      if (feat != null) {
+        checkRange(tsi, feat, i);
+      }
+      code = ((feat == null) ? 0 : ((FeatureImpl) feat).getCode()) + 1;
+      codes[typeCode] = code;
+    }
+    return code - 1;
+  }
+
+  // throws the exceptions the FeatureStructure accessors throw for a feature of the wrong range
+  private void checkRange(TypeSystemImpl tsi, Feature feat, int i) {
+    final String valueTypeName = (i == this.featNames.size() - 1) ? getValueTypeName() : null;
+    final int rangeTypeCode = ((TypeImpl) feat.getRange()).getCode();
+    if (valueTypeName == null) {
+      if (!tsi.ll_isRefType(rangeTypeCode)) {
+        throw new CASRuntimeException(CASRuntimeException.PRIMITIVE_VAL_FEAT, 
+            new String[] { feat.getName() });
+      }
+      return;
+    }
+    final int valueTypeCode = ((TypeImpl) tsi.getType(valueTypeName)).getCode();
+    // the values of String subtypes are Strings
+    if (CAS.TYPE_NAME_STRING.equals(valueTypeName) ? !tsi.subsumes(valueTypeCode, rangeTypeCode)
+                                                   : !tsi.subsumes(rangeTypeCode, valueTypeCode)) {
+      throw new CASRuntimeException(CASRuntimeException.INAPPROP_RANGE, 
+          new String[] { feat.getName(), valueTypeName, feat.getRange().getName() });
+    }
+  }
+
+  /**
+   * Follows the first features of the path.
+   * 
+   * @param cas the CAS holding the FS
+   * @param addr the address of an FS, not null
+   * @param steps the number of features of the path to follow
+   * @return the address of the FS reached, 0 if the value of the last feature followed is null, or
+   *         NO_FS if an FS on the way is null or does not have the feature
+   */
+  final int ll_followPath(CASImpl cas, int addr, int steps) {
+    for (int i = 0; i < steps; i++) {
+      if (addr == CASImpl.NULL) {
+        return NO_FS;
+      }
+      final int featCode = ll_getFeatureCode(cas, addr, i);
+      if (featCode == 0) {
+        return NO_FS;
+      }
+      addr = cas.ll_getRefValue(addr, featCode);
+    }
+    return addr;
+  }
+
+  /**
+   * Follows the path to its last feature.
+   * 
+   * @param cas the CAS holding the FS
+   * @param addr the address of an FS, not null
+   * @return the address of the FS having the last feature of the path, or NO_FS if the path is
+   *         empty, an FS on the way is null, or the FS reached does not have the last feature
+   */
+  final int ll_followPathToLastFeature(CASImpl cas, int addr) {
+    final int last = this.featNames.size() - 1;
+    if (last < 0) {
+      return NO_FS;
+    }
+    addr = ll_followPath(cas, addr, last);
+    return (addr == NO_FS || addr == CASImpl.NULL || ll_getFeatureCode(cas, addr, last) == 0) ? NO_FS : addr;
+  }
+
   public String toString() {
     if (this.featNames == null) {
       return "";
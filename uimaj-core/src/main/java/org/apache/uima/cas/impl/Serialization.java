@@ -203,6 +203,28 @@ public class Serialization {
   	ser.addCAS((CASImpl) cas, ostream, mark);
   }
 
+  /**
+   * Serializes the CAS data added or modified since the tracking Marker was created or last
+   * advanced, in Delta CAS format using uncompressed binary format, and then advances the marker
+   * to the end of the CAS (see {@link CASImpl#advanceMarker()}).  Repeated calls send a stream
+   * of chained deltas, each with only the changes since the previous call, for instance while
+   * annotations of a long document keep being added.
+   * <p>
+   * The receiver starts from the CAS as it was when the marker was created (e.g., sent with
+   * {@link #serializeCAS(CAS, OutputStream)}), and applies each delta, in order, with
+   * {@link #deserializeCAS(CAS, InputStream)}.  Delta formats which send only the reachable FSs
+   * (form 6, XMI) can't be chained this way, because FSs not sent with one delta may be
+   * referred to by a later one.
+   * 
+   * @param cas the CAS to serialize
+   * @param ostream the output stream
+   * @param mark the cas mark, created with {@link CAS#createMarker()}
+   */
+  public static void serializeDeltaAndAdvance(CAS cas, OutputStream ostream, Marker mark) {
+    serializeCAS(cas, ostream, mark);
+    ((CASImpl) cas).advanceMarker();
+  }
+
   /*******************************************************************************
    * Methods from here on use some form of compression                           *
    *******************************************************************************/
@@ -228,6 +250,20 @@ public class Serialization {
     (new BinaryCasSerDes4(((CASImpl)cas).getTypeSystemImpl(), false)).serialize(cas, out, marker);
   }
   
+  /**
+   * Serialize in compressed binary form 4, only the changes since the marker was created or last
+   * advanced, and then advance the marker to the end of the CAS; the compressed form of 
+   * {@link #serializeDeltaAndAdvance(CAS, OutputStream, Marker)}
+   * @param cas the CAS to serialize
+   * @param out - an OutputStream, a DataOutputStream, or a File
+   * @param marker identifying where the delta starts, created with {@link CAS#createMarker()}
+   * @throws IOException if IO exception
+   */  
+  public static void serializeDeltaAndAdvanceWithCompression(CAS cas, Object out, Marker marker) throws IOException {
+    serializeWithCompression(cas, out, marker);
+    ((CASImpl) cas).advanceMarker();
+  }
+  
   /**
    * Serialize in compressed binary with type filtering
    * This method can use type filtering to omit sending those types and/or features not present in the target type system.
@@ -81,6 +81,7 @@ public class StringArrayFSImpl extends CommonArrayFSImpl implements StringArrayF
    */
   public void copyFromArray(String[] src, int srcOffset, int destOffset, int length)
           throws ArrayIndexOutOfBoundsException {
+    this.casImpl.checkNotFrozen();
     if ((destOffset < 0) || ((destOffset + length) > size())) {
       throw new ArrayIndexOutOfBoundsException();
     }
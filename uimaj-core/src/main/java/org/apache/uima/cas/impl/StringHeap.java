@@ -20,30 +20,96 @@
 package org.apache.uima.cas.impl;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
+
+import org.apache.uima.internal.util.IntVector;
+import org.apache.uima.util.Misc;
 
 /**
  * Encapsulate string storage for the CAS.
  * 
+ * Strings are kept in a list; the position in the list is the string code stored in the main heap.
+ * 
+ * Adding a string which is equal to one already in the heap returns the existing code, so that 
+ * repeated values (part of speech tags, lemmas, etc.) occupy one slot and keep one String object 
+ * alive.  The lookup uses an open addressing hash table of string codes.
+ * Sharing codes is safe because strings in the heap are never modified: setting a string 
+ * feature always stores a (possibly shared) code for the new value.
+ * 
+ * Long strings (e.g. document texts) are not looked up: they rarely repeat, 
+ * and hashing them costs more than it could save.
+ * 
+ * Codes below the last delta-CAS mark are never shared: the delta serializers depend on new and 
+ * updated strings being at or above the mark.
  */
 final class StringHeap {
   
+  /**
+   * Define this JVM property to have every added string take its own slot, 
+   * as in versions before string deduplication was added.
+   */
+  public static final String DISABLE_STRING_HEAP_DEDUP = "uima.disable_string_heap_dedup";
+  
+  private static final boolean IS_DEDUP = !Misc.getNoValueSystemProperty(DISABLE_STRING_HEAP_DEDUP);
+  
+  // strings longer than this are added without lookup
+  static final int MAX_DEDUP_LENGTH = 128;
+  
+  private static final int INITIAL_TABLE_SIZE = 64;  // must be a power of 2
+  
   private static final int leastStringCode = 1;
 
-  private List<String> stringList;
+  private final ArrayList<String> stringList = new ArrayList<String>();
+  
+  // smallest capacity resetToSize gives the list
+  private static final int MIN_LIST_SIZE = 16;
+  
+  // the capacity the list was last given by resetToSize, 0 if never
+  private int listCapacity = 0;
+  
+  // open addressing (linear probing) hash table of string codes, 0 means empty.
+  // kept at most half full
+  private int[] codeTable;
+  
+  private int codeTableCount;
+
+  // the slots of the code table filled since the last reset, while few enough that
+  // resetKeepingCapacity empties just these
+  private final IntVector filledSlots = new IntVector();
+  
+  private boolean isFilledSlotsTracked = true;
+  
+  // codes below this are not returned by addString; set when a delta CAS mark is created
+  private int minSharedCode = leastStringCode;
 
   StringHeap() {
     super();
-    initMemory();
+    initMemory(false);
   }
 
   // Initialize internal datastructures.  This used to be a lot more complicated when we had the
   // character heap option.  
-  private final void initMemory() {
-    this.stringList = new ArrayList<String>();
+  // The list and the hash table keep their capacity, so a CAS that is reset and reused
+  // doesn't have to regrow them for every document.
+  private final void initMemory(boolean isKeepingCapacity) {
+    this.stringList.clear();
     this.stringList.add(null);
+    if (this.codeTable == null || (!isKeepingCapacity &&
+        this.codeTable.length > Math.max(INITIAL_TABLE_SIZE, 8 * this.codeTableCount))) {
+      // first time, or much bigger than the last use needed
+      this.codeTable = new int[INITIAL_TABLE_SIZE];
+    } else if (this.isFilledSlotsTracked) {
+      final int[] table = this.codeTable;
+      for (int i = 0; i < this.filledSlots.size(); i++) {
+        table[this.filledSlots.get(i)] = 0;
+      }
+    } else {
+      Arrays.fill(this.codeTable, 0);
+    }
+    this.filledSlots.removeAllElements();
+    this.isFilledSlotsTracked = true;
+    this.codeTableCount = 0;
+    this.minSharedCode = leastStringCode;
   }
 
   /** Deserialize from a binary serialized CAS
@@ -52,26 +118,19 @@ final class StringHeap {
    */
   final void reinit(StringHeapDeserializationHelper shdh, boolean delta) {
   	if (!delta) {
-        initMemory();
+        initMemory(false);
   	}
     // Simply iterate over the ref heap and add one string after another.  The references come out
     // right because they are defined by the positions on the ref heap.
     int stringOffset;
     int stringLength;
     String charHeapInString = new String(shdh.charHeap); // UIMA-2460
-    Map<String, String> reuseStrings = new HashMap<String, String>(
-        Math.min(8, 
-                 (shdh.refHeap.length / StringHeapDeserializationHelper.REF_HEAP_CELL_SIZE) 
-                 / 2));
+    this.stringList.ensureCapacity(this.stringList.size() + 
+        (shdh.refHeap.length / StringHeapDeserializationHelper.REF_HEAP_CELL_SIZE));
     for (int i = StringHeapDeserializationHelper.FIRST_CELL_REF; i < shdh.refHeap.length; i += StringHeapDeserializationHelper.REF_HEAP_CELL_SIZE) {
       stringOffset = shdh.refHeap[i + StringHeapDeserializationHelper.CHAR_HEAP_POINTER_OFFSET];
       stringLength = shdh.refHeap[i + StringHeapDeserializationHelper.CHAR_HEAP_STRLEN_OFFSET];
-      String s = charHeapInString.substring(stringOffset, stringOffset + stringLength);
-      String reuse = reuseStrings.get(s);
-      if (reuse == null) {
-        reuseStrings.put(s, s);
-      }
-      this.stringList.add(reuse != null ? reuse : s);  
+      appendString(charHeapInString.substring(stringOffset, stringOffset + stringLength));
     }
   }
 
@@ -123,7 +182,32 @@ final class StringHeap {
 
   // Reset the string heap (called on CAS reset).
   final void reset() {
-    initMemory();
+    initMemory(false);
+  }
+
+  /**
+   * Reset the string heap, never shrinking the list or the hash table (called on lightweight
+   * CAS resets).  The hash table slots filled since the last reset are emptied one by one 
+   * while they are few, rather than the whole table.
+   */
+  final void resetKeepingCapacity() {
+    initMemory(true);
+  }
+
+  /**
+   * Reset the string heap, with room for the given number of strings; see CasHeapSizingPolicy.
+   * The list is reallocated only if it was sized for a different number, or outgrew it.
+   * @param size the number of strings to hold
+   */
+  final void resetToSize(int size) {
+    final int newCapacity = CommonAuxHeap.computeGrownArraySize(size, 2, Integer.MAX_VALUE, MIN_LIST_SIZE);
+    if (newCapacity != this.listCapacity || this.stringList.size() > newCapacity) {
+      this.stringList.clear();
+      this.stringList.trimToSize();
+      this.stringList.ensureCapacity(newCapacity);
+      this.listCapacity = newCapacity;
+    }
+    initMemory(false);
   }
 
   // Get a string value
@@ -151,16 +235,129 @@ final class StringHeap {
   /**
    * Add a string.
    * @param s The string.
-   * @return The positional code of the added string.
+   * @return The positional code of the added string, or the code of an equal string 
+   *   already in the heap.
    */
   int addString(String s) {
+    if (s == null) {
+      return LowLevelCAS.NULL_FS_REF;
+    }
+    if (!IS_DEDUP || s.length() > MAX_DEDUP_LENGTH) {
+      final int addr = this.stringList.size();
+      this.stringList.add(s);
+      return addr;
+    }
+    final int slot = findSlot(s);
+    final int code = this.codeTable[slot];
+    if (code >= this.minSharedCode) {
+      return code;
+    }
+    final int addr = this.stringList.size();
+    this.stringList.add(s);
+    if (code != 0) {
+      // below the mark: a new copy, shared from now on
+      this.codeTable[slot] = addr;
+    } else {
+      fillSlot(slot, addr);
+    }
+    return addr;
+  }
+  
+  /**
+   * Add a string at the next position, even if an equal string is already in the heap.
+   * Used when rebuilding a heap from a serialized string table, where each code must 
+   * stay at its position.  The position then holds the String object already in the heap,
+   * so that equal strings share one object.
+   * @param s The string.
+   * @return The positional code of the added string, or the null code if s is null 
+   *   (nothing is added then, as with {@link #addString(String)}).
+   */
+  int appendString(String s) {
     if (s == null) {
       return LowLevelCAS.NULL_FS_REF;
     }
     final int addr = this.stringList.size();
+    if (!IS_DEDUP || s.length() > MAX_DEDUP_LENGTH) {
+      this.stringList.add(s);
+      return addr;
+    }
+    final int slot = findSlot(s);
+    final int existing = this.codeTable[slot];
+    if (existing != 0) {
+      this.stringList.add(this.stringList.get(existing));
+      return addr;
+    }
+    // make it findable by later addString calls
     this.stringList.add(s);
+    fillSlot(slot, addr);
     return addr;
   }
+  
+  /**
+   * Called when a delta CAS mark is created: strings added from now on don't share codes
+   * of strings already in the heap.
+   */
+  void markForDelta() {
+    this.minSharedCode = this.stringList.size();
+  }
+  
+  /**
+   * @param s the string to find, not too long to be in the table
+   * @return the slot in the code table holding the code of a string equal to s, 
+   *   or if there is none, the empty slot where it would go
+   */
+  private int findSlot(String s) {
+    final int[] table = this.codeTable;
+    final int mask = table.length - 1;
+    int i = hash(s) & mask;
+    for (int code = table[i]; code != 0; code = table[i]) {
+      if (s.equals(this.stringList.get(code))) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+  
+  private void fillSlot(int slot, int code) {
+    this.codeTable[slot] = code;
+    logFilledSlot(slot);
+    if (++this.codeTableCount * 2 > this.codeTable.length) {
+      growCodeTable();
+    }
+  }
+
+  private void logFilledSlot(int slot) {
+    if (this.isFilledSlotsTracked) {
+      if (this.filledSlots.size() < (this.codeTable.length >> 3)) {
+        this.filledSlots.add(slot);
+      } else {
+        this.isFilledSlotsTracked = false;
+      }
+    }
+  }
+
+  private void growCodeTable() {
+    final int[] oldTable = this.codeTable;
+    final int[] table = new int[oldTable.length * 2];
+    final int mask = table.length - 1;
+    for (int code : oldTable) {
+      if (code != 0) {
+        int i = hash(this.stringList.get(code)) & mask;
+        while (table[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        table[i] = code;
+      }
+    }
+    this.codeTable = table;
+    this.isFilledSlotsTracked = false;  // the slots of the new table are not logged
+  }
+  
+  private static int hash(String s) {
+    final int h = s.hashCode();
+    return h ^ (h >>> 16);
+  }
 
   // Not sure what this is supposed to do.  Passes unit tests like this.
   int cloneStringReference(int stringCode) {
@@ -20,7 +20,9 @@
 package org.apache.uima.cas.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.apache.uima.cas.Feature;
@@ -45,6 +47,10 @@ public class TypeImpl implements Type, Comparable<TypeImpl> {
 
   private boolean isInheritanceFinal;
 
+  // feature base name to feature, built on first use once the type system is committed,
+  // to spare deserializers building the full name for each lookup
+  private volatile Map<String, Feature> featuresByBaseName;
+
   /**
    * Create a new type. This should only be done by a <code>TypeSystemImpl</code>.
    */
@@ -151,7 +157,18 @@ public class TypeImpl implements Type, Comparable<TypeImpl> {
    * @see org.apache.uima.cas.Type#getFeatureByBaseName(String)
    */
   public Feature getFeatureByBaseName(String featureName) {
-    return this.ts.getFeatureByFullName(this.name + TypeSystem.FEATURE_SEPARATOR + featureName);
+    if (!this.ts.isCommitted()) {
+      return this.ts.getFeatureByFullName(this.name + TypeSystem.FEATURE_SEPARATOR + featureName);
+    }
+    Map<String, Feature> m = this.featuresByBaseName;
+    if (null == m) {
+      m = new HashMap<String, Feature>();
+      for (Feature f : getFeatures()) {
+        m.put(f.getShortName(), f);
+      }
+      this.featuresByBaseName = m;
+    }
+    return m.get(featureName);
   }
 
   /**
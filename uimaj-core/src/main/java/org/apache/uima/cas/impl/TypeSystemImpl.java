@@ -185,6 +185,12 @@ public class TypeSystemImpl implements TypeSystemMgr, LowLevelTypeSystem {
    */
   private final ArrayList<IntVector> approp; // For each type, an IntVector of appropriate features
 
+  /**
+   * After commit, shared copies of the appropriate features, by type code; filled in lazily.
+   * Replaced, not updated, when an entry is added, so it can be read without locking.
+   */
+  private volatile int[][] appropCache = new int[0][];
+
   // Code of root of hierarchy (will be 1 with current implementation)
   private static final int top = 1;
 
@@ -988,6 +994,33 @@ public class TypeSystemImpl implements TypeSystemMgr, LowLevelTypeSystem {
     // We have to copy the array since we don't have const.
     return (this.approp.get(type)).toArrayCopy();
   }
+
+  /**
+   * Like {@link #ll_getAppropriateFeatures(int)}, but once the type system is committed, returns
+   * the same array for each call, to avoid a copy per feature structure in serializers.
+   * The caller must not modify the array.
+   * 
+   * @param type the type code
+   * @return the appropriate features for this type
+   */
+  int[] getAppropriateFeaturesShared(int type) {
+    final int[][] cache = appropCache;
+    if (type < cache.length && cache[type] != null) {
+      return cache[type];
+    }
+    return isCommitted() ? cacheAppropriateFeatures(type) : ll_getAppropriateFeatures(type);
+  }
+
+  private synchronized int[] cacheAppropriateFeatures(int type) {
+    final int[] feats = ll_getAppropriateFeatures(type);
+    if (feats != null) {
+      // array types may be added after commit, so the size is not fixed
+      int[][] cache = Arrays.copyOf(appropCache, Math.max(appropCache.length, getNumberOfTypes() + 1));
+      cache[type] = feats;
+      appropCache = cache;
+    }
+    return feats;
+  }
   
   /**
    * @return An offset <code>&gt;0</code> if <code>feat</code> exists; <code>0</code>, else.
@@ -22,6 +22,7 @@ package org.apache.uima.cas.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,7 +42,6 @@ import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
-import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
@@ -160,6 +160,9 @@ public class XCASDeserializer {
     // and Views too
     final private List<CAS> views;
 
+    // FSs to add to each of the indexRepositories, added together after all FSs are finalized
+    final private List<IntVector> toBeIndexed = new ArrayList<IntVector>();
+
     // for processing v1.x format XCAS
     // map from sofa int values to id references
     final  private IntVector sofaRefMap;
@@ -170,6 +173,9 @@ public class XCASDeserializer {
     // working with initial view
     private int nextIndex;
 
+    // attribute names of reference features, without the _ref_ prefix
+    final private Map<String, String> refFeatNames = new HashMap<String, String>();
+
     private XCASDeserializerHandler(CASImpl aCAS, OutOfTypeSystemData ootsData) {
       super();
       this.cas = aCAS.getBaseCAS();
@@ -566,9 +572,8 @@ public class XCASDeserializer {
       // final FeatureImpl feat = (FeatureImpl) featureMap.get(featName);
 
       // handle v1.x format annotations, mapping int to ref values
-      if (featName.equals("sofa") && ts.subsumes(this.annotBaseType, type)) {
-        featVal = Integer.toString(this.sofaRefMap.get(Integer.parseInt(featVal)));
-      }
+      final boolean isV1SofaRef = featName.equals("sofa") && ts.subsumes(this.annotBaseType, type);
+      final int sofaRef = isV1SofaRef ? this.sofaRefMap.get(Integer.parseInt(featVal)) : 0;
 
       // handle v1.x sofanum values, remapping so that _InitialView always == 1
       if (featName.equals(CAS.FEATURE_BASE_NAME_SOFAID)
@@ -582,7 +587,11 @@ public class XCASDeserializer {
 
       String realFeatName;
       if (featName.startsWith(XCASSerializer.REF_PREFIX)) {
-        realFeatName = featName.substring(XCASSerializer.REF_PREFIX.length());
+        realFeatName = refFeatNames.get(featName);
+        if (null == realFeatName) {
+          realFeatName = featName.substring(XCASSerializer.REF_PREFIX.length());
+          refFeatNames.put(featName, realFeatName);
+        }
       } else {
         realFeatName = featName;
       }
@@ -602,7 +611,9 @@ public class XCASDeserializer {
           throw createException(XCASParsingException.UNKNOWN_FEATURE, featName);
         }
       } else {
-        if (cas.ll_isRefType(ts.range(feat.getCode()))) {
+        if (isV1SofaRef) {  // the sofa feature of AnnotationBase, always a ref
+          cas.setFeatureValue(addr, feat.getCode(), sofaRef);
+        } else if (cas.ll_isRefType(ts.range(feat.getCode()))) {
           cas.setFeatureValue(addr, feat.getCode(), Integer.parseInt(featVal));
         } else {
           cas.setFeatureValueFromString(addr, feat.getCode(), featVal);
@@ -766,6 +777,12 @@ public class XCASDeserializer {
       for (int i = 0; i < idLess.size(); i++) {
         finalizeFS(idLess.get(i));
       }
+      for (int i = 0; i < toBeIndexed.size(); i++) {
+        final IntVector fss = toBeIndexed.get(i);
+        if (fss != null) {
+          ((FSIndexRepositoryImpl) indexRepositories.get(i)).ll_addAllFS(fss.getArray(), 0, fss.size());
+        }
+      }
       // time = System.currentTimeMillis() - time;
       // System.out.println("Done in " + new TimeSpan(time));
 
@@ -831,14 +848,25 @@ public class XCASDeserializer {
         // Now add FS to all specified index repositories
         for (int i = 0; i < fsInfo.indexRep.size(); i++) {
           if (indexMap.size() == 1) {
-            ((FSIndexRepositoryImpl) indexRepositories.get(fsInfo.indexRep.get(i))).addFS(addr);
+            addToIndexLater(fsInfo.indexRep.get(i), addr);
           } else {
-            ((FSIndexRepositoryImpl) indexRepositories.get(indexMap.get(fsInfo.indexRep.get(i))))
-                    .addFS(addr);
+            addToIndexLater(indexMap.get(fsInfo.indexRep.get(i)), addr);
           }
         }
       }
     }
+
+    private void addToIndexLater(int indexRepNbr, int addr) {
+      while (toBeIndexed.size() <= indexRepNbr) {
+        toBeIndexed.add(null);
+      }
+      IntVector fss = toBeIndexed.get(indexRepNbr);
+      if (fss == null) {
+        fss = new IntVector();
+        toBeIndexed.set(indexRepNbr, fss);
+      }
+      fss.add(addr);
+    }
     
     private void finalizeArray(int type, int addr, FSInfo fsInfo) {
       if (!cas.isFSArrayType(type)) {
@@ -1200,7 +1228,6 @@ public class XCASDeserializer {
    */
   public static void deserialize(InputStream aStream, CAS aCAS, boolean aLenient)
           throws SAXException, IOException {
-    XMLReader xmlReader = XMLUtils.createXMLReader();
     XCASDeserializer deser = new XCASDeserializer(aCAS.getTypeSystem());
     ContentHandler handler;
     if (aLenient) {
@@ -1208,8 +1235,7 @@ public class XCASDeserializer {
     } else {
       handler = deser.getXCASHandler(aCAS);
     }
-    xmlReader.setContentHandler(handler);
-    xmlReader.parse(new InputSource(aStream));
+    XMLUtils.parse(new InputSource(aStream), handler);
   }
 
 }
@@ -19,10 +19,14 @@
 
 package org.apache.uima.cas.impl;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -48,6 +52,7 @@ import org.apache.uima.cas.SofaFS;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.XmiSerializationSharedData.OotsElementData;
+import org.apache.uima.internal.util.ByteBufferInputStream;
 import org.apache.uima.internal.util.I18nUtil;
 import org.apache.uima.internal.util.IntListIterator;
 import org.apache.uima.internal.util.IntVector;
@@ -63,7 +68,6 @@ import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
-import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
@@ -1484,11 +1488,12 @@ public class XmiCasDeserializer {
       // https://issues.apache.org/jira/browse/UIMA-4099
       for (Entry<FSIndexRepositoryImpl, PositiveIntSet> e : toBeAdded.entrySet()) {
         FSIndexRepositoryImpl indexRep = e.getKey();
-        final PositiveIntSet todo = e.getValue();
-        final IntListIterator it = todo.iterator();
+        final IntListIterator it = e.getValue().iterator();
+        final IntVector todo = new IntVector();
         while (it.hasNext()) {
-          indexRep.addFS(it.next());
+          todo.add(it.next());
         }
+        indexRep.ll_addAllFS(todo.getArray(), 0, todo.size());
       }
       
       // remove FSs from indexes
@@ -2059,13 +2064,62 @@ public class XmiCasDeserializer {
   public static void deserialize(InputStream aStream, CAS aCAS, boolean aLenient,
           XmiSerializationSharedData aSharedData, int aMergePoint)
           throws SAXException, IOException {
-    XMLReader xmlReader = XMLUtils.createXMLReader();
     XmiCasDeserializer deser = new XmiCasDeserializer(aCAS.getTypeSystem());
     ContentHandler handler = deser.getXmiCasHandler(aCAS, aLenient, aSharedData, aMergePoint);
-    xmlReader.setContentHandler(handler);
-    xmlReader.parse(new InputSource(aStream));
+    XMLUtils.parse(new InputSource(aStream), handler);
   }  
   
+  /**
+   * Deserializes a CAS from XMI, reading from a channel.  The channel is not closed.
+   * 
+   * @param aChannel
+   *          channel from which to read the XMI document, for example a FileChannel
+   * @param aCAS
+   *          CAS into which to deserialize. This CAS must be set up with a type system that is
+   *          compatible with that in the XMI
+   * @param aLenient
+   *          if true, unknown Types will be ignored. If false, unknown Types will cause an
+   *          exception. The default is false.
+   * 
+   * @throws SAXException
+   *           if an XML Parsing error occurs
+   * @throws IOException
+   *           if an I/O failure occurs
+   */
+  public static void deserialize(ReadableByteChannel aChannel, CAS aCAS, boolean aLenient)
+          throws SAXException, IOException {
+    // the parser closes its input when done
+    InputStream notClosing = new FilterInputStream(Channels.newInputStream(aChannel)) {
+      @Override
+      public void close() {
+      }
+    };
+    deserialize(notClosing, aCAS, aLenient, null, -1);
+  }
+
+  /**
+   * Deserializes a CAS from XMI held in a buffer, for example a file mapped with FileChannel.map.
+   * The position of the buffer is not changed.
+   * 
+   * @param aBuffer
+   *          buffer whose remaining bytes are the XMI document
+   * @param aCAS
+   *          CAS into which to deserialize. This CAS must be set up with a type system that is
+   *          compatible with that in the XMI
+   * @param aLenient
+   *          if true, unknown Types will be ignored. If false, unknown Types will cause an
+   *          exception. The default is false.
+   * 
+   * @throws SAXException
+   *           if an XML Parsing error occurs
+   * @throws IOException
+   *           if an I/O failure occurs
+   */
+  public static void deserialize(ByteBuffer aBuffer, CAS aCAS, boolean aLenient)
+          throws SAXException, IOException {
+    deserialize(new ByteBufferInputStream(aBuffer), aCAS, aLenient, null, -1);
+  }
+  
   /**
    * Deserializes a CAS from XMI. This version of this method supports deserializing
    * XMI document containing only deltas.  The Delta CAS XMI is in the same form
@@ -2133,11 +2187,9 @@ public class XmiCasDeserializer {
   public static void deserialize(InputStream aStream, CAS aCAS, boolean aLenient,
 		  XmiSerializationSharedData aSharedData, int aMergePoint, AllowPreexistingFS allowPreexistingFS)
   throws SAXException, IOException {
-	  XMLReader xmlReader = XMLUtils.createXMLReader();
 	  XmiCasDeserializer deser = new XmiCasDeserializer(aCAS.getTypeSystem());
 	  ContentHandler handler = deser.getXmiCasHandler(aCAS, aLenient, aSharedData, aMergePoint, allowPreexistingFS);
-	  xmlReader.setContentHandler(handler);
-	  xmlReader.parse(new InputSource(aStream));
+	  XMLUtils.parse(new InputSource(aStream), handler);
   }  
   
   /**
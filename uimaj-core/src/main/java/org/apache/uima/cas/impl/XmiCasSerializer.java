@@ -20,6 +20,8 @@
 package org.apache.uima.cas.impl;
 
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -38,6 +40,7 @@ import org.apache.uima.cas.impl.CasSerializerSupport.CasDocSerializer;
 import org.apache.uima.cas.impl.CasSerializerSupport.CasSerializerSupportSerialize;
 import org.apache.uima.cas.impl.XmiSerializationSharedData.OotsElementData;
 import org.apache.uima.cas.impl.XmiSerializationSharedData.XmiArrayElement;
+import org.apache.uima.internal.util.Utf8XMLWriter;
 import org.apache.uima.internal.util.XmlAttribute;
 import org.apache.uima.internal.util.XmlElementName;
 import org.apache.uima.internal.util.XmlElementNameAndContents;
@@ -126,6 +129,11 @@ public class XmiCasSerializer {
       SYSTEM_LINE_FEED = (lf == null) ? "\n" : lf;
   }
 
+  /**
+   * One UTF-8 writer per thread, keeping its buffer across serializations
+   */
+  private static final ThreadLocal<Utf8XMLWriter> xmlWriters = new ThreadLocal<Utf8XMLWriter>();
+
   private final CasSerializerSupport css = new CasSerializerSupport();
   
   private Map<String, String> nsUriToSchemaLocationMap = null;
@@ -423,6 +431,73 @@ public class XmiCasSerializer {
     contentHandler.endDocument();
   }
   
+  /**
+   * Write the CAS as XMI to an output stream.
+   * <p>
+   * Unless pretty printing is on, the XML is written by a UTF-8 writer kept per thread, instead of
+   * going through a JAXP Transformer. This makes it cheaper to serialize many CASes with one
+   * instance of this class.
+   * 
+   * @param cas
+   *          The CAS to be serialized.
+   * @param out
+   *          where the XMI document is written. It is not closed.
+   * @param sharedData
+   *          optional data shared with the XmiCasDeserializer, or null
+   * @param marker
+   *          optional marker, to serialize a Delta CAS, or null
+   * @throws SAXException if there was a SAX exception, or an IOException writing the output
+   */
+  public void serialize(CAS cas, OutputStream out, XmiSerializationSharedData sharedData, Marker marker)
+          throws SAXException {
+    if (css.isFormattedOutput) {
+      XMLSerializer sax2xml = new XMLSerializer(out, true);
+      serialize(cas, sax2xml.getContentHandler(), null, sharedData, marker);
+      return;
+    }
+    Utf8XMLWriter writer = takeXmlWriter();
+    writer.setOutput(out);
+    serializeWithWriter(cas, writer, sharedData, marker);
+  }
+
+  /**
+   * Write the CAS as XMI to a channel, see {@link #serialize(CAS, OutputStream, XmiSerializationSharedData, Marker)}.
+   * 
+   * @param cas
+   *          The CAS to be serialized.
+   * @param channel
+   *          where the XMI document is written. It is not closed.
+   * @throws SAXException if there was a SAX exception, or an IOException writing the output
+   */
+  public void serialize(CAS cas, WritableByteChannel channel) throws SAXException {
+    if (css.isFormattedOutput) {
+      serialize(cas, Channels.newOutputStream(channel), null, null);
+      return;
+    }
+    Utf8XMLWriter writer = takeXmlWriter();
+    writer.setOutput(channel);
+    serializeWithWriter(cas, writer, null, null);
+  }
+
+  private Utf8XMLWriter takeXmlWriter() {
+    Utf8XMLWriter writer = xmlWriters.get();
+    if (writer == null) {
+      return new Utf8XMLWriter();
+    }
+    xmlWriters.set(null);  // in case of a nested serialization on this thread
+    return writer;
+  }
+
+  private void serializeWithWriter(CAS cas, Utf8XMLWriter writer, XmiSerializationSharedData sharedData, Marker marker)
+          throws SAXException {
+    try {
+      serialize(cas, writer, null, sharedData, marker);
+    } finally {
+      writer.setOutput((OutputStream) null);  // don't keep the caller's stream reachable
+      xmlWriters.set(writer);
+    }
+  }
+
   // this method just for testing - uses existing content handler and CasDocSerializer instance
   // package private for test case access
   void serialize(CAS cas, ContentHandler contentHandler, XmiDocSerializer ser) throws SAXException {
@@ -491,6 +566,13 @@ public class XmiCasSerializer {
 
     private final AttributesImpl workAttrs = new AttributesImpl();
 
+    // reused for each FS, instead of allocating new ones
+    private final List<XmlElementNameAndContents> workChildElements = new ArrayList<XmlElementNameAndContents>();
+
+    private final StringBuilder workArrayString = new StringBuilder();
+
+    private char[] workChars = new char[64];
+
     // the number of children can't be easily computed, until serialization is attempted,
     // because the decision on whether to serialize arrays and lists "inline" or as separate
     // sub-elements is made at the point they're about to be serialized.
@@ -855,9 +937,10 @@ public class XmiCasSerializer {
      */
     private List<XmlElementNameAndContents> encodeFeatures(int addr, AttributesImpl attrs, boolean insideListNode)
             throws SAXException {
-      List<XmlElementNameAndContents> childElements = new ArrayList<XmlElementNameAndContents>();
+      List<XmlElementNameAndContents> childElements = workChildElements;
+      childElements.clear();
       int heapValue = cds.cas.getHeapValue(addr);
-      int[] feats = cds.tsi.ll_getAppropriateFeatures(heapValue);
+      int[] feats = cds.tsi.getAppropriateFeaturesShared(heapValue);
 
       String  attrValue;
       // boolean isSofa = false;
@@ -1007,7 +1090,8 @@ public class XmiCasSerializer {
         return null;
       }
 
-      StringBuilder buf = new StringBuilder();
+      StringBuilder buf = workArrayString;
+      buf.setLength(0);
       final int size = cds.cas.ll_getArraySize(addr);
       String elemStr = null;
       
@@ -1071,14 +1155,21 @@ public class XmiCasSerializer {
           }
         }
         return buf.toString();
+      } else if (arrayType == LowLevelCAS.TYPE_CLASS_INTARRAY) {
+        // append the values directly, without a String per element
+        int pos = cds.cas.getArrayStartAddress(addr);
+        for (int j = 0; j < size; j++) {
+          if (j > 0) {
+            buf.append(' ');
+          }
+          buf.append(cds.cas.getHeapValue(pos++));
+        }
+        return buf.toString();
       } else {
         CommonArrayFS fs;
         String[] fsvalues;
 
         switch (arrayType) {
-          case LowLevelCAS.TYPE_CLASS_INTARRAY:
-            fs = new IntArrayFSImpl(addr, cds.cas);
-            break;
           case LowLevelCAS.TYPE_CLASS_FLOATARRAY:
             fs = new FloatArrayFSImpl(addr, cds.cas);
             break;
@@ -1246,7 +1337,12 @@ public class XmiCasSerializer {
     }
     
     private void addText(String text) throws SAXException {
-      ch.characters(text.toCharArray(), 0, text.length());
+      final int length = text.length();
+      if (length > workChars.length) {
+        workChars = new char[Math.max(length, workChars.length * 2)];
+      }
+      text.getChars(0, length, workChars, 0);
+      ch.characters(workChars, 0, length);
     }
     
     @Override
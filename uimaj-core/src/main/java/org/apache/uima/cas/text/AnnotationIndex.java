@@ -234,4 +234,88 @@ public interface AnnotationIndex<T extends AnnotationFS> extends FSIndex<T> {
    * @return The annotation tree rooted at <code>annot</code>.
    */
    AnnotationTree<T> tree(T annot);
+
+  /**
+   * Return an iterator over the annotations whose span covers the span from <code>begin</code> to
+   * <code>end</code>, that is, annotations <code>a</code> such that
+   * <code>a.getBegin() &lt;= begin</code> and <code>end &lt;= a.getEnd()</code>.
+   * <p>
+   * The annotations are returned in index order. The iterator is over a snapshot of the result; it
+   * doesn't check for concurrent index modifications.
+   * </p>
+   * <p>
+   * For the built-in annotation index, and for other sorted indexes over annotations whose first key
+   * is <code>begin</code>, ascending (such as indexes of kind
+   * {@link org.apache.uima.resource.metadata.FsIndexDescription#KIND_INTERVAL interval}), this and the
+   * other span queries use an interval tree over the annotations, built on the first query after the
+   * index was last updated; the time of a query is then O(log n) per annotation in the result.
+   * Otherwise all the annotations in the index are looked at.
+   * </p>
+   * <p>
+   * This default implementation, for implementations written before the span queries were added,
+   * filters an iterator over the index; its result is not a snapshot.
+   * </p>
+   * 
+   * @param begin
+   *          The begin of the span.
+   * @param end
+   *          The end of the span.
+   * @return An iterator over the annotations covering the span.
+   */
+  default FSIterator<T> covering(final int begin, final int end) {
+    final FSIterator<T> it = iterator();
+    if (!it.isValid()) {
+      return it;  // empty
+    }
+    return it.get().getCAS().createFilteredIterator(it, fs -> 
+        (((AnnotationFS) fs).getBegin() <= begin) && (end <= ((AnnotationFS) fs).getEnd()));
+  }
+
+  /**
+   * Return an iterator over the annotations whose span overlaps the span from <code>begin</code> to
+   * <code>end</code>, that is, annotations <code>a</code> such that
+   * <code>a.getBegin() &lt; end</code> and <code>begin &lt; a.getEnd()</code>.
+   * <p>
+   * The annotations are returned in index order, from a snapshot of the result; see
+   * {@link #covering(int, int)} about the cost of the query, and about the default implementation.
+   * </p>
+   * 
+   * @param begin
+   *          The begin of the span.
+   * @param end
+   *          The end of the span.
+   * @return An iterator over the annotations overlapping the span.
+   */
+  default FSIterator<T> overlapping(final int begin, final int end) {
+    final FSIterator<T> it = iterator();
+    if (!it.isValid()) {
+      return it;  // empty
+    }
+    return it.get().getCAS().createFilteredIterator(it, fs -> 
+        (((AnnotationFS) fs).getBegin() < end) && (begin < ((AnnotationFS) fs).getEnd()));
+  }
+
+  /**
+   * Return an iterator over the annotations whose span is within the span from <code>begin</code>
+   * to <code>end</code>, that is, annotations <code>a</code> such that
+   * <code>begin &lt;= a.getBegin()</code> and <code>a.getEnd() &lt;= end</code>.
+   * <p>
+   * The annotations are returned in index order, from a snapshot of the result; see
+   * {@link #covering(int, int)} about the cost of the query, and about the default implementation.
+   * </p>
+   * 
+   * @param begin
+   *          The begin of the span.
+   * @param end
+   *          The end of the span.
+   * @return An iterator over the annotations covered by the span.
+   */
+  default FSIterator<T> coveredBy(final int begin, final int end) {
+    final FSIterator<T> it = iterator();
+    if (!it.isValid()) {
+      return it;  // empty
+    }
+    return it.get().getCAS().createFilteredIterator(it, fs -> 
+        (begin <= ((AnnotationFS) fs).getBegin()) && (((AnnotationFS) fs).getEnd() <= end));
+  }
 }
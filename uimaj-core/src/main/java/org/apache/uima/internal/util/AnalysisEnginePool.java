@@ -293,6 +293,15 @@ public class AnalysisEnginePool {
     }
   }
 
+  /**
+   * Gets the underlying pool, for its check-out statistics.
+   * 
+   * @return the pool of AnalysisEngine instances
+   */
+  public ResourcePool getResourcePool() {
+    return mPool;
+  }
+
   /**
    * Gets the class of Resource contained in this pool - by default this is
    * <code>AnalysisEngine</code>, but subclasses may override.
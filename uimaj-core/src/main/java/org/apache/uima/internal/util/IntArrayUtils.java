@@ -171,4 +171,58 @@ public final class IntArrayUtils {
     return -1;
   }
 
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /**
+   * Sorts a span of an int array using a comparator, for example one comparing the feature
+   * structures the ints refer to. The sort is stable (a merge sort), and doesn't box the ints.
+   * 
+   * @param a
+   *          The array to sort.
+   * @param start
+   *          The first position to sort.
+   * @param end
+   *          One past the last position to sort.
+   * @param comparator
+   *          Defines the order.
+   */
+  public static final void sort(int[] a, int start, int end, IntComparator comparator) {
+    if (end - start < 2) {
+      return;
+    }
+    final int[] tmp = new int[end - start];
+    mergeSort(a, start, end, tmp, comparator);
+  }
+
+  private static void mergeSort(int[] a, int start, int end, int[] tmp, IntComparator comparator) {
+    if (end - start <= INSERTION_SORT_THRESHOLD) {
+      for (int i = start + 1; i < end; i++) {
+        final int v = a[i];
+        int j = i - 1;
+        while (j >= start && comparator.compare(a[j], v) > 0) {
+          a[j + 1] = a[j];
+          j--;
+        }
+        a[j + 1] = v;
+      }
+      return;
+    }
+    final int mid = (start + end) >>> 1;
+    mergeSort(a, start, mid, tmp, comparator);
+    mergeSort(a, mid, end, tmp, comparator);
+    if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+      return; // already in order
+    }
+    // merge, from a copy of the left half
+    final int leftLength = mid - start;
+    System.arraycopy(a, start, tmp, 0, leftLength);
+    int i = 0;
+    int j = mid;
+    int k = start;
+    while (i < leftLength && j < end) {
+      a[k++] = (comparator.compare(tmp[i], a[j]) <= 0) ? tmp[i++] : a[j++];
+    }
+    System.arraycopy(tmp, i, a, k, leftLength - i);
+  }
+
 }
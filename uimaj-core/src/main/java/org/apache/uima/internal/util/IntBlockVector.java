@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.internal.util;
+
+import java.util.Arrays;
+
+/**
+ * A sequence of ints, addressed by position like an {@link IntVector}, but stored in blocks of at
+ * most {@link #BLOCK_CAPACITY} ints.
+ * <p>
+ * This is a B+tree of height 2 over positions: the blocks are the leaves, kept in order, and a
+ * Fenwick tree of the block sizes maps a position to its block in O(log n). Adding or removing at a
+ * position moves at most one block's worth of ints, instead of the whole tail of the sequence.
+ * Full blocks are split, and nearly empty blocks merged with a neighbor.
+ * <p>
+ * Sequential scans run over the block arrays: see {@link #getBlock(int)} and
+ * {@link #getModificationCount()}, used by iterators to keep a (block, offset) cursor.
+ */
+public class IntBlockVector {
+
+  /**
+   * The maximum number of ints in a block
+   */
+  public static final int BLOCK_CAPACITY = 512;
+
+  // blocks with fewer ints than this are merged with a neighbor when possible
+  private static final int MERGE_THRESHOLD = BLOCK_CAPACITY / 4;
+
+  private int[][] blocks = new int[4][];
+
+  private int[] blockSizes = new int[4];
+
+  private int nbrBlocks = 0;
+
+  /**
+   * Fenwick (binary indexed) tree over blockSizes, 1-based
+   */
+  private int[] tree = new int[5];
+
+  private int size = 0;
+
+  // incremented by every add and remove, for iterators holding a cursor
+  private int modificationCount = 0;
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return a number which changes whenever an element is added or removed
+   */
+  public int getModificationCount() {
+    return modificationCount;
+  }
+
+  public int nbrBlocks() {
+    return nbrBlocks;
+  }
+
+  /**
+   * @param block the block number
+   * @return the array of the block, valid up to {@link #blockSize(int)}
+   */
+  public int[] getBlock(int block) {
+    return blocks[block];
+  }
+
+  public int blockSize(int block) {
+    return blockSizes[block];
+  }
+
+  /**
+   * @param block the block number
+   * @return the position of the first element of the block
+   */
+  public int blockStart(int block) {
+    int r = 0;
+    for (int i = block; i > 0; i -= (i & -i)) {
+      r += tree[i];
+    }
+    return r;
+  }
+
+  /**
+   * @param pos a position, 0 &lt;= pos &lt; size
+   * @return the number of the block holding the position
+   */
+  public int findBlock(int pos) {
+    int block = 0;
+    int remaining = pos;
+    for (int step = Integer.highestOneBit(nbrBlocks); step > 0; step >>= 1) {
+      final int next = block + step;
+      if (next <= nbrBlocks && tree[next] <= remaining) {
+        block = next;
+        remaining -= tree[next];
+      }
+    }
+    return block;
+  }
+
+  public int get(int pos) {
+    if (pos < 0 || pos >= size) {
+      throw new ArrayIndexOutOfBoundsException(pos);
+    }
+    int block = 0;
+    int remaining = pos;
+    for (int step = Integer.highestOneBit(nbrBlocks); step > 0; step >>= 1) {
+      final int next = block + step;
+      if (next <= nbrBlocks && tree[next] <= remaining) {
+        block = next;
+        remaining -= tree[next];
+      }
+    }
+    return blocks[block][remaining];
+  }
+
+  public int getLast() {
+    if (size == 0) {
+      throw new ArrayIndexOutOfBoundsException(0);
+    }
+    final int last = nbrBlocks - 1;
+    return blocks[last][blockSizes[last] - 1];
+  }
+
+  /**
+   * Appends an element
+   * @param element the element to add
+   */
+  public void add(int element) {
+    int last = nbrBlocks - 1;
+    if (last < 0) {
+      insertBlock(0, (blocks[0] == null) ? new int[16] : blocks[0], 0);
+      last = 0;
+    } else if (blockSizes[last] == BLOCK_CAPACITY) {
+      insertBlock(nbrBlocks, new int[BLOCK_CAPACITY], 0);
+      last++;
+    }
+    final int[] block = ensureBlockCapacity(last, blockSizes[last] + 1);
+    block[blockSizes[last]] = element;
+    blockSizes[last]++;
+    addToTree(last, 1);
+    size++;
+    modificationCount++;
+  }
+
+  /**
+   * Inserts an element at a position, moving the ones at and after it up by one
+   * @param pos the position, 0 &lt;= pos &lt;= size
+   * @param element the element to add
+   */
+  public void add(int pos, int element) {
+    if (pos == size) {
+      add(element);
+      return;
+    }
+    if (pos < 0 || pos > size) {
+      throw new ArrayIndexOutOfBoundsException(pos);
+    }
+    int b = findBlock(pos);
+    int offset = pos - blockStart(b);
+    if (offset == 0 && b > 0 && blockSizes[b - 1] < BLOCK_CAPACITY) {
+      // at a block boundary, use the end of the previous block if it has room
+      b--;
+      offset = blockSizes[b];
+    } else if (blockSizes[b] == BLOCK_CAPACITY) {
+      splitBlock(b);
+      final int firstHalf = blockSizes[b];
+      if (offset > firstHalf) {
+        b++;
+        offset -= firstHalf;
+      }
+    }
+    final int[] block = ensureBlockCapacity(b, blockSizes[b] + 1);
+    System.arraycopy(block, offset, block, offset + 1, blockSizes[b] - offset);
+    block[offset] = element;
+    blockSizes[b]++;
+    addToTree(b, 1);
+    size++;
+    modificationCount++;
+  }
+
+  /**
+   * Inserts count copies of an element at a position
+   * @param pos the position, 0 &lt;= pos &lt;= size
+   * @param element the element to add
+   * @param count the number of copies
+   */
+  public void multiAdd(int pos, int element, int count) {
+    for (int i = 0; i < count; i++) {
+      add(pos, element);
+    }
+  }
+
+  /**
+   * Removes the element at a position, moving the ones after it down by one
+   * @param pos the position, 0 &lt;= pos &lt; size
+   * @return the removed element
+   */
+  public int remove(int pos) {
+    if (pos < 0 || pos >= size) {
+      throw new ArrayIndexOutOfBoundsException(pos);
+    }
+    final int b = findBlock(pos);
+    final int offset = pos - blockStart(b);
+    final int[] block = blocks[b];
+    final int r = block[offset];
+    final int newBlockSize = blockSizes[b] - 1;
+    System.arraycopy(block, offset + 1, block, offset, newBlockSize - offset);
+    blockSizes[b] = newBlockSize;
+    size--;
+    modificationCount++;
+
+    if (newBlockSize == 0) {
+      removeBlock(b);
+    } else if (newBlockSize < MERGE_THRESHOLD &&
+               b + 1 < nbrBlocks &&
+               newBlockSize + blockSizes[b + 1] <= BLOCK_CAPACITY / 2) {
+      mergeWithNext(b);
+    } else if (newBlockSize < MERGE_THRESHOLD &&
+               b > 0 &&
+               newBlockSize + blockSizes[b - 1] <= BLOCK_CAPACITY / 2) {
+      mergeWithNext(b - 1);
+    } else {
+      addToTree(b, -1);
+    }
+    return r;
+  }
+
+  public void removeAllElements() {
+    // keep the first block, if there is one, for reuse
+    Arrays.fill(blocks, 1, blocks.length, null);
+    Arrays.fill(blockSizes, 0);
+    Arrays.fill(tree, 0);
+    nbrBlocks = 0;
+    size = 0;
+    modificationCount++;
+  }
+
+  /**
+   * Binary search, in a sequence ordered by comp
+   * @param element the element to search for
+   * @param comp the ordering of the elements, called as comp.compare(element, elementInThisVector)
+   * @return the position of some element comparing equal to element, or if there is none,
+   *         (-(insertion point) - 1)
+   */
+  public int binarySearch(int element, IntComparator comp) {
+    // find the first block whose last element is >= the element searched for
+    int lo = 0;
+    int hi = nbrBlocks - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (comp.compare(element, blocks[mid][blockSizes[mid] - 1]) > 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    if (lo == nbrBlocks) {
+      return -size - 1;
+    }
+    final int b = lo;
+    final int[] block = blocks[b];
+    int start = 0;
+    int end = blockSizes[b] - 1;
+    while (start <= end) {
+      final int mid = (start + end) >>> 1;
+      final int c = comp.compare(element, block[mid]);
+      if (c == 0) {
+        return blockStart(b) + mid;
+      }
+      if (c < 0) {
+        end = mid - 1;
+      } else {
+        start = mid + 1;
+      }
+    }
+    return -(blockStart(b) + start) - 1;
+  }
+
+  /**
+   * @param v where all the elements are appended, in order
+   */
+  public void copyTo(IntVector v) {
+    for (int b = 0; b < nbrBlocks; b++) {
+      v.add(blocks[b], 0, blockSizes[b]);
+    }
+  }
+
+  public int[] toArray() {
+    final int[] r = new int[size];
+    int pos = 0;
+    for (int b = 0; b < nbrBlocks; b++) {
+      System.arraycopy(blocks[b], 0, r, pos, blockSizes[b]);
+      pos += blockSizes[b];
+    }
+    return r;
+  }
+
+  @Override
+  public String toString() {
+    return "IntBlockVector[size: " + size + ", blocks: " + nbrBlocks + "]";
+  }
+
+  /*
+   * Blocks start small, so that small indexes stay small, and grow to BLOCK_CAPACITY
+   */
+  private int[] ensureBlockCapacity(int b, int minCapacity) {
+    int[] block = blocks[b];
+    if (block.length < minCapacity) {
+      block = Arrays.copyOf(block, Math.min(BLOCK_CAPACITY, Math.max(minCapacity, block.length * 2)));
+      blocks[b] = block;
+    }
+    return block;
+  }
+
+  private void splitBlock(int b) {
+    final int[] block = blocks[b];
+    final int half = blockSizes[b] / 2;
+    final int[] newBlock = new int[BLOCK_CAPACITY];
+    System.arraycopy(block, half, newBlock, 0, blockSizes[b] - half);
+    final int newBlockSize = blockSizes[b] - half;
+    blockSizes[b] = half;
+    insertBlock(b + 1, newBlock, newBlockSize);
+  }
+
+  private void mergeWithNext(int b) {
+    final int[] block = ensureBlockCapacity(b, blockSizes[b] + blockSizes[b + 1]);
+    System.arraycopy(blocks[b + 1], 0, block, blockSizes[b], blockSizes[b + 1]);
+    blockSizes[b] += blockSizes[b + 1];
+    removeBlock(b + 1);
+  }
+
+  private void insertBlock(int b, int[] block, int blockSize) {
+    if (nbrBlocks == blocks.length) {
+      blocks = Arrays.copyOf(blocks, nbrBlocks * 2);
+      blockSizes = Arrays.copyOf(blockSizes, nbrBlocks * 2);
+    }
+    System.arraycopy(blocks, b, blocks, b + 1, nbrBlocks - b);
+    System.arraycopy(blockSizes, b, blockSizes, b + 1, nbrBlocks - b);
+    blocks[b] = block;
+    blockSizes[b] = blockSize;
+    nbrBlocks++;
+    rebuildTree();
+  }
+
+  private void removeBlock(int b) {
+    if (nbrBlocks == 1) {
+      // keep the last block for reuse
+      blockSizes[0] = 0;
+      nbrBlocks = 0;
+    } else {
+      System.arraycopy(blocks, b + 1, blocks, b, nbrBlocks - b - 1);
+      System.arraycopy(blockSizes, b + 1, blockSizes, b, nbrBlocks - b - 1);
+      nbrBlocks--;
+      blocks[nbrBlocks] = null;
+      blockSizes[nbrBlocks] = 0;
+    }
+    rebuildTree();
+  }
+
+  /*
+   * Linear in the number of blocks, but only done when a block is split, merged or removed;
+   * other adds and removes update the tree in O(log n)
+   */
+  private void rebuildTree() {
+    if (tree.length < blocks.length + 1) {
+      tree = new int[blocks.length + 1];
+    }
+    Arrays.fill(tree, 0);
+    for (int i = 1; i <= nbrBlocks; i++) {
+      tree[i] += blockSizes[i - 1];
+      final int parent = i + (i & -i);
+      if (parent <= nbrBlocks) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+
+  private void addToTree(int b, int delta) {
+    for (int i = b + 1; i <= nbrBlocks; i += (i & -i)) {
+      tree[i] += delta;
+    }
+  }
+}
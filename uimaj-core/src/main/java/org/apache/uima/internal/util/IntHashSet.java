@@ -93,6 +93,11 @@ public class IntHashSet implements PositiveIntSet {
   private short[] keys2;
 
   private boolean secondTimeShrinkable = false;
+
+  // the slots filled since the last clear, while few enough that clearKeepingCapacity empties just these;
+  //   null until clearKeepingCapacity is first used
+  private IntVector filledSlots = null;
+  private boolean isFilledSlotsTracked = false;
   
   // these are true values (before any offset adjustment)
   private int mostPositive = Integer.MIN_VALUE;
@@ -174,6 +179,7 @@ public class IntHashSet implements PositiveIntSet {
     }
     sizeWhichTriggersExpansion = (int)(capacity * loadFactor);
     nbrRemoved = 0;
+    isFilledSlotsTracked = false;  // the slots of a new table are not logged
   }
 
   private void incrementSize() {
@@ -282,6 +288,10 @@ public class IntHashSet implements PositiveIntSet {
     resetHistogram();
     size = 0;
     nbrRemoved = 0;    
+    if (filledSlots != null) {
+      filledSlots.removeAllElements();
+      isFilledSlotsTracked = true;
+    }
   }
   
   @Override
@@ -310,6 +320,42 @@ public class IntHashSet implements PositiveIntSet {
    resetArray();
   }
 
+  /**
+   * Removes all the members, never shrinking the table.
+   * From the first call on, the slots filled are logged while they are few,
+   * and later calls empty just those slots instead of the whole table.
+   */
+  public void clearKeepingCapacity() {
+    secondTimeShrinkable = false;
+    if (filledSlots == null) {
+      filledSlots = new IntVector();
+      resetArray();
+      return;
+    }
+    if (!isFilledSlotsTracked) {
+      resetArray();
+      return;
+    }
+    for (int i = 0; i < filledSlots.size(); i++) {
+      if (keys4 == null) {
+        keys2[filledSlots.get(i)] = 0;
+      } else {
+        keys4[filledSlots.get(i)] = 0;
+      }
+    }
+    resetTable();
+  }
+
+  private void logFilledSlot(int slot) {
+    if (isFilledSlotsTracked) {
+      if (filledSlots.size() < (getCapacity() >> 3)) {
+        filledSlots.add(slot);
+      } else {
+        isFilledSlotsTracked = false;
+      }
+    }
+  }
+
   /** 
   * returns a position in the key/value table
   *   if the key is not found, then the position will be to the
@@ -475,6 +521,7 @@ public class IntHashSet implements PositiveIntSet {
           return false;
         }
         keys2[i] = (short) adjKey;
+        logFilledSlot(i);
         incrementSize();
         return true;
       }
@@ -487,6 +534,7 @@ public class IntHashSet implements PositiveIntSet {
       return false;
     }
     keys4[i] = rawKey;
+    logFilledSlot(i);
     incrementSize();
     return true;
   }
@@ -274,6 +274,17 @@ public class IntVector implements Serializable {
     this.pos = 0;
   }
   
+  /**
+   * Remove the elements at and after a position. Will not change current capacity.
+   * @param newSize the number of elements to keep, not more than the current size
+   */
+  public void truncate(int newSize) {
+    if (newSize < 0 || newSize > this.pos) {
+      throw new IndexOutOfBoundsException();
+    }
+    this.pos = newSize;
+  }
+
   public void removeAllElementsAdjustSizeDown() {
     removeAllElements();
     int len = array.length;
@@ -227,6 +227,22 @@ public class PositiveIntSet_impl implements PositiveIntSet {
     }   
   }
   
+  /**
+   * Removes all the members, keeping the current representation;
+   * unlike {@link #clear()}, this never shrinks a bit set or a hash set.
+   * A bit set clears only the words up to its highest set bit, and a hash set
+   * empties only the slots filled since the last clear, while they are few.
+   */
+  public void clearKeepingCapacity() {
+    if (null != intSet) {
+      if (isHashSet) {
+        ((IntHashSet) intSet).clearKeepingCapacity();
+      } else {
+        intSet.clear();
+      }
+    }
+  }
+
   /* (non-Javadoc)
    * @see org.apache.uima.internal.util.PositiveIntSetI#clear()
    */
@@ -19,10 +19,16 @@
 
 package org.apache.uima.internal.util;
 
-import java.util.Date;
+import java.lang.ref.WeakReference;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.resource.Resource;
@@ -42,6 +48,11 @@ import org.apache.uima.util.Level;
  * pool. All resources are assumed to be equivalent and to share the same metadata. Therefore, the
  * resource metadata can be retrieved via the {@link #getMetaData()} method without checking out a
  * Resource instance from the pool.
+ * <p>
+ * Check-out and check-in don't lock the pool: free instances are kept in a concurrent deque, and
+ * threads which have to wait for an instance queue up (first come, first served) on a fair
+ * semaphore. A thread is given back the instance it released last, if that one is free, so that
+ * the instance's data tends to still be in that thread's processor cache.
  * 
  * 
  * 
@@ -107,22 +118,14 @@ public class ResourcePool {
    * Checks out a Resource from the pool.
    * 
    * @return a Resource for use by the client. Returns <code>null</code> if none are available (in
-   *         which case the client may wait on this object in order to be notified when an instance
-   *         becomes available).
+   *         which case the client may use {@link #getResource(long)} to wait for one).
    */
-  public synchronized Resource getResource() {
-    if (!mFreeInstances.isEmpty()) {
-      Resource r = mFreeInstances.remove(0);
-      /*
-       * UIMAFramework.getLogger().log( "Acquired resource " + r.getMetaData().getUUID() + " from
-       * pool.");
-       */
-      return r;
-    } else {
+  public Resource getResource() {
+    if (!tryAcquireInTurn()) {
       // no instances available
-      // UIMAFramework.getLogger().log("No Resource instances currently available");
       return null;
     }
+    return getResourceAfterPermitAcquired();
   }
 
   /**
@@ -132,22 +135,29 @@ public class ResourcePool {
    * @param aResource
    *          the resource to release
    */
-  public synchronized void releaseResource(Resource aResource) {
+  public void releaseResource(Resource aResource) {
     // make sure this Resource was actually belongs to this pool and is checked out
-    if (!mAllInstances.contains(aResource) || mFreeInstances.contains(aResource)) {
+    final AtomicInteger state = mStates.get(aResource);
+    if (state == null || !state.compareAndSet(IN_USE, FREE)) {
       UIMAFramework.getLogger(CLASS_NAME).logrb(Level.WARNING, CLASS_NAME.getName(),
               "releaseResource", LOG_RESOURCE_BUNDLE, "UIMA_return_resource_to_pool__WARNING");
-    } else {
-      /*
-       * UIMAFramework.getLogger().log( "Returned resource " + aResource.getMetaData().getUUID() + "
-       * to the pool.");
-       */
-      // Add the Resource to the end of the free instances List
-      mFreeInstances.add(aResource);
+      return;
+    }
+    final WeakReference<Resource> last = mLastUsed.get();
+    if (last == null || last.get() != aResource) {
+      mLastUsed.set(new WeakReference<Resource>(aResource));
     }
+    // Add the Resource to the front of the free instances, where it is found first
+    mFreeInstances.addFirst(aResource);
+    mPermits.release();  // must follow adding the resource to mFreeInstances
+    mInUse.decrementAndGet();
 
-    // Notify any threads waiting on this object
-    notifyAll();
+    // Notify any threads waiting on this object in checkoutSpecificResource
+    if (mSpecificWaiters.get() > 0) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
   }
 
   /**
@@ -157,39 +167,113 @@ public class ResourcePool {
    * @param aTimeout
    *          the time to wait in milliseconds. A value of &lt;=0 will wait forever.
    * 
-   * @return a Resource for use by the client. Returns <code>null</code> if none are available (in
-   *         which case the client may wait on this object in order to be notified when an instance
-   *         becomes available).
+   * @return a Resource for use by the client. Returns <code>null</code> if none are available
+   *         within the specified timeout period.
    */
-  public synchronized Resource getResource(long aTimeout) {
-    long startTime = new Date().getTime();
-    Resource resource;
-    while ((resource = getResource()) == null) {
+  public Resource getResource(long aTimeout) {
+    if (!tryAcquireInTurn()) {
+      // have to wait
+      final long startTime = System.nanoTime();
       try {
-        wait(aTimeout);
-      } catch (InterruptedException e) {
+        if (aTimeout <= 0) {
+          mPermits.acquireUninterruptibly();
+        } else {
+          try {
+            if (!mPermits.tryAcquire(aTimeout, TimeUnit.MILLISECONDS)) {
+              // Timeout has expired
+              return null;
+            }
+          } catch (InterruptedException e) {
+            return null;
+          }
+        }
+      } finally {
+        mNumWaits.increment();
+        mTotalWaitNanos.add(System.nanoTime() - startTime);
+      }
+    }
+    return getResourceAfterPermitAcquired();
+  }
+  
+  /**
+   * Takes a permit if one is available and no thread is already waiting for one: unlike
+   * Semaphore.tryAcquire(), this doesn't barge ahead of the waiting threads.
+   * @return true if a permit was taken
+   */
+  private boolean tryAcquireInTurn() {
+    try {
+      return mPermits.tryAcquire(0, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();  // let the caller's wait, if any, see it
+      return false;
+    }
+  }
+  
+  // returns null if the pool has been destroyed
+  private Resource getResourceAfterPermitAcquired() {
+    Resource r = null;
+    // prefer the instance this thread used last
+    final WeakReference<Resource> last = mLastUsed.get();
+    if (last != null) {
+      r = last.get();
+      if (r != null && mFreeInstances.removeFirstOccurrence(r)) {
+        mNumAffinityHits.increment();
+      } else {
+        r = null;
+      }
+    }
+    if (r == null) {
+      // there is an instance in mFreeInstances for each permit taken and not yet used to 
+      // remove one, since instances are added before their permit is released
+      r = mFreeInstances.pollFirst();
+      if (r == null) {
+        return null;  // destroyed
       }
-      if (aTimeout > 0 && (new Date().getTime() - startTime) >= aTimeout) {
-        // Timeout has expired
-        return null;
+    }
+    final AtomicInteger state = mStates.get(r);
+    if (state == null) {
+      return null;  // destroyed
+    }
+    state.set(IN_USE);
+    mNumCheckouts.increment();
+    final int inUse = mInUse.incrementAndGet();
+    while (true) {
+      final int peak = mPeakInUse.get();
+      if (inUse <= peak || mPeakInUse.compareAndSet(peak, inUse)) {
+        break;
       }
     }
-    return resource;
+    return r;
   }
-
+  
   /*
    * Checks out a specific resource from the pool, waiting as long as needed until it is free
    * @param r
    */
 
-  public synchronized void checkoutSpecificResource(Resource r) {
-    while (!mFreeInstances.contains(r)) {
+  public void checkoutSpecificResource(Resource r) {
+    synchronized (this) {
+      mSpecificWaiters.incrementAndGet();
       try {
-        wait();
-      } catch (InterruptedException e) {
+        while (true) {
+          if (mPermits.tryAcquire()) {
+            if (mFreeInstances.removeFirstOccurrence(r)) {
+              mStates.get(r).set(IN_USE);
+              mNumCheckouts.increment();
+              mInUse.incrementAndGet();
+              return;
+            }
+            mPermits.release();
+          }
+          try {
+            wait();
+          } catch (InterruptedException e) {
+          }
+        }
+      } finally {
+        mSpecificWaiters.decrementAndGet();
       }
     }
-    mFreeInstances.remove(r);
   }
   
   /**
@@ -202,6 +286,7 @@ public class ResourcePool {
       current.destroy();
     }
     mAllInstances.clear();
+    mStates.clear();
     mFreeInstances.clear();
   }
 
@@ -224,6 +309,59 @@ public class ResourcePool {
     return mMetaData;
   }
 
+  /**
+   * @return the number of Resources currently checked out
+   */
+  public int getNumInUse() {
+    return mInUse.get();
+  }
+
+  /**
+   * @return the largest number of Resources checked out at the same time
+   */
+  public int getPeakInUse() {
+    return mPeakInUse.get();
+  }
+
+  /**
+   * @return the number of times a Resource was checked out
+   */
+  public long getNumCheckouts() {
+    return mNumCheckouts.sum();
+  }
+
+  /**
+   * @return the number of check-outs which got the same instance the thread released last
+   */
+  public long getNumAffinityHits() {
+    return mNumAffinityHits.sum();
+  }
+
+  /**
+   * @return the number of check-out requests which had to wait, including ones which timed out
+   */
+  public long getNumWaits() {
+    return mNumWaits.sum();
+  }
+
+  /**
+   * @return the total time check-out requests have waited, in nanoseconds
+   */
+  public long getTotalWaitTimeNanos() {
+    return mTotalWaitNanos.sum();
+  }
+
+  /**
+   * Resets the check-out statistics. The in-use count is not affected; the peak is set to it.
+   */
+  public void resetStatistics() {
+    mNumCheckouts.reset();
+    mNumAffinityHits.reset();
+    mNumWaits.reset();
+    mTotalWaitNanos.reset();
+    mPeakInUse.set(mInUse.get());
+  }
+
   /**
    * Utility method used in the constructor to fill the pool with Resource instances.
    * 
@@ -247,8 +385,10 @@ public class ResourcePool {
               aResourceClass, aResourceSpecifier, aResourceInitParams);
 
       mAllInstances.add(resource);
+      mStates.put(resource, new AtomicInteger(FREE));
       mFreeInstances.add(resource);
     }
+    mPermits.release(mNumInstances);
   }
 
   protected Vector<Resource> getAllInstances() {
@@ -256,12 +396,43 @@ public class ResourcePool {
   }
 
   protected Vector<Resource> getFreeInstances() {
-    return mFreeInstances;
+    return new Vector<Resource>(mFreeInstances);
   }
 
   private final Vector<Resource> mAllInstances = new Vector<Resource>();
 
-  private final Vector<Resource> mFreeInstances = new Vector<Resource>();
+  // states of the instances: IN_USE -> FREE is changed atomically on check-in, to catch an 
+  // instance being released twice; a thread checks out an instance by removing it from 
+  // mFreeInstances, which only one thread can do, and then sets it IN_USE
+  private final Map<Resource, AtomicInteger> mStates = new ConcurrentHashMap<Resource, AtomicInteger>();
+
+  private static final int IN_USE = 0;
+
+  private static final int FREE = 1;
+
+  // recently released instances at the front
+  private final ConcurrentLinkedDeque<Resource> mFreeInstances = new ConcurrentLinkedDeque<Resource>();
+
+  // one permit per free instance; fair, so waiting threads are served in order
+  private final Semaphore mPermits = new Semaphore(0, true);
+
+  // the instance each thread released last; weak, so threads don't keep a destroyed pool's instances
+  private final ThreadLocal<WeakReference<Resource>> mLastUsed = new ThreadLocal<WeakReference<Resource>>();
+
+  // threads in checkoutSpecificResource, which wait on this object's monitor
+  private final AtomicInteger mSpecificWaiters = new AtomicInteger(0);
+
+  private final AtomicInteger mInUse = new AtomicInteger(0);
+
+  private final AtomicInteger mPeakInUse = new AtomicInteger(0);
+
+  private final LongAdder mNumCheckouts = new LongAdder();
+
+  private final LongAdder mNumAffinityHits = new LongAdder();
+
+  private final LongAdder mNumWaits = new LongAdder();
+
+  private final LongAdder mTotalWaitNanos = new LongAdder();
 
   private final int mNumInstances;
 
@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.internal.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * A SAX ContentHandler which writes unformatted XML 1.0, encoded as UTF-8, straight to an
+ * OutputStream or a WritableByteChannel.
+ * <p>
+ * Unlike going through a JAXP Transformer (see {@link org.apache.uima.util.XMLSerializer}), this
+ * does the escaping and encoding itself into one byte buffer, which is kept when the instance is
+ * reused for the next document via {@link #setOutput(OutputStream)} or
+ * {@link #setOutput(WritableByteChannel)}.
+ * <p>
+ * Characters which are not allowed in XML 1.0 cause a SAXParseException, as with the
+ * XMLSerializer's content handler.
+ * <p>
+ * Not thread-safe; use one instance per thread.
+ */
+public class Utf8XMLWriter implements ContentHandler {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  // the longest expansion of one char: "&quot;" or a 4 byte surrogate pair
+  private static final int MAX_CHAR_BYTES = 6;
+
+  private static final byte[] XML_DECL = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+  private final byte[] buf = new byte[BUFFER_SIZE];
+
+  private final ByteBuffer bb = ByteBuffer.wrap(buf);
+
+  private int pos;
+
+  private OutputStream os;
+
+  private WritableByteChannel channel;
+
+  /** true after a start tag was written up to its attributes, but not yet closed by "&gt;" */
+  private boolean startTagOpen;
+
+  /** prefix, uri pairs from startPrefixMapping, to be declared on the next element */
+  private final List<String> pendingPrefixMappings = new ArrayList<String>();
+
+  public Utf8XMLWriter() {
+  }
+
+  public Utf8XMLWriter(OutputStream os) {
+    setOutput(os);
+  }
+
+  public Utf8XMLWriter(WritableByteChannel channel) {
+    setOutput(channel);
+  }
+
+  /**
+   * @param aOs where the next document is written. It is flushed, but not closed, at endDocument.
+   */
+  public void setOutput(OutputStream aOs) {
+    os = aOs;
+    channel = null;
+  }
+
+  /**
+   * @param aChannel where the next document is written. It is not closed at endDocument.
+   */
+  public void setOutput(WritableByteChannel aChannel) {
+    channel = aChannel;
+    os = null;
+  }
+
+  @Override
+  public void setDocumentLocator(Locator locator) {
+  }
+
+  @Override
+  public void startDocument() throws SAXException {
+    pos = 0;
+    startTagOpen = false;
+    pendingPrefixMappings.clear();
+    writeBytes(XML_DECL);
+  }
+
+  @Override
+  public void endDocument() throws SAXException {
+    closeStartTag();
+    flushBuffer();
+    if (os != null) {
+      try {
+        os.flush();
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+  }
+
+  @Override
+  public void startPrefixMapping(String prefix, String uri) {
+    pendingPrefixMappings.add(prefix);
+    pendingPrefixMappings.add(uri);
+  }
+
+  @Override
+  public void endPrefixMapping(String prefix) {
+  }
+
+  @Override
+  public void startElement(String uri, String localName, String qName, Attributes atts)
+          throws SAXException {
+    closeStartTag();
+    writeByte('<');
+    writeName(qName, localName);
+    final int nbrAtts = atts.getLength();
+    for (int i = 0; i < nbrAtts; i++) {
+      writeAttribute(atts.getQName(i), atts.getLocalName(i), atts.getValue(i));
+    }
+    // declare prefixes which the caller mapped without passing the xmlns attribute
+    for (int i = 0; i < pendingPrefixMappings.size(); i += 2) {
+      final String prefix = pendingPrefixMappings.get(i);
+      final String attName = (prefix.length() == 0) ? "xmlns" : "xmlns:" + prefix;
+      if (atts.getIndex(attName) < 0) {
+        writeAttribute(attName, null, pendingPrefixMappings.get(i + 1));
+      }
+    }
+    pendingPrefixMappings.clear();
+    startTagOpen = true;
+  }
+
+  @Override
+  public void endElement(String uri, String localName, String qName) throws SAXException {
+    if (startTagOpen) {
+      writeByte('/');
+      writeByte('>');
+      startTagOpen = false;
+    } else {
+      writeByte('<');
+      writeByte('/');
+      writeName(qName, localName);
+      writeByte('>');
+    }
+  }
+
+  @Override
+  public void characters(char[] ch, int start, int length) throws SAXException {
+    closeStartTag();
+    final int index = XMLUtils.checkForNonXmlCharacters(ch, start, length, false);
+    if (index >= 0) {
+      throw invalidChar(ch[index], index - start, new String(ch, start, Math.min(index - start, 100)));
+    }
+    final int end = start + length;
+    for (int i = start; i < end; i++) {
+      final char c = ch[i];
+      switch (c) {
+        case '<': writeAscii("&lt;"); break;
+        case '>': writeAscii("&gt;"); break;
+        case '&': writeAscii("&amp;"); break;
+        case '\r': writeAscii("&#13;"); break;
+        default:
+          if (Character.isHighSurrogate(c) && i + 1 < end) {
+            writeChar(c, ch[++i]);
+          } else {
+            writeChar(c, (char) 0);
+          }
+      }
+    }
+  }
+
+  @Override
+  public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+    characters(ch, start, length);
+  }
+
+  @Override
+  public void processingInstruction(String target, String data) throws SAXException {
+    closeStartTag();
+    writeAscii("<?");
+    writeString(target);
+    if (data != null && data.length() > 0) {
+      writeByte(' ');
+      writeString(data);
+    }
+    writeAscii("?>");
+  }
+
+  @Override
+  public void skippedEntity(String name) {
+  }
+
+  private void writeName(String qName, String localName) throws SAXException {
+    writeString((qName == null || qName.length() == 0) ? localName : qName);
+  }
+
+  private void writeAttribute(String qName, String localName, String value) throws SAXException {
+    final int index = XMLUtils.checkForNonXmlCharacters(value, false);
+    if (index >= 0) {
+      throw invalidChar(value.charAt(index), index, value.substring(0, Math.min(index, 100)));
+    }
+    writeByte(' ');
+    writeName(qName, localName);
+    writeByte('=');
+    writeByte('"');
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '<': writeAscii("&lt;"); break;
+        case '&': writeAscii("&amp;"); break;
+        case '"': writeAscii("&quot;"); break;
+        case '\n': writeAscii("&#10;"); break;
+        case '\r': writeAscii("&#13;"); break;
+        case '\t': writeAscii("&#9;"); break;
+        default:
+          if (Character.isHighSurrogate(c) && i + 1 < length) {
+            writeChar(c, value.charAt(++i));
+          } else {
+            writeChar(c, (char) 0);
+          }
+      }
+    }
+    writeByte('"');
+  }
+
+  private void closeStartTag() throws SAXException {
+    if (startTagOpen) {
+      writeByte('>');
+      startTagOpen = false;
+    }
+  }
+
+  /**
+   * Writes a string which needs no escaping, such as a name
+   */
+  private void writeString(String s) throws SAXException {
+    final int length = s.length();
+    for (int i = 0; i < length; i++) {
+      final char c = s.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < length) {
+        writeChar(c, s.charAt(++i));
+      } else {
+        writeChar(c, (char) 0);
+      }
+    }
+  }
+
+  private void writeAscii(String s) throws SAXException {
+    ensureSpace(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      buf[pos++] = (byte) s.charAt(i);
+    }
+  }
+
+  /**
+   * @param c the char to write
+   * @param low the low surrogate following c, if c is a high surrogate, otherwise ignored
+   */
+  private void writeChar(char c, char low) throws SAXException {
+    ensureSpace(MAX_CHAR_BYTES);
+    if (c < 0x80) {
+      buf[pos++] = (byte) c;
+    } else if (c < 0x800) {
+      buf[pos++] = (byte) (0xC0 | (c >> 6));
+      buf[pos++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+      final int cp = Character.toCodePoint(c, low);
+      buf[pos++] = (byte) (0xF0 | (cp >> 18));
+      buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+      buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+      buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+    } else {
+      buf[pos++] = (byte) (0xE0 | (c >> 12));
+      buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      buf[pos++] = (byte) (0x80 | (c & 0x3F));
+    }
+  }
+
+  private void writeByte(char c) throws SAXException {
+    ensureSpace(1);
+    buf[pos++] = (byte) c;
+  }
+
+  private void writeBytes(byte[] bytes) throws SAXException {
+    ensureSpace(bytes.length);
+    System.arraycopy(bytes, 0, buf, pos, bytes.length);
+    pos += bytes.length;
+  }
+
+  private void ensureSpace(int n) throws SAXException {
+    if (pos + n > buf.length) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() throws SAXException {
+    try {
+      if (channel != null) {
+        bb.clear();
+        bb.limit(pos);
+        while (bb.hasRemaining()) {
+          channel.write(bb);
+        }
+      } else {
+        os.write(buf, 0, pos);
+      }
+    } catch (IOException e) {
+      throw new SAXException(e);
+    }
+    pos = 0;
+  }
+
+  private static SAXParseException invalidChar(char c, int index, String startStr) {
+    String msg = String.format(
+        "Trying to serialize non-XML 1.0 character: 0x%x at offset %,d in string starting with %s",
+        (int) c, index, (index == 0) ? "[The Very First Character]" : startStr);
+    return new SAXParseException(msg, null);
+  }
+
+  private static byte[] ascii(String s) {
+    byte[] r = new byte[s.length()];
+    for (int i = 0; i < r.length; i++) {
+      r[i] = (byte) s.charAt(i);
+    }
+    return r;
+  }
+}
@@ -35,10 +35,13 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 /**
@@ -57,6 +60,15 @@ public abstract class XMLUtils {
   private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
   private static final String EXTERNAL_GENERAL_ENTITIES = "http://xml.org/sax/features/external-general-entities";
   private static final String EXTERNAL_PARAMETER_ENTITIES = "http://xml.org/sax/features/external-parameter-entities";
+  
+  /**
+   * An XMLReader per thread, reused by {@link #parse(InputSource, ContentHandler)}.
+   * Set to null while the reader is in use, so nested parses on the same thread get their own.
+   */
+  private static final ThreadLocal<XMLReader> cachedXMLReader = new ThreadLocal<XMLReader>();
+  
+  private static final ContentHandler NO_CONTENT_HANDLER = new DefaultHandler();
+  
   /**
    * Normalizes the given string for output to XML. This converts all special characters, e.g. &lt;,
    * %gt;, &amp;, to their XML representations, e.g. &amp;lt;, &amp;gt;, &amp;amp;. The normalized
@@ -606,6 +618,32 @@ public abstract class XMLUtils {
     return xmlReader;
   }
   
+  /**
+   * Parses the input with an XMLReader set up like the one from {@link #createXMLReader()}.  
+   * The reader is kept per thread and reused by later calls on the same thread, 
+   * which saves looking up and configuring a parser for each document.
+   * 
+   * @param input the XML
+   * @param handler receives the SAX events
+   * @throws SAXException if an XML Parsing error occurs
+   * @throws IOException if an I/O failure occurs
+   */
+  public static void parse(InputSource input, ContentHandler handler) throws SAXException, IOException {
+    XMLReader xmlReader = cachedXMLReader.get();
+    if (null == xmlReader) {
+      xmlReader = createXMLReader();
+    } else {
+      cachedXMLReader.set(null);
+    }
+    try {
+      xmlReader.setContentHandler(handler);
+      xmlReader.parse(input);
+    } finally {
+      xmlReader.setContentHandler(NO_CONTENT_HANDLER);  // don't keep the handler (and its CAS) reachable
+      cachedXMLReader.set(xmlReader);
+    }
+  }
+  
   public static SAXTransformerFactory createSaxTransformerFactory() {
     SAXTransformerFactory saxTransformerFactory = (SAXTransformerFactory) SAXTransformerFactory.newInstance();    
     try {
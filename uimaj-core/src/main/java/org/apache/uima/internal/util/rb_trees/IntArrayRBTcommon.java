@@ -197,6 +197,13 @@ public class IntArrayRBTcommon {
     this.size = 0;
   }
 
+  /**
+   * Like {@link #flush()}, but keeps the storage for reuse, however big it grew.
+   */
+  public void flushKeepingCapacity() {
+    initVars();
+  }
+
   public void flush() {
     // All we do for flush is set the root to NIL and the size to 0.
     initVars();
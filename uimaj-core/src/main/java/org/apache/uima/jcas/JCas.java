@@ -151,7 +151,9 @@ public interface JCas extends AbstractCas {
   public abstract void putJfsFromCaddr(int casAddr, FeatureStructure fs);
 
   /*
-   * Internal Use - sets the corresponding Java instance for a Cas instance
+   * Internal Use - gets the corresponding Java instance for a Cas instance. If there is none, 
+   * returns null and reserves it: the caller must then make one and set it with putJfsFromCaddr,
+   * and other threads getting it wait until then.
    */
   public abstract <T extends TOP> T getJfsFromCaddr(int casAddr);
 
@@ -47,19 +47,9 @@ import org.apache.uima.internal.util.Utilities;
  *    version 1 at load factor .5 ran about 570 ms * 1.x 
  *      (did 2 lookups for fetches if not found,) 
  *   
- * No "get" method, only getReserve.  This method, if it doesn't
- * find the key, eventually finds an empty (null) slot - it then
- * stores a special "reserve" item with the same key value in that slot.
- *    Other threads doing getReserve calls, upon encountering this 
- *    reserve item, wait until the reserve is converted to a
- *    real value (a notifyAll happens when this is done), and
- *    then the getReserve returns the real item.
- *    
- * getReserve calls - when they find the item operate without any locking
- *    
- * Locking:
- *   There is one lock used for reading and updating the table
- *     -- not used for reading when item found, only if item not found or is reserved  
+ * Gets and puts don't lock: a put claims a slot with a compare-and-set on it.
+ *   Only resizing a sub-map takes a lock, on that sub-map; puts into a sub-map being
+ *   resized wait for it to finish.  Gets never wait.
  * 
  * Strategy: have 1 outer implementation delegating to multiple inner ones
  *   number = concurrency level (a power of 2)
@@ -77,29 +67,28 @@ import org.apache.uima.internal.util.Utilities;
  * which can result in updates to the JCasHashMap which occur before this original update occurs.
  * <p>
  * In a multi-threaded environment, multiple threads can do a "get" 
- * for the same Feature Structure instance.  If it's not in the Map, the correct behavior is:
- * <p>
- * one of the threads adds the new element
- * the other threads wait for the one thread to finish adding, and then return the object that the one thread added.
+ * for the same Feature Structure instance.  The JCasGenerated classes use getReserve:
+ * if the value isn't in the Map, the first thread reserves its slot, and the others wait
+ * until that thread puts the value.  The framework's generators use get, which doesn't wait,
+ * and then putIfAbsent: the first one is kept, and the other threads use it instead of the one 
+ * they made, so there is one cover object per Feature Structure.
  * <p>
  * The implementation works as follows:
  * <p>
  * 1) The JCasHashMap is split into "n" sub-maps.   
  *    The number is the number of cores, but grows more slowly as the # of cores &gt; 16. 
  *    This number can be specified, but this is not currently exposed in the tuning parameters
- *    Locking occurs on the sub-maps; the outer method calls are not synchronized
+ *    Resizing locks the sub-map being resized; the outer method calls are not synchronized
  * 2) The number of sub maps is rounded to a power of 2, to allow the low order bits of the hash of the key 
- *     to be used to pick the map (via masking).
- * 3) A getReserve that results in not-found returns a null, but adds to the table a special reserved element.
- * 3a) This adding may result in table resizing
- * 4) A getReserve that finds a special reserved element, knows that some other thread 
- *    is in the process of adding an entry for that key, so it waits.
- * 5) A put, if it finds a reserved-for-that-key element, replaces that with the real element, 
- *    and then does a notifyAll to wake up any threads that were waiting (on this sub-map), 
- *    and these threads then re-do the get.  Multiple threads could be waiting on this, and they will all 
- *    wake-up.
- * <p>
- * All calls are of the getReserved, followed by a put if the getReserved returns null.
+ *    to be used to pick the map (via masking).
+ * 3) A get that results in not-found returns a null, without changing the table.
+ *    A getReserve that results in not-found reserves the slot, like a putIfAbsent of a reserve entry.
+ * 4) A putIfAbsent that finds a value for the key returns it, without changing the table. 
+ *    If it finds a reserve entry, it waits, under the sub-map lock, until the value is put.
+ *    Otherwise, it (like put) takes the empty slot at the end of the probe sequence with a compare-and-set, 
+ *    and looks again if another thread took it first.
+ * 4a) This adding may result in table resizing
+ * 5) A put replacing a reserve entry signals the threads waiting for it, under the sub-map lock.
  *
  * (Experiment - disabled after no change noted
  * To improve locality of reference, an aux data structure of size to fit in one cache line of a Power7 (128 bytes)
@@ -266,11 +255,18 @@ public class JCasHashMap {
   //   shrink if current number of entries
   //      wouldn't trigger an expansion if the size was reduced by 1/2 
   public synchronized void clear() {
+    clear(false);
+  }
+
+  /**
+   * @param isKeepingCapacity true to never shrink the map, as for lightweight CAS resets
+   */
+  public synchronized void clear(boolean isKeepingCapacity) {
     if (!this.useCache) {
       return;
     }
     for (JCasHashMapSubMap m : subMaps) {
-      m.clear();
+      m.clear(isKeepingCapacity);
     }
 //    Arrays.fill(cacheFS,  null);
 //    Arrays.fill(cacheInt, 0);
@@ -280,7 +276,11 @@ public class JCasHashMap {
     return (null != oneSubmap) ? oneSubmap : subMaps[hash & concurrencyBitmask];
   }
   
-  public FeatureStructureImpl getReserve(int key) {
+  /**
+   * @param key the address of a Feature Structure
+   * @return its cover object, or null if there is none in this map, or it is reserved and not yet put
+   */
+  public FeatureStructureImpl get(int key) {
     if (!this.useCache) {
       return null;
     }
@@ -315,12 +315,27 @@ public class JCasHashMap {
 //      cacheMisses.incrementAndGet();  // includes creates
 //    }
     final int hash = hashInt(key);
-    final FeatureStructureImpl r = getSubMap(hash).getReserve(key, hash >>> concurrencyLevelBits);
+    final FeatureStructureImpl r = getSubMap(hash).get(key, hash >>> concurrencyLevelBits);
     
 //    if (r != null) {
 //      updateCache(key, r);
 //    }
-    return r;
+    return JCasHashMapSubMap.isReserve(r) ? null : r;
+  }
+
+  /**
+   * Like get, but if there is no cover object for the key, reserves its slot: the caller must then
+   * put the cover object, and other getReserve calls for the key wait until it does.
+   * 
+   * @param key the address of a Feature Structure
+   * @return its cover object, or null if there was none in this map and the slot was reserved
+   */
+  public FeatureStructureImpl getReserve(int key) {
+    if (!this.useCache) {
+      return null;
+    }
+    final int hash = hashInt(key);
+    return getSubMap(hash).getReserve(key, hash >>> concurrencyLevelBits);
   }
 
 //  private void updateCache(int key, FeatureStructureImpl value) {
@@ -330,6 +345,10 @@ public class JCasHashMap {
 //    cacheInt[cacheNewIndex] = key;
 //  }
   
+  /**
+   * @param value a cover object, replacing the one for the same Feature Structure, if any
+   * @return the cover object replaced, or null
+   */
   public FeatureStructureImpl put(FeatureStructureImpl value) {
     if (!this.useCache) {
       return null;
@@ -340,6 +359,21 @@ public class JCasHashMap {
     return getSubMap(hash).put(key, value, hash >>> concurrencyLevelBits);
   }
     
+  /**
+   * If the Feature Structure is reserved by a getReserve, waits for its cover object to be put.
+   * 
+   * @param value a cover object, added unless there is one already for the same Feature Structure
+   * @return the cover object already there, to be used instead of value, or null if value was added
+   */
+  public FeatureStructureImpl putIfAbsent(FeatureStructureImpl value) {
+    if (!this.useCache) {
+      return null;
+    }
+    final int key = value.getAddress();
+    final int hash = hashInt(key);
+    return getSubMap(hash).putIfAbsent(key, value, hash >>> concurrencyLevelBits);
+  }
+    
   // The hash function is derived from murmurhash3 32 bit, which
   // carries this statement:
   
@@ -374,7 +408,7 @@ public class JCasHashMap {
     int[] r = new int[subMaps.length];
     int i = 0;
     for (JCasHashMapSubMap subMap : subMaps) {
-      r[i++] = subMap.table.length;
+      r[i++] = subMap.table.length();
     }
     return r;
   }
@@ -382,7 +416,7 @@ public class JCasHashMap {
   int getCapacity() {
     int r = 0;
     for (JCasHashMapSubMap subMap : subMaps) {
-      r += subMap.table.length;
+      r += subMap.table.length();
     }
     return r;    
   }
@@ -391,9 +425,7 @@ public class JCasHashMap {
   int getApproximateSize() {
     int s = 0;
     for (JCasHashMapSubMap subMap : subMaps) {
-      synchronized (subMap) {
-        s += subMap.size;
-      }
+      s += subMap.size();
     }
     return s;
   }
@@ -411,12 +443,12 @@ public class JCasHashMap {
         }
         
         System.out.format(
-            "Histogram %d of number of probes, loadfactor = %.1f, maxProbe=%,d afterContinue=%,d nbr regs=%,d nbrContinues=%,d%n",
-            sm, loadFactor, m.maxProbe, m.maxProbeAfterContinue, sumI, m.continues);
+            "Histogram %d of number of probes, loadfactor = %.1f, maxProbe=%,d nbr regs=%,d%n",
+            sm, loadFactor, m.maxProbe, sumI);
         for (int i = 0; i <= m.maxProbe; i++) {
           System.out.println(i + ": " + m.histogram[i]);
         }     
-        agg_tableLength += m.table.length;
+        agg_tableLength += m.table.length();
       }
       
       System.out.println("bytes / entry = " + (float) (agg_tableLength) * 4 / getApproximateSize());
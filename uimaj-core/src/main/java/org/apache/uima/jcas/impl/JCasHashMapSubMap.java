@@ -20,6 +20,8 @@
 package org.apache.uima.jcas.impl;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -27,16 +29,34 @@ import org.apache.uima.cas.impl.FeatureStructureImpl;
 import org.apache.uima.jcas.cas.TOP;
 import org.apache.uima.jcas.cas.TOP_Type;
 
+/**
+ * One of the sub-maps of a JCasHashMap: an open addressing table, probed with increasing steps
+ * from the slot given by the hash.
+ * 
+ * Threading: gets and puts don't lock. A put claims an empty slot, or replaces the value in the slot
+ * holding its key, with a compare-and-set on that slot. Entries are never removed, except by
+ * clear, which is only called when no other thread uses the map (on CAS reset).
+ * 
+ * Resizing is done under a lock, by one thread. It links the new table to the old one,
+ * then copies the entries slot by slot, replacing each slot of the old table with the MOVED marker.
+ * Gets finding a MOVED slot go on in the new table, perhaps before the entry they look for has been
+ * copied, and so can miss an entry being moved. Puts finding a MOVED slot wait for the resizing to
+ * finish, then go on in the new table; so putIfAbsent always sees an entry which was put before,
+ * and there is one value per key, even when several threads make a value for the same key at once.
+ * 
+ * getReserve, used by the JCas generated code which does a get then a put, puts a reserve entry for
+ * a key not found, so other getReserve calls for it wait for the put instead of making a second
+ * value. Waiting (also done by putIfAbsent finding a reserve) is under the lock, which is taken by
+ * the put replacing a reserve to signal the waiters.
+ */
 class JCasHashMapSubMap {
   
   // set to true to collect statistics for tuning
   // you have to also put a call to jcas.showJfsFromCaddrHistogram() at the end of the run
   private static final boolean TUNE = JCasHashMap.TUNE;
 
-  
-  private static final int PROBE_ADDR_INDEX = 0;
-  private static final int PROBE_DELTA_INDEX = 1;
-
+  // replaces the entries of a table being resized, once they're copied to the next table
+  private static final FeatureStructureImpl MOVED = new TOP(0, null);
 
   private static class ReserveTopType extends TOP_Type {
     public ReserveTopType() {
@@ -47,27 +67,53 @@ class JCasHashMapSubMap {
   // package private for test case use
   static final TOP_Type RESERVE_TOP_TYPE_INSTANCE = new ReserveTopType(); 
 
-  static final ThreadLocal<int[]> probeInfoGet = new ThreadLocal<int[]>() {
-    protected int[] initialValue() { return new int[2]; } };
-      
-  static final ThreadLocal<int[]> probeInfoPut = new ThreadLocal<int[]>() {
-    protected int[] initialValue() { return new int[2]; } };
+  /**
+   * A table and its number of entries; the next table, if being resized or resized
+   * 
+   * The slots filled since the last clear are logged, in the order their entries were counted,
+   * until the log is full; clear then empties just those slots instead of the whole table.
+   */
+  static final class Table {
+    final AtomicReferenceArray<FeatureStructureImpl> slots;
+    final AtomicInteger size = new AtomicInteger(0);
+    final int sizeWhichTriggersExpansion;
+    final int[] filledSlots;  // each put writes the entry for its own count, so no two threads write the same entry
+    volatile Table next;  // set before any slot is MOVED
+
+    Table(int capacity, float loadFactor) {
+      assert(Integer.bitCount(capacity) == 1);
+      slots = new AtomicReferenceArray<FeatureStructureImpl>(capacity);
+      sizeWhichTriggersExpansion = (int)(capacity * loadFactor);
+      filledSlots = new int[capacity >>> 3];
+    }
 
-  static final ThreadLocal<int[]> probeInfoPutInner = new ThreadLocal<int[]>() {
-    protected int[] initialValue() { return new int[2]; } };
+    /**
+     * Counts a newly filled slot, logging it if the log has room
+     * @param slot the index of the slot
+     * @return the new number of entries
+     */
+    int countFilledSlot(int slot) {
+      final int newSize = size.incrementAndGet();
+      if (newSize <= filledSlots.length) {
+        filledSlots[newSize - 1] = slot;
+      }
+      return newSize;
+    }
 
-  //These are for tuning measurements
+    int length() {
+      return slots.length();
+    }
+  }
+
+  //These are for tuning measurements, not thread safe
   int histogram [];
   int maxProbe = 0;
-  int maxProbeAfterContinue = 0;
-  int continues = 0;;
 
+  // for resizing and clearing, and waiting for reserved entries to be filled in
   private final ReentrantLock lock = new ReentrantLock();
   private final Condition lockCondition = lock.newCondition();
   
-  private int sizeWhichTriggersExpansion;
-  int size; // number of elements in the table  
-  volatile FeatureStructureImpl [] table;
+  volatile Table table;
   private boolean secondTimeShrinkable = false;
   
   private final float loadFactor;
@@ -81,338 +127,298 @@ class JCasHashMapSubMap {
     newTable(subMapInitialCapacity);
   }
   
-  private JCasHashMapSubMap newTable(int capacity) {
-    table = newTableKeepSize(capacity);
-    size = 0;
+  private void newTable(int capacity) {
+    table = new Table(capacity, loadFactor);
     if (TUNE) {
       histogram = new int[200];
       Arrays.fill(histogram, 0);
     }
-    return this;
-  }
-  
-  private FeatureStructureImpl[] newTableKeepSize(int capacity) {
-    assert(Integer.bitCount(capacity) == 1);
-    FeatureStructureImpl[] t = new FeatureStructureImpl[capacity];
-    sizeWhichTriggersExpansion = (int)(capacity * loadFactor);
-    return t;
   }
   
-  private void incrementSize() {
-    assert(lock.getHoldCount() > 0);
-    if (size >= sizeWhichTriggersExpansion) {
-      increaseTableCapacity();
-    }
-    size++;
+  int size() {
+    return table.size.get();
   }
   
-  // Does size management - shrinking overly large tables after the 2nd time
-  void clear() {
+  // Does size management - shrinking overly large tables after the 2nd time, unless keeping capacity
+  // Only called when no other thread uses the map
+  void clear(boolean isKeepingCapacity) {
     lock.lock();
     try {
+      final Table t = table;
+      final int size = t.size.get();
       // see if size is less than the 1/2 size that triggers expansion
-      if (size <  (sizeWhichTriggersExpansion >>> 1)) {
+      if (isKeepingCapacity) {
+        secondTimeShrinkable = false;
+      } else if (size <  (t.sizeWhichTriggersExpansion >>> 1)) {
         // if 2nd time then shrink by 50%
         //   this is done to avoid thrashing around the threshold
         if (secondTimeShrinkable) {
           secondTimeShrinkable = false;
-          final int newCapacity = Math.max(subMapInitialCapacity, table.length >>> 1);
-          if (newCapacity < table.length) { 
+          final int newCapacity = Math.max(subMapInitialCapacity, t.length() >>> 1);
+          if (newCapacity < t.length()) { 
             newTable(newCapacity);  // shrink table by 50%
-          } else { // don't shrink below minimum
-            Arrays.fill(table,  null);
+            return;
           }
-          size = 0;
-          return;
+          // else don't shrink below minimum
         } else {
           secondTimeShrinkable = true;
         }
       } else {
         secondTimeShrinkable = false; // reset this to require 2 triggers in a row
       }
-      size = 0;
-      Arrays.fill(table, null);
+      if (size > 0) {
+        final AtomicReferenceArray<FeatureStructureImpl> slots = t.slots;
+        if (size <= t.filledSlots.length) {
+          final int[] filledSlots = t.filledSlots;
+          for (int i = 0; i < size; i++) {
+            slots.lazySet(filledSlots[i], null);
+          }
+        } else {
+          for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, null);
+          }
+        }
+        t.size.set(0);
+      }
     } finally {
       lock.unlock();
     }
   }      
    
   /**
-   * Can be called under lock or not.
-   * It gets a ref to the current value of table, and then searches that int array.
-   *   If, during the search, the table is resized, it continues using the
-   *   ** before the resize ** int array referenced by localTable 
-   *     The answer will only be OK if the key is found for a real value.  
-   *     Results that yield null or Reserved slots must be re-searched, 
-   *     under a lock (caller needs to do this).
-   * @param key -
-   * @param hash -
-   * @param probeInfo - used to get/receive multiple int values;
-   *    0: (in/out) startProbe or -1, 
-   *    1: (in/out) probeDelta (starts at 1)
-   * @return the probeAddr in original table (which might have been resized)
+   * @param key - the addr in the heap
+   * @param hash - the hash that was already computed from the key
+   * @return - the found fs or reserve entry, or null
    */
-  private FeatureStructureImpl find(final FeatureStructureImpl[] localTable, final int key, final int hash, final int[] probeInfo) {
-    final int bitMask = localTable.length - 1;
-    final int startProbe = probeInfo[PROBE_ADDR_INDEX];      
-    final int probeAddr = (startProbe < 0) ? (hash & bitMask) : startProbe; 
-    final FeatureStructureImpl m = localTable[probeAddr];
-    // fast paths 
-    if (m == null) {
-      // not in table
-      setProbeInfo(probeInfo, probeAddr, 0);
-      return m;  // returns null
-    }
-    
-    if (m.getAddress() == key) {
-      setProbeInfo(probeInfo, probeAddr, 0);
-      if (TUNE) {
-        updateHistogram(1, probeInfo[PROBE_ADDR_INDEX] != -1);
+  FeatureStructureImpl get(final int key, final int hash) {
+    Table t = table;
+  nextTable:
+    while (true) {
+      final AtomicReferenceArray<FeatureStructureImpl> slots = t.slots;
+      final int bitMask = slots.length() - 1;
+      int probeAddr = hash & bitMask;
+      int probeDelta = 1;
+      while (true) {
+        final FeatureStructureImpl m = slots.get(probeAddr);
+        if (m == null) {
+          return null;
+        }
+        if (m == MOVED) {
+          t = t.next;
+          continue nextTable;
+        }
+        if (m.getAddress() == key) {
+          if (TUNE) {
+            updateHistogram(probeDelta);
+          }
+          return m;
+        }
+        if (probeDelta > bitMask) {
+          return null;  // table full, being resized
+        }
+        probeAddr = bitMask & (probeAddr + (probeDelta++));
       }
-      return m;
     }
-    
-    return find2(localTable, key, probeInfo, probeAddr);
   }
 
-  private FeatureStructureImpl find2(final FeatureStructureImpl[] localTable, final int key, final int[] probeInfo, int probeAddr) {
-    final boolean isContinue = TUNE && (probeInfo[PROBE_ADDR_INDEX] != -1); 
-    final int bitMask = localTable.length - 1;
-//    assert((startProbe < 0) ? probeInfo[PROBE_DELTA_INDEX] == 1 : true);
-    int probeDelta = probeInfo[PROBE_DELTA_INDEX];
-    int nbrProbes = 2;  
-    probeAddr = bitMask & (probeAddr + (probeDelta++));
-    FeatureStructureImpl m = localTable[probeAddr];
-
-    while (null != m) {  // loop to traverse bucket chain
-      if (m.getAddress() == key) {
-        setProbeInfo(probeInfo, probeAddr, 0);
-        if (TUNE) {
-          updateHistogram(nbrProbes, isContinue); 
-        }
-        return m;
-      }
-      nbrProbes++;
-      probeAddr = bitMask & (probeAddr + (probeDelta++));
-      m = localTable[probeAddr];
+  /**
+   * Gets a value, but if the value isn't there, reserves the slot where it will go
+   * with a new instance where the key matches, but the type is a unique value.
+   * The caller then puts the value; other getReserve calls for the key wait until then.
+   * 
+   * @param key - the addr in the heap
+   * @param hash - the hash that was already computed from the key
+   * @return - the found fs, or null if the slot was reserved by this call
+   */
+  FeatureStructureImpl getReserve(final int key, final int hash) {
+    final FeatureStructureImpl m = get(key, hash);
+    if (isReal(m)) {
+      return m;  // fast path for found item
     }
-    setProbeInfo(probeInfo, probeAddr, probeDelta);
-    return m;  // returns null    
+    return putIfAbsent(key, new TOP(key, RESERVE_TOP_TYPE_INSTANCE), hash);
   }
-  
-  private void updateHistogram(int nbrProbes, boolean isContinue) {
-    
-    /* LOCK if not already, to update stats */
-    final boolean needUnlock;
-    if (!lock.isHeldByCurrentThread()) {
+
+  /**
+   * @param key - the addr in the heap
+   * @param value - the value for the key, replacing the one there, if any
+   * @param hash - the hash that was already computed from the key
+   * @return - the value which was there for the key, or null if none or reserved
+   */
+  FeatureStructureImpl put(final int key, final FeatureStructureImpl value, final int hash) {
+    final FeatureStructureImpl prevValue = put(key, value, hash, false);
+    if (isReserve(prevValue)) {
       lock.lock();
-      needUnlock = true;
-    } else {
-      needUnlock = false;
+      try {
+        lockCondition.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      return null;
     }
-    
-    try {
-      histogram[nbrProbes] += 1;
-      if (maxProbe < nbrProbes) {
-        maxProbe = nbrProbes;
+    return prevValue;
+  }
+
+  /**
+   * If the key is reserved, waits for the value to be put.
+   * 
+   * @param key - the addr in the heap
+   * @param value - the value for the key, unless there is one already
+   * @param hash - the hash that was already computed from the key
+   * @return - the value which was there for the key, or null if value was put
+   */
+  FeatureStructureImpl putIfAbsent(final int key, final FeatureStructureImpl value, final int hash) {
+    while (true) {
+      final FeatureStructureImpl m = put(key, value, hash, true);
+      if (!isReserve(m)) {
+        return m;
       }
-      if (isContinue) {
-        if (maxProbeAfterContinue < nbrProbes) {
-          maxProbeAfterContinue = nbrProbes;
+      lock.lock();
+      try {
+        // tables are not resized while the lock is held, so get doesn't miss the entry
+        while (isReserve(get(key, hash))) {
+          lockCondition.awaitUninterruptibly();
         }
-        continues ++;
-      }
-    } finally {
-      if (needUnlock) {
+      } finally {
         lock.unlock();
       }
     }
-
   }
-  
+
   /**
-   * Gets a value, but if the value isn't there, it reserves the slot where it will go
-   * with a new instance where the key matches, but the type is a unique value.
-   * 
-   * Threading: not synchronized for main path where get is finding an element.
-   *   Since elements are never updated, there is no race if an element is found.
-   *   And it doesn't matter if the table is resized (if the element is found).
-   *   If it is not found, or a reserve is found, need to get the lock, and
-   *     start over if resized, or
-   *     continue from reserved or null spot if not    
-   *
    * @param key - the addr in the heap
+   * @param value - the value for the key
    * @param hash - the hash that was already computed from the key
-   * @return - the found fs, or null
+   * @param isIfAbsent - true to keep the value already there, if any
+   * @return - the value which was there for the key, or null
    */
-  FeatureStructureImpl getReserve(final int key, final int hash) {
-
-    boolean isLocked = false;
-    final int[] probeInfo = probeInfoGet.get();
-    try {
-
-   retry:
-      while (true) { // loop back point after locking against updates, to re-traverse the bucket chain from the beginning
-        resetProbeInfo(probeInfo);
-        final FeatureStructureImpl m;
-        final FeatureStructureImpl[] localTable = table;
-        
-        if (isReal(m = find(localTable, key, hash, probeInfo))) {
-          return m;  // fast path for found item       
-        }
-        
-        // is reserve or null. Redo or continue search under lock
-        // need to do this for reserve-case because otherwise, could 
-        //   wait, but notify could come before wait - hence, wait forever
-        if (!isLocked) {
-          lock.lock();
-          isLocked = true;
-        }
-        /*****************
-         *    LOCKED     *
-         *****************/
-        final FeatureStructureImpl[] localTable3;
-        if (localTable != table) {
-          // redo search from top, because table resized
-          resetProbeInfo(probeInfo);
-          localTable3 = table;
-        } else {
-          localTable3 = localTable;
+  private FeatureStructureImpl put(final int key, final FeatureStructureImpl value, final int hash, final boolean isIfAbsent) {
+    Table t = table;
+  nextTable:
+    while (true) {
+      final AtomicReferenceArray<FeatureStructureImpl> slots = t.slots;
+      final int bitMask = slots.length() - 1;
+      int probeAddr = hash & bitMask;
+      int probeDelta = 1;
+      while (true) {
+        final FeatureStructureImpl m = slots.get(probeAddr);
+        if (m == null) {
+          if (slots.compareAndSet(probeAddr, null, value)) {
+            if (t.countFilledSlot(probeAddr) > t.sizeWhichTriggersExpansion) {
+              increaseTableCapacity(t);
+            }
+            return null;
+          }
+          continue;  // another thread took the slot, look at it again
         }
-//        // re acquire the FeatureStructure m, because another thread could change it before the lock got acquired
-//        final FeatureStructureImpl m2 = localTable[probeInfo[PROBE_ADDR_INDEX]];
-//        if (isReal(m2)) {
-//          return m2;  // another thread snuck in before the lock and switched this
-//        }
-        
-        // note: localTable not used from this point, unless reset
-        // note: this "find" either finds from the top (if size changed) or finds from current spot.
-        final FeatureStructureImpl m2 = find(localTable3, key, hash, probeInfo);
-        if (isReal(m2)) {
-          return m2;  // fast path for found item       
+        if (m == MOVED) {
+          t = waitForResize(t);
+          continue nextTable;
         }
-        
-        while (isReserve(m2)) {
-          final FeatureStructureImpl[] localTable2 = table;  // to see if table gets resized
-          // can't wait on reserved item because would need to do lock.unlock() followed by wait, but
-          //   inbetween these, another thread could already do the notify.
-          try {
-            /**********
-             *  WAIT  *
-             **********/
-            lockCondition.await();  // wait on object that needs to be unlocked
-          } catch (InterruptedException e) {
-          }
-
-          // at this point, the lock was released, and re-aquired
-          if (localTable2 != table) { // table was resized
-             continue retry;
-          }
-          final FeatureStructureImpl m3 = localTable2[probeInfo[PROBE_ADDR_INDEX]];
-          if (isReserve(m3)) {
-            continue;  // case = interruptedexception && no resize && not changed to real, retry
+        if (m.getAddress() == key) {
+          if (isIfAbsent || slots.compareAndSet(probeAddr, m, value)) {
+            return m;
           }
-          return m3; // return real item
+          continue;  // changed or moved by another thread, look at it again
         }
-        
-        /*************
-         *  RESERVE  *
-         *************/
-        // is null. Reserve this slot to prevent other "getReserved" calls for this same instance from succeeding,
-        // causing them to wait until this slot gets filled in with a FS value
-        // Use table, not localTable, because resize may have occurred
-        table[probeInfo[PROBE_ADDR_INDEX]] = new TOP(key, RESERVE_TOP_TYPE_INSTANCE);
-        incrementSize();          
-        return null;
-      }
-    } finally {
-      if (isLocked) {
-        lock.unlock();
+        if (probeDelta > bitMask) {
+          t = waitForResize(t);  // table full, being resized
+          continue nextTable;
+        }
+        probeAddr = bitMask & (probeAddr + (probeDelta++));
       }
     }
   }
-    
-      
-  FeatureStructureImpl put(int key, FeatureStructureImpl value, int hash) {
 
-    lock.lock();
+  /**
+   * @param t a table being resized
+   * @return the next table, after the resizing is done
+   */
+  private Table waitForResize(Table t) {
+    lock.lock();  // held while resizing
     try {
-      final int[] probeInfo = probeInfoPut.get();
-      resetProbeInfo(probeInfo);
-      final FeatureStructureImpl[] localTable = table;
-      final FeatureStructureImpl prevValue = find(localTable, key, hash, probeInfo);
-      localTable[probeInfo[PROBE_ADDR_INDEX]] = value;
-      if (isReserve(prevValue)) {
-        lockCondition.signalAll();
-        // dont update size - was updated when reserve was added
-        return null;
-      } else if (prevValue == null) {
-          incrementSize();  // otherwise, adding a new value
-      } // else updating an existing value - don't increment the size
-      return prevValue;
+      while (t.next == null) {
+        increaseTableCapacity(t);  // the table was full before the thread which filled it resized it
+      }
+      return t.next;
     } finally {
       lock.unlock();
     }
   }
-   
-     
- /**
-  * Only used to fill in newly expanded table
-  * always called with lock held
-  * @param key -
-  * @param value -
-  * @param hash -
-  */
-  
-  private void putInner(int key, FeatureStructureImpl value, int hash) {
-    assert(lock.getHoldCount() > 0);
-    final int[] probeInfo = probeInfoPutInner.get();
-    resetProbeInfo(probeInfo);
-    final FeatureStructureImpl[] localTable = table;
-
-    final FeatureStructureImpl m = find(localTable, key, hash, probeInfo);
-    assert(m == null);  // no dups in original table imply no hits in new one
-    localTable[probeInfo[PROBE_ADDR_INDEX]] = value;
-  }
-    
-
-  // called under lock
-  private void increaseTableCapacity() {
-    final FeatureStructureImpl [] oldTable = table; 
-    final int oldCapacity = oldTable.length;
-    int newCapacity = 2 * oldCapacity;
     
-    if (TUNE) {
-      System.out.println("Capacity increasing from " + oldCapacity + " to " + newCapacity);
-    }
-    table = newTableKeepSize(newCapacity);
-    for (int i = 0; i < oldCapacity; i++) {
-      FeatureStructureImpl fs = oldTable[i];
-      if (fs != null) {
-        final int key = fs.getAddress();
-        final int hash = JCasHashMap.hashInt(key);
-        putInner(key, fs, hash >>> concurrencyLevelBits);
-      }   
-    }
-  }
-  
-  private static boolean isReserve(FeatureStructureImpl m) {
+  static boolean isReserve(FeatureStructureImpl m) {
     return m != null && ((TOP)m).jcasType == RESERVE_TOP_TYPE_INSTANCE;
   }
+
   private static boolean isReal(FeatureStructureImpl m) {
     return m != null && ((TOP)m).jcasType != RESERVE_TOP_TYPE_INSTANCE;
   }
-  
-  private static void resetProbeInfo(int[] probeInfo) {
-    probeInfo[PROBE_ADDR_INDEX] = -1;
-    probeInfo[PROBE_DELTA_INDEX] = 1;
+
+  private void updateHistogram(int nbrProbes) {
+    if (nbrProbes < histogram.length) {
+      histogram[nbrProbes] += 1;
+    }
+    if (maxProbe < nbrProbes) {
+      maxProbe = nbrProbes;
+    }
   }
-  
-  private static void setProbeInfo(int[] probeInfo, int probeAddr, int probeDelta) {
-    probeInfo[PROBE_ADDR_INDEX] = probeAddr;
-    probeInfo[PROBE_DELTA_INDEX] = probeDelta;   
+
+  /**
+   * Only used to fill in a newly expanded table, which no other thread puts into until it's filled.
+   * Always called with lock held
+   * @param value -
+   * @param t the new table
+   */
+  private void putInner(FeatureStructureImpl value, Table t) {
+    assert(lock.getHoldCount() > 0);
+    final int key = value.getAddress();
+    final AtomicReferenceArray<FeatureStructureImpl> slots = t.slots;
+    final int bitMask = slots.length() - 1;
+    int probeAddr = bitMask & (JCasHashMap.hashInt(key) >>> concurrencyLevelBits);
+    int probeDelta = 1;
+    while (true) {
+      final FeatureStructureImpl m = slots.get(probeAddr);
+      if (m == null) {
+        slots.set(probeAddr, value);
+        t.countFilledSlot(probeAddr);
+        return;
+      }
+      if (m.getAddress() == key) {
+        slots.set(probeAddr, value);  // a value replaced while being moved
+        return;
+      }
+      probeAddr = bitMask & (probeAddr + (probeDelta++));
+    }
   }
-  
 
+  private void increaseTableCapacity(Table oldTable) {
+    lock.lock();
+    try {
+      if (oldTable.next != null || oldTable != table) {
+        return;  // already resized by another thread
+      }
+      final int oldCapacity = oldTable.length();
+      final int newCapacity = 2 * oldCapacity;
+      if (TUNE) {
+        System.out.println("Capacity increasing from " + oldCapacity + " to " + newCapacity);
+      }
+      final Table newTable = new Table(newCapacity, loadFactor);
+      oldTable.next = newTable;
+      final AtomicReferenceArray<FeatureStructureImpl> oldSlots = oldTable.slots;
+      for (int i = 0; i < oldCapacity; i++) {
+        while (true) {
+          final FeatureStructureImpl fs = oldSlots.get(i);
+          if (fs != null) {
+            putInner(fs, newTable);
+          }
+          if (oldSlots.compareAndSet(i, fs, MOVED)) {
+            break;
+          }
+          // else another thread put into this slot meanwhile, copy again
+        }
+      }
+      table = newTable;
+    } finally {
+      lock.unlock();
+    }
+  }
 }
-
@@ -875,6 +875,10 @@ public class JCasImpl extends AbstractCas_ImplBase implements AbstractCas, JCas
     static final ThreadLocal<Object[]> initArgsThreadLocal = new ThreadLocal<Object[]>() {
       protected Object[] initialValue() { return new Object[2]; } };
 
+    // per thread: [0] is true while the cover objects made here are not kept in the JCasHashMap
+    static final ThreadLocal<boolean[]> isNotCachingThreadLocal = new ThreadLocal<boolean[]>() {
+      protected boolean[] initialValue() { return new boolean[1]; } };
+
     private final int type;
 
     private final Constructor<T> c;
@@ -909,7 +913,7 @@ public class JCasImpl extends AbstractCas_ImplBase implements AbstractCas, JCas
     public T createFS(int addr, CASImpl casView) {
       try {
         JCasImpl jcasView = (JCasImpl) casView.getJCas();
-        T fs = jcasView.<T>getJfsFromCaddr(addr);
+        T fs = jcasView.<T>getJfsFromCaddrNoReserve(addr);
         if (null != fs) {
           fs.jcasType = jcasView.getType(type);
           return fs;
@@ -951,8 +955,12 @@ public class JCasImpl extends AbstractCas_ImplBase implements AbstractCas, JCas
         } catch (InvocationTargetException e) {
           logAndThrow(e, jcasView);
         }
-        jcasView.putJfsFromCaddr(addr, fs);
-        return fs;
+        if (isNotCachingThreadLocal.get()[0]) {
+          return fs;
+        }
+        // another thread may have made one meanwhile; use the same one
+        final T existing = jcasView.putJfsFromCaddrIfAbsent(fs);
+        return (existing != null) ? existing : fs;
       } catch (CASException e1) {
         logAndThrow(e1, null);
         return null;
@@ -1154,6 +1162,45 @@ public class JCasImpl extends AbstractCas_ImplBase implements AbstractCas, JCas
     return (T) sharedView.cAddr2Jfs.getReserve(casAddr);
   }
 
+  /**
+   * Like {@link #getJfsFromCaddr(int)}, but doesn't reserve the Feature Structure when there is no
+   * cover object for it; the caller then makes one and adds it with putJfsFromCaddrIfAbsent.
+   * 
+   * @param casAddr the address of a Feature Structure
+   * @return its cover object, or null
+   */
+  @SuppressWarnings("unchecked")
+  <T extends TOP> T getJfsFromCaddrNoReserve(int casAddr) {
+    return (T) sharedView.cAddr2Jfs.get(casAddr);
+  }
+
+  /**
+   * @param fs a cover object
+   * @return the cover object already there for the same Feature Structure, if any, else null,
+   *         fs having been added
+   */
+  @SuppressWarnings("unchecked")
+  <T extends TOP> T putJfsFromCaddrIfAbsent(T fs) {
+    return (T) sharedView.cAddr2Jfs.putIfAbsent(fs);
+  }
+
+  /**
+   * Sets whether the JCas cover objects made in the current thread for existing Feature Structures
+   * are kept, so the same one is returned next time. Turning this off for a one-time pass over many
+   * Feature Structures, for instance an export of a large CAS, keeps the cover objects made for it
+   * out of the JCas cache, to be garbage collected after use; cover objects already there are still
+   * used.
+   * 
+   * @param isCaching false to not keep the cover objects made from now on in this thread
+   * @return the previous setting, to be restored after the pass
+   */
+  public static boolean setCacheCoverObjectsInThread(boolean isCaching) {
+    final boolean[] isNotCaching = JCasFsGenerator.isNotCachingThreadLocal.get();
+    final boolean previous = !isNotCaching[0];
+    isNotCaching[0] = !isCaching;
+    return previous;
+  }
+
   public void showJfsFromCaddrHistogram() {
     sharedView.cAddr2Jfs.showHistogram();
   }
@@ -1175,10 +1222,10 @@ public class JCasImpl extends AbstractCas_ImplBase implements AbstractCas, JCas
 //    JCasHashMap currentMap = sv.cAddr2JfsByClassLoader.get(  ((CASImpl) cas).getJCasClassLoader()  );
     for (Iterator<Map.Entry<ClassLoader, JCasHashMap>> it = sv.cAddr2JfsByClassLoader.entrySet().iterator(); it.hasNext();) {
       Map.Entry<ClassLoader, JCasHashMap> e = it.next();
-      e.getValue().clear();  // implements resize as well
       ClassLoader cl = e.getKey();
       JCasHashMap jcas_hashmap = e.getValue();
-      jcas_hashmap.clear();
+      // implements resize as well; cleared once, as the shrinking is decided on 2 clears in a row
+      jcas_hashmap.clear(((CASImpl) cas).isLightweightReset());
       if (cl instanceof UIMAClassLoader) {
         if (((UIMAClassLoader) cl).isClosed()) {
           it.remove();
@@ -133,6 +133,12 @@ public class ResourceInitializationException extends UIMAException {
    */
   public static final String INDEX_KEY_FEATURE_NOT_FOUND = "index_key_feature_not_found";
 
+  /**
+   * Message key for a standard UIMA exception message: "The interval index "{0}" is over type
+   * "{1}", which is not uima.tcas.Annotation or a subtype, or its first key is not begin, ascending."
+   */
+  public static final String INVALID_INTERVAL_INDEX = "invalid_interval_index";
+
   /**
    * Message key for a standard UIMA exception message: "The Analysis Engine Descriptor is invalid -
    * a Type System may not be explicitly set for an aggregate Analysis Engine."
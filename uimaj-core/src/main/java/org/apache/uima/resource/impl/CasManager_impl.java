@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.uima.UIMARuntimeException;
 import org.apache.uima.UimaContext;
@@ -71,9 +72,10 @@ public class CasManager_impl implements CasManager {
 
   private final Map<String, CasPool> mRequestorToCasPoolMap = Collections.synchronizedMap(new HashMap<String, CasPool>());
 
-  private final Map<CAS, CasPool> mCasToCasPoolMap = Collections.synchronizedMap(new HashMap<CAS, CasPool>());
+  // read on every releaseCas; concurrent maps so releasing threads don't contend on one lock
+  private final Map<CAS, CasPool> mCasToCasPoolMap = new ConcurrentHashMap<CAS, CasPool>();
   
-  private final Map<CAS, UimaContext> mCasToUimaContextMap = Collections.synchronizedMap(new HashMap<CAS, UimaContext>());
+  private final Map<CAS, UimaContext> mCasToUimaContextMap = new ConcurrentHashMap<CAS, UimaContext>();
 
   private volatile CasDefinition mCasDefinition = null;  // once goes non-null, stays
   
@@ -64,18 +64,18 @@ public interface FsIndexDescription extends MetaDataObject {
   public void setTypeName(String aTypeName);
 
   /**
-   * Gets the "kind" of index. There are currently three kinds of indexes - "sorted", "set", and
-   * "bag" (see {@link org.apache.uima.cas.FSIndex} for definitions). If this is <code>null</code>,
-   * "sorted" is assumed as the default.
+   * Gets the "kind" of index. There are currently five kinds of indexes - "sorted", "set", "bag",
+   * "hash" (see {@link org.apache.uima.cas.FSIndex} for definitions), and "interval" (see
+   * {@link #KIND_INTERVAL}). If this is <code>null</code>, "sorted" is assumed as the default.
    * 
    * @return the kind of index
    */
   public String getKind();
 
   /**
-   * Sets the "kind" of index. There are currently three kinds of indexes - sorted, set, and bag
-   * (see {@link org.apache.uima.cas.FSIndex} for definitions). If this is <code>null</code>,
-   * "sorted" is assumed as the default.
+   * Sets the "kind" of index. There are currently five kinds of indexes - sorted, set, bag, hash
+   * (see {@link org.apache.uima.cas.FSIndex} for definitions), and interval (see
+   * {@link #KIND_INTERVAL}). If this is <code>null</code>, "sorted" is assumed as the default.
    * 
    * @param aKind
    *          the kind of index
@@ -119,4 +119,27 @@ public interface FsIndexDescription extends MetaDataObject {
    * @see org.apache.uima.cas.FSIndex
    */
   public static final String KIND_BAG = "bag";
+
+  /**
+   * Identifies a Hash index: a Set index which finds feature structures by hashing their key
+   * values, in constant time, and whose iterators return them in no particular order.
+   * 
+   * @see org.apache.uima.cas.FSIndex#HASH_INDEX
+   */
+  public static final String KIND_HASH = "hash";
+
+  /**
+   * Identifies an Interval index: a Sorted index over <code>uima.tcas.Annotation</code> or a
+   * subtype, ordered first by <code>begin</code>, ascending, which answers the span queries of
+   * {@link org.apache.uima.cas.text.AnnotationIndex} (covering, overlapping, coveredBy) with an
+   * interval tree.
+   * <p>
+   * If no keys are given, the keys are those of the built-in annotation index: begin, end
+   * (reversed), and the type priorities. If keys are given, the first one must be begin, with the
+   * standard comparator.
+   * </p>
+   * 
+   * @see org.apache.uima.cas.text.AnnotationIndex#covering(int, int)
+   */
+  public static final String KIND_INTERVAL = "interval";
 }
@@ -526,6 +526,8 @@ public class CasCopier {
     // NOTE: FeatureStructure hashcode / equals use the int "address" of the FS in the heap.
     
     final PositiveIntSet indexedFs = new PositiveIntSet_impl();
+    // the copies to add to the target indexes, added together at the end
+    final IntVector toBeIndexed = new IntVector();
     
     // The indexFs set starts out "cleared", but 
     // we don't clear the cas copier instance map "mFsMap" here, in order to skip actually copying the
@@ -567,11 +569,13 @@ public class CasCopier {
 
         // also don't index the DocumentAnnotation (it's indexed by default)
         if (!isDocumentAnnotation(fs)) {
-          tgtCasViewImpl.ll_getIndexRepository().ll_addFS(copyOfFs);
+          toBeIndexed.add(copyOfFs);
         }
         indexedFs.add(fs);
       }
     }
+    ((FSIndexRepositoryImpl) tgtCasViewImpl.getIndexRepository()).ll_addAllFS(
+        toBeIndexed.getArray(), 0, toBeIndexed.size());
   }
 
   /**
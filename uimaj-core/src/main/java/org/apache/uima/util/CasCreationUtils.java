@@ -19,12 +19,14 @@
 
 package org.apache.uima.util;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +55,9 @@ import org.apache.uima.cas.admin.FSIndexRepositoryMgr;
 import org.apache.uima.cas.admin.LinearTypeOrderBuilder;
 import org.apache.uima.cas.admin.TypeSystemMgr;
 import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.CASMgrSerializer;
+import org.apache.uima.cas.impl.FSIndexRepositoryImpl;
+import org.apache.uima.cas.impl.TypeSystemImpl;
 import org.apache.uima.cas_data.CasData;
 import org.apache.uima.cas_data.FeatureStructure;
 import org.apache.uima.cas_data.PrimitiveValue;
@@ -71,6 +76,7 @@ import org.apache.uima.resource.metadata.FeatureDescription;
 import org.apache.uima.resource.metadata.FsIndexCollection;
 import org.apache.uima.resource.metadata.FsIndexDescription;
 import org.apache.uima.resource.metadata.FsIndexKeyDescription;
+import org.apache.uima.resource.metadata.Import;
 import org.apache.uima.resource.metadata.MetaDataObject;
 import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
 import org.apache.uima.resource.metadata.ResourceMetaData;
@@ -545,23 +551,6 @@ public class CasCreationUtils {
       aResourceManager = UIMAFramework.newDefaultResourceManager();
     }
 
-    // resolve imports
-    try {
-      if (aTypeSystemDesc != null) {
-        aTypeSystemDesc.resolveImports(aResourceManager);
-        //even though there's only one Type System, we still need to do a merge, to handle the
-        //case where this TypeSystem defines the same type more than once (or has imports that do)
-        List<TypeSystemDescription> tsList = new ArrayList<TypeSystemDescription>();
-        tsList.add(aTypeSystemDesc);
-        aTypeSystemDesc = mergeTypeSystems(tsList, aResourceManager, null);        
-      }
-      if (aTypePriorities != null) {
-        aTypePriorities.resolveImports(aResourceManager);
-      }
-    } catch (InvalidXMLException e) {
-      throw new ResourceInitializationException(e);
-    }
-
     // get initial heap size
     String initialHeapSizeStr = null;
     if (aPerformanceTuningSettings != null) {
@@ -578,6 +567,83 @@ public class CasCreationUtils {
         useJcasCache = false;
       }
     }
+    
+    // get heap growth limit
+    String heapGrowthLimitStr = null;
+    if (aPerformanceTuningSettings != null) {
+      heapGrowthLimitStr = aPerformanceTuningSettings
+          .getProperty(UIMAFramework.CAS_HEAP_GROWTH_LIMIT);
+    }
+
+    // Check CAS template cache performance setting.  Defaults to false.
+    boolean useCasTemplateCache = false;
+    if (aPerformanceTuningSettings != null) {
+      useCasTemplateCache = "true".equalsIgnoreCase(aPerformanceTuningSettings.getProperty(
+          UIMAFramework.CAS_TEMPLATE_CACHE_ENABLED));
+    }
+
+    // if an equal CAS definition was set up before, share its type system and copy its index definitions
+    CasTemplateKey templateKey = !useCasTemplateCache ? null :
+        CasTemplateKey.create(aTypeSystem, aTypeSystemDesc, aTypePriorities, aFsIndexes, aResourceManager);
+    final CasTemplate template = (templateKey == null) ? null : getCasTemplate(templateKey);
+
+    CASMgr casMgr;
+    if (template != null) {
+      casMgr = new CASImpl(template.typeSystem, template.indexDefinitions,
+          (initialHeapSizeStr != null) ? Integer.parseInt(initialHeapSizeStr) : CASImpl.DEFAULT_INITIAL_HEAP_SIZE,
+          useJcasCache);
+    } else {
+      if (templateKey != null) {
+        // copy the descriptions, which the caller may change later
+        templateKey = templateKey.copy();
+      }
+      casMgr = setupCas(aTypeSystem, aTypeSystemDesc, aTypePriorities, aFsIndexes,
+          initialHeapSizeStr, useJcasCache, aResourceManager);
+      if (templateKey != null) {
+        putCasTemplate(templateKey, new CasTemplate(casMgr));
+      }
+    }
+    
+    if (heapGrowthLimitStr != null) {
+      ((CASImpl) casMgr).setHeapGrowthLimit(Integer.parseInt(heapGrowthLimitStr));
+    }
+
+    // Set JCas ClassLoader
+    if (aResourceManager.getExtensionClassLoader() != null) {
+      casMgr.setJCasClassLoader(aResourceManager.getExtensionClassLoader());
+    }
+
+    return casMgr.getCAS().getView(CAS.NAME_DEFAULT_SOFA);
+  }
+
+  /**
+   * Sets up a new CAS from the descriptions: merges the type system description, and installs
+   * the type system, type priorities and indexes, committing each.
+   * Imports are resolved in copies of the descriptions, so the caller's descriptions stay
+   * as they were, and equal to the key of a CAS template made from them.
+   */
+  private static CASMgr setupCas(TypeSystem aTypeSystem, TypeSystemDescription aTypeSystemDesc,
+      TypePriorities aTypePriorities, FsIndexDescription[] aFsIndexes,
+      String initialHeapSizeStr, boolean useJcasCache, ResourceManager aResourceManager)
+      throws ResourceInitializationException {
+    // resolve imports
+    try {
+      if (aTypeSystemDesc != null) {
+        aTypeSystemDesc = (TypeSystemDescription) aTypeSystemDesc.clone();
+        aTypeSystemDesc.resolveImports(aResourceManager);
+        //even though there's only one Type System, we still need to do a merge, to handle the
+        //case where this TypeSystem defines the same type more than once (or has imports that do)
+        List<TypeSystemDescription> tsList = new ArrayList<TypeSystemDescription>();
+        tsList.add(aTypeSystemDesc);
+        aTypeSystemDesc = mergeTypeSystems(tsList, aResourceManager, null);        
+      }
+      if (aTypePriorities != null) {
+        aTypePriorities = (TypePriorities) aTypePriorities.clone();
+        aTypePriorities.resolveImports(aResourceManager);
+      }
+    } catch (InvalidXMLException e) {
+      throw new ResourceInitializationException(e);
+    }
 
     // create CAS using either aTypeSystem or aTypeSystemDesc
     CASMgr casMgr;
@@ -599,7 +665,7 @@ public class CasCreationUtils {
       // Commit the type system
       ((CASImpl) casMgr).commitTypeSystem();
     }
-
+    
     try {
       // install TypePriorities into CAS
       setupTypePriorities(casMgr, aTypePriorities);
@@ -616,12 +682,7 @@ public class CasCreationUtils {
     // Commit the index repository
     casMgr.getIndexRepositoryMgr().commit();
 
-    // Set JCas ClassLoader
-    if (aResourceManager.getExtensionClassLoader() != null) {
-      casMgr.setJCasClassLoader(aResourceManager.getExtensionClassLoader());
-    }
-
-    return casMgr.getCAS().getView(CAS.NAME_DEFAULT_SOFA);
+    return casMgr;
   }
 
   /**
@@ -910,9 +971,13 @@ public class CasCreationUtils {
             kind = FSIndex.BAG_INDEX;
           else if (kindStr.equals(FsIndexDescription.KIND_SET))
             kind = FSIndex.SET_INDEX;
+          else if (kindStr.equals(FsIndexDescription.KIND_HASH))
+            kind = FSIndex.HASH_INDEX;
           else if (kindStr.equals(FsIndexDescription.KIND_SORTED))
             kind = FSIndex.SORTED_INDEX;
         }
+        // interval indexes are sorted indexes, checked to be ordered first by begin
+        final boolean isInterval = FsIndexDescription.KIND_INTERVAL.equals(kindStr);
 
         Type type = tsm.getType(aIndexes[i].getTypeName());
         if (type == null) {
@@ -925,6 +990,19 @@ public class CasCreationUtils {
         comparator.setType(type);
 
         FsIndexKeyDescription[] keys = aIndexes[i].getKeys();
+        if (isInterval) {
+          if (!isAnnotationOrderedByBegin(tsm, type, keys)) {
+            throw new ResourceInitializationException(
+                ResourceInitializationException.INVALID_INTERVAL_INDEX, new Object[] {
+                    aIndexes[i].getLabel(), aIndexes[i].getTypeName(),
+                    aIndexes[i].getSourceUrlString() });
+          }
+          if (keys == null || keys.length == 0) {
+            comparator.addKey(type.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_BEGIN), FSIndexComparator.STANDARD_COMPARE);
+            comparator.addKey(type.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_END), FSIndexComparator.REVERSE_STANDARD_COMPARE);
+            comparator.addKey(irm.getDefaultTypeOrder(), FSIndexComparator.STANDARD_COMPARE);
+          }
+        }
         if (keys != null) {
           for (int j = 0; j < keys.length; j++) {
             if (keys[j].isTypePriority()) {
@@ -947,6 +1025,22 @@ public class CasCreationUtils {
     }
   }
 
+  /**
+   * @return true if the type is an annotation type and the keys are either absent,
+   *         or start with begin, ascending
+   */
+  private static boolean isAnnotationOrderedByBegin(TypeSystem ts, Type type, FsIndexKeyDescription[] keys) {
+    if (!ts.subsumes(ts.getType(CAS.TYPE_NAME_ANNOTATION), type)) {
+      return false;
+    }
+    if (keys == null || keys.length == 0) {
+      return true;
+    }
+    return !keys[0].isTypePriority() &&
+        CAS.FEATURE_BASE_NAME_BEGIN.equals(keys[0].getFeatureName()) &&
+        keys[0].getComparator() == FSIndexComparator.STANDARD_COMPARE;
+  }
+
   /**
    * Extracts a TypeSystem definition from a CasData.
    * 
@@ -1735,6 +1829,188 @@ public class CasCreationUtils {
     ;
   }
 
+  /*************************************************************************************************
+   * Caching of CAS templates: the committed type system and index definitions of CASes           *
+   *   - done because merging and installing big type systems, and setting up the type priorities *
+   *     and indexes, is repeated for each CAS of a pool                                           *
+   *                                                                                               *
+   * Only used when enabled by the CAS_TEMPLATE_CACHE_ENABLED performance tuning setting.           *
+   *                                                                                               *
+   * Cache key is the descriptions (compared by content), the type system when one is reused      *
+   *   (compared by identity), the absolute URLs of the imports by location (the equals of the     *
+   *   descriptions skips their source URLs, against which these are resolved), and the            *
+   *   ResourceManager's class loader and data path, which resolve imports by name.                *
+   *   The class loader is held weakly, so cached templates don't keep PEAR class loaders.         *
+   *   Imported descriptions are assumed not to change while cached.                               *
+   * The least recently used templates are dropped past MAX_CAS_TEMPLATES.                         *
+   *************************************************************************************************/
+
+  private static class CasTemplateKey {
+    final TypeSystem typeSystem;
+    final TypeSystemDescription typeSystemDescription;
+    final TypePriorities typePriorities;
+    final FsIndexDescription[] fsIndexes;
+    final List<String> importUrls;
+    final WeakReference<ClassLoader> rmClassLoader;  // null if none
+    final int rmClassLoaderHash;
+    final String rmDataPath;
+    final int hashCode;
+
+    /**
+     * @return the key, or null if the absolute URL of an import by location can't be computed,
+     *         for setupCas to report the error
+     */
+    static CasTemplateKey create(TypeSystem typeSystem, TypeSystemDescription typeSystemDescription,
+        TypePriorities typePriorities, FsIndexDescription[] fsIndexes, ResourceManager resourceManager) {
+      final List<String> importUrls = new ArrayList<String>();
+      try {
+        if (typeSystemDescription != null) {
+          addLocationImportUrls(typeSystemDescription.getImports(), importUrls, resourceManager);
+        }
+        if (typePriorities != null) {
+          addLocationImportUrls(typePriorities.getImports(), importUrls, resourceManager);
+        }
+      } catch (InvalidXMLException e) {
+        return null;
+      }
+      final ClassLoader cl = resourceManager.getExtensionClassLoader();
+      return new CasTemplateKey(typeSystem, typeSystemDescription, typePriorities, fsIndexes,
+          importUrls, (cl == null) ? null : new WeakReference<ClassLoader>(cl), 
+          System.identityHashCode(cl), resourceManager.getDataPath());
+    }
+
+    private static void addLocationImportUrls(Import[] imports, List<String> importUrls,
+        ResourceManager resourceManager) throws InvalidXMLException {
+      if (imports != null) {
+        for (Import imp : imports) {
+          if (imp.getLocation() != null) {
+            importUrls.add(imp.findAbsoluteUrl(resourceManager).toExternalForm());
+          }
+        }
+      }
+    }
+
+    private CasTemplateKey(TypeSystem typeSystem, TypeSystemDescription typeSystemDescription,
+        TypePriorities typePriorities, FsIndexDescription[] fsIndexes, List<String> importUrls,
+        WeakReference<ClassLoader> rmClassLoader, int rmClassLoaderHash, String rmDataPath) {
+      this.typeSystem = typeSystem;
+      this.typeSystemDescription = typeSystemDescription;
+      this.typePriorities = typePriorities;
+      this.fsIndexes = fsIndexes;
+      this.importUrls = importUrls;
+      this.rmClassLoader = rmClassLoader;
+      this.rmClassLoaderHash = rmClassLoaderHash;
+      this.rmDataPath = rmDataPath;
+      this.hashCode = System.identityHashCode(typeSystem)
+          + ((typeSystemDescription == null) ? 0 : typeSystemDescription.hashCode())
+          + ((typePriorities == null) ? 0 : typePriorities.hashCode())
+          + Arrays.hashCode(fsIndexes)
+          + importUrls.hashCode()
+          + rmClassLoaderHash
+          + ((rmDataPath == null) ? 0 : rmDataPath.hashCode());
+    }
+
+    /**
+     * @return a key with copies of the descriptions, which callers may change afterwards
+     */
+    CasTemplateKey copy() {
+      FsIndexDescription[] fsIndexesCopy = null;
+      if (fsIndexes != null) {
+        fsIndexesCopy = new FsIndexDescription[fsIndexes.length];
+        for (int i = 0; i < fsIndexes.length; i++) {
+          fsIndexesCopy[i] = (fsIndexes[i] == null) ? null : (FsIndexDescription) fsIndexes[i].clone();
+        }
+      }
+      return new CasTemplateKey(typeSystem,
+          (typeSystemDescription == null) ? null : (TypeSystemDescription) typeSystemDescription.clone(),
+          (typePriorities == null) ? null : (TypePriorities) typePriorities.clone(),
+          fsIndexesCopy, importUrls, rmClassLoader, rmClassLoaderHash, rmDataPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof CasTemplateKey)) {
+        return false;
+      }
+      CasTemplateKey k = (CasTemplateKey) obj;
+      return hashCode == k.hashCode &&
+             typeSystem == k.typeSystem &&
+             isSameClassLoader(k) &&
+             importUrls.equals(k.importUrls) &&
+             ((rmDataPath == null) ? k.rmDataPath == null : rmDataPath.equals(k.rmDataPath)) &&
+             ((typeSystemDescription == null) ? k.typeSystemDescription == null : typeSystemDescription.equals(k.typeSystemDescription)) &&
+             ((typePriorities == null) ? k.typePriorities == null : typePriorities.equals(k.typePriorities)) &&
+             Arrays.equals(fsIndexes, k.fsIndexes);
+    }
+
+    // a collected class loader matches nothing; its templates are dropped as least recently used
+    private boolean isSameClassLoader(CasTemplateKey k) {
+      if (rmClassLoader == null || k.rmClassLoader == null) {
+        return rmClassLoader == k.rmClassLoader;
+      }
+      final ClassLoader cl = rmClassLoader.get();
+      return cl != null && cl == k.rmClassLoader.get();
+    }
+  }
+
+  /**
+   * This class holds the committed type system of a CAS, and its index definitions
+   * (including the type priorities), in the form used to serialize them.
+   */
+  private static class CasTemplate {
+    final TypeSystemImpl typeSystem;
+    final CASMgrSerializer indexDefinitions;
+
+    CasTemplate(CASMgr casMgr) {
+      typeSystem = ((CASImpl) casMgr).getTypeSystemImpl();
+      indexDefinitions = new CASMgrSerializer();
+      indexDefinitions.addIndexRepository((FSIndexRepositoryImpl) casMgr.getIndexRepositoryMgr());
+    }
+  }
+
+  private static final int MAX_CAS_TEMPLATES = 32;
+
+  /**
+   * This is the CAS template cache, in least recently used order.
+   * All references to it are synchronized, using it as the object.
+   */
+  private static final Map<CasTemplateKey, CasTemplate> casTemplateCache = 
+      new LinkedHashMap<CasTemplateKey, CasTemplate>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Entry<CasTemplateKey, CasTemplate> eldest) {
+          return size() > MAX_CAS_TEMPLATES;
+        }
+      };
+
+  private static CasTemplate getCasTemplate(CasTemplateKey key) {
+    synchronized (casTemplateCache) {
+      return casTemplateCache.get(key);
+    }
+  }
+
+  private static void putCasTemplate(CasTemplateKey key, CasTemplate template) {
+    synchronized (casTemplateCache) {
+      casTemplateCache.put(key, template);
+    }
+  }
+
+  /**
+   * Drops the cached CAS templates, for instance after changing imported descriptions.
+   * Later CASes are set up from their descriptions again.
+   */
+  public static void clearCasTemplateCache() {
+    synchronized (casTemplateCache) {
+      casTemplateCache.clear();
+    }
+  }
+
   /*************************************************************************************************
    * Caching of getMeta info that requires producing the resource                                  *
    *   - done because producing the resource can be very expensive                                 *                        
@@ -21,19 +21,25 @@ package org.apache.uima.util;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Vector;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.CasHeapSizingPolicy;
 import org.apache.uima.resource.CasDefinition;
 import org.apache.uima.resource.CasManager;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -57,10 +63,32 @@ import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
  *   If more threads request CASes from the pool than are available, the pool (optionally) puts requesting
  *   threads into a wait state.  When CASes become available, the longest-waiting thread gets the CAS; this
  *   approach prevents starvation behavior (where some threads get all the CASes and others get none).
+ *   
+ *   Check-out and check-in don't take any locks (other than the semaphore, when a thread has to wait):
+ *   free CASes are kept in a lock-free stack, and each CAS has an atomic flag recording whether it
+ *   is checked out, which catches a CAS being released twice.
+ *   
+ *   Callers which should not block a thread while waiting can use {@link #getCasAsync()}.
+ *   A CAS being checked in goes to the oldest waiting asynchronous request, if there is one;
+ *   otherwise it is returned to the pool, where threads waiting in {@link #getCas(long)} get
+ *   CASes in the order they started waiting.
+ *   
+ *   The CASes of a pool share a {@link CasHeapSizingPolicy}: the heap uses of the documents are
+ *   recorded at each check-in, and each CAS is reset to the size most documents of the pool need,
+ *   rather than staying at the size of the largest document it held.  Define the JVM property
+ *   {@link #DISABLE_HEAP_SIZING} to have each CAS size its heaps from its own last documents only.
  * 
  */
 public class CasPool {
 
+  /**
+   * Define this JVM property to have the CASes of pools size their heaps on reset from their own
+   * last documents, as in versions before pools shared a {@link CasHeapSizingPolicy}.
+   */
+  public static final String DISABLE_HEAP_SIZING = "uima.disable_cas_pool_heap_sizing";
+  
+  private static final boolean IS_HEAP_SIZING = !Misc.getNoValueSystemProperty(DISABLE_HEAP_SIZING);
+
   /**
    * resource bundle for log messages
    */
@@ -71,28 +99,50 @@ public class CasPool {
    */
   private static final Class<CasPool> CLASS_NAME = CasPool.class;
 
-  // no sync needed because this list is filled during initialization of this instance, and
-  // from then on is read-only, which can occur in parallel
-  final private Set<CAS> mAllInstances;
+  // no sync needed because this map is filled during initialization of this instance, and
+  // from then on is read-only, which can occur in parallel.
+  // The value is true while the CAS is in the pool (not checked out); it is the
+  // check used when releasing (user code could call release multiple times on same cas...)
+  final private Map<CAS, AtomicBoolean> mAllInstances;
 
   
-  // We use this rather than a form of BlockingQueue, to achieve an (arbitrary) LIFO-like reuse of CASes
-  // this is a set rather than an array, to speed up "contains()" check used when releasing
-  //   (user code could call release multiple times on same cas...)
-  final private Set<CAS> mFreeInstances;
+  // Used as a stack, to achieve an (arbitrary) LIFO-like reuse of CASes
+  final private ConcurrentLinkedDeque<CAS> mFreeInstances;
+  
+  // getCasAsync requests waiting for a CAS, oldest first
+  final private ConcurrentLinkedQueue<CasRequest> mWaitingRequests = 
+      new ConcurrentLinkedQueue<CasRequest>();
  
   final private int mNumInstances;
   
   // a fair lock to prevent starvation of a thread
   final private Semaphore permits;
   
+  // statistics, for CasPoolManagement
+  final private LongAdder mNumCheckouts = new LongAdder();
+  
+  final private LongAdder mNumWaits = new LongAdder();
+  
+  final private LongAdder mTotalWaitNanos = new LongAdder();
+  
+  // shared by the CASes of the pool, null if disabled
+  final private CasHeapSizingPolicy mHeapSizingPolicy;
+  
+  // set when getCas() found no CAS available, in which case the caller may be waiting on
+  // this object's monitor; cleared (under the monitor) when the waiters are notified
+  private volatile boolean mMayHaveMonitorWaiters = false;
+  
   private CasPool(int aNumInstances, Set<CAS> allInstances) {
     mNumInstances = aNumInstances;
     permits = new Semaphore(mNumInstances, true);
-    mAllInstances = allInstances;
-    Set<CAS> free = Collections.newSetFromMap(new ConcurrentHashMap<CAS, Boolean>());
-    free.addAll(mAllInstances);
-    mFreeInstances = free;  // concurrent safe publishing idiom 
+    mHeapSizingPolicy = IS_HEAP_SIZING ? new CasHeapSizingPolicy() : null;
+    Map<CAS, AtomicBoolean> all = new HashMap<CAS, AtomicBoolean>(allInstances.size() * 2);
+    for (CAS cas : allInstances) {
+      all.put(cas, new AtomicBoolean(true));
+      ((CASImpl) cas).setHeapSizingPolicy(mHeapSizingPolicy);
+    }
+    mAllInstances = all;
+    mFreeInstances = new ConcurrentLinkedDeque<CAS>(allInstances);  // concurrent safe publishing idiom 
   }
 
   /**
@@ -221,9 +271,14 @@ public class CasPool {
     boolean gotPermit;
     gotPermit = permits.tryAcquire();
     if (!gotPermit) {
-      return null;
+      mMayHaveMonitorWaiters = true;
+      // retry after setting the flag: a CAS checked in before the flag was seen is found here
+      if (!permits.tryAcquire()) {
+        return null;
+      }
     }
     
+    mNumCheckouts.increment();
     return getCasAfterPermitAcquired();      
   }
   
@@ -238,41 +293,135 @@ public class CasPool {
    *         timeout period.
    */
   public CAS getCas(long aTimeout) {
-    if (aTimeout == 0) {
-      permits.acquireUninterruptibly();
-      return getCasAfterPermitAcquired();
+    if (!tryAcquireInTurn()) {
+      // have to wait
+      final long startTime = System.nanoTime();
+      try {
+        if (aTimeout == 0) {
+          permits.acquireUninterruptibly();
+        } else {
+          boolean gotIt;
+          try {
+            gotIt = permits.tryAcquire(aTimeout, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            return null;
+          }
+          
+          if (!gotIt) {
+            return null;
+          }
+        }
+      } finally {
+        recordWait(startTime);
+      }
     }
-    boolean gotIt;
+    mNumCheckouts.increment();
+    return getCasAfterPermitAcquired();
+  }
+  
+  /**
+   * Checks out a CAS from the pool without blocking the calling thread. If no CAS is currently
+   * available, the returned future is completed when one is checked in.
+   * <p>
+   * The CAS delivered by the future must be released like any other. A future which is cancelled
+   * before it is completed gives up its place; one which has already completed holds a CAS, which
+   * must be released even if the caller no longer wants it.
+   * <p>
+   * A future which has to wait is completed by the thread checking in the CAS, within 
+   * {@link #releaseCas(CAS)}; dependent actions added with the non-async methods 
+   * (<code>thenAccept</code>, etc.) then run on that thread, before releaseCas returns.  
+   * Callers doing more than a little work with the CAS should use the async variants 
+   * (<code>thenAcceptAsync</code>, etc.), with their own executor if needed.
+   * 
+   * @return a future for a CAS instance
+   */
+  public CompletableFuture<CAS> getCasAsync() {
+    // don't overtake earlier asynchronous requests
+    if (mWaitingRequests.isEmpty() && tryAcquireInTurn()) {
+      mNumCheckouts.increment();
+      return CompletableFuture.completedFuture(getCasAfterPermitAcquired());
+    }
+    final CasRequest request = new CasRequest();
+    mWaitingRequests.add(request);
+    // a CAS may have been checked in between the tryAcquire and adding the request
+    serveWaitingRequests();
+    return request;
+  }
+  
+  /**
+   * Takes a permit if one is available and no thread is already waiting for one: unlike
+   * Semaphore.tryAcquire(), this doesn't barge ahead of the waiting threads.
+   * @return true if a permit was taken
+   */
+  private boolean tryAcquireInTurn() {
     try {
-      gotIt = permits.tryAcquire(aTimeout, TimeUnit.MILLISECONDS);
+      return permits.tryAcquire(0, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
-      return null;
+      Thread.currentThread().interrupt();  // let the caller's wait, if any, see it
+      return false;
     }
-    
-    if (!gotIt) {
-      return null;
-    }    
-    return getCasAfterPermitAcquired();
   }
 
   
+  // caller counts the checkout, unless the CAS is handed to a waiting request
   private CAS getCasAfterPermitAcquired() {
-    // synchronize so only one iterator is running
-    synchronized (mFreeInstances) {
-      final Iterator<CAS> freeIterator = mFreeInstances.iterator();
-      if (!freeIterator.hasNext()) {
-        throw new RuntimeException("internal error");
+    final CAS cas = mFreeInstances.pollFirst();
+    if (cas == null) {
+      throw new RuntimeException("internal error");
+    }
+    mAllInstances.get(cas).set(false);
+    return cas;
+  }
+  
+  // the CAS is in the checked out state, with its permit taken
+  private void returnToPool(CAS cas) {
+    mAllInstances.get(cas).set(true);
+    mFreeInstances.addFirst(cas);
+    permits.release();  // should follow adding cas back to mFreeInstances
+    // an asynchronous request added after completeWaitingRequest found none
+    // may have failed to get the permit just released
+    serveWaitingRequests();
+  }
+  
+  /**
+   * Hands free CASes to waiting asynchronous requests, while there are both.
+   */
+  private void serveWaitingRequests() {
+    while (!mWaitingRequests.isEmpty() && tryAcquireInTurn()) {
+      final CAS cas = getCasAfterPermitAcquired();
+      if (!completeWaitingRequest(cas)) {
+        // the requests were taken or cancelled meanwhile; recheck for newer ones
+        mAllInstances.get(cas).set(true);
+        mFreeInstances.addFirst(cas);
+        permits.release();
+      }
+    }
+  }
+  
+  /**
+   * Hands a CAS to the oldest waiting asynchronous request, if any.
+   * @param cas the CAS, checked out or being released
+   * @return true if a request took the CAS
+   */
+  private boolean completeWaitingRequest(CAS cas) {
+    CasRequest request;
+    while ((request = mWaitingRequests.poll()) != null) {
+      final AtomicBoolean isFree = mAllInstances.get(cas);
+      // mark it checked out first: the requester may release it as soon as it is completed
+      isFree.set(false);
+      if (request.complete(cas)) {
+        mNumCheckouts.increment();
+        recordWait(request.startTime);
+        return true;
       }
-      final CAS cas = freeIterator.next();
-      freeIterator.remove();
-//      mFreeInstances.remove(cas);
-//      int debugFree = mFreeInstances.size();
-//      int debugAvail = permits.availablePermits();
-//      if (debugFree != debugAvail) {
-//        System.out.println("  on acquire permits != free: " + debugAvail + " " + debugFree);
-//      }
-      return cas;
+      isFree.set(true);  // the request was cancelled
     }
+    return false;
+  }
+  
+  private void recordWait(long startTime) {
+    mNumWaits.increment();
+    mTotalWaitNanos.add(System.nanoTime() - startTime);
   }
 
   /**
@@ -280,7 +429,7 @@ public class CasPool {
    * that when the CAS is later retrieved from the pool it will be ready to use. Also notifies other
    * Threads that may be waiting for an instance to become available.
    * 
-   * Synchronized on the CAS to avoid the unnatural case where 
+   * An atomic flag per CAS guards against the unnatural case where 
    * multiple threads attempt to return the same CAS to the pool
    * at the same time. 
    * 
@@ -293,30 +442,33 @@ public class CasPool {
     CAS cas = aCas.getView(CAS.NAME_DEFAULT_SOFA);
 
     // make sure this CAS actually belongs to this pool and is checked out
-    // synchronize to avoid the same CAS being released on 2 threads
-    synchronized (cas) {
-      if (!mAllInstances.contains(cas) || mFreeInstances.contains(cas)) {
-        UIMAFramework.getLogger(CLASS_NAME).logrb(Level.WARNING, CLASS_NAME.getName(), "releaseCas",
-                LOG_RESOURCE_BUNDLE, "UIMA_return_cas_to_pool__WARNING");
-      } else {
-        // restore the ClassLoader and unlock the CAS, since release() can be called 
-        // from within a CAS Multiplier.
-        ((CASImpl)cas).restoreClassLoaderUnlockCas(); 
-        
-        // reset CAS
-        cas.reset();
-        
-        // Add the CAS to the end of the free instances List
-        mFreeInstances.add(cas);
-        permits.release();  // should follow adding cas back to mFreeInstances
+    // the flag is claimed atomically to avoid the same CAS being released on 2 threads
+    final AtomicBoolean isFree = mAllInstances.get(cas);
+    if (isFree == null || !isFree.compareAndSet(false, true)) {
+      UIMAFramework.getLogger(CLASS_NAME).logrb(Level.WARNING, CLASS_NAME.getName(), "releaseCas",
+              LOG_RESOURCE_BUNDLE, "UIMA_return_cas_to_pool__WARNING");
+    } else {
+      // restore the ClassLoader and unlock the CAS, since release() can be called 
+      // from within a CAS Multiplier.
+      ((CASImpl)cas).restoreClassLoaderUnlockCas(); 
+      
+      // reset CAS
+      cas.reset();
+      
+      // give it directly to a waiting asynchronous request, or
+      // add the CAS to the front of the free instances, so it is reused next
+      if (!completeWaitingRequest(cas)) {
+        returnToPool(cas);
+        // Notify any threads waiting on this object
+        // not needed by UIMA Core - other users may need.
+        if (mMayHaveMonitorWaiters) {
+          synchronized (this) {
+            mMayHaveMonitorWaiters = false;
+            notifyAll();
+          }
+        }
       }
     }
-
-    // Notify any threads waiting on this object
-    // not needed by UIMA Core - other users may need.
-    synchronized (this) {
-      notifyAll();
-    }
   }
 
 
@@ -336,6 +488,40 @@ public class CasPool {
   public int getNumAvailable() {
     return mFreeInstances.size();
   }  
+  
+  /**
+   * Gets the number of times a CAS was checked out of this pool.
+   * @return the number of check-outs
+   */
+  public long getNumCheckouts() {
+    return mNumCheckouts.sum();
+  }
+  
+  /**
+   * Gets the number of requests which had to wait because no CAS was available, 
+   * including ones which timed out.
+   * @return the number of requests that waited
+   */
+  public long getNumWaits() {
+    return mNumWaits.sum();
+  }
+  
+  /**
+   * Gets the total time requests on this pool have spent waiting for a CAS to become available.
+   * @return the total wait time in nanoseconds
+   */
+  public long getTotalWaitTimeNanos() {
+    return mTotalWaitNanos.sum();
+  }
+  
+  /**
+   * Gets the policy sizing the heaps of the CASes of this pool, which has the statistics of 
+   * the heap uses of the documents processed.
+   * @return the policy, or null if the JVM property {@link #DISABLE_HEAP_SIZING} is defined
+   */
+  public CasHeapSizingPolicy getHeapSizingPolicy() {
+    return mHeapSizingPolicy;
+  }
 
   /**
    * @param componentDescriptionsOrMetaData
@@ -380,7 +566,7 @@ public class CasPool {
   // no callers as of March 2014
   // left as Vector
   protected Vector<CAS> getAllInstances() {
-    return new Vector<CAS>(mAllInstances);
+    return new Vector<CAS>(mAllInstances.keySet());
   }
 
   // no callers as of March 2014
@@ -388,4 +574,11 @@ public class CasPool {
   protected Vector<CAS> getFreeInstances() {
     return new Vector<CAS>(mFreeInstances);
   }
+  
+  /**
+   * A getCasAsync request which had to wait
+   */
+  private static class CasRequest extends CompletableFuture<CAS> {
+    final long startTime = System.nanoTime();
+  }
 }
@@ -38,10 +38,72 @@ public interface CasPoolManagement extends ManagementObject {
    */
   public int getAvailableInstances();
   
-//  /**
-//   * Get the average time, in milliseconds, that getCas() requests on
-//   * the pool have to wait for a CAS to become available
-//   * @return average wait time in milliseconds
-//   */
-//  public int getAverageWaitTime();
+  /**
+   * Get the average time, in milliseconds, that getCas() requests on
+   * the pool have to wait for a CAS to become available
+   * @return average wait time in milliseconds
+   */
+  public int getAverageWaitTime();
+  
+  /**
+   * Get the total time, in milliseconds, that getCas() requests on
+   * the pool have waited for a CAS to become available
+   * @return total wait time in milliseconds
+   */
+  public long getTotalWaitTime();
+  
+  /**
+   * Get the number of getCas() requests on the pool that had to wait 
+   * for a CAS to become available
+   * @return the number of requests that waited
+   */
+  public long getNumberOfWaits();
+
+  /**
+   * Get the number of CAS check-ins whose heap uses were recorded
+   * to size the heaps of the CASes of the pool
+   * @return the number of check-ins recorded, or -1 if heap sizing is disabled
+   */
+  public long getNumberOfHeapSizeSamples();
+  
+  /**
+   * Get the largest number of cells (32 bits each) used in the main heap 
+   * of a CAS of the pool
+   * @return the main heap high-water mark, or -1 if heap sizing is disabled
+   */
+  public int getHeapHighWaterMark();
+  
+  /**
+   * Get the number of cells (32 bits each) the main heaps of the CASes of the pool
+   * are sized for, the percentile of the recent uses
+   * @return the main heap target size, or -1 if heap sizing is disabled
+   */
+  public int getHeapTargetSize();
+  
+  /**
+   * Get the sum of the largest number of bytes used in the byte, short and long heaps 
+   * of a CAS of the pool
+   * @return the auxiliary heaps high-water mark in bytes, or -1 if heap sizing is disabled
+   */
+  public long getAuxHeapHighWaterMark();
+  
+  /**
+   * Get the number of bytes the byte, short and long heaps of the CASes of the pool
+   * are together sized for, the percentiles of the recent uses
+   * @return the auxiliary heaps target size in bytes, or -1 if heap sizing is disabled
+   */
+  public long getAuxHeapTargetSize();
+  
+  /**
+   * Get the largest number of strings held in the string heap of a CAS of the pool
+   * @return the string heap high-water mark, or -1 if heap sizing is disabled
+   */
+  public int getStringHeapHighWaterMark();
+  
+  /**
+   * Get the number of strings the string heaps of the CASes of the pool
+   * are sized for, the percentile of the recent uses
+   * @return the string heap target size, or -1 if heap sizing is disabled
+   */
+  public int getStringHeapTargetSize();
 }
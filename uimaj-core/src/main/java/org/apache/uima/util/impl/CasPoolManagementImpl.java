@@ -19,7 +19,9 @@
 package org.apache.uima.util.impl;
 
 import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.uima.cas.impl.CasHeapSizingPolicy;
 import org.apache.uima.util.CasPool;
 import org.apache.uima.util.CasPoolManagement;
 
@@ -48,13 +50,43 @@ public class CasPoolManagementImpl implements CasPoolManagement, CasPoolManageme
     }
   }
 
-//  /* (non-Javadoc)
-//   * @see org.apache.uima.util.CasPoolManagement#getAverageWaitTime()
-//   */
-//  public int getAverageWaitTime() {
-//    // TODO Auto-generated method stub
-//    return 0;
-//  }
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getAverageWaitTime()
+   */
+  public int getAverageWaitTime() {
+    CasPool casPool = mCasPoolRef.get();
+    if (casPool != null) {
+      long checkouts = casPool.getNumCheckouts();
+      return (checkouts == 0) ? 0 : 
+        (int) TimeUnit.NANOSECONDS.toMillis(casPool.getTotalWaitTimeNanos() / checkouts);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getTotalWaitTime()
+   */
+  public long getTotalWaitTime() {
+    CasPool casPool = mCasPoolRef.get();
+    if (casPool != null) {
+      return TimeUnit.NANOSECONDS.toMillis(casPool.getTotalWaitTimeNanos());
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getNumberOfWaits()
+   */
+  public long getNumberOfWaits() {
+    CasPool casPool = mCasPoolRef.get();
+    if (casPool != null) {
+      return casPool.getNumWaits();
+    } else {
+      return -1;
+    }
+  }
 
   /* (non-Javadoc)
    * @see org.apache.uima.util.CasPoolManagement#getPoolSize()
@@ -68,6 +100,100 @@ public class CasPoolManagementImpl implements CasPoolManagement, CasPoolManageme
     }
   }
 
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getNumberOfHeapSizeSamples()
+   */
+  public long getNumberOfHeapSizeSamples() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return policy.getNbrRecorded();
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getHeapHighWaterMark()
+   */
+  public int getHeapHighWaterMark() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return policy.getHighWaterMark(CasHeapSizingPolicy.MAIN_HEAP);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getHeapTargetSize()
+   */
+  public int getHeapTargetSize() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return policy.getTargetSize(CasHeapSizingPolicy.MAIN_HEAP);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getAuxHeapHighWaterMark()
+   */
+  public long getAuxHeapHighWaterMark() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return (long) policy.getHighWaterMark(CasHeapSizingPolicy.BYTE_HEAP) +
+          2L * policy.getHighWaterMark(CasHeapSizingPolicy.SHORT_HEAP) +
+          8L * policy.getHighWaterMark(CasHeapSizingPolicy.LONG_HEAP);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getAuxHeapTargetSize()
+   */
+  public long getAuxHeapTargetSize() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return (long) policy.getTargetSize(CasHeapSizingPolicy.BYTE_HEAP) +
+          2L * policy.getTargetSize(CasHeapSizingPolicy.SHORT_HEAP) +
+          8L * policy.getTargetSize(CasHeapSizingPolicy.LONG_HEAP);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getStringHeapHighWaterMark()
+   */
+  public int getStringHeapHighWaterMark() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return policy.getHighWaterMark(CasHeapSizingPolicy.STRING_HEAP);
+    } else {
+      return -1;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.uima.util.CasPoolManagement#getStringHeapTargetSize()
+   */
+  public int getStringHeapTargetSize() {
+    CasHeapSizingPolicy policy = getHeapSizingPolicy();
+    if (policy != null) {
+      return policy.getTargetSize(CasHeapSizingPolicy.STRING_HEAP);
+    } else {
+      return -1;
+    }
+  }
+  
+  // null if the pool is gone or has no heap sizing
+  private CasHeapSizingPolicy getHeapSizingPolicy() {
+    CasPool casPool = mCasPoolRef.get();
+    return (casPool == null) ? null : casPool.getHeapSizingPolicy();
+  }
+
   /* (non-Javadoc)
    * @see org.apache.uima.resource.impl.ManagementObject_ImplBase#getUniqueMBeanName()
    */
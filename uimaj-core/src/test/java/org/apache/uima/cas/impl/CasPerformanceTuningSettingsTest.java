@@ -76,4 +76,33 @@ public class CasPerformanceTuningSettingsTest extends TestCase {
     }
   }
 
+  public void testHeapGrowthLimit() throws Exception {
+    try {
+      Properties newProps = UIMAFramework.getDefaultPerformanceTuningProperties();
+      newProps.setProperty(UIMAFramework.CAS_INITIAL_HEAP_SIZE, "2000");
+      newProps.setProperty(UIMAFramework.CAS_HEAP_GROWTH_LIMIT, "4000");
+
+      TaeDescription testDescriptor = UIMAFramework.getXMLParser().parseTaeDescription(
+              new XMLInputSource(JUnitExtension
+                      .getFile("TextAnalysisEngineImplTest/TestPrimitiveTae1.xml")));
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(Resource.PARAM_PERFORMANCE_TUNING_SETTINGS, newProps);
+      TextAnalysisEngine tae = UIMAFramework.produceTAE(testDescriptor, params);
+      CASImpl cas = (CASImpl) tae.newCAS();
+      Heap heap = cas.getHeap();
+      Assert.assertEquals(4000, heap.getMultiplicationLimit());
+      Assert.assertEquals(4000, cas.getByteHeap().heapMultLimit);
+
+      // 2000 -> 4000 by doubling, then + 4000 at a time
+      heap.grow(3000);
+      Assert.assertEquals(4000, heap.getHeapSize());
+      heap.grow(3000);
+      Assert.assertEquals(8000, heap.getHeapSize());
+      heap.grow(3000);
+      Assert.assertEquals(12000, heap.getHeapSize());
+    } catch (Exception e) {
+      JUnitExtension.handleException(e);
+    }
+  }
+
 }
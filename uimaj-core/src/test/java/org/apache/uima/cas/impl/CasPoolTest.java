@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
@@ -42,9 +45,11 @@ import org.apache.uima.internal.util.Utilities;
 import org.apache.uima.resource.CasManager;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.CasPool;
 import org.apache.uima.util.InvalidXMLException;
 import org.apache.uima.util.XMLInputSource;
 import org.apache.uima.util.XMLizable;
+import org.apache.uima.util.impl.CasPoolManagementImpl;
 
 
 public class CasPoolTest extends TestCase {
@@ -200,4 +205,197 @@ public class CasPoolTest extends TestCase {
     }
   }
 
+  public void testGetCasAsync() throws Exception {
+    CasPool pool = new CasPool(2, analysisEngine);
+    CasPoolManagementImpl mgmt = new CasPoolManagementImpl(pool, "test");
+    
+    CompletableFuture<CAS> f1 = pool.getCasAsync();
+    CompletableFuture<CAS> f2 = pool.getCasAsync();
+    assertTrue(f1.isDone() && f2.isDone());
+    assertEquals(0, pool.getNumAvailable());
+    assertEquals(0, mgmt.getNumberOfWaits());
+    
+    CompletableFuture<CAS> f3 = pool.getCasAsync();
+    CompletableFuture<CAS> f4 = pool.getCasAsync();
+    CompletableFuture<CAS> f5 = pool.getCasAsync();
+    assertFalse(f3.isDone() || f4.isDone() || f5.isDone());
+    f4.cancel(false);
+    
+    // released CASes go to the waiting requests in order, skipping cancelled ones
+    pool.releaseCas(f1.get());
+    assertSame(f1.get(), f3.getNow(null));
+    assertFalse(f5.isDone());
+    pool.releaseCas(f2.get());
+    assertSame(f2.get(), f5.getNow(null));
+    assertEquals(0, pool.getNumAvailable());
+    assertEquals(2, mgmt.getNumberOfWaits());
+    
+    // releasing twice is refused
+    pool.releaseCas(f3.get());
+    pool.releaseCas(f3.get());
+    assertEquals(1, pool.getNumAvailable());
+    pool.releaseCas(f5.get());
+    assertEquals(2, pool.getNumAvailable());
+    assertEquals(4, pool.getNumCheckouts());
+    assertTrue(mgmt.getAverageWaitTime() >= 0);
+  }
+  
+  public void testGetCasAsyncRacingRelease() throws Exception {
+    final CasPool pool = new CasPool(1, analysisEngine);
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    for (int i = 0; i < 2000; i++) {
+      final CAS cas = pool.getCas(0);
+      Thread releaser = new Thread() {
+        public void run() {
+          try {
+            barrier.await();
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+          pool.releaseCas(cas);
+        }
+      };
+      releaser.start();
+      barrier.await();
+      CompletableFuture<CAS> f = pool.getCasAsync();
+      releaser.join();
+      // whichever of the release and the request came first, the request gets the CAS
+      assertSame(cas, f.get(10, TimeUnit.SECONDS));
+      assertEquals(0, pool.getNumAvailable());
+      pool.releaseCas(cas);
+    }
+    assertEquals(1, pool.getNumAvailable());
+  }
+  
+  public void testMonitorWaitNotified() throws Exception {
+    final CasPool pool = new CasPool(1, analysisEngine);
+    final CAS cas = pool.getCas(0);
+    final CAS[] got = new CAS[1];
+    Thread waiter = new Thread() {
+      public void run() {
+        synchronized (pool) {
+          CAS c;
+          while ((c = pool.getCas()) == null) {
+            try {
+              pool.wait();
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+          got[0] = c;
+        }
+      }
+    };
+    waiter.start();
+    Thread.sleep(50);
+    pool.releaseCas(cas);
+    waiter.join(10000);
+    assertFalse(waiter.isAlive());
+    assertSame(cas, got[0]);
+  }
+  
+  public void testGetCasWaitTime() throws Exception {
+    final CasPool pool = new CasPool(1, analysisEngine);
+    final CAS cas = pool.getCas(0);
+    assertNull(pool.getCas(10));
+    assertEquals(1, pool.getNumWaits());
+    assertTrue(pool.getTotalWaitTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+    
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+        }
+        pool.releaseCas(cas);
+      }
+    };
+    t.start();
+    assertSame(cas, pool.getCas(0));
+    t.join();
+    assertEquals(2, pool.getNumWaits());
+    assertEquals(2, pool.getNumCheckouts());
+    assertTrue(pool.getTotalWaitTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+  
+  public void testHeapSizing() throws Exception {
+    CasPool pool = new CasPool(1, analysisEngine);
+    CasPoolManagementImpl mgmt = new CasPoolManagementImpl(pool, "test");
+    assertEquals(0, mgmt.getNumberOfHeapSizeSamples());
+    
+    // 9 small documents and a big one: the big one is above the 90th percentile
+    for (int doc = 0; doc < 10; doc++) {
+      CASImpl cas = (CASImpl) pool.getCas(0);
+      assertSame(pool.getHeapSizingPolicy(), cas.getHeapSizingPolicy());
+      final int n = (doc == 9) ? 500000 : 1000;
+      for (int i = 0; i < n; i++) {
+        cas.createAnnotation(cas.getAnnotationType(), i, i + 1);
+        cas.createLongArrayFS(1);
+      }
+      if (doc == 9) {
+        assertTrue(cas.getHeap().getHeapSize() > 7 * n);
+      }
+      pool.releaseCas(cas);
+      // sized back for the small documents at once
+      assertEquals(cas.getHeap().getInitialSize(), cas.getHeap().getHeapSize());
+    }
+    assertEquals(10, mgmt.getNumberOfHeapSizeSamples());
+    assertTrue(mgmt.getHeapHighWaterMark() > 7 * 500000);
+    assertTrue(mgmt.getHeapTargetSize() < 7 * 1000 + 1000);
+    assertTrue(mgmt.getAuxHeapHighWaterMark() >= 8 * 500000);
+    assertTrue(mgmt.getAuxHeapTargetSize() < 8 * 1000 + 1000);
+    assertTrue(mgmt.getStringHeapHighWaterMark() >= 1);
+    
+    // the big documents become the 90th percentile after 2 more
+    for (int doc = 0; doc < 2; doc++) {
+      CASImpl cas = (CASImpl) pool.getCas(0);
+      for (int i = 0; i < 500000; i++) {
+        cas.createAnnotation(cas.getAnnotationType(), i, i + 1);
+      }
+      pool.releaseCas(cas);
+    }
+    CASImpl cas = (CASImpl) pool.getCas(0);
+    assertTrue(cas.getHeap().getHeapSize() > 4 * 500000);
+    assertTrue(mgmt.getHeapTargetSize() > 4 * 500000);
+    pool.releaseCas(cas);
+  }
+
+  public void testHeapSizingPolicyConcurrent() throws Exception {
+    final CasHeapSizingPolicy policy = new CasHeapSizingPolicy(50, 20);
+    final int numberOfThreads = 4;
+    final int resetsPerThread = 1000;
+    Thread[] threads = new Thread[numberOfThreads];
+    for (int t = 0; t < numberOfThreads; t++) {
+      final int use = (t + 1) * 100;
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < resetsPerThread; i++) {
+            policy.recordUses(new int[] {use, use, use, use, use});
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(numberOfThreads * resetsPerThread, policy.getNbrRecorded());
+    for (int heap = 0; heap < CasHeapSizingPolicy.NBR_HEAPS; heap++) {
+      assertEquals(numberOfThreads * 100, policy.getHighWaterMark(heap));
+      // one of the uses recorded
+      final int target = policy.getTargetSize(heap);
+      assertTrue(target > 0 && target <= numberOfThreads * 100 && target % 100 == 0);
+    }
+
+    // the percentile is recomputed every tenth of the window
+    final CasHeapSizingPolicy policy2 = new CasHeapSizingPolicy(100, 20);
+    policy2.recordUses(new int[] {10, 10, 10, 10, 10});
+    assertEquals(10, policy2.getTargetSize(CasHeapSizingPolicy.MAIN_HEAP));
+    policy2.recordUses(new int[] {30, 30, 30, 30, 30});
+    assertEquals(30, policy2.getHighWaterMark(CasHeapSizingPolicy.MAIN_HEAP));
+    assertEquals(10, policy2.getTargetSize(CasHeapSizingPolicy.MAIN_HEAP));
+    policy2.recordUses(new int[] {20, 20, 20, 20, 20});
+    assertEquals(30, policy2.getTargetSize(CasHeapSizingPolicy.MAIN_HEAP));
+  }
+
 }
@@ -29,7 +29,11 @@ import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.TaeDescription;
 import org.apache.uima.analysis_engine.TextAnalysisEngine;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.test.CASInitializer;
+import org.apache.uima.cas.test.CASTestSetup;
+import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.resource.Resource;
 import org.apache.uima.test.junit_extension.JUnitExtension;
 import org.apache.uima.util.XMLInputSource;
@@ -121,6 +125,53 @@ public class CasResetResizeTest extends TestCase {
 //    System.out.format("Actual: %,d expected: %,d%n", heapSize, expected);
     assertEquals(expected, heapSize);       
   }
+
+  public void testLightweightReset() {
+    final CAS cas = CASInitializer.initCas(new CASTestSetup());
+    final Type tokenType = cas.getTypeSystem().getType(CASTestSetup.TOKEN_TYPE);
+    final Feature lemmaFeat = cas.getTypeSystem().getFeatureByFullName(CASTestSetup.LEMMA_FEAT_Q);
+    final CASImpl casImpl = (CASImpl) cas;
+    final CAS initialView = cas.getCurrentView();
+
+    for (boolean isLightweight : new boolean[] {true, false}) {
+      casImpl.setLightweightReset(isLightweight);
+      assertEquals(isLightweight, casImpl.isLightweightReset());
+      // a big document, then small ones
+      fill(cas, tokenType, lemmaFeat, 150000);
+      final int bigHeapSize = casImpl.getHeap().getHeapSize();
+      // normal resets shrink the heap after 20 resets with much less used
+      for (int i = 0; i < 25; i++) {
+        cas.reset();
+        assertEquals(0, cas.getAnnotationIndex(tokenType).size());
+        assertFalse(cas.getIndexRepository().getAllIndexedFS(tokenType).hasNext());
+        fill(cas, tokenType, lemmaFeat, 10);
+        assertSame(initialView, cas.getCurrentView());
+      }
+      if (isLightweight) {
+        assertEquals(bigHeapSize, casImpl.getHeap().getHeapSize());
+      } else {
+        assertTrue(casImpl.getHeap().getHeapSize() < bigHeapSize);
+      }
+      cas.reset();
+    }
+  }
+
+  private void fill(CAS cas, Type tokenType, Feature lemmaFeat, int nbrTokens) {
+    for (int i = 0; i < nbrTokens; i++) {
+      AnnotationFS token = cas.createAnnotation(tokenType, i, i + 3);
+      token.setStringValue(lemmaFeat, "lemma" + (i % 100));
+      cas.addFsToIndexes(token);
+    }
+    int begin = 0;
+    int n = 0;
+    for (AnnotationFS token : cas.getAnnotationIndex(tokenType)) {
+      assertTrue(begin <= token.getBegin());
+      assertEquals("lemma" + (token.getBegin() % 100), token.getStringValue(lemmaFeat));
+      begin = token.getBegin();
+      n++;
+    }
+    assertEquals(nbrTokens, n);
+  }
   
   
 
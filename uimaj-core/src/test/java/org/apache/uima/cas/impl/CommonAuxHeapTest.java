@@ -72,6 +72,18 @@ public class CommonAuxHeapTest extends TestCase {
    
   }
   
+  public void testComputeGrownArraySize() {
+    assertEquals(10, CommonAuxHeap.computeGrownArraySize(0, 2, 1000, 10));
+    assertEquals(10, CommonAuxHeap.computeGrownArraySize(10, 2, 1000, 10));
+    assertEquals(20, CommonAuxHeap.computeGrownArraySize(11, 2, 1000, 10));
+    assertEquals(640, CommonAuxHeap.computeGrownArraySize(600, 2, 1000, 10));
+    assertEquals(1280, CommonAuxHeap.computeGrownArraySize(1000, 2, 1000, 10));
+    // above the multiplication limit, grows by adding it
+    assertEquals(2280, CommonAuxHeap.computeGrownArraySize(1281, 2, 1000, 10));
+    assertEquals(3280, CommonAuxHeap.computeGrownArraySize(3000, 2, 1000, 10));
+    assertEquals(Integer.MAX_VALUE, CommonAuxHeap.computeGrownArraySize(Integer.MAX_VALUE, 2, 1000, 10));
+  }
+  
   private void tst(int expected, int size) {
     assertEquals(expected,  CommonAuxHeap.computeShrunkArraySize(capacity, size, 2, multLimit, minSize, shrinkableCount));
   }
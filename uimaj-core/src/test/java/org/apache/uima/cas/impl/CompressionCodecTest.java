@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import junit.framework.TestCase;
+
+public class CompressionCodecTest extends TestCase {
+
+  private final Random random = new Random(42);
+
+  public void testRoundTrips() throws IOException {
+    CompressionCodec[] codecs = {CompressionCodec.DEFLATE, CompressionCodec.STORE, CompressionCodec.FAST,
+        CompressionCodec.deflate(Deflater.BEST_SPEED, Deflater.HUFFMAN_ONLY)};
+    for (CompressionCodec codec : codecs) {
+      for (byte[] data : samples()) {
+        ByteArrayOutputStream src = new ByteArrayOutputStream();
+        src.write(data);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        int n = codec.compress(src, compressed);
+        assertEquals(compressed.size(), n);
+        byte[] c = compressed.toByteArray();
+        assertTrue(codec.toString(), Arrays.equals(data, codec.decompressFully(c, n, data.length)));
+
+        byte[] viaStream = new byte[data.length];
+        DataInputStream dis = new DataInputStream(codec.decompress(c, n, data.length));
+        dis.readFully(viaStream);
+        assertEquals(-1, dis.read());
+        dis.close();
+        assertTrue(codec.toString(), Arrays.equals(data, viaStream));
+      }
+    }
+  }
+
+  public void testFastCompresses() throws IOException {
+    byte[] data = new byte[100000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ((i % 7) * (i % 13));
+    }
+    ByteArrayOutputStream src = new ByteArrayOutputStream();
+    src.write(data);
+    int n = CompressionCodec.FAST.compress(src, new ByteArrayOutputStream());
+    assertTrue(n < data.length / 10);
+  }
+
+  public void testCorruptFastStream() {
+    byte[] data = new byte[] {(byte) 0x0F, 1, 0};  // a match with no preceding output
+    try {
+      CompressionCodec.FAST.decompressFully(data, data.length, 20);
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  public void testRegistry() throws IOException {
+    assertSame(CompressionCodec.FAST, CompressionCodec.forId(CompressionCodec.FAST_ID));
+    try {
+      CompressionCodec.forId(200);
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+    try {
+      CompressionCodec.register(CompressionCodec.deflate(1, 0));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected, reserved id
+    }
+  }
+
+  private byte[][] samples() {
+    byte[] randomBytes = new byte[70000];
+    random.nextBytes(randomBytes);
+    byte[] runs = new byte[70000];  // long matches, and offsets over 64K apart
+    for (int i = 0; i < runs.length; i++) {
+      runs[i] = (byte) (i / 1000);
+    }
+    byte[] text = new byte[20000];
+    for (int i = 0; i < text.length; i++) {
+      text[i] = (byte) ("the quick brown fox ".charAt(i % 20) + ((i % 331 == 0) ? 1 : 0));
+    }
+    return new byte[][] {new byte[0], new byte[] {5}, new byte[] {1, 2, 3, 4, 1, 2, 3, 4, 1}, 
+        randomBytes, runs, text};
+  }
+}
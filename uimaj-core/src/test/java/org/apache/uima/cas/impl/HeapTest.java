@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import junit.framework.TestCase;
+
+public class HeapTest extends TestCase {
+
+  public void testEnsureCapacityGrowsOnce() {
+    Heap heap = new Heap(Heap.MIN_SIZE);
+    assertEquals(Heap.MIN_SIZE, heap.getHeapSize());
+
+    // a request much larger than the current size is satisfied by one reallocation
+    int[] before = heap.heap;
+    heap.ensureCapacity(100000);
+    assertNotSame(before, heap.heap);
+    assertTrue(heap.getHeapSize() > 100000 + heap.getCellsUsed());
+    assertEquals(131072, heap.getHeapSize());  // 1024 doubled until it fits
+
+    // already fits: no reallocation
+    before = heap.heap;
+    heap.ensureCapacity(100000);
+    assertSame(before, heap.heap);
+    assertEquals(1, heap.getCellsUsed());
+  }
+
+  public void testAddLarge() {
+    Heap heap = new Heap(Heap.MIN_SIZE);
+    int addr = heap.add(50000, 7);
+    assertEquals(1, addr);
+    assertEquals(7, heap.heap[addr]);
+    assertEquals(50001, heap.getNextId());
+    assertEquals(65536, heap.getHeapSize());
+
+    int[] fs = new int[] {1, 2, 3};
+    addr = heap.add(fs);
+    assertEquals(50001, addr);
+    assertEquals(3, heap.heap[addr + 2]);
+
+    heap.grow(20000);
+    assertEquals(70004, heap.getNextId());
+    assertEquals(131072, heap.getHeapSize());
+  }
+}
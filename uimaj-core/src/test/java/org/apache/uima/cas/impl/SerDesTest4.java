@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.zip.Deflater;
 
 import junit.framework.TestCase;
 
@@ -53,6 +54,9 @@ import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.admin.FSIndexRepositoryMgr;
 import org.apache.uima.cas.admin.TypeSystemMgr;
+import org.apache.uima.cas.impl.BinaryCasSerDes4.CompressLevel;
+import org.apache.uima.cas.impl.BinaryCasSerDes4.CompressStrat;
+import org.apache.uima.cas.impl.SlotKinds.SlotKind;
 import org.apache.uima.cas.test.AnnotatorInitializer;
 import org.apache.uima.cas.test.CASInitializer;
 import org.apache.uima.util.CasCreationUtils;
@@ -68,6 +72,8 @@ public class SerDesTest4 extends SerDesTstCommon {
     
 //  private long seed;
 
+  private CompressionProfile compressionProfile;  // null for the default deflate form
+
   private Type akof;
   private Type topType;
   private Type typeArrayInt;
@@ -395,6 +401,22 @@ public class SerDesTest4 extends SerDesTstCommon {
     testArrayAux();
   }
 
+  public void testWithCompressionProfiles() throws IOException {
+    CompressionProfile[] profiles = {
+        CompressionProfile.FAST, 
+        CompressionProfile.STORE,
+        CompressionProfile.FAST.with(SlotKind.Slot_StrChars, CompressionCodec.deflate(Deflater.BEST_COMPRESSION, Deflater.DEFAULT_STRATEGY))};
+    for (CompressionProfile profile : profiles) {
+      compressionProfile = profile;
+      testDeltaWithAllMods();
+      tearDown(); setUp();
+      testAllKinds();
+      tearDown(); setUp();
+      testArrayAux();
+      tearDown(); setUp();
+    }
+  }
+
   public void testWithPrevGenerated() throws IOException {
     usePrevData = true;
     initReadSavedInts();
@@ -782,7 +804,9 @@ public class SerDesTest4 extends SerDesTstCommon {
         if (doPlain) {
           (new CASSerializer()).addCAS(cas, baos);      
         } else {      
-          SerializationMeasures sm = bcs.serialize(cas, baos);
+          SerializationMeasures sm = (compressionProfile == null) 
+              ? bcs.serialize(cas, baos)
+              : bcs.serialize(cas, baos, null, CompressLevel.Default, CompressStrat.Default, compressionProfile);
           if (null != sm) {
             System.out.println(sm);
           }
@@ -811,7 +835,9 @@ public class SerDesTest4 extends SerDesTstCommon {
         if (doPlain) {
           Serialization.serializeCAS(cas, baos);
         } else {
-          SerializationMeasures sm = bcs.serialize(cas, baos, mark);
+          SerializationMeasures sm = (compressionProfile == null) 
+              ? bcs.serialize(cas, baos, mark)
+              : bcs.serialize(cas, baos, mark, CompressLevel.Default, CompressStrat.Default, compressionProfile);
           if (null != sm) {
             System.out.println(sm);
           }
@@ -29,6 +29,7 @@ import static org.apache.uima.cas.impl.SerDesTest6.Types.Akof2;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -54,11 +55,13 @@ import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.admin.FSIndexRepositoryMgr;
 import org.apache.uima.cas.admin.TypeSystemMgr;
 import org.apache.uima.cas.impl.BinaryCasSerDes6.ReuseInfo;
+import org.apache.uima.cas.impl.CommonSerDes.Header;
 import org.apache.uima.cas.test.AnnotatorInitializer;
 import org.apache.uima.cas.test.CASInitializer;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.CasIOUtils;
 import org.apache.uima.util.impl.SerializationMeasures;
 
 /**
@@ -319,6 +322,98 @@ public class SerDesTest6 extends SerDesTstCommon {
     }
   }
   
+  public void testParallelCompression() throws Exception {
+    CAS cas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      sb.append("word").append(i).append(' ');
+    }
+    cas.setDocumentText(sb.toString());
+    for (int i = 0; i < 5000; i++) {
+      cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), i * 8, i * 8 + 5));
+    }
+
+    final boolean savedParallel = BinaryCasSerDes6.isParallelCompression;
+    final int savedMinBytes = BinaryCasSerDes6.parallelCompressionMinBytes;
+    try {
+      BinaryCasSerDes6.isParallelCompression = false;
+      ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+      Serialization.serializeWithCompression(cas, sequential, cas.getTypeSystem());
+
+      BinaryCasSerDes6.isParallelCompression = true;
+      BinaryCasSerDes6.parallelCompressionMinBytes = 0;
+      ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+      Serialization.serializeWithCompression(cas, parallel, cas.getTypeSystem());
+      // same format either way
+      assertTrue(Arrays.equals(sequential.toByteArray(), parallel.toByteArray()));
+
+      CAS cas2 = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+      Serialization.deserializeCAS(cas2, new ByteArrayInputStream(parallel.toByteArray()));
+      assertEquals(cas.getDocumentText(), cas2.getDocumentText());
+      assertEquals(cas.getAnnotationIndex().size(), cas2.getAnnotationIndex().size());
+      ByteArrayOutputStream again = new ByteArrayOutputStream();
+      Serialization.serializeWithCompression(cas2, again, cas2.getTypeSystem());
+      assertTrue(Arrays.equals(parallel.toByteArray(), again.toByteArray()));
+    } finally {
+      BinaryCasSerDes6.isParallelCompression = savedParallel;
+      BinaryCasSerDes6.parallelCompressionMinBytes = savedMinBytes;
+    }
+  }
+
+  public void testCompressionProfiles() throws Exception {
+    CAS cas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      sb.append("word").append(i % 100).append(' ');
+    }
+    cas.setDocumentText(sb.toString());
+    for (int i = 0; i < 5000; i++) {
+      cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), i * 7, i * 7 + 5));
+    }
+    
+    ByteArrayOutputStream deflated = serialize(cas, null);
+    ByteArrayOutputStream fast = serialize(cas, CompressionProfile.FAST);
+    ByteArrayOutputStream stored = serialize(cas, CompressionProfile.STORE);
+    assertTrue(deflated.size() < fast.size());
+    assertTrue(fast.size() < stored.size());
+    
+    final boolean savedParallel = BinaryCasSerDes6.isParallelCompression;
+    final int savedMinBytes = BinaryCasSerDes6.parallelCompressionMinBytes;
+    try {
+      for (boolean parallel : new boolean[] {false, true}) {
+        BinaryCasSerDes6.isParallelCompression = parallel;
+        BinaryCasSerDes6.parallelCompressionMinBytes = 0;
+        for (ByteArrayOutputStream baos : new ByteArrayOutputStream[] {deflated, fast, stored}) {
+          // codecs are found from the serialized form
+          CAS cas2 = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+          CasIOUtils.load(new ByteArrayInputStream(baos.toByteArray()), cas2);
+          assertEquals(cas.getDocumentText(), cas2.getDocumentText());
+          assertEquals(cas.getAnnotationIndex().size(), cas2.getAnnotationIndex().size());
+          assertTrue(new BinaryCasSerDes6(cas).compareCASes((CASImpl) cas, (CASImpl) cas2));
+        }
+      }
+    } finally {
+      BinaryCasSerDes6.isParallelCompression = savedParallel;
+      BinaryCasSerDes6.parallelCompressionMinBytes = savedMinBytes;
+    }
+    
+    // the header read by the caller says the codec ids are included
+    DataInputStream dis = new DataInputStream(new ByteArrayInputStream(fast.toByteArray()));
+    Header h = CommonSerDes.readHeader(dis);
+    assertTrue(h.isCodecIdsIncluded());
+    CAS cas3 = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+    new BinaryCasSerDes6(cas3).deserializeAfterVersion(dis, h, AllowPreexistingFS.allow);
+    assertTrue(new BinaryCasSerDes6(cas).compareCASes((CASImpl) cas, (CASImpl) cas3));
+  }
+  
+  private ByteArrayOutputStream serialize(CAS cas, CompressionProfile profile) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BinaryCasSerDes6 bcs = new BinaryCasSerDes6(cas);
+    bcs.setCompressionProfile(profile);
+    bcs.serialize(baos);
+    return baos;
+  }
+
   public void testDocumentText() {
 //     serdesSimple(getTT(EqTwoTypes));
     remoteCas = setupCas(getTT(EqTwoTypes));
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.cas.impl;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class StringHeapTest extends TestCase {
+
+  public void testAddStringDedups() {
+    StringHeap sh = new StringHeap();
+    int nn = sh.addString("NN");
+    int vb = sh.addString("VB");
+    assertTrue(nn != vb);
+    assertEquals(nn, sh.addString(new String("NN")));
+    assertEquals(vb, sh.addString("VB"));
+    assertEquals(3, sh.getSize());
+    assertEquals(0, sh.addString(null));
+
+    // enough distinct strings to grow the hash table several times
+    int[] codes = new int[10000];
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = sh.addString("s" + i);
+    }
+    for (int i = 0; i < codes.length; i++) {
+      assertEquals(codes[i], sh.addString("s" + i));
+      assertEquals("s" + i, sh.getStringForCode(codes[i]));
+    }
+    assertEquals(nn, sh.addString("NN"));
+  }
+
+  public void testLongStringsNotShared() {
+    StringHeap sh = new StringHeap();
+    char[] chars = new char[StringHeap.MAX_DEDUP_LENGTH + 1];
+    Arrays.fill(chars, 'x');
+    String s = new String(chars);
+    assertTrue(sh.addString(s) != sh.addString(s));
+  }
+
+  public void testAppendKeepsPositions() {
+    StringHeap sh = new StringHeap();
+    assertEquals(1, sh.appendString("a"));
+    assertEquals(2, sh.appendString("a"));
+    // the null code, as for addString; nothing is added
+    assertEquals(0, sh.appendString(null));
+    // the first position is found by later adds, and the equal strings share one object
+    assertEquals(1, sh.addString("a"));
+    assertSame(sh.getStringForCode(1), sh.getStringForCode(2));
+    assertEquals(3, sh.getSize());
+  }
+
+  public void testNoSharingBelowDeltaMark() {
+    StringHeap sh = new StringHeap();
+    int a = sh.addString("a");
+    sh.markForDelta();
+    // strings added after the mark are at or above it
+    int a2 = sh.addString("a");
+    assertTrue(a2 != a);
+    assertTrue(a2 >= 2);
+    assertEquals(a2, sh.addString("a"));
+  }
+
+  public void testReinitAndReset() {
+    StringHeap sh = new StringHeap();
+    sh.addString("a");
+    sh.addString("b");
+    StringHeapDeserializationHelper shdh = sh.serialize();
+
+    StringHeap sh2 = new StringHeap();
+    sh2.addString("z");
+    sh2.reinit(shdh, false);
+    assertEquals(3, sh2.getSize());
+    assertEquals(1, sh2.addString("a"));
+    assertEquals(2, sh2.addString("b"));
+    assertEquals(3, sh2.addString("z"));
+
+    sh2.reset();
+    assertEquals(1, sh2.getSize());
+    assertEquals(1, sh2.addString("b"));
+  }
+
+  public void testResetKeepingCapacity() {
+    StringHeap sh = new StringHeap();
+    for (int i = 0; i < 10000; i++) {
+      sh.addString("s" + i);
+    }
+    // the first reset empties the whole hash table, later ones the slots filled since
+    for (int n = 0; n < 3; n++) {
+      sh.resetKeepingCapacity();
+      assertEquals(1, sh.getSize());
+      assertEquals(1, sh.addString("s" + (n + 1)));
+      assertEquals(2, sh.addString("b"));
+      assertEquals(1, sh.addString("s" + (n + 1)));
+      assertEquals(3, sh.getSize());
+    }
+    sh.resetKeepingCapacity();
+    assertEquals(1, sh.addString("s3"));
+    assertEquals(2, sh.addString("s1"));
+  }
+}
@@ -27,8 +27,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
 import java.util.List;
 
@@ -392,6 +395,47 @@ public class XmiCasDeserializerTest extends TestCase {
     xmlReader.parse(new InputSource(new StringReader(xml)));
   }
   
+  public void testDeserializeFromChannelAndBuffer() throws Exception {
+    CAS cas = CasCreationUtils.createCas(typeSystem, new TypePriorities_impl(), indexes);
+    InputStream serCasStream = new FileInputStream(JUnitExtension.getFile("ExampleCas/cas.xml"));
+    XCASDeserializer.deserialize(serCasStream, cas);
+    serCasStream.close();
+    String xml = serialize(cas, null);
+    
+    File xmiFile = File.createTempFile("XmiCasDeserializerTest", ".xmi");
+    try {
+      FileUtils.saveString2File(xml, xmiFile, "UTF-8");
+      
+      // a malformed document first, the next parse on this thread reuses its parser
+      CAS cas2 = CasCreationUtils.createCas(typeSystem, new TypePriorities_impl(), indexes);
+      try {
+        XmiCasDeserializer.deserialize(new ByteArrayInputStream("<xmi:XMI".getBytes("UTF-8")), cas2);
+        fail();
+      } catch (SAXException e) {
+        // expected
+      }
+      
+      RandomAccessFile raf = new RandomAccessFile(xmiFile, "r");
+      try {
+        FileChannel channel = raf.getChannel();
+        XmiCasDeserializer.deserialize(channel, cas2, false);
+        CasComparer.assertEquals(cas, cas2);
+        
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        for (int i = 0; i < 2; i++) {
+          CAS cas3 = CasCreationUtils.createCas(typeSystem, new TypePriorities_impl(), indexes);
+          XmiCasDeserializer.deserialize(buffer, cas3, false);
+          CasComparer.assertEquals(cas, cas3);
+          assertEquals(0, buffer.position());
+        }
+      } finally {
+        raf.close();
+      }
+    } finally {
+      xmiFile.delete();
+    }
+  }
+
   /*
    * https://issues.apache.org/jira/browse/UIMA-3396
    */
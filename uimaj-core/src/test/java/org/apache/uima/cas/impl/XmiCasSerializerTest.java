@@ -19,9 +19,15 @@
 
 package org.apache.uima.cas.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
@@ -31,6 +37,8 @@ import junit.framework.TestCase;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas_data.impl.CasComparer;
+import org.apache.uima.resource.metadata.FsIndexDescription;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.test.junit_extension.JUnitExtension;
 import org.apache.uima.util.CasCreationUtils;
@@ -59,6 +67,8 @@ public class XmiCasSerializerTest extends TestCase {
 
   private TypeSystemDescription typeSystemDesc = null;
 
+  private FsIndexDescription[] indexes = null;
+
   private File outputFile = null;
 
   /**
@@ -75,6 +85,9 @@ public class XmiCasSerializerTest extends TestCase {
    */
   protected void setUp() throws Exception {
     File typeSystemFile = JUnitExtension.getFile("ExampleCas/testTypeSystem.xml");
+    File indexesFile = JUnitExtension.getFile("ExampleCas/testIndexes.xml");
+    this.indexes = UIMAFramework.getXMLParser().parseFsIndexCollection(new XMLInputSource(indexesFile))
+        .getFsIndexes();
     // Temp output file, deleted on exit.
     this.outputFile = new File(JUnitExtension.getFile("ExampleCas"),
         "xmiSerializerInvalidCharsTestOutput.xmi");
@@ -144,6 +157,57 @@ public class XmiCasSerializerTest extends TestCase {
     }
   }
 
+  public void testInvalidCharsWithStreamOutput() throws Exception {
+    CAS cas = CasCreationUtils.createCas(this.typeSystemDesc, null, null);
+    char badChar = 0x1A;
+    cas.setDocumentLanguage("a" + badChar);
+    XmiCasSerializer xmiCasSerializer = new XmiCasSerializer(cas.getTypeSystem());
+    boolean caughtException = false;
+    try {
+      xmiCasSerializer.serialize(cas, new ByteArrayOutputStream(), null, null);
+    } catch (SAXParseException e) {
+      caughtException = true;
+    }
+    assertTrue("XMI serialization of feature value with bad XML 1.0 char should throw exception",
+        caughtException);
+  }
+
+  public void testReusedSerializerStreamAndChannelOutput() throws Exception {
+    CAS cas = CasCreationUtils.createCas(this.typeSystemDesc, null, this.indexes);
+    InputStream serCasStream = new FileInputStream(JUnitExtension.getFile("ExampleCas/cas.xml"));
+    XCASDeserializer.deserialize(serCasStream, cas);
+    serCasStream.close();
+    // chars which need escaping or more than one UTF-8 byte
+    cas.setDocumentLanguage("a&<>\"'\n\r\t \u00e9\u20ac\ud83d\ude00");
+
+    XmiCasSerializer xmiCasSerializer = new XmiCasSerializer(null);
+    byte[] first = null;
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      xmiCasSerializer.serialize(cas, out, null, null);
+      if (first == null) {
+        first = out.toByteArray();
+      } else {
+        assertTrue(Arrays.equals(first, out.toByteArray()));
+      }
+      
+      out = new ByteArrayOutputStream();
+      xmiCasSerializer.serialize(cas, Channels.newChannel(out));
+      assertTrue(Arrays.equals(first, out.toByteArray()));
+    }
+    
+    CAS cas2 = CasCreationUtils.createCas(this.typeSystemDesc, null, this.indexes);
+    XmiCasDeserializer.deserialize(new ByteArrayInputStream(first), cas2);
+    CasComparer.assertEquals(cas, cas2);
+    
+    // the same CAS as the one written through a JAXP transformer
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    XmiCasSerializer.serialize(cas, out);
+    CAS cas3 = CasCreationUtils.createCas(this.typeSystemDesc, null, this.indexes);
+    XmiCasDeserializer.deserialize(new ByteArrayInputStream(out.toByteArray()), cas3);
+    CasComparer.assertEquals(cas2, cas3);
+  }
+
   /*
    * (non-Javadoc)
    * 
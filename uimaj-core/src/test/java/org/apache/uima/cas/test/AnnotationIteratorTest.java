@@ -21,20 +21,24 @@ package org.apache.uima.cas.test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASRuntimeException;
+import org.apache.uima.cas.FSIndex;
 import org.apache.uima.cas.FSIndexRepository;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.FSIndexFlat;
 import org.apache.uima.cas.impl.FSIteratorWrapper;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.cas.text.AnnotationTree;
 import org.apache.uima.jcas.tcas.Annotation;
 
 /**
@@ -423,6 +427,100 @@ public class AnnotationIteratorTest extends TestCase {
     }
   }
 
+  /**
+   * covering, overlapping and coveredBy give the same as a scan of the index, also after updates
+   */
+  public void testSpanQueries() {
+    Random r = new Random(4321);
+    this.cas.setDocumentText(new String(new char[500]).replace('\0', 'x'));
+    for (int i = 0; i < 300; i++) {
+      final int begin = r.nextInt(490);
+      cas.addFsToIndexes(cas.createAnnotation(this.tokenType, begin, begin + r.nextInt(6)));
+    }
+    for (int i = 0; i < 40; i++) {
+      final int begin = r.nextInt(450);
+      cas.addFsToIndexes(cas.createAnnotation(this.sentenceType, begin, begin + r.nextInt(50)));
+    }
+    checkSpanQueries(r);
+
+    // the queries see removes and adds done after earlier queries
+    List<AnnotationFS> tokens = new ArrayList<AnnotationFS>();
+    for (AnnotationFS token : cas.getAnnotationIndex(this.tokenType)) {
+      tokens.add(token);
+    }
+    for (int i = 0; i < 100; i++) {
+      cas.removeFsFromIndexes(tokens.get(i));
+    }
+    for (int i = 0; i < 50; i++) {
+      final int begin = r.nextInt(490);
+      cas.addFsToIndexes(cas.createAnnotation(this.sentenceType, begin, begin + r.nextInt(10)));
+    }
+    checkSpanQueries(r);
+
+    cas.reset();
+    assertFalse(cas.getAnnotationIndex().covering(0, 1).hasNext());
+  }
+
+  private void checkSpanQueries(Random r) {
+    AnnotationIndex<AnnotationFS> all = cas.getAnnotationIndex();
+    AnnotationIndex<AnnotationFS> sentences = cas.getAnnotationIndex(this.sentenceType);
+    for (int i = 0; i < 200; i++) {
+      final int begin = r.nextInt(500);
+      final int end = begin + r.nextInt(3) * r.nextInt(30);
+      for (AnnotationIndex<AnnotationFS> index : new AnnotationIndex[] {all, sentences, new OlderAnnotationIndex(sentences)}) {
+        List<AnnotationFS> covering = new ArrayList<AnnotationFS>();
+        List<AnnotationFS> overlapping = new ArrayList<AnnotationFS>();
+        List<AnnotationFS> coveredBy = new ArrayList<AnnotationFS>();
+        for (AnnotationFS a : index) {
+          if (a.getBegin() <= begin && end <= a.getEnd()) {
+            covering.add(a);
+          }
+          if (a.getBegin() < end && begin < a.getEnd()) {
+            overlapping.add(a);
+          }
+          if (begin <= a.getBegin() && a.getEnd() <= end) {
+            coveredBy.add(a);
+          }
+        }
+        assertEquals(covering, toList(index.covering(begin, end)));
+        assertEquals(overlapping, toList(index.overlapping(begin, end)));
+        assertEquals(coveredBy, toList(index.coveredBy(begin, end)));
+      }
+    }
+  }
+
+  /**
+   * An implementation written before the span queries were added, which gets their default 
+   * implementations
+   */
+  private static class OlderAnnotationIndex implements AnnotationIndex<AnnotationFS> {
+    private final AnnotationIndex<AnnotationFS> index;
+    OlderAnnotationIndex(AnnotationIndex<AnnotationFS> index) { this.index = index; }
+    public int size() { return index.size(); }
+    public Type getType() { return index.getType(); }
+    public boolean contains(FeatureStructure fs) { return index.contains(fs); }
+    public FeatureStructure find(FeatureStructure fs) { return index.find(fs); }
+    public int compare(FeatureStructure fs1, FeatureStructure fs2) { return index.compare(fs1, fs2); }
+    public FSIterator<AnnotationFS> iterator() { return index.iterator(); }
+    public FSIterator<AnnotationFS> iterator(FeatureStructure fs) { return index.iterator(fs); }
+    public int getIndexingStrategy() { return index.getIndexingStrategy(); }
+    public FSIndex<AnnotationFS> withSnapshotIterators() { return index.withSnapshotIterators(); }
+    public FSIterator<AnnotationFS> iterator(boolean ambiguous) { return index.iterator(ambiguous); }
+    public FSIterator<AnnotationFS> subiterator(AnnotationFS annot) { return index.subiterator(annot); }
+    public FSIterator<AnnotationFS> subiterator(AnnotationFS annot, boolean ambiguous, boolean strict) {
+      return index.subiterator(annot, ambiguous, strict);
+    }
+    public AnnotationTree<AnnotationFS> tree(AnnotationFS annot) { return index.tree(annot); }
+  }
+
+  private List<AnnotationFS> toList(FSIterator<AnnotationFS> it) {
+    List<AnnotationFS> result = new ArrayList<AnnotationFS>();
+    while (it.hasNext()) {
+      result.add(it.next());
+    }
+    return result;
+  }
+
   public static void main(String[] args) {
     AnnotationIteratorTest test = new AnnotationIteratorTest(null);
     test.run();
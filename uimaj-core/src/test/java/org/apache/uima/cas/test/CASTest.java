@@ -23,12 +23,18 @@ import junit.framework.TestCase;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASRuntimeException;
+import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.IntArrayFS;
+import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.admin.CASFactory;
 import org.apache.uima.cas.admin.TypeSystemMgr;
+import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.Heap;
+import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.internal.util.IntVector;
+import org.apache.uima.internal.util.MultiThreadUtils;
 
 /**
  * Class comment for CASTest.java goes here.
@@ -131,6 +137,69 @@ public class CASTest extends TestCase {
     // assertTrue(caughtExc);
   }
 
+  public void testFreeze() throws Exception {
+    final Type tokenType = this.ts.getType(CASTestSetup.TOKEN_TYPE);
+    final Feature lemmaFeat = this.ts.getFeatureByFullName(CASTestSetup.LEMMA_FEAT_Q);
+    final IntVector expected = new IntVector();
+    for (int i = 0; i < 1000; i++) {
+      AnnotationFS token = this.cas.createAnnotation(tokenType, (i * 7) % 500, (i * 7) % 500 + 3);
+      token.setStringValue(lemmaFeat, "lemma" + i);
+      this.cas.addFsToIndexes(token);
+    }
+    final AnnotationIndex<AnnotationFS> index = this.cas.getAnnotationIndex(tokenType);
+    for (AnnotationFS token : index) {
+      expected.add(token.getBegin());
+    }
+    final AnnotationFS first = index.iterator().get();
+
+    final CASImpl casImpl = (CASImpl) this.cas;
+    assertFalse(casImpl.isFrozen());
+    casImpl.freeze();
+    assertTrue(casImpl.isFrozen());
+    assertTrue(((CASImpl) this.cas.getCurrentView()).isFrozen());
+
+    // modifications are refused
+    try {
+      this.cas.createAnnotation(tokenType, 0, 1);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.CAS_FROZEN, e.getMessageKey());
+    }
+    try {
+      first.setStringValue(lemmaFeat, "changed");
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.CAS_FROZEN, e.getMessageKey());
+    }
+    try {
+      this.cas.removeFsFromIndexes(first);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.CAS_FROZEN, e.getMessageKey());
+    }
+    assertEquals(expected.size(), index.size());
+
+    // several threads read the same
+    MultiThreadUtils.Run2isb run2isb = new MultiThreadUtils.Run2isb() {
+      public void call(int threadNumber, int repeatNumber, StringBuilder sb) throws Exception {
+        int i = 0;
+        for (AnnotationFS token : index) {
+          assertEquals(expected.get(i++), token.getBegin());
+          assertTrue(token.getStringValue(lemmaFeat).startsWith("lemma"));
+        }
+        assertEquals(expected.size(), i);
+      }
+    };
+    MultiThreadUtils.tstMultiThread("FrozenCasReaders", Runtime.getRuntime().availableProcessors() * 2,
+        10, run2isb, null);
+
+    // reset thaws it
+    this.cas.reset();
+    assertFalse(casImpl.isFrozen());
+    this.cas.addFsToIndexes(this.cas.createAnnotation(tokenType, 0, 1));
+    assertEquals(1, this.cas.getAnnotationIndex(tokenType).size());
+  }
+
   public void testCreateCAS() {
     TypeSystemMgr tsm = CASFactory.createTypeSystem();
     tsm.commit();
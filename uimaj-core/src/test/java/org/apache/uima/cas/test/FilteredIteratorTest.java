@@ -27,6 +27,8 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASRuntimeException;
 import org.apache.uima.cas.ConstraintFactory;
 import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSFloatConstraint;
+import org.apache.uima.cas.FSIntConstraint;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.FSMatchConstraint;
 import org.apache.uima.cas.FSStringConstraint;
@@ -526,6 +528,114 @@ public class FilteredIteratorTest extends TestCase {
 
   }
 
+  public void testPathConstraintsOnMixedTypes() {
+    cas.setDocumentText("This is a test with the word \"the\" in it.");
+    FeatureStructure wordFS = this.cas.createFS(wordType);
+    FeatureStructure sepFS = this.cas.createFS(sepType);
+    String[] lemmas = { "the", "a", null, "the" };
+    FeatureStructure[] tokenTypes = { wordFS, sepFS, null, wordFS, sepFS };
+    for (int i = 0; i < 40; i++) {
+      AnnotationFS a;
+      if (i % 7 == 0) {
+        // sentences have none of the features of the paths below
+        a = cas.createAnnotation(sentenceType, i, i + 3);
+        a.setIntValue(sentLenFeat, i);
+      } else {
+        a = cas.createAnnotation(tokenType, i, i + 1);
+        a.setStringValue(lemmaFeat, lemmas[i % lemmas.length]);
+        a.setFeatureValue(tokenTypeFeat, tokenTypes[i % tokenTypes.length]);
+        a.setFloatValue(tokenFloatFeat, i / 2.0f);
+      }
+      cas.getIndexRepository().addFS(a);
+    }
+
+    ConstraintFactory cf = this.cas.getConstraintFactory();
+    FSTypeConstraint isWord = cf.createTypeConstraint();
+    isWord.add(wordType);
+    ArrayList<String> typePath = new ArrayList<String>();
+    typePath.add(tokenTypeFeat.getShortName());
+    FSStringConstraint isThe = cf.createStringConstraint();
+    isThe.equals("the");
+    ArrayList<String> lemmaPath = new ArrayList<String>();
+    lemmaPath.add(lemmaFeat.getShortName());
+    FSFloatConstraint below10 = cf.createFloatConstraint();
+    below10.lt(10.0f);
+    ArrayList<String> floatPath = new ArrayList<String>();
+    floatPath.add(tokenFloatFeat.getShortName());
+    // a constraint that is not one of the factory's
+    FSMatchConstraint oddBegin = new FSMatchConstraint() {
+      private static final long serialVersionUID = 1L;
+
+      public boolean match(FeatureStructure fs) {
+        return ((AnnotationFS) fs).getBegin() % 2 == 1;
+      }
+    };
+    FSMatchConstraint cons = cf.or(
+        cf.and(cf.embedConstraint(typePath, isWord), cf.embedConstraint(lemmaPath, isThe)),
+        cf.and(cf.embedConstraint(floatPath, below10), oddBegin));
+
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    FSIterator<AnnotationFS> it = cas.getAnnotationIndex().iterator();
+    for (; it.isValid(); it.moveToNext()) {
+      AnnotationFS a = it.get();
+      boolean matches = false;
+      if (a.getType() == tokenType) {
+        FeatureStructure tt = a.getFeatureValue(tokenTypeFeat);
+        matches = ((tt != null) && (tt.getType() == wordType) && "the".equals(a.getStringValue(lemmaFeat)))
+            || ((a.getFloatValue(tokenFloatFeat) < 10.0f) && (a.getBegin() % 2 == 1));
+      }
+      if (matches) {
+        expected.add(a.getBegin());
+      }
+      assertEquals(matches, cons.match(a));
+    }
+    assertTrue(expected.size() > 0);
+
+    ArrayList<Integer> actual = new ArrayList<Integer>();
+    it = this.cas.createFilteredIterator(cas.getAnnotationIndex().iterator(), cons);
+    for (; it.isValid(); it.moveToNext()) {
+      actual.add(it.get().getBegin());
+    }
+    assertEquals(expected, actual);
+    actual.clear();
+    for (it.moveToLast(); it.isValid(); it.moveToPrevious()) {
+      actual.add(0, it.get().getBegin());
+    }
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * Path constraints check the ranges of their features like the FS accessors do
+   */
+  public void testPathConstraintRanges() {
+    AnnotationFS a = cas.createAnnotation(tokenType, 0, 1);
+    a.setStringValue(lemmaFeat, "the");
+    ConstraintFactory cf = this.cas.getConstraintFactory();
+    ArrayList<String> lemmaPath = new ArrayList<String>();
+    lemmaPath.add(lemmaFeat.getShortName());
+    FSIntConstraint isOne = cf.createIntConstraint();
+    isOne.eq(1);
+    try {
+      cf.embedConstraint(lemmaPath, isOne).match(a);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.INAPPROP_RANGE, e.getMessageKey());
+    }
+
+    ArrayList<String> throughLemmaPath = new ArrayList<String>(lemmaPath);
+    throughLemmaPath.add("begin");
+    try {
+      cf.embedConstraint(throughLemmaPath, isOne).match(a);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.PRIMITIVE_VAL_FEAT, e.getMessageKey());
+    }
+
+    FSStringConstraint isThe = cf.createStringConstraint();
+    isThe.equals("the");
+    assertTrue(cf.embedConstraint(lemmaPath, isThe).match(a));
+  }
+
   // test uses constraint compiler
   /*
    * public void testIterator2c() { try { ((CASMgr) cas).setDocumentText( "This is a test with the
@@ -18,6 +18,12 @@
  */
 package org.apache.uima.cas.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 import org.apache.uima.cas.CAS;
@@ -30,12 +36,16 @@ import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.admin.FSIndexComparator;
+import org.apache.uima.cas.admin.FSIndexRepositoryMgr;
+import org.apache.uima.cas.admin.TypeSystemMgr;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.FSIndexRepositoryImpl;
 import org.apache.uima.cas.impl.FeatureStructureImpl;
 import org.apache.uima.cas.impl.TypeSystemImpl;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.internal.util.IntVector;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 
@@ -172,6 +182,413 @@ public class IndexRepositoryTest extends TestCase {
     assertEquals(expected, cas.getIndexRepository().getIndex(CAS.STD_ANNOTATION_INDEX).size());
   }
   
+  public void testAddAllFS() throws Exception {
+    Feature beginFeat = this.typeSystem.getFeatureByFullName(CASTestSetup.TOKEN_TYPE + ":begin");
+    Type fsType = this.typeSystem.getType(CASTestSetup.TOKEN_TYPE);
+    FSIndexRepositoryImpl ir = (FSIndexRepositoryImpl) cas.getIndexRepository();
+    int[] fss = new int[1000];
+    for (int i = 0; i < fss.length; i++) {
+      FeatureStructure fs = this.cas.createFS(fsType);
+      fs.setIntValue(beginFeat, (i * 7919) % 97);  // out of order, with equal keys
+      fss[i] = ((FeatureStructureImpl) fs).getAddress();
+    }
+    
+    for (int fs : fss) {
+      ir.ll_addFS(fs);
+    }
+    int[] expectedSorted = addresses(ir.getIndex(CASTestSetup.ANNOT_SORT_INDEX));
+    int[] expectedAnnot = addresses(ir.getIndex(CAS.STD_ANNOTATION_INDEX));
+    int expectedSetSize = ir.getIndex(CASTestSetup.ANNOT_SET_INDEX).size();
+    
+    // some added one at a time, then the rest in bulk, including one already in the indexes
+    ir.removeAllIncludingSubtypes(fsType);
+    for (int i = 0; i < 100; i++) {
+      ir.ll_addFS(fss[i]);
+    }
+    int[] rest = new int[fss.length - 100 + 1];
+    System.arraycopy(fss, 100, rest, 0, fss.length - 100);
+    rest[rest.length - 1] = fss[50];
+    ir.ll_addAllFS(rest, 0, rest.length);
+    
+    int expectedSize = FSIndexRepositoryImpl.IS_ALLOW_DUP_ADD_2_INDEXES ? fss.length + 1 : fss.length;
+    assertEquals(expectedSize, ir.getIndex(CASTestSetup.ANNOT_SORT_INDEX).size());
+    if (!FSIndexRepositoryImpl.IS_ALLOW_DUP_ADD_2_INDEXES) {
+      assertTrue(Arrays.equals(expectedSorted, addresses(ir.getIndex(CASTestSetup.ANNOT_SORT_INDEX))));
+      assertTrue(Arrays.equals(expectedAnnot, addresses(ir.getIndex(CAS.STD_ANNOTATION_INDEX))));
+    }
+    assertEquals(expectedSetSize, ir.getIndex(CASTestSetup.ANNOT_SET_INDEX).size());
+  }
+  
+  private int[] addresses(FSIndex<FeatureStructure> index) {
+    int[] r = new int[index.size()];
+    int i = 0;
+    for (FeatureStructure fs : index) {
+      r[i++] = ((FeatureStructureImpl) fs).getAddress();
+    }
+    return r;
+  }
+
+  public void testBlockedSortedIndex() throws Exception {
+    final String blockedLabel = "Blocked Sort Index";
+    final String arrayLabel = "Array Sort Index";
+    CAS cas = CASInitializer.initCas(new CASTestSetup() {
+      @Override
+      public void initIndexes(FSIndexRepositoryMgr irm, TypeSystem ts) {
+        super.initIndexes(irm, ts);
+        FSIndexComparator comp = irm.createComparator();
+        Type annotation = ts.getType(CAS.TYPE_NAME_ANNOTATION);
+        comp.setType(annotation);
+        comp.addKey(annotation.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_BEGIN), FSIndexComparator.STANDARD_COMPARE);
+        ((FSIndexRepositoryImpl) irm).createIndexNoQuestionsAsked(comp, blockedLabel, FSIndex.SORTED_INDEX, true);
+        ((FSIndexRepositoryImpl) irm).createIndexNoQuestionsAsked(comp, arrayLabel, FSIndex.SORTED_INDEX, false);
+      }
+    });
+    FSIndexRepository ir = cas.getIndexRepository();
+    Type tokenType = cas.getTypeSystem().getType(CASTestSetup.TOKEN_TYPE);
+    Type sentenceType = cas.getTypeSystem().getType(CASTestSetup.SENT_TYPE);
+    Random r = new Random(1234);
+    
+    // enough to need several blocks, with many equal keys, in 2 subtypes
+    AnnotationFS[] fss = new AnnotationFS[5000];
+    for (int i = 0; i < fss.length; i++) {
+      int begin = r.nextInt(500);
+      fss[i] = cas.createAnnotation((i % 3 == 0) ? sentenceType : tokenType, begin, begin + 1);
+      ir.addFS(fss[i]);
+    }
+    // remove and re-add, as when editing spans
+    for (int i = 0; i < 20000; i++) {
+      AnnotationFS fs = fss[r.nextInt(fss.length)];
+      ir.removeFS(fs);
+      if (r.nextBoolean()) {
+        ir.addFS(fs);
+      }
+    }
+
+    FSIndex<FeatureStructure> blocked = ir.getIndex(blockedLabel);
+    FSIndex<FeatureStructure> array = ir.getIndex(arrayLabel);
+    assertEquals(array.size(), blocked.size());
+    assertTrue(Arrays.equals(addresses(array), addresses(blocked)));
+    assertTrue(Arrays.equals(addresses(ir.getIndex(arrayLabel, tokenType)), addresses(ir.getIndex(blockedLabel, tokenType))));
+    
+    // backwards, and moveTo
+    FSIterator<FeatureStructure> ait = array.iterator();
+    FSIterator<FeatureStructure> bit = blocked.iterator();
+    ait.moveToLast();
+    bit.moveToLast();
+    while (ait.isValid()) {
+      assertTrue(bit.isValid());
+      assertEquals(ait.get(), bit.get());
+      ait.moveToPrevious();
+      bit.moveToPrevious();
+    }
+    assertFalse(bit.isValid());
+    for (int i = 0; i < 100; i++) {
+      AnnotationFS fs = fss[r.nextInt(fss.length)];
+      ait.moveTo(fs);
+      bit.moveTo(fs);
+      assertEquals(ait.isValid(), bit.isValid());
+      if (ait.isValid()) {
+        assertEquals(ait.get(), bit.get());
+      }
+      assertEquals(array.contains(fs), blocked.contains(fs));
+    }
+  }
+
+  public void testHashIndex() throws Exception {
+    final String hashLabel = "Hash Index";
+    final String setLabel = "Set Index";
+    CAS cas = CASInitializer.initCas(new CASTestSetup() {
+      @Override
+      public void initIndexes(FSIndexRepositoryMgr irm, TypeSystem ts) {
+        super.initIndexes(irm, ts);
+        FSIndexComparator comp = irm.createComparator();
+        Type annotation = ts.getType(CAS.TYPE_NAME_ANNOTATION);
+        comp.setType(annotation);
+        comp.addKey(annotation.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_BEGIN), FSIndexComparator.STANDARD_COMPARE);
+        comp.addKey(annotation.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_END), FSIndexComparator.STANDARD_COMPARE);
+        irm.createIndex(comp, hashLabel, FSIndex.HASH_INDEX);
+        irm.createIndex(comp, setLabel, FSIndex.SET_INDEX);
+      }
+    });
+    FSIndexRepository ir = cas.getIndexRepository();
+    Type tokenType = cas.getTypeSystem().getType(CASTestSetup.TOKEN_TYPE);
+    Type sentenceType = cas.getTypeSystem().getType(CASTestSetup.SENT_TYPE);
+    Random r = new Random(4321);
+
+    // many equal keys, in 2 subtypes, with removes of FSs in and not in the index
+    AnnotationFS[] fss = new AnnotationFS[5000];
+    for (int i = 0; i < fss.length; i++) {
+      int begin = r.nextInt(1000);
+      fss[i] = cas.createAnnotation((i % 3 == 0) ? sentenceType : tokenType, begin, begin + r.nextInt(3));
+      ir.addFS(fss[i]);
+    }
+    for (int i = 0; i < 20000; i++) {
+      AnnotationFS fs = fss[r.nextInt(fss.length)];
+      ir.removeFS(fs);
+      if (r.nextBoolean()) {
+        ir.addFS(fs);
+      }
+    }
+
+    FSIndex<FeatureStructure> hash = ir.getIndex(hashLabel);
+    FSIndex<FeatureStructure> set = ir.getIndex(setLabel);
+    assertEquals(FSIndex.HASH_INDEX, hash.getIndexingStrategy());
+    assertEquals(set.size(), hash.size());
+    // same FSs, in another order
+    assertTrue(Arrays.equals(sorted(addresses(set)), sorted(addresses(hash))));
+    assertTrue(Arrays.equals(sorted(addresses(ir.getIndex(setLabel, tokenType))),
+                             sorted(addresses(ir.getIndex(hashLabel, tokenType)))));
+
+    // find and contains, with FSs not in the indexes as templates
+    for (int i = 0; i < 2000; i++) {
+      int begin = r.nextInt(1000);
+      AnnotationFS template = cas.createAnnotation((i % 3 == 0) ? sentenceType : tokenType, begin, begin + r.nextInt(3));
+      assertEquals(set.contains(template), hash.contains(template));
+      FeatureStructure found = hash.find(template);
+      assertEquals(set.find(template), found);
+      if (found != null) {
+        assertEquals(0, hash.compare(template, found));
+      }
+    }
+
+    cas.reset();
+    assertEquals(0, hash.size());
+    assertFalse(hash.iterator().hasNext());
+
+    // lightweight resets keep the grown table, emptying just the slots filled since
+    ((CASImpl) cas).setLightweightReset(true);
+    for (int n = 0; n < 3; n++) {
+      for (int i = 0; i < 50; i++) {
+        ir.addFS(cas.createAnnotation(tokenType, n + i, n + i + 1));
+      }
+      assertEquals(50, hash.size());
+      assertTrue(Arrays.equals(sorted(addresses(set)), sorted(addresses(hash))));
+      cas.reset();
+      assertEquals(0, hash.size());
+      assertFalse(hash.contains(cas.createAnnotation(tokenType, n, n + 1)));
+    }
+    ((CASImpl) cas).setLightweightReset(false);
+  }
+
+  private static int[] sorted(int[] a) {
+    Arrays.sort(a);
+    return a;
+  }
+
+  public void testKeyValueQueries() throws Exception {
+    final String lemmaLabel = "Lemma Index";
+    final String floatLabel = "Float Reverse Index";
+    final String beginLabel = "Begin Index";
+    final String longLabel = "Long Index";
+    final String longFeatName = "tokenLongFeat";
+    CAS cas = CASInitializer.initCas(new CASTestSetup() {
+      @Override
+      public void initTypeSystem(TypeSystemMgr tsm) {
+        super.initTypeSystem(tsm);
+        tsm.addFeature(longFeatName, tsm.getType(TOKEN_TYPE), tsm.getType(CAS.TYPE_NAME_LONG));
+      }
+
+      @Override
+      public void initIndexes(FSIndexRepositoryMgr irm, TypeSystem ts) {
+        super.initIndexes(irm, ts);
+        FSIndexComparator comp = irm.createComparator();
+        comp.setType(ts.getType(TOKEN_TYPE));
+        comp.addKey(ts.getFeatureByFullName(LEMMA_FEAT_Q), FSIndexComparator.STANDARD_COMPARE);
+        irm.createIndex(comp, lemmaLabel, FSIndex.SORTED_INDEX);
+        comp = irm.createComparator();
+        comp.setType(ts.getType(TOKEN_TYPE));
+        comp.addKey(ts.getFeatureByFullName(TOKEN_FLOAT_FEAT_Q), FSIndexComparator.REVERSE_STANDARD_COMPARE);
+        irm.createIndex(comp, floatLabel, FSIndex.SORTED_INDEX);
+        comp = irm.createComparator();
+        Type annotation = ts.getType(CAS.TYPE_NAME_ANNOTATION);
+        comp.setType(annotation);
+        comp.addKey(annotation.getFeatureByBaseName(CAS.FEATURE_BASE_NAME_BEGIN), FSIndexComparator.STANDARD_COMPARE);
+        irm.createIndex(comp, beginLabel, FSIndex.SORTED_INDEX);
+        comp = irm.createComparator();
+        comp.setType(ts.getType(TOKEN_TYPE));
+        comp.addKey(ts.getFeatureByFullName(TOKEN_TYPE + TypeSystem.FEATURE_SEPARATOR + longFeatName), 
+            FSIndexComparator.STANDARD_COMPARE);
+        irm.createIndex(comp, longLabel, FSIndex.SORTED_INDEX);
+      }
+    });
+    FSIndexRepository ir = cas.getIndexRepository();
+    TypeSystem ts = cas.getTypeSystem();
+    Type tokenType = ts.getType(CASTestSetup.TOKEN_TYPE);
+    Type sentenceType = ts.getType(CASTestSetup.SENT_TYPE);
+    Feature lemmaFeat = ts.getFeatureByFullName(CASTestSetup.LEMMA_FEAT_Q);
+    Feature floatFeat = ts.getFeatureByFullName(CASTestSetup.TOKEN_FLOAT_FEAT_Q);
+    Feature longFeat = tokenType.getFeatureByBaseName(longFeatName);
+    // values a double can't tell apart
+    final long bigLong = 1L << 53;
+    String[] lemmas = { "a", "b", "c", "d", null };
+    Random r = new Random(2468);
+    AnnotationFS[] fss = new AnnotationFS[3000];
+    for (int i = 0; i < fss.length; i++) {
+      int begin = r.nextInt(300);
+      if (i % 4 == 0) {
+        fss[i] = cas.createAnnotation(sentenceType, begin, begin + 10);
+      } else {
+        fss[i] = cas.createAnnotation(tokenType, begin, begin + 1);
+        fss[i].setStringValue(lemmaFeat, lemmas[r.nextInt(lemmas.length)]);
+        fss[i].setFloatValue(floatFeat, r.nextInt(10) / 10f);
+        fss[i].setLongValue(longFeat, bigLong + r.nextInt(2));
+      }
+      ir.addFS(fss[i]);
+    }
+    // the queries see later updates
+    ir.getFSsWithKeyValue(lemmaLabel, "b");
+    for (int i = 0; i < 500; i++) {
+      ir.removeFS(fss[r.nextInt(fss.length)]);
+    }
+
+    FSIndex<FeatureStructure> lemmaIndex = ir.getIndex(lemmaLabel);
+    for (String lemma : lemmas) {
+      List<FeatureStructure> expected = new ArrayList<FeatureStructure>();
+      for (FeatureStructure fs : lemmaIndex) {
+        String v = fs.getStringValue(lemmaFeat);
+        if ((lemma == null) ? (v == null) : lemma.equals(v)) {
+          expected.add(fs);
+        }
+      }
+      assertEquals(expected, toList(ir.getFSsWithKeyValue(lemmaLabel, lemma)));
+    }
+    List<FeatureStructure> expected = new ArrayList<FeatureStructure>();
+    for (FeatureStructure fs : lemmaIndex) {
+      String v = fs.getStringValue(lemmaFeat);
+      if (v != null && v.compareTo("b") > 0 && v.compareTo("d") <= 0) {
+        expected.add(fs);
+      }
+    }
+    assertEquals(expected, toList(ir.getFSsInKeyRange(lemmaLabel, "b", false, "d", true)));
+
+    // confidence >= 0.5 and < 0.8, from an index in descending order
+    expected.clear();
+    for (FeatureStructure fs : ir.getIndex(floatLabel)) {
+      float v = fs.getFloatValue(floatFeat);
+      if (v >= 0.5f && v < 0.8f) {
+        expected.add(fs);
+      }
+    }
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, toList(ir.getFSsInKeyRange(floatLabel, 0.5f, true, 0.8f, false)));
+    assertEquals(ir.getIndex(floatLabel).size(), toList(ir.getFSsInKeyRange(floatLabel, null, true, null, true)).size());
+
+    // over several types
+    IntVector v = new IntVector();
+    for (FeatureStructure fs : ir.getIndex(beginLabel)) {
+      int begin = ((AnnotationFS) fs).getBegin();
+      if (begin >= 100 && begin <= 120) {
+        v.add(((FeatureStructureImpl) fs).getAddress());
+      }
+    }
+    int[] expectedAddrs = sorted(v.toArray());
+    List<FeatureStructure> found = toList(ir.getFSsInKeyRange(beginLabel, 100, true, 120, true));
+    int[] foundAddrs = new int[found.size()];
+    for (int i = 0; i < foundAddrs.length; i++) {
+      foundAddrs[i] = ((FeatureStructureImpl) found.get(i)).getAddress();
+      assertTrue(i == 0 || ((AnnotationFS) found.get(i - 1)).getBegin() <= ((AnnotationFS) found.get(i)).getBegin());
+    }
+    assertTrue(Arrays.equals(expectedAddrs, sorted(foundAddrs)));
+
+    // whole numbers are compared exactly
+    expected.clear();
+    for (FeatureStructure fs : ir.getIndex(longLabel)) {
+      if (fs.getLongValue(longFeat) == bigLong + 1) {
+        expected.add(fs);
+      }
+    }
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, toList(ir.getFSsWithKeyValue(longLabel, bigLong + 1)));
+
+    try {
+      ir.getFSsWithKeyValue(CASTestSetup.ANNOT_BAG_INDEX, 1);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.NOT_A_KEY_VALUE_INDEX, e.getMessageKey());
+    }
+    try {
+      ir.getFSsInKeyRange(floatLabel, "0.5", true, null, true);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.KEY_VALUE_WRONG_CLASS, e.getMessageKey());
+    }
+    try {
+      ir.getFSsWithKeyValue(longLabel, null);
+      fail();
+    } catch (CASRuntimeException e) {
+      assertEquals(CASRuntimeException.KEY_VALUE_WRONG_CLASS, e.getMessageKey());
+    }
+  }
+
+  private static List<FeatureStructure> toList(FSIterator<FeatureStructure> it) {
+    List<FeatureStructure> result = new ArrayList<FeatureStructure>();
+    while (it.hasNext()) {
+      result.add(it.next());
+    }
+    return result;
+  }
+
+  public void testMergedSortedIteration() throws Exception {
+    Type tokenType = typeSystem.getType(CASTestSetup.TOKEN_TYPE);
+    Type sentenceType = typeSystem.getType(CASTestSetup.SENT_TYPE);
+    Random r = new Random(4321);
+    AnnotationFS[] fss = new AnnotationFS[3000];
+    for (int i = 0; i < fss.length; i++) {
+      int begin = r.nextInt(300);
+      fss[i] = cas.createAnnotation((i % 3 == 0) ? sentenceType : tokenType, begin, begin + r.nextInt(3));
+      indexRep.addFS(fss[i]);
+    }
+    FSIndex<FeatureStructure> index = indexRep.getIndex(CAS.STD_ANNOTATION_INDEX);
+
+    // the first iteration after the updates merges the subtype indexes as it goes,
+    // the second one builds the merged array, the third one reuses it
+    int[] merging = addresses(index);
+    assertEquals(fss.length, merging.length);
+    for (int i = 1; i < merging.length; i++) {
+      int c = index.compare(cas.getLowLevelCAS().ll_getFSForRef(merging[i - 1]), cas.getLowLevelCAS().ll_getFSForRef(merging[i]));
+      assertTrue(c < 0 || (c == 0 && merging[i - 1] < merging[i]));
+    }
+    assertTrue(Arrays.equals(merging, addresses(index)));
+    assertTrue(Arrays.equals(merging, addresses(index)));
+
+    FSIterator<FeatureStructure> it = index.iterator();
+    it.moveToLast();
+    for (int i = merging.length - 1; i >= 0; i--) {
+      assertEquals(merging[i], ((FeatureStructureImpl) it.get()).getAddress());
+      it.moveToPrevious();
+    }
+    assertFalse(it.isValid());
+
+    for (int i = 0; i < 100; i++) {
+      AnnotationFS fs = fss[r.nextInt(fss.length)];
+      it.moveTo(fs);
+      assertTrue(it.isValid());
+      assertEquals(0, index.compare(fs, it.get()));
+      it.moveToPrevious();
+      assertTrue(!it.isValid() || index.compare(it.get(), fs) < 0);
+      assertTrue(index.contains(fs));
+    }
+
+    // updating a type of the current FS is a concurrent modification
+    it.moveTo(fss[1]);
+    while (!it.get().getType().equals(tokenType)) {
+      it.moveToNext();
+    }
+    indexRep.addFS(cas.createAnnotation(tokenType, 1, 2));
+    try {
+      it.moveToNext();
+      fail();
+    } catch (ConcurrentModificationException e) {
+    }
+    assertEquals(fss.length + 1, addresses(index).length);
+    assertEquals(fss.length + 1, addresses(index).length);
+
+    // reset doesn't count as an update, but must drop the merged array
+    cas.reset();
+    assertEquals(0, addresses(index).length);
+    assertFalse(index.iterator().isValid());
+  }
+
   public static int NBR_ITEMS = 40000;
   
   public void testRemovalSpeed() throws Exception {
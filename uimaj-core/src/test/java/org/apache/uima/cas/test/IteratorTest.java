@@ -27,6 +27,8 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import junit.framework.TestCase;
 
@@ -308,6 +310,98 @@ public class IteratorTest extends TestCase {
 
   }
   
+  public void testSnapshotsAcrossUpdates() {
+    for (int i = 0; i < 10; i++) {
+      createFSs(i);
+    }
+    setupindexes();
+    checkSnapshotsAcrossUpdates(ssSortedIndex, sortedIndex);
+    checkSnapshotsAcrossUpdates(ssSetIndex, setIndex);
+    checkSnapshotsAcrossUpdates(ssBagIndex, bagIndex);
+  }
+
+  private void checkSnapshotsAcrossUpdates(FSIndex<FeatureStructure> ssIndex, FSIndex<FeatureStructure> index) {
+    List<FeatureStructure> before = toList(index.iterator());
+    assertTrue(before.size() > 0);
+    // snapshots taken without updates in between, and copies of them, iterate over the same
+    FSIterator<FeatureStructure> it1 = ssIndex.iterator();
+    FSIterator<FeatureStructure> it2 = ssIndex.iterator();
+    assertEquals(before, toList(it2));
+    it2.moveToFirst();
+    it2.moveToNext();
+    FSIterator<FeatureStructure> copy = it2.copy();
+    assertEquals(before.get(1), copy.get());
+    it2.moveToLast();
+    it2.moveToNext();
+    assertFalse(it2.copy().isValid());
+
+    // updating the indexes while iterating over a snapshot doesn't change the snapshot
+    List<FeatureStructure> seen = new ArrayList<FeatureStructure>();
+    for (; it1.isValid(); it1.moveToNext()) {
+      FeatureStructure fs = it1.get();
+      seen.add(fs);
+      if (seen.size() % 2 == 0) {
+        this.cas.getIndexRepository().removeFS(fs);
+      }
+      if (seen.size() == 3) {
+        this.cas.getIndexRepository().addFS(this.cas.createAnnotation(this.annotationType, 0, 100));
+      }
+    }
+    assertEquals(before, seen);
+    assertEquals(before.get(1), copy.get());
+
+    // a snapshot taken after the updates sees them
+    List<FeatureStructure> after = toList(index.iterator());
+    assertFalse(before.equals(after));
+    assertEquals(after, toList(ssIndex.iterator()));
+  }
+
+  private static List<FeatureStructure> toList(FSIterator<FeatureStructure> it) {
+    List<FeatureStructure> fss = new ArrayList<FeatureStructure>();
+    for (; it.isValid(); it.moveToNext()) {
+      fss.add(it.get());
+    }
+    return fss;
+  }
+
+  public void testSpliterator() {
+    for (int i = 0; i < 10; i++) {
+      createFSs(i);
+    }
+    setupindexes();
+    for (FSIndex<FeatureStructure> index : Arrays.asList(sortedIndex, setIndex, bagIndex)) {
+      List<FeatureStructure> expected = toList(index.iterator());
+      assertTrue(expected.size() > 4);
+
+      // splitting down to single FSs keeps the order of the parts
+      Spliterator<FeatureStructure> it = index.spliterator();
+      assertEquals(expected.size(), it.getExactSizeIfKnown());
+      assertTrue(it.hasCharacteristics(Spliterator.ORDERED | Spliterator.SUBSIZED));
+      List<FeatureStructure> parts = new ArrayList<FeatureStructure>();
+      splitAll(it, parts);
+      assertEquals(expected, parts);
+      assertEquals(0, it.estimateSize());
+      assertFalse(it.tryAdvance(fs -> fail()));
+      assertNull(it.trySplit());
+
+      // the streams, sequential and parallel
+      assertEquals(expected, index.stream().collect(Collectors.toList()));
+      assertEquals(expected, index.parallelStream().collect(Collectors.toList()));
+      assertEquals(expected.size(), index.parallelStream().filter(fs -> fs != null).count());
+    }
+  }
+
+  private static void splitAll(Spliterator<FeatureStructure> it, List<FeatureStructure> result) {
+    Spliterator<FeatureStructure> prefix = it.trySplit();
+    if (prefix == null) {
+      assertTrue(it.tryAdvance(result::add));
+      it.forEachRemaining(result::add);
+      return;
+    }
+    splitAll(prefix, result);
+    splitAll(it, result);
+  }
+
   public void testMoveToFirstOfEqualOneType() {
     for (int i = 0; i < 2; i++) {
       cas.reset();
@@ -666,6 +666,70 @@ public class SerializationReinitTest extends TestCase {
   }
   
   
+  /**
+   * send a CAS, then a stream of chained deltas, each with the changes since the previous one,
+   * uncompressed and compressed (form 4)
+   */
+  public void testChainedDeltas() throws Exception {
+    for (int form = 0; form < 2; form++) {
+      final boolean isCompressed = form == 1;
+      CASImpl sender = (CASImpl) initCAS();
+      CASImpl receiver = (CASImpl) initCAS();
+      sender.setDocumentText("a long transcript, arriving bit by bit");
+      FeatureStructure first = sender.createAnnotation(theTypeType, 0, 1);
+      first.setStringValue(theStringFeature, "first");
+      sender.addFsToIndexes(first);
+      
+      ByteArrayOutputStream fos = new ByteArrayOutputStream();
+      if (isCompressed) {
+        Serialization.serializeWithCompression(sender, fos);
+      } else {
+        Serialization.serializeCAS(sender, fos);
+      }
+      Serialization.deserializeCAS(receiver, new ByteArrayInputStream(fos.toByteArray()));
+      CasComparer.assertEquals(sender, receiver);
+      
+      Marker mark = sender.createMarker();
+      FeatureStructure prev = first;
+      int firstDeltaSize = 0;
+      for (int i = 1; i <= 10; i++) {
+        FeatureStructure fs = sender.createAnnotation(theTypeType, i, i + 1);
+        fs.setStringValue(theStringFeature, "value" + i);
+        fs.setLongValue(theLongFeature, i);
+        LongArrayFS la = sender.createLongArrayFS(1);
+        la.set(0, i);
+        fs.setFeatureValue(theLongArrayFeature, la);
+        sender.addFsToIndexes(fs);
+        // modify and remove FSs sent with earlier deltas
+        prev.setStringValue(theStringFeature, "modified" + i);
+        if (i % 3 == 0) {
+          sender.removeFsFromIndexes(prev);
+        }
+        
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        if (isCompressed) {
+          Serialization.serializeDeltaAndAdvanceWithCompression(sender, delta, mark);
+        } else {
+          Serialization.serializeDeltaAndAdvance(sender, delta, mark);
+        }
+        assertTrue(mark.isValid());
+        assertFalse(mark.isNew(fs));
+        assertFalse(mark.isModified(prev));
+        
+        Serialization.deserializeCAS(receiver, new ByteArrayInputStream(delta.toByteArray()));
+        CasComparer.assertEquals(sender, receiver);
+        
+        // each delta has only the changes since the previous one
+        if (i == 1) {
+          firstDeltaSize = delta.size();
+        } else {
+          assertTrue(delta.size() < firstDeltaSize + 64);
+        }
+        prev = fs;
+      }
+    }
+  }
+  
   /**
    * setup cas1, binary (not compressed) serialize to cas2
    * modify cas2, binary (not compressed) delta serialize back into cas1 
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.internal.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class IntBlockVectorTest extends TestCase {
+
+  private static final IntComparator ascending = new IntComparator() {
+    @Override
+    public int compare(int i, int j) {
+      return Integer.compare(i, j);
+    }
+  };
+
+  public void testAddRemove() {
+    Random r = new Random(1234);
+    IntBlockVector bv = new IntBlockVector();
+    IntVector v = new IntVector();
+
+    // grow to several blocks, then shrink back to nothing, checking against an IntVector
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < 20000; i++) {
+        final int pos = r.nextInt(v.size() + 1);
+        v.add(pos, i);
+        bv.add(pos, i);
+      }
+      assertTrue(bv.nbrBlocks() > 1);
+      checkSame(v, bv);
+      while (v.size() > 0) {
+        final int pos = r.nextInt(v.size());
+        assertEquals(v.remove(pos), bv.remove(pos));
+        if (v.size() % 997 == 0) {
+          checkSame(v, bv);
+        }
+      }
+      assertEquals(0, bv.size());
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      bv.add(i);
+    }
+    bv.removeAllElements();
+    assertEquals(0, bv.size());
+    bv.add(0, 5);
+    assertEquals(5, bv.get(0));
+  }
+
+  public void testBinarySearch() {
+    Random r = new Random(5678);
+    IntBlockVector bv = new IntBlockVector();
+    int[] sorted = new int[3000];
+    for (int i = 0; i < sorted.length; i++) {
+      final int v = r.nextInt(1000) * 2;  // even values, with duplicates
+      final int pos = bv.binarySearch(v, ascending);
+      bv.add((pos < 0) ? -(pos + 1) : pos, v);
+      sorted[i] = v;
+    }
+    Arrays.sort(sorted);
+    assertTrue(Arrays.equals(sorted, bv.toArray()));
+
+    for (int v = -1; v < 2002; v++) {
+      final int pos = bv.binarySearch(v, ascending);
+      if ((v & 1) == 0 && Arrays.binarySearch(sorted, v) >= 0) {
+        assertEquals(v, bv.get(pos));
+      } else {
+        assertTrue(pos < 0);
+        final int insertionPoint = -(pos + 1);
+        assertTrue(insertionPoint == 0 || bv.get(insertionPoint - 1) < v);
+        assertTrue(insertionPoint == bv.size() || bv.get(insertionPoint) > v);
+      }
+    }
+  }
+
+  private void checkSame(IntVector v, IntBlockVector bv) {
+    assertEquals(v.size(), bv.size());
+    assertTrue(Arrays.equals(v.toArray(), bv.toArray()));
+    // the blocks hold the same as positional get
+    int pos = 0;
+    for (int b = 0; b < bv.nbrBlocks(); b++) {
+      assertEquals(pos, bv.blockStart(b));
+      for (int i = 0; i < bv.blockSize(b); i++) {
+        assertEquals(b, bv.findBlock(pos));
+        assertEquals(v.get(pos++), bv.getBlock(b)[i]);
+      }
+    }
+    assertEquals(v.size(), pos);
+  }
+}
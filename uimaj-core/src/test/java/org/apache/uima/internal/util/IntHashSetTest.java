@@ -115,6 +115,31 @@ public class IntHashSetTest extends TestCase {
     assertFalse(ihs.wontExpand(21));
   }
   
+  public void testClearKeepingCapacity() {
+    for (int i = 1; i < 1000; i++) {
+      ihs.add(i * 7);
+    }
+    final int space = ihs.getSpaceUsedInWords();
+    // the first clear empties the whole table, later ones the slots filled since
+    for (int n = 0; n < 3; n++) {
+      ihs.clearKeepingCapacity();
+      assertEquals(0, ihs.size());
+      assertEquals(space, ihs.getSpaceUsedInWords());
+      for (int i = 1; i < 1000; i++) {
+        assertFalse(ihs.contains(i * 7));
+      }
+      ihs.add(15);
+      ihs.add(22);
+      ihs.remove(15);
+      assertTrue(ihs.contains(22));
+      assertEquals(1, ihs.size());
+    }
+    ihs.clearKeepingCapacity();
+    assertFalse(ihs.contains(15));
+    assertFalse(ihs.contains(22));
+    assertTrue(Arrays.equals(new int[0], getSortedValues(ihs)));
+  }
+
   public void testExpandNpe() {
     ihs.add(15);
     ihs.add(150000);  // makes 4 byte table entries
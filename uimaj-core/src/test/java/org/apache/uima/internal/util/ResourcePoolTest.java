@@ -206,6 +206,44 @@ public class ResourcePoolTest extends TestCase {
     }
   }
 
+  public void testAffinityAndStatistics() throws Exception {
+    Resource foo = pool1.getResource();
+    Resource bar = pool1.getResource();
+    pool1.releaseResource(bar);
+    pool1.releaseResource(foo);
+    Assert.assertEquals(0, pool1.getNumInUse());
+    Assert.assertEquals(2, pool1.getPeakInUse());
+
+    // this thread released foo last, so gets it back, though bar is also free
+    Assert.assertSame(foo, pool1.getResource());
+    Assert.assertEquals(1, pool1.getNumAffinityHits());
+    Assert.assertEquals(3, pool1.getNumCheckouts());
+    Assert.assertEquals(1, pool1.getNumInUse());
+
+    // another thread gets the most recently released other instance
+    final Resource[] fromOtherThread = new Resource[1];
+    Thread t = new Thread() {
+      public void run() {
+        fromOtherThread[0] = pool1.getResource(0);
+      }
+    };
+    t.start();
+    t.join();
+    Assert.assertNotNull(fromOtherThread[0]);
+    Assert.assertNotSame(foo, fromOtherThread[0]);
+    Assert.assertEquals(1, pool1.getNumAffinityHits());
+
+    Assert.assertNotNull(pool1.getResource(100));
+    Assert.assertNull(pool1.getResource(100));
+    Assert.assertEquals(1, pool1.getNumWaits());
+    Assert.assertTrue(pool1.getTotalWaitTimeNanos() >= 100000000L);
+
+    pool1.resetStatistics();
+    Assert.assertEquals(0, pool1.getNumCheckouts());
+    Assert.assertEquals(0, pool1.getNumWaits());
+    Assert.assertEquals(3, pool1.getPeakInUse());
+  }
+
   public void testGetMetaData() throws Exception {
     try {
       ResourceMetaData descMetaData = mDesc.getMetaData();
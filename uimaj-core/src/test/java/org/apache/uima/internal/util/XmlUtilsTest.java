@@ -19,8 +19,16 @@
 
 package org.apache.uima.internal.util;
 
+import java.io.IOException;
+import java.io.StringReader;
+
 import junit.framework.TestCase;
 
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
 /**
  * Test XML utilities.
  */
@@ -60,4 +68,29 @@ public class XmlUtilsTest extends TestCase {
     assertTrue(XMLUtils.checkForNonXmlCharacters(new String(new char [] { 0xDC00, 0xD800})) == 0);
   }
 
+
+  public void testParseReusesReaderAndAllowsNesting() throws Exception {
+    final StringBuilder events = new StringBuilder();
+    final DefaultHandler inner = new DefaultHandler() {
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        events.append(qName).append(' ');
+      }
+    };
+    DefaultHandler outer = new DefaultHandler() {
+      public void startElement(String uri, String localName, String qName, Attributes attributes)
+              throws SAXException {
+        events.append(qName).append(' ');
+        if (qName.equals("a")) {
+          try {
+            XMLUtils.parse(new InputSource(new StringReader("<nested/>")), inner);
+          } catch (IOException e) {
+            throw new SAXException(e);
+          }
+        }
+      }
+    };
+    XMLUtils.parse(new InputSource(new StringReader("<a><b/></a>")), outer);
+    XMLUtils.parse(new InputSource(new StringReader("<c/>")), inner);
+    assertEquals("a nested b c ", events.toString());
+  }
 }
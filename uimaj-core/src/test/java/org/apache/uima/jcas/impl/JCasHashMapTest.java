@@ -293,6 +293,49 @@ public class JCasHashMapTest extends TestCase {
     
     MultiThreadUtils.terminateThreads(threads);
   }
+
+  public void testPutIfAbsent() throws Exception {
+    JCasHashMap m = new JCasHashMap(32, true);
+    for (int i = 0; i < SIZE; i++) {
+      assertNull(m.putIfAbsent(new TOP(addrs[i], FAKE_TOP_TYPE_INSTANCE)));
+    }
+    assertEquals(SIZE, m.getApproximateSize());
+    for (int i = 0; i < SIZE; i++) {
+      final FeatureStructureImpl fs = m.get(addrs[i]);
+      assertEquals(addrs[i], fs.getAddress());
+      assertSame(fs, m.putIfAbsent(new TOP(addrs[i], FAKE_TOP_TYPE_INSTANCE)));
+      // put replaces
+      final TOP fs2 = new TOP(addrs[i], FAKE_TOP_TYPE_INSTANCE);
+      assertSame(fs, m.put(fs2));
+      assertSame(fs2, m.get(addrs[i]));
+    }
+    assertEquals(SIZE, m.getApproximateSize());
+    assertNull(m.get(0x7fffffff));
+
+    // a reserved key is not found by get, and putIfAbsent waits for the put
+    final JCasHashMap m2 = new JCasHashMap(32, true);
+    final int key = addrs[0];
+    assertNull(m2.getReserve(key));
+    assertNull(m2.get(key));
+    final FeatureStructureImpl[] fromOtherThread = new FeatureStructureImpl[1];
+    Thread t = new Thread() {
+      public void run() {
+        fromOtherThread[0] = m2.putIfAbsent(new TOP(key, FAKE_TOP_TYPE_INSTANCE));
+      }
+    };
+    t.start();
+    t.join(20);
+    assertTrue(t.isAlive());
+    final TOP fs = new TOP(key, FAKE_TOP_TYPE_INSTANCE);
+    assertNull(m2.put(fs));
+    t.join();
+    assertSame(fs, fromOtherThread[0]);
+    assertSame(fs, m2.getReserve(key));
+
+    JCasHashMap noCache = new JCasHashMap(32, false);
+    assertNull(noCache.putIfAbsent(new TOP(addrs[0], FAKE_TOP_TYPE_INSTANCE)));
+    assertNull(noCache.get(addrs[0]));
+  }
   
 
   
@@ -449,6 +492,32 @@ public class JCasHashMapTest extends TestCase {
     return sb.toString();
   }
   
+  public void testClearKeepingCapacity() {
+    JCasHashMap m = new JCasHashMap(64, true);
+    // many entries: the map grows, and clearing empties the whole tables
+    fill(SIZE, m);
+    final int capacity = m.getCapacity();
+    m.clear(true);
+    assertEquals(0, m.getApproximateSize());
+    assertEquals(capacity, m.getCapacity());
+    for (int i = 0; i < SIZE; i++) {
+      assertNull(m.get(addrs[i]));
+    }
+    // few entries: clearing empties just their slots
+    for (int n = 0; n < 3; n++) {
+      fill(100, m);
+      for (int i = 0; i < 100; i++) {
+        assertEquals(addrs[i], m.get(addrs[i]).getAddress());
+      }
+      m.clear(true);
+      assertEquals(0, m.getApproximateSize());
+      assertEquals(capacity, m.getCapacity());
+      for (int i = 0; i < SIZE; i++) {
+        assertNull(m.get(addrs[i]));
+      }
+    }
+  }
+
   private String intList(FeatureStructureImpl[] a) {
     StringBuilder sb = new StringBuilder();
     for (FeatureStructureImpl i : a) {
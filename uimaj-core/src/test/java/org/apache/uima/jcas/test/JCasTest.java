@@ -64,6 +64,7 @@ import org.apache.uima.jcas.cas.StringArray;
 import org.apache.uima.jcas.cas.StringList;
 import org.apache.uima.jcas.cas.TOP;
 import org.apache.uima.jcas.cas.TOP_Type;
+import org.apache.uima.jcas.impl.JCasImpl;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.jcas.tcas.Annotation_Type;
 import org.apache.uima.resource.metadata.impl.TypeSystemDescription_impl;
@@ -591,6 +592,30 @@ public class JCasTest extends TestCase {
 		}
 	}
 
+	public void testCoverObjectsNotCached() throws Exception {
+		LowLevelCAS llc = jcas.getLowLevelCas();
+		int addr = llc.ll_createFS(llc.ll_getTypeSystem().ll_getCodeForTypeName("x.y.z.Token"));
+		boolean wasCaching = JCasImpl.setCacheCoverObjectsInThread(false);
+		try {
+			assertTrue(wasCaching);
+			Token t1 = llc.ll_getFSForRef(addr);
+			Token t2 = llc.ll_getFSForRef(addr);
+			assertNotSame(t1, t2);
+			assertEquals(addr, t2.getAddress());
+		} finally {
+			JCasImpl.setCacheCoverObjectsInThread(wasCaching);
+		}
+		Token t3 = llc.ll_getFSForRef(addr);
+		assertSame(t3, llc.ll_getFSForRef(addr));
+		// cover objects already cached are used
+		JCasImpl.setCacheCoverObjectsInThread(false);
+		try {
+			assertSame(t3, llc.ll_getFSForRef(addr));
+		} finally {
+			JCasImpl.setCacheCoverObjectsInThread(true);
+		}
+	}
+
 	private static final boolean doJava7test = false; // disabled because may be dependent on java vendor etc.
   public void testSubiterator() throws Exception {
     for (int i = 0; i < 5; i++) {   // tokens: 0,1,  1,3   2,5,  3,7  4,9
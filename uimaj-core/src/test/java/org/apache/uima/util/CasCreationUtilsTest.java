@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.junit.Assert;
 import junit.framework.TestCase;
@@ -31,6 +32,7 @@ import junit.framework.TestCase;
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIndex;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
@@ -547,6 +549,127 @@ public class CasCreationUtilsTest extends TestCase {
     }
   }
 
+  public void testIntervalIndexKind() throws Exception {
+    TypeSystemDescription tsd = new TypeSystemDescription_impl();
+    tsd.addType("test.Span", "", "uima.tcas.Annotation");
+    tsd.addType("test.Foo", "", "uima.cas.TOP");
+
+    FsIndexCollection indexes = new FsIndexCollection_impl();
+    FsIndexDescription index = new FsIndexDescription_impl();
+    index.setLabel("Spans");
+    index.setTypeName("test.Span");
+    index.setKind(FsIndexDescription.KIND_INTERVAL);
+    indexes.addFsIndex(index);
+
+    CAS cas = CasCreationUtils.createCas(tsd, null, indexes.getFsIndexes());
+    Type spanType = cas.getTypeSystem().getType("test.Span");
+    cas.setDocumentText("0123456789");
+    cas.addFsToIndexes(cas.createAnnotation(spanType, 2, 5));
+    cas.addFsToIndexes(cas.createAnnotation(spanType, 2, 8));
+    cas.addFsToIndexes(cas.createAnnotation(spanType, 6, 7));
+
+    // sorted with the default annotation keys: begin, then end reversed
+    FSIterator<AnnotationFS> it = cas.getIndexRepository().<AnnotationFS>getIndex("Spans").iterator();
+    assertEquals(8, it.next().getEnd());
+    assertEquals(5, it.next().getEnd());
+    assertEquals(7, it.next().getEnd());
+    assertFalse(it.hasNext());
+
+    // an interval index must be over annotations
+    index.setTypeName("test.Foo");
+    try {
+      CasCreationUtils.createCas(tsd, null, indexes.getFsIndexes());
+      fail();
+    } catch (ResourceInitializationException e) {
+      assertEquals(ResourceInitializationException.INVALID_INTERVAL_INDEX, e.getMessageKey());
+    }
+  }
+
+  public void testCasTemplateCache() throws Exception {
+    TypeSystemDescription tsd = new TypeSystemDescription_impl();
+    tsd.addType("test.Span", "", "uima.tcas.Annotation");
+    tsd.addType("test.SubSpan", "", "test.Span");
+
+    TypePriorities priorities = new TypePriorities_impl();
+    TypePriorityList priorityList = priorities.addPriorityList();
+    priorityList.addType("test.SubSpan");
+    priorityList.addType("test.Span");
+
+    FsIndexCollection indexes = new FsIndexCollection_impl();
+    FsIndexDescription index = new FsIndexDescription_impl();
+    index.setLabel("Spans");
+    index.setTypeName("test.Span");
+    index.setKind(FsIndexDescription.KIND_SET);
+    indexes.addFsIndex(index);
+
+    // the cache is off by default
+    CasCreationUtils.clearCasTemplateCache();
+    CAS cas0 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes());
+    assertNotSame(cas0.getTypeSystem(),
+        CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes()).getTypeSystem());
+
+    Properties cacheEnabled = new Properties();
+    cacheEnabled.setProperty(UIMAFramework.CAS_TEMPLATE_CACHE_ENABLED, "true");
+    CAS cas1 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes(), cacheEnabled);
+    CAS cas2 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes(), cacheEnabled);
+    // equal descriptions: the second CAS shares the type system, and has the same indexes
+    assertSame(cas1.getTypeSystem(), cas2.getTypeSystem());
+    for (CAS cas : new CAS[] {cas1, cas2}) {
+      Type spanType = cas.getTypeSystem().getType("test.Span");
+      Type subSpanType = cas.getTypeSystem().getType("test.SubSpan");
+      cas.setDocumentText("0123456789");
+      cas.addFsToIndexes(cas.createAnnotation(spanType, 2, 5));
+      cas.addFsToIndexes(cas.createAnnotation(subSpanType, 2, 5));
+      cas.addFsToIndexes(cas.createAnnotation(spanType, 2, 5));
+      assertEquals(2, cas.getIndexRepository().getIndex("Spans").size());
+      // the type priorities order the annotation index
+      FSIterator<AnnotationFS> it = cas.getAnnotationIndex(spanType).iterator();
+      assertEquals(subSpanType, it.next().getType());
+      assertEquals(spanType, it.next().getType());
+    }
+
+    // the same type system, reused as a CasPool does
+    CAS cas3 = CasCreationUtils.createCas(cas1.getTypeSystem(), priorities, indexes.getFsIndexes(), cacheEnabled);
+    CAS cas4 = CasCreationUtils.createCas(cas1.getTypeSystem(), priorities, indexes.getFsIndexes(), cacheEnabled);
+    assertSame(cas1.getTypeSystem(), cas4.getTypeSystem());
+    assertNotNull(cas3.getIndexRepository().getIndex("Spans"));
+    assertNotNull(cas4.getIndexRepository().getIndex("Spans"));
+
+    // changed descriptions are set up again
+    tsd.addType("test.Other", "", "uima.cas.TOP");
+    CAS cas5 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes(), cacheEnabled);
+    assertNotSame(cas1.getTypeSystem(), cas5.getTypeSystem());
+    assertNotNull(cas5.getTypeSystem().getType("test.Other"));
+    index.setKind(FsIndexDescription.KIND_BAG);
+    CAS cas6 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes(), cacheEnabled);
+    assertNotSame(cas5.getTypeSystem(), cas6.getTypeSystem());
+    assertEquals(FSIndex.BAG_INDEX, cas6.getIndexRepository().getIndex("Spans").getIndexingStrategy());
+
+    CasCreationUtils.clearCasTemplateCache();
+    CAS cas7 = CasCreationUtils.createCas(tsd, priorities, indexes.getFsIndexes(), cacheEnabled);
+    assertNotSame(cas6.getTypeSystem(), cas7.getTypeSystem());
+
+    // equal descriptions in different directories, importing different files by the same location
+    TypeSystemDescription tsd1 = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+        new XMLInputSource(JUnitExtension.getFile("CasCreationUtilsTest/TemplateCache1/TypeSystem.xml")));
+    TypeSystemDescription tsd2 = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+        new XMLInputSource(JUnitExtension.getFile("CasCreationUtilsTest/TemplateCache2/TypeSystem.xml")));
+    assertEquals(tsd1, tsd2);
+    CAS cas8 = CasCreationUtils.createCas(tsd1, null, null, cacheEnabled);
+    CAS cas9 = CasCreationUtils.createCas(tsd2, null, null, cacheEnabled);
+    assertNotNull(cas8.getTypeSystem().getType("test.Imported1"));
+    assertNotNull(cas9.getTypeSystem().getType("test.Imported2"));
+    // the same description object again: its imports were resolved in a copy, so it still
+    // equals the cache key
+    assertEquals(tsd2, tsd1);
+    assertEquals(1, tsd1.getImports().length);
+    assertSame(cas8.getTypeSystem(), CasCreationUtils.createCas(tsd1, null, null, cacheEnabled).getTypeSystem());
+    // the same file again
+    TypeSystemDescription tsd1Again = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+        new XMLInputSource(JUnitExtension.getFile("CasCreationUtilsTest/TemplateCache1/TypeSystem.xml")));
+    assertSame(cas8.getTypeSystem(), CasCreationUtils.createCas(tsd1Again, null, null, cacheEnabled).getTypeSystem());
+  }
+
   public void testCreateCasTypeSystemDescription() throws Exception {
     try {
       //parse type system description